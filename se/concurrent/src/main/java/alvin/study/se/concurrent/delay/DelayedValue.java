@@ -32,6 +32,9 @@ public class DelayedValue<T> implements Delayed {
     // 该队列元素的延迟时间
     private final long delayMillis;
 
+    // 该队列元素的到期时间点, 单位纳秒, 和 System.nanoTime() 使用相同的时间源
+    private final long deadlineNanos;
+
     /**
      * 构造器, 设定元素值和延迟时间
      *
@@ -45,6 +48,8 @@ public class DelayedValue<T> implements Delayed {
         this.createdAt = Instant.now();
         // 记录要延迟时间的毫秒数
         this.delayMillis = unit.toMillis(delay);
+        // 记录到期的时间点, 只计算一次, 之后的比较无需再获取当前时间
+        this.deadlineNanos = System.nanoTime() + unit.toNanos(delay);
     }
 
     /**
@@ -59,19 +64,17 @@ public class DelayedValue<T> implements Delayed {
         if (this == o) {
             return 0;
         }
-        return Long.compare(getDelay(TimeUnit.MILLISECONDS), o.getDelay(TimeUnit.MILLISECONDS));
+        // 同类型元素直接比较到期时间点, 结果稳定且不受两次获取当前时间的时间差影响
+        if (o instanceof DelayedValue<?> other) {
+            return Long.compare(deadlineNanos - other.deadlineNanos, 0);
+        }
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
     }
 
     @Override
     public long getDelay(TimeUnit unit) {
-        // 计算要延迟到的时间毫秒值
-        var delayedTo = createdAt.toEpochMilli() + delayMillis;
-
-        // 计算当前时间毫秒值
-        var now = Instant.now().toEpochMilli();
-
         // 返回剩余的延迟时间
-        return unit.convert(delayedTo - now, TimeUnit.MILLISECONDS);
+        return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
     }
 
     @Override
@@ -0,0 +1,514 @@
+package alvin.study.se.concurrent.delay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * 分层时间轮 (Hierarchical Timing Wheel)
+ *
+ * <p>
+ * {@link java.util.concurrent.DelayQueue DelayQueue} 通过二叉堆保存元素, 添加和取出元素的时间复杂度为 {@code O(log n)},
+ * 且每次比较都需要调用元素的 {@link java.util.concurrent.Delayed#getDelay(TimeUnit) getDelay} 方法, 当需要同时保存数百万个定时任务
+ * (例如会话超时, 缓存过期) 时开销较大. 时间轮的原理如下:
+ * <ol>
+ * <li>
+ * 将时间划分为固定长度的"刻度" (tick), 第 0 层时间轮是一个长度为 {@code wheelSize} 的环形数组, 每个槽位对应一个刻度,
+ * 保存在该刻度到期的所有定时任务 (双向链表);
+ * </li>
+ * <li>
+ * 到期时间超出第 0 层范围的定时任务, 保存在第 1 层时间轮中, 第 1 层的每个槽位对应第 0 层转一圈的时间, 以此类推, 高层时间轮在需要时才创建;
+ * </li>
+ * <li>
+ * 时间每前进一个刻度, 取出第 0 层对应槽位中的所有任务, 这些任务即为到期的任务; 当第 0 层转完一圈时, 将第 1 层对应槽位中的任务重新放入
+ * (降级到) 低层时间轮, 高层时间轮同理
+ * </li>
+ * </ol>
+ * 添加和取消定时任务的时间复杂度均为 {@code O(1)}, 推进时间的开销与到期的任务数量成正比, 和定时任务的总数无关
+ * </p>
+ *
+ * <p>
+ * 定时任务的到期时间精度为一个刻度, 任务只会延后到期, 不会提前到期; 同一刻度内到期的任务不保证先后顺序
+ * </p>
+ *
+ * <p>
+ * 时间轮通过 {@link #advance()} 方法推进时间, 并批量返回到期的任务; 也可以通过 {@link #start(Consumer)} 方法启动一个后台线程,
+ * 每个刻度自动推进一次, 并将到期的任务批量回调给指定的监听器
+ * </p>
+ *
+ * @param <T> 定时任务关联的值类型
+ */
+public class HashedTimingWheel<T> implements AutoCloseable {
+    // 每个刻度的时间长度, 单位纳秒
+    private final long tickNanos;
+    // 每层时间轮的槽位数量的位数, 即 wheelSize = 2^wheelBits
+    private final int wheelBits;
+    // 计算槽位下标的掩码
+    private final int mask;
+    // 获取当前时间的时钟, 单位纳秒
+    private final LongSupplier clock;
+    // 时间轮的起始时间, 单位纳秒
+    private final long startNanos;
+
+    // 各层时间轮, 每层为一个槽位数组
+    private final List<Bucket<T>[]> wheels = new ArrayList<>();
+
+    // 已处理到的刻度
+    private long currentTick;
+    // 尚未到期且未取消的定时任务数量
+    private int size;
+
+    // 后台推进时间的线程
+    private volatile Thread worker;
+
+    /**
+     * 构造器, 创建时间轮对象
+     *
+     * @param tick      每个刻度的时间长度
+     * @param unit      {@code tick} 参数的时间单位
+     * @param wheelSize 每层时间轮的槽位数量, 会被向上调整为 2 的幂
+     */
+    public HashedTimingWheel(long tick, TimeUnit unit, int wheelSize) {
+        this(tick, unit, wheelSize, System::nanoTime);
+    }
+
+    /**
+     * 构造器, 创建时间轮对象
+     *
+     * @param tick      每个刻度的时间长度
+     * @param unit      {@code tick} 参数的时间单位
+     * @param wheelSize 每层时间轮的槽位数量, 会被向上调整为 2 的幂
+     * @param clock     获取当前时间的时钟, 单位纳秒, 和 {@link System#nanoTime()} 的含义一致
+     */
+    public HashedTimingWheel(long tick, TimeUnit unit, int wheelSize, LongSupplier clock) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("tick must large than 0");
+        }
+        if (wheelSize <= 1 || wheelSize > 1 << 16) {
+            throw new IllegalArgumentException("wheelSize must between 2 and 65536");
+        }
+
+        this.tickNanos = unit.toNanos(tick);
+        this.wheelBits = Integer.SIZE - Integer.numberOfLeadingZeros(wheelSize - 1);
+        this.mask = (1 << wheelBits) - 1;
+        this.clock = clock;
+        this.startNanos = clock.getAsLong();
+
+        // 创建第 0 层时间轮
+        wheels.add(newWheel());
+    }
+
+    /**
+     * 添加定时任务
+     *
+     * @param value 定时任务关联的值
+     * @param delay 延迟时间
+     * @param unit  延迟时间的单位
+     * @return 定时任务对象, 可用于取消定时任务
+     */
+    public Timeout<T> schedule(T value, long delay, TimeUnit unit) {
+        // 计算到期的刻度, 向上取整, 保证不会提前到期
+        var deadlineNanos = clock.getAsLong() - startNanos + Math.max(0, unit.toNanos(delay));
+        var deadline = Math.ceilDiv(deadlineNanos, tickNanos);
+
+        var timeout = new Timeout<>(this, value, deadline);
+        synchronized (this) {
+            // 已经到期的任务, 在下一个刻度处理
+            insert(timeout, currentTick + 1);
+            size++;
+        }
+        return timeout;
+    }
+
+    /**
+     * 将时间推进到当前时间, 返回期间到期的定时任务关联的值
+     *
+     * @return 到期的定时任务关联的值, 没有任务到期时返回空列表
+     */
+    public List<T> advance() {
+        var nowTick = (clock.getAsLong() - startNanos) / tickNanos;
+
+        var expired = new ArrayList<T>();
+        synchronized (this) {
+            while (currentTick < nowTick) {
+                tick(++currentTick, expired);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * 获取尚未到期且未取消的定时任务数量
+     *
+     * @return 定时任务数量
+     */
+    public synchronized int size() { return size; }
+
+    /**
+     * 获取距离下一个刻度的时间, 即距离下一次调用 {@link #advance()} 有可能返回到期任务的时间
+     *
+     * @return 时间间隔, 单位纳秒, 如果已经到达下一个刻度, 则返回 {@code 0}
+     */
+    public long nanosToNextTick() {
+        long next;
+        synchronized (this) {
+            next = startNanos + (currentTick + 1) * tickNanos;
+        }
+        return Math.max(0, next - clock.getAsLong());
+    }
+
+    /**
+     * 获取距离下一个可能有任务到期的刻度的时间
+     *
+     * <p>
+     * 在第 0 层时间轮中查找下一个非空的槽位; 如果第 0 层在转完当前一圈之前没有任务, 则返回距离这一圈结束的时间,
+     * 届时高层时间轮的任务可能会降级到第 0 层, 需要重新计算. 和 {@link #nanosToNextTick()} 相比, 等待该时间后再调用
+     * {@link #advance()} 方法, 可以避免在没有任务到期的刻度上空转
+     * </p>
+     *
+     * <p>
+     * 该方法需要遍历第 0 层时间轮, 时间复杂度为 {@code O(wheelSize)}
+     * </p>
+     *
+     * @return 时间间隔, 单位纳秒, 如果已经到达该刻度, 则返回 {@code 0}; 如果没有任何定时任务, 则返回 {@code -1}
+     */
+    public long nanosToNextExpiration() {
+        long next;
+        synchronized (this) {
+            if (size == 0) {
+                return -1;
+            }
+
+            // 第 0 层转完当前一圈的刻度, 此时会从高层时间轮降级任务
+            var boundary = (currentTick | mask) + 1;
+
+            var nextTick = boundary;
+            var wheel = wheels.get(0);
+            for (var tick = currentTick + 1; tick < boundary; tick++) {
+                if (wheel[(int) tick & mask].head != null) {
+                    nextTick = tick;
+                    break;
+                }
+            }
+            next = startNanos + nextTick * tickNanos;
+        }
+        return Math.max(0, next - clock.getAsLong());
+    }
+
+    /**
+     * 取消第一个关联的值符合条件的定时任务
+     *
+     * <p>
+     * 该方法需要遍历所有定时任务, 时间复杂度为 {@code O(n)}, 如果持有 {@link Timeout} 对象, 应使用 {@link Timeout#cancel()} 方法
+     * </p>
+     *
+     * @param predicate 判断条件
+     * @return 是否取消了定时任务
+     */
+    public synchronized boolean cancelFirst(Predicate<? super T> predicate) {
+        for (var wheel : wheels) {
+            for (var bucket : wheel) {
+                for (var t = bucket.head; t != null; t = t.next) {
+                    if (predicate.test(t.value)) {
+                        return t.cancel();
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取所有尚未到期且未取消的定时任务关联的值
+     *
+     * @return 值列表, 不保证顺序
+     */
+    public synchronized List<T> values() {
+        var values = new ArrayList<T>(size);
+        for (var wheel : wheels) {
+            for (var bucket : wheel) {
+                for (var t = bucket.head; t != null; t = t.next) {
+                    values.add(t.value);
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 启动后台线程, 每个刻度推进一次时间, 并将到期的任务批量回调给监听器
+     *
+     * <p>
+     * 监听器在后台线程中执行, 应尽快返回, 耗时的处理应提交给其它线程池执行, 以免影响后续任务的到期时间
+     * </p>
+     *
+     * @param listener 到期任务的监听器, 参数为一个刻度内到期的所有任务关联的值
+     */
+    public synchronized void start(Consumer<? super List<T>> listener) {
+        if (worker != null) {
+            throw new IllegalStateException("timing wheel has been started");
+        }
+
+        worker = Thread.ofPlatform().name("timing-wheel").daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                var expired = advance();
+                if (!expired.isEmpty()) {
+                    listener.accept(expired);
+                }
+
+                // 休眠到下一个刻度
+                var wait = nanosToNextTick();
+                if (wait > 0) {
+                    LockSupport.parkNanos(this, wait);
+                }
+            }
+        });
+    }
+
+    /**
+     * 停止后台线程
+     */
+    @Override
+    public void close() {
+        var thread = worker;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * 处理一个刻度
+     *
+     * @param tick    要处理的刻度
+     * @param expired 保存到期任务关联的值的列表
+     */
+    private void tick(long tick, List<T> expired) {
+        // 低层时间轮转完一圈时, 将高层时间轮对应槽位中的任务降级到低层时间轮
+        for (var level = 1; level < wheels.size(); level++) {
+            var shift = wheelBits * level;
+            if ((tick & ((1L << shift) - 1)) != 0) {
+                break;
+            }
+
+            var bucket = wheels.get(level)[(int) (tick >>> shift) & mask];
+            for (var t = bucket.clear(); t != null;) {
+                var next = t.next;
+                t.next = null;
+                insert(t, tick);
+                t = next;
+            }
+        }
+
+        // 取出第 0 层对应槽位中的任务, 即为到期的任务
+        var bucket = wheels.get(0)[(int) tick & mask];
+        for (var t = bucket.clear(); t != null;) {
+            var next = t.next;
+            t.next = null;
+            t.state = Timeout.EXPIRED;
+            expired.add(t.value);
+            size--;
+            t = next;
+        }
+    }
+
+    /**
+     * 将定时任务放入对应的时间轮槽位中
+     *
+     * @param timeout 定时任务
+     * @param minTick 允许的最小到期刻度, 到期刻度小于该值的任务在该刻度到期
+     */
+    private void insert(Timeout<T> timeout, long minTick) {
+        var deadline = Math.max(timeout.deadline, minTick);
+        var delta = deadline - currentTick;
+
+        // 根据距离到期的刻度数, 计算任务所在的层, 第 n 层可以容纳 2^(wheelBits * (n + 1)) 个刻度内到期的任务
+        var level = delta == 0 ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(delta)) / wheelBits;
+        while (wheels.size() <= level) {
+            wheels.add(newWheel());
+        }
+
+        wheels.get(level)[(int) (deadline >>> (wheelBits * level)) & mask].add(timeout);
+    }
+
+    /**
+     * 创建一层时间轮
+     *
+     * @return 槽位数组
+     */
+    @SuppressWarnings("unchecked")
+    private Bucket<T>[] newWheel() {
+        var wheel = (Bucket<T>[]) new Bucket[mask + 1];
+        for (var i = 0; i < wheel.length; i++) {
+            wheel[i] = new Bucket<>();
+        }
+        return wheel;
+    }
+
+    /**
+     * 定时任务
+     *
+     * <p>
+     * 定时任务同时也是时间轮槽位中双向链表的节点, 所以可以在 {@code O(1)} 时间内从时间轮中移除
+     * </p>
+     *
+     * @param <T> 定时任务关联的值类型
+     */
+    public static final class Timeout<T> {
+        // 定时任务的状态
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+
+        // 定时任务所属的时间轮
+        private final HashedTimingWheel<T> wheel;
+        // 定时任务关联的值
+        private final T value;
+        // 到期的刻度
+        private final long deadline;
+
+        // 所在的槽位, 以及链表中的前后节点
+        private Bucket<T> bucket;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        // 定时任务的状态
+        private int state = PENDING;
+
+        /**
+         * 构造器, 创建定时任务
+         *
+         * @param wheel    定时任务所属的时间轮
+         * @param value    定时任务关联的值
+         * @param deadline 到期的刻度
+         */
+        private Timeout(HashedTimingWheel<T> wheel, T value, long deadline) {
+            this.wheel = wheel;
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 获取定时任务关联的值
+         *
+         * @return 定时任务关联的值
+         */
+        public T value() {
+            return value;
+        }
+
+        /**
+         * 取消定时任务
+         *
+         * @return 如果定时任务尚未到期且未被取消, 则取消成功, 返回 {@code true}
+         */
+        public boolean cancel() {
+            synchronized (wheel) {
+                if (state != PENDING) {
+                    return false;
+                }
+
+                state = CANCELLED;
+                bucket.remove(this);
+                wheel.size--;
+                return true;
+            }
+        }
+
+        /**
+         * 判断定时任务是否已经到期
+         *
+         * @return 是否已经到期
+         */
+        public boolean isExpired() {
+            synchronized (wheel) {
+                return state == EXPIRED;
+            }
+        }
+
+        /**
+         * 判断定时任务是否已经被取消
+         *
+         * @return 是否已经被取消
+         */
+        public boolean isCancelled() {
+            synchronized (wheel) {
+                return state == CANCELLED;
+            }
+        }
+    }
+
+    /**
+     * 时间轮的槽位, 保存定时任务的双向链表
+     *
+     * @param <T> 定时任务关联的值类型
+     */
+    private static final class Bucket<T> {
+        // 链表的头节点和尾节点
+        private @Nullable Timeout<T> head;
+        private @Nullable Timeout<T> tail;
+
+        /**
+         * 在链表尾部添加定时任务
+         *
+         * @param timeout 定时任务
+         */
+        void add(Timeout<T> timeout) {
+            timeout.bucket = this;
+            timeout.prev = tail;
+            timeout.next = null;
+
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        /**
+         * 从链表中移除定时任务
+         *
+         * @param timeout 定时任务
+         */
+        void remove(Timeout<T> timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        /**
+         * 清空链表
+         *
+         * @return 原链表的头节点, 可通过 {@code next} 字段遍历原链表
+         */
+        @Nullable
+        Timeout<T> clear() {
+            var first = head;
+            for (var t = first; t != null; t = t.next) {
+                t.bucket = null;
+                t.prev = null;
+            }
+            head = null;
+            tail = null;
+            return first;
+        }
+    }
+}
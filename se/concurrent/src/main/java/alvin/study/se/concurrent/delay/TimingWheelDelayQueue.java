@@ -0,0 +1,307 @@
+package alvin.study.se.concurrent.delay;
+
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * 基于 {@link HashedTimingWheel} 的延时队列, 和 {@link java.util.concurrent.DelayQueue DelayQueue} 的用法一致
+ *
+ * <p>
+ * 和 {@link java.util.concurrent.DelayQueue DelayQueue} 的区别在于:
+ * <ul>
+ * <li>
+ * 元素的 {@link Delayed#getDelay(TimeUnit)} 方法只在入队时调用一次, 之后不再调用 {@link Delayed#getDelay(TimeUnit)} 和
+ * {@link Delayed#compareTo(Object)} 方法;
+ * </li>
+ * <li>
+ * 入队的时间复杂度为 {@code O(1)}, 适合同时保存大量元素;
+ * </li>
+ * <li>
+ * 元素的到期时间精度为时间轮的一个刻度, 元素最多延后一个刻度出队, 同一刻度内到期的元素不保证出队的先后顺序
+ * (元素从高层时间轮降级时不保持入队的顺序)
+ * </li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * 队列不需要后台线程, 由调用出队方法 (例如 {@link #poll()}, {@link #take()}) 的线程推进时间轮. 等待出队的线程只在下一个可能有元素到期的刻度醒来,
+ * 队列为空时则一直等待, 直到有新元素入队
+ * </p>
+ *
+ * @param <E> 队列元素类型
+ */
+public class TimingWheelDelayQueue<E extends Delayed> extends AbstractQueue<E> implements BlockingQueue<E> {
+    // 保存未到期元素的时间轮
+    private final HashedTimingWheel<E> wheel;
+    // 已到期但尚未出队的元素
+    private final ArrayDeque<E> ready = new ArrayDeque<>();
+
+    // 保证队列操作线程安全的锁
+    private final ReentrantLock lock = new ReentrantLock();
+    // 用于通知等待出队的线程
+    private final Condition available = lock.newCondition();
+
+    /**
+     * 构造器, 使用刻度为 {@code 1ms}, 每层 {@code 512} 个槽位的时间轮创建队列
+     */
+    public TimingWheelDelayQueue() {
+        this(new HashedTimingWheel<>(1, TimeUnit.MILLISECONDS, 512));
+    }
+
+    /**
+     * 构造器, 使用指定的时间轮创建队列
+     *
+     * @param wheel 保存未到期元素的时间轮, 不应再用于其它用途
+     */
+    public TimingWheelDelayQueue(HashedTimingWheel<E> wheel) {
+        this.wheel = wheel;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+
+        lock.lock();
+        try {
+            wheel.schedule(e, e.getDelay(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            // 唤醒等待的线程, 令其按新的元素重新计算等待时间
+            available.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(E e) {
+        offer(e);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) {
+        return offer(e);
+    }
+
+    /**
+     * 获取一个到期的元素, 不进行等待
+     *
+     * @return 到期的元素, 没有到期的元素时返回 {@code null}
+     */
+    @Override
+    public @Nullable E poll() {
+        lock.lock();
+        try {
+            return pollReady();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            E e;
+            while ((e = pollReady()) == null) {
+                var wait = waitNanos();
+                if (wait < 0) {
+                    // 队列为空, 等待新元素入队
+                    available.await();
+                } else {
+                    // 等待到下一个可能有元素到期的刻度, 或有新元素入队
+                    available.awaitNanos(wait);
+                }
+            }
+            return e;
+        } finally {
+            signalIfReady();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public @Nullable E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        var remaining = unit.toNanos(timeout);
+
+        lock.lockInterruptibly();
+        try {
+            E e;
+            while ((e = pollReady()) == null) {
+                if (remaining <= 0) {
+                    return null;
+                }
+                var next = waitNanos();
+                var wait = next < 0 ? remaining : Math.min(remaining, next);
+                remaining -= wait - available.awaitNanos(wait);
+            }
+            return e;
+        } finally {
+            signalIfReady();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取一个到期的元素但不出队
+     *
+     * <p>
+     * 注意: 和 {@link java.util.concurrent.DelayQueue#peek() DelayQueue.peek()} 不同, 本方法只返回已到期的元素
+     * </p>
+     *
+     * @return 到期的元素, 没有到期的元素时返回 {@code null}
+     */
+    @Override
+    public @Nullable E peek() {
+        lock.lock();
+        try {
+            advance();
+            return ready.peek();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return ready.size() + wheel.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.lock();
+        try {
+            return ready.remove(o) || wheel.cancelFirst(e -> e.equals(o));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException("cannot drain to self");
+        }
+
+        lock.lock();
+        try {
+            advance();
+
+            var n = 0;
+            for (E e; n < maxElements && (e = ready.poll()) != null; n++) {
+                c.add(e);
+            }
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取队列中所有元素的迭代器
+     *
+     * <p>
+     * 迭代器基于调用时的快照, 不保证元素的顺序, 通过迭代器删除元素的时间复杂度为 {@code O(n)}
+     * </p>
+     */
+    @Override
+    public Iterator<E> iterator() {
+        ArrayList<E> snapshot;
+
+        lock.lock();
+        try {
+            snapshot = new ArrayList<>(ready);
+            snapshot.addAll(wheel.values());
+        } finally {
+            lock.unlock();
+        }
+
+        var it = snapshot.iterator();
+        return new Iterator<>() {
+            private E last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return last = it.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                TimingWheelDelayQueue.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * 推进时间轮, 并取出一个到期的元素
+     *
+     * @return 到期的元素, 没有到期的元素时返回 {@code null}
+     */
+    private @Nullable E pollReady() {
+        if (ready.isEmpty()) {
+            advance();
+        }
+        return ready.poll();
+    }
+
+    /**
+     * 推进时间轮, 将到期的元素加入到已到期元素队列中
+     */
+    private void advance() {
+        ready.addAll(wheel.advance());
+    }
+
+    /**
+     * 计算距离下一个可能有元素到期的刻度的时间
+     *
+     * @return 等待时间, 单位纳秒, 至少为 {@code 1}; 时间轮中没有元素时返回 {@code -1}
+     */
+    private long waitNanos() {
+        var nanos = wheel.nanosToNextExpiration();
+        return nanos < 0 ? -1 : Math.max(1, nanos);
+    }
+
+    /**
+     * 如果仍有到期的元素, 则唤醒下一个等待的线程
+     */
+    private void signalIfReady() {
+        if (!ready.isEmpty()) {
+            available.signal();
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package alvin.study.se.concurrent.service;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * 提供多种计算策略的斐波那契数列计算服务
+ *
+ * <p>
+ * {@link Fibonacci#calculate(int)} 是最朴素的递归实现, 时间复杂度为 {@code O(φ^n)}, 适合作为测试中的 CPU 负载, 本类型提供以下可互换的计算策略,
+ * 参见 {@link Strategy}:
+ * <ul>
+ * <li>
+ * {@link Strategy#RECURSIVE}: 朴素递归, 和 {@link Fibonacci#calculate(int)} 相同, 结果为 {@code long} 类型;
+ * </li>
+ * <li>
+ * {@link Strategy#FORK_JOIN}: 将朴素递归拆分为 {@link RecursiveTask} 任务, 在 {@link ForkJoinPool} 中并行计算, 当 {@code n}
+ * 小于等于阈值时不再拆分, 直接顺序计算, 以免任务拆分的开销超过计算本身;
+ * </li>
+ * <li>
+ * {@link Strategy#MEMOIZED}: 缓存已经计算过的结果, 同一个服务对象之后的计算可以直接复用;
+ * </li>
+ * <li>
+ * {@link Strategy#ITERATIVE}: 迭代计算, 时间复杂度为 {@code O(n)} 次大数加法;
+ * </li>
+ * <li>
+ * {@link Strategy#FAST_DOUBLING}: 快速倍增法, 时间复杂度为 {@code O(log n)} 次大数乘法;
+ * </li>
+ * <li>
+ * {@link Strategy#PARALLEL_STREAM}: 将 {@code n} 个矩阵 {@code [[1, 1], [1, 0]]} 通过并行流相乘 (矩阵乘法满足结合律),
+ * 结果矩阵的右上角元素即为数列值
+ * </li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * {@link Strategy#FORK_JOIN} 和 {@link Strategy#PARALLEL_STREAM} 策略在构造器指定的 {@link ForkJoinPool} 中执行,
+ * 可以通过设置线程池的并行度, 对比不同核心数量下的计算耗时, 参见 {@code FibonacciBenchmark}
+ * </p>
+ */
+public class FibonacciService {
+    /**
+     * 计算策略
+     */
+    public enum Strategy {
+        RECURSIVE,
+        FORK_JOIN,
+        MEMOIZED,
+        ITERATIVE,
+        FAST_DOUBLING,
+        PARALLEL_STREAM
+    }
+
+    // 矩阵 [[1, 1], [1, 0]], 其 n 次幂为 [[F(n+1), F(n)], [F(n), F(n-1)]]
+    private static final Matrix Q = new Matrix(BigInteger.ONE, BigInteger.ONE, BigInteger.ONE, BigInteger.ZERO);
+
+    // 执行并行计算的线程池
+    private final ForkJoinPool pool;
+
+    // Fork/Join 计算时的顺序计算阈值
+    private final int threshold;
+
+    // 已计算结果的缓存, 下标为数列的项
+    private final List<BigInteger> memo = new ArrayList<>(List.of(BigInteger.ZERO, BigInteger.ONE));
+
+    /**
+     * 构造器, 使用公共 {@link ForkJoinPool} 线程池, 顺序计算阈值为 {@code 20}
+     */
+    public FibonacciService() {
+        this(ForkJoinPool.commonPool(), 20);
+    }
+
+    /**
+     * 构造器
+     *
+     * @param pool      执行并行计算的线程池
+     * @param threshold Fork/Join 计算时的顺序计算阈值, 即 {@code n} 小于等于该值时不再拆分任务
+     */
+    public FibonacciService(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must large than 0");
+        }
+
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * 通过指定的策略计算斐波那契数列
+     *
+     * @param strategy 计算策略
+     * @param n        数列的第 {@code n} 项
+     * @return 斐波那契数列值
+     */
+    public BigInteger calculate(Strategy strategy, int n) {
+        return switch (strategy) {
+            case RECURSIVE -> BigInteger.valueOf(recursive(n));
+            case FORK_JOIN -> BigInteger.valueOf(forkJoin(n));
+            case MEMOIZED -> memoized(n);
+            case ITERATIVE -> iterative(n);
+            case FAST_DOUBLING -> fastDoubling(n);
+            case PARALLEL_STREAM -> parallelStream(n);
+        };
+    }
+
+    /**
+     * 通过朴素递归计算斐波那契数列
+     *
+     * @param n 数列的第 {@code n} 项, 结果超过 {@code long} 范围 ({@code n > 92}) 时会溢出
+     * @return 斐波那契数列值
+     */
+    public long recursive(int n) {
+        checkN(n);
+        return sequential(n);
+    }
+
+    /**
+     * 通过 Fork/Join 框架并行计算斐波那契数列
+     *
+     * @param n 数列的第 {@code n} 项, 结果超过 {@code long} 范围 ({@code n > 92}) 时会溢出
+     * @return 斐波那契数列值
+     */
+    public long forkJoin(int n) {
+        checkN(n);
+        return pool.invoke(new FibonacciTask(n, threshold));
+    }
+
+    /**
+     * 计算斐波那契数列, 并缓存计算结果
+     *
+     * @param n 数列的第 {@code n} 项
+     * @return 斐波那契数列值
+     */
+    public BigInteger memoized(int n) {
+        checkN(n);
+
+        synchronized (memo) {
+            // 从已缓存的最后一项开始, 计算并缓存之后的各项
+            for (var i = memo.size(); i <= n; i++) {
+                memo.add(memo.get(i - 1).add(memo.get(i - 2)));
+            }
+            return memo.get(n);
+        }
+    }
+
+    /**
+     * 通过迭代计算斐波那契数列
+     *
+     * @param n 数列的第 {@code n} 项
+     * @return 斐波那契数列值
+     */
+    public BigInteger iterative(int n) {
+        checkN(n);
+
+        var a = BigInteger.ZERO;
+        var b = BigInteger.ONE;
+        for (var i = 0; i < n; i++) {
+            var next = a.add(b);
+            a = b;
+            b = next;
+        }
+        return a;
+    }
+
+    /**
+     * 通过快速倍增法计算斐波那契数列
+     *
+     * <p>
+     * 由矩阵形式可以推导出: {@code F(2k) = F(k) * (2F(k+1) - F(k))}, {@code F(2k+1) = F(k)^2 + F(k+1)^2},
+     * 从 {@code n} 的最高位开始, 每次将 {@code k} 翻倍, 如果当前位为 {@code 1} 则再加 {@code 1}
+     * </p>
+     *
+     * @param n 数列的第 {@code n} 项
+     * @return 斐波那契数列值
+     */
+    public BigInteger fastDoubling(int n) {
+        checkN(n);
+
+        // a = F(k), b = F(k+1), 初始时 k = 0
+        var a = BigInteger.ZERO;
+        var b = BigInteger.ONE;
+        for (var bit = Integer.highestOneBit(n); bit != 0; bit >>>= 1) {
+            var c = a.multiply(b.shiftLeft(1).subtract(a));
+            var d = a.multiply(a).add(b.multiply(b));
+            if ((n & bit) == 0) {
+                a = c;
+                b = d;
+            } else {
+                a = d;
+                b = c.add(d);
+            }
+        }
+        return a;
+    }
+
+    /**
+     * 通过并行流计算矩阵 {@code [[1, 1], [1, 0]]} 的 {@code n} 次幂, 从而得到斐波那契数列
+     *
+     * <p>
+     * 并行流在调用线程所属的 {@link ForkJoinPool} 中执行, 所以将整个流提交到 {@link #pool} 中执行, 即可使用指定的线程池
+     * </p>
+     *
+     * @param n 数列的第 {@code n} 项
+     * @return 斐波那契数列值
+     */
+    public BigInteger parallelStream(int n) {
+        checkN(n);
+
+        return pool.submit(() -> IntStream.range(0, n)
+                .parallel()
+                .mapToObj(_ -> Q)
+                .reduce(Matrix.IDENTITY, Matrix::multiply)
+                .b())
+            .join();
+    }
+
+    /**
+     * 检查参数
+     *
+     * @param n 数列的第 {@code n} 项
+     */
+    private static void checkN(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must large than or equal to 0");
+        }
+    }
+
+    /**
+     * 顺序递归计算斐波那契数列
+     *
+     * @param n 数列的第 {@code n} 项
+     * @return 斐波那契数列值
+     */
+    private static long sequential(int n) {
+        if (n < 2) {
+            return n;
+        }
+        return sequential(n - 1) + sequential(n - 2);
+    }
+
+    /**
+     * 计算斐波那契数列的 Fork/Join 任务
+     *
+     * <p>
+     * 将 {@code F(n)} 拆分为 {@code F(n-1)} 和 {@code F(n-2)} 两个子任务, 其中 {@code F(n-1)} 通过 {@link #fork()}
+     * 方法交给其它线程执行 (或被其它线程"窃取"), {@code F(n-2)} 在当前线程直接计算, 以减少一半的任务提交
+     * </p>
+     */
+    private static final class FibonacciTask extends RecursiveTask<Long> {
+        // 数列的第 n 项
+        private final int n;
+
+        // 顺序计算阈值
+        private final int threshold;
+
+        /**
+         * 构造器
+         *
+         * @param n         数列的第 {@code n} 项
+         * @param threshold 顺序计算阈值
+         */
+        FibonacciTask(int n, int threshold) {
+            this.n = n;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Long compute() {
+            if (n <= threshold) {
+                return sequential(n);
+            }
+
+            var task = new FibonacciTask(n - 1, threshold);
+            task.fork();
+
+            var result = new FibonacciTask(n - 2, threshold).compute();
+            return task.join() + result;
+        }
+    }
+
+    /**
+     * {@code 2x2} 矩阵
+     *
+     * <pre>
+     * | a b |
+     * | c d |
+     * </pre>
+     */
+    private record Matrix(BigInteger a, BigInteger b, BigInteger c, BigInteger d) {
+        // 单位矩阵
+        static final Matrix IDENTITY = new Matrix(BigInteger.ONE, BigInteger.ZERO, BigInteger.ZERO, BigInteger.ONE);
+
+        /**
+         * 矩阵乘法
+         *
+         * @param o 右侧矩阵
+         * @return 相乘的结果
+         */
+        Matrix multiply(Matrix o) {
+            return new Matrix(
+                a.multiply(o.a).add(b.multiply(o.c)),
+                a.multiply(o.b).add(b.multiply(o.d)),
+                c.multiply(o.a).add(d.multiply(o.c)),
+                c.multiply(o.b).add(d.multiply(o.d)));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package alvin.study.se.concurrent.util;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 根据任务排队时间自动调整线程池核心线程数的控制器
+ *
+ * <p>
+ * 任务在队列中的等待时间直接反映了线程池的处理能力是否满足负载: 等待时间持续偏高, 说明线程数不足; 等待时间接近于零且有线程空闲,
+ * 说明线程数过多. 本类型每次调用 {@link #adjust()} 方法时, 计算上一次调整以来任务排队时间的 p99 值, 并按如下规则调整核心线程数:
+ * <ul>
+ * <li>
+ * p99 超过目标值, 则将核心线程数增加 25% (至少增加 1 个), 但不超过 {@code maxThreads};
+ * </li>
+ * <li>
+ * p99 不超过目标值的一半, 队列为空且存在空闲线程, 则将核心线程数减少 1 个, 但不低于 {@code minThreads};
+ * </li>
+ * <li>
+ * 其它情况保持不变
+ * </li>
+ * </ul>
+ * 即"快速扩容, 缓慢缩容", 避免线程数在负载波动时频繁变化
+ * </p>
+ *
+ * <p>
+ * 本类型适用于带任务队列的线程池 (例如 {@link ThreadPool#instrumentedFixedPoolExecutor(int, int)}), 对于核心线程数和最大线程数相同的线程池,
+ * 调整后两者仍保持相同
+ * </p>
+ */
+public class AdaptivePoolSizer {
+    // 被调整的线程池
+    private final InstrumentedThreadPoolExecutor executor;
+    // 任务排队时间 p99 的目标值, 单位纳秒
+    private final long targetQueueWaitNanos;
+    // 核心线程数的下限
+    private final int minThreads;
+    // 核心线程数的上限
+    private final int maxThreads;
+
+    // 上一次调整时, 任务排队时间分布的快照
+    private LatencyHistogram.Snapshot previous;
+
+    /**
+     * 构造器, 创建控制器对象
+     *
+     * @param executor        被调整的线程池
+     * @param targetQueueWait 任务排队时间 p99 的目标值
+     * @param minThreads      核心线程数的下限
+     * @param maxThreads      核心线程数的上限
+     */
+    public AdaptivePoolSizer(
+            InstrumentedThreadPoolExecutor executor,
+            Duration targetQueueWait,
+            int minThreads,
+            int maxThreads) {
+        if (targetQueueWait.isNegative() || targetQueueWait.isZero()) {
+            throw new IllegalArgumentException("targetQueueWait must large than 0");
+        }
+        if (minThreads <= 0) {
+            throw new IllegalArgumentException("minThreads must large than 0");
+        }
+        if (maxThreads < minThreads) {
+            throw new IllegalArgumentException("maxThreads must not less than minThreads");
+        }
+
+        this.executor = executor;
+        this.targetQueueWaitNanos = targetQueueWait.toNanos();
+        this.minThreads = minThreads;
+        this.maxThreads = maxThreads;
+        this.previous = executor.metrics().queueWait();
+    }
+
+    /**
+     * 根据上一次调整以来的任务排队时间, 调整一次核心线程数
+     *
+     * @return 调整后的核心线程数
+     */
+    public synchronized int adjust() {
+        var metrics = executor.metrics();
+
+        // 计算上一次调整以来的任务排队时间分布
+        var queueWait = metrics.queueWait().minus(previous);
+        previous = metrics.queueWait();
+
+        var core = metrics.corePoolSize();
+        var p99 = queueWait.count() == 0 ? 0 : queueWait.p99();
+
+        int target;
+        if (p99 > targetQueueWaitNanos) {
+            target = Math.min(maxThreads, core + Math.max(1, core / 4));
+        } else if (p99 <= targetQueueWaitNanos / 2 && metrics.queuedTasks() == 0 && metrics.activeThreads() < core) {
+            target = Math.max(minThreads, core - 1);
+        } else {
+            target = core;
+        }
+
+        // 保证核心线程数处于上下限之间
+        target = Math.clamp(target, minThreads, maxThreads);
+        if (target != core) {
+            resize(core, target);
+        }
+        return target;
+    }
+
+    /**
+     * 通过定时器定期调整核心线程数
+     *
+     * @param scheduler 定时器
+     * @param interval  调整的时间间隔
+     * @return 定时任务对象, 取消该对象即停止调整
+     */
+    public ScheduledFuture<?> start(ScheduledExecutorService scheduler, Duration interval) {
+        var nanos = interval.toNanos();
+        return scheduler.scheduleWithFixedDelay(this::adjust, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 修改线程池的核心线程数
+     *
+     * <p>
+     * {@link java.util.concurrent.ThreadPoolExecutor ThreadPoolExecutor} 要求核心线程数不能大于最大线程数,
+     * 所以扩容时需要先调整最大线程数, 缩容时需要后调整最大线程数
+     * </p>
+     *
+     * @param core   当前核心线程数
+     * @param target 目标核心线程数
+     */
+    private void resize(int core, int target) {
+        var max = executor.getMaximumPoolSize();
+        // 核心线程数和最大线程数相同的线程池, 调整后仍保持相同
+        var fixed = max == core;
+
+        if (target > core) {
+            if (fixed || target > max) {
+                executor.setMaximumPoolSize(target);
+            }
+            executor.setCorePoolSize(target);
+        } else {
+            executor.setCorePoolSize(target);
+            if (fixed) {
+                executor.setMaximumPoolSize(target);
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package alvin.study.se.concurrent.util;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限制同时执行任务数量的执行器
+ *
+ * <p>
+ * 为每个任务创建一个虚拟线程的执行器 (参见 {@link java.util.concurrent.Executors#newVirtualThreadPerTaskExecutor()
+ * Executors.newVirtualThreadPerTaskExecutor()}) 不限制任务数量, 但有时需要限制对下游资源 (例如数据库连接, 远程服务) 的并发访问量.
+ * 通过线程池的线程数和任务队列来限制并发会使多余的任务被拒绝, 本类型则通过 {@link Semaphore} 进行限制:
+ * <ul>
+ * <li>
+ * 提交任务不会被阻塞也不会被拒绝, 每个任务仍然在各自的线程中执行;
+ * </li>
+ * <li>
+ * 任务在执行前需要获取信号量的许可证, 无法获取时任务所在的线程被挂起, 对于虚拟线程而言, 挂起的开销很低
+ * </li>
+ * </ul>
+ * </p>
+ */
+public class ConcurrencyLimitedExecutor extends AbstractExecutorService {
+    // 实际执行任务的执行器
+    private final ExecutorService delegate;
+    // 限制同时执行任务数量的信号量
+    private final Semaphore permits;
+
+    /**
+     * 构造器, 创建执行器对象
+     *
+     * @param delegate       实际执行任务的执行器, 应为每个任务创建一个线程
+     * @param maxConcurrency 同时执行任务的最大数量
+     */
+    public ConcurrencyLimitedExecutor(ExecutorService delegate, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must large than 0");
+        }
+
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+
+        delegate.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                // 等待许可证时被中断 (例如执行器被强制关闭), 则放弃执行任务
+                if (command instanceof Future<?> future) {
+                    future.cancel(false);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                command.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * 获取正在等待许可证的任务数量的估计值
+     *
+     * @return 正在等待许可证的任务数量
+     */
+    public int getWaitingCount() { return permits.getQueueLength(); }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() { return delegate.isShutdown(); }
+
+    @Override
+    public boolean isTerminated() { return delegate.isTerminated(); }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,242 @@
+package alvin.study.se.concurrent.util;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 可度量的线程池执行器
+ *
+ * <p>
+ * {@link ThreadPoolExecutor} 只提供了 {@link #getActiveCount()}, {@link #getCompletedTaskCount()} 等少量统计方法,
+ * 且这些方法需要获取线程池内部的锁. 本类型在 {@link ThreadPoolExecutor} 的基础上, 额外记录了如下指标:
+ * <ul>
+ * <li>
+ * 任务在队列中等待的时间 (从提交任务到开始执行) 和任务执行时间的分布, 参见 {@link LatencyHistogram};
+ * </li>
+ * <li>
+ * 提交, 完成, 失败, 拒绝和丢弃的任务数量;
+ * </li>
+ * <li>
+ * 当前正在执行任务的线程数量, 以及其历史峰值
+ * </li>
+ * </ul>
+ * 通过 {@link #metrics()} 方法可以获取所有指标的快照
+ * </p>
+ *
+ * <p>
+ * 为了记录任务在队列中的等待时间, 提交的任务会被包装为 {@link TimedTask} 对象, 其中记录了任务提交的时间,
+ * 所以 {@link #getQueue()} 返回的队列中的元素均为 {@link TimedTask} 类型
+ * </p>
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+    // 任务在队列中等待时间的分布
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    // 任务执行时间的分布
+    private final LatencyHistogram runTime = new LatencyHistogram();
+
+    // 提交的任务数量
+    private final LongAdder submitted = new LongAdder();
+    // 执行完毕的任务数量 (包括执行失败的任务)
+    private final LongAdder completed = new LongAdder();
+    // 执行失败的任务数量
+    private final LongAdder failed = new LongAdder();
+    // 被拒绝策略处理的任务数量
+    private final LongAdder rejected = new LongAdder();
+    // 被拒绝策略从队列中丢弃的任务数量
+    private final LongAdder dropped = new LongAdder();
+
+    // 正在执行任务的线程数量
+    private final AtomicInteger active = new AtomicInteger();
+    // 正在执行任务的线程数量的峰值
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    /**
+     * 构造器, 参数含义同 {@link ThreadPoolExecutor} 类的构造器
+     *
+     * @param corePoolSize    核心线程数量
+     * @param maximumPoolSize 最大线程数量
+     * @param keepAliveTime   线程空闲多久后被销毁
+     * @param unit            {@code keepAliveTime} 参数的时间单位
+     * @param workQueue       任务队列
+     * @param threadFactory   线程工厂对象
+     * @param handler         任务队列已满时的拒绝策略
+     */
+    public InstrumentedThreadPoolExecutor(
+            int corePoolSize,
+            int maximumPoolSize,
+            long keepAliveTime,
+            TimeUnit unit,
+            BlockingQueue<Runnable> workQueue,
+            ThreadFactory threadFactory,
+            RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue, threadFactory, handler);
+
+        // 包装拒绝策略, 以统计被拒绝的任务数量
+        setRejectedExecutionHandler(handler);
+    }
+
+    /**
+     * 设置拒绝策略
+     *
+     * <p>
+     * 设置的拒绝策略会被包装, 以统计被拒绝的任务数量
+     * </p>
+     */
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+        super.setRejectedExecutionHandler(handler instanceof CountingHandler ? handler : new CountingHandler(handler));
+    }
+
+    /**
+     * 提交任务, 任务被包装为 {@link TimedTask} 对象, 以记录任务的提交时间
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+
+        submitted.increment();
+        super.execute(new TimedTask(command));
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+
+        if (r instanceof TimedTask task) {
+            task.startedAt = System.nanoTime();
+            queueWait.record(task.startedAt - task.submittedAt);
+        }
+
+        var current = active.incrementAndGet();
+        if (current > peakActive.get()) {
+            peakActive.accumulateAndGet(current, Math::max);
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        if (r instanceof TimedTask task) {
+            runTime.record(System.nanoTime() - task.startedAt);
+        }
+        active.decrementAndGet();
+
+        completed.increment();
+        // 通过 submit 方法提交的任务, 异常被保存在 Future 对象中, 不会传递到本方法
+        if (t != null || unwrap(r) instanceof Future<?> f && f.isDone() && f.state() == Future.State.FAILED) {
+            failed.increment();
+        }
+
+        super.afterExecute(r, t);
+    }
+
+    /**
+     * 记录一个被拒绝策略从队列中丢弃的任务
+     *
+     * <p>
+     * 被丢弃的任务如果是 {@link Future} 类型 (即通过 {@code submit} 方法提交的任务), 则将其取消,
+     * 以免等待该任务结果的调用方被永久阻塞
+     * </p>
+     *
+     * @param task 被丢弃的任务
+     */
+    void recordDropped(Runnable task) {
+        dropped.increment();
+        ThreadPool.cancelDropped(unwrap(task));
+    }
+
+    /**
+     * 获取当前所有指标的快照
+     *
+     * @return 指标快照
+     */
+    public ThreadPoolMetrics metrics() {
+        return new ThreadPoolMetrics(
+            getPoolSize(),
+            getCorePoolSize(),
+            getMaximumPoolSize(),
+            active.get(),
+            peakActive.get(),
+            getQueue().size(),
+            submitted.sum(),
+            completed.sum(),
+            failed.sum(),
+            rejected.sum(),
+            dropped.sum(),
+            queueWait.snapshot(),
+            runTime.snapshot());
+    }
+
+    /**
+     * 获取被 {@link TimedTask} 包装的原始任务
+     *
+     * @param task 任务对象
+     * @return 原始任务对象, 如果 {@code task} 参数不是 {@link TimedTask} 类型, 则返回其本身
+     */
+    static Runnable unwrap(Runnable task) {
+        return task instanceof TimedTask timed ? timed.task : task;
+    }
+
+    /**
+     * 记录了提交时间的任务
+     */
+    static final class TimedTask implements Runnable {
+        // 原始任务
+        private final Runnable task;
+        // 任务提交的时间, 单位纳秒
+        private final long submittedAt = System.nanoTime();
+        // 任务开始执行的时间, 单位纳秒, 只在执行任务的线程中读写
+        private long startedAt;
+
+        /**
+         * 构造器, 包装原始任务
+         *
+         * @param task 原始任务
+         */
+        TimedTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    /**
+     * 统计被拒绝任务数量的拒绝策略
+     */
+    private final class CountingHandler implements RejectedExecutionHandler {
+        // 被包装的拒绝策略
+        private final RejectedExecutionHandler delegate;
+
+        /**
+         * 构造器, 包装拒绝策略
+         *
+         * @param delegate 被包装的拒绝策略
+         */
+        CountingHandler(RejectedExecutionHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            rejected.increment();
+            try {
+                delegate.rejectedExecution(r, executor);
+            } catch (RejectedExecutionException e) {
+                // 被拒绝的任务未进入队列, 不计入提交的任务数量
+                submitted.decrement();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package alvin.study.se.concurrent.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程安全的耗时直方图, 用于统计耗时的分布情况 (例如 p50, p99, p999)
+ *
+ * <p>
+ * 如果保存每一次记录的原始值, 则内存占用随记录次数无限增长, 计算百分位数时还需要排序. 本类型参考 HdrHistogram 的做法,
+ * 将数值范围按 2 的幂划分为若干个区间, 每个区间再等分为 {@code 32} 个子区间 (桶), 每次记录只需将所在桶的计数加 1:
+ * <ul>
+ * <li>
+ * 小于 {@code 32} 的值每个值独占一个桶, 结果是精确的;
+ * </li>
+ * <li>
+ * 大于等于 {@code 32} 的值, 桶的宽度随数值增大而成倍增大, 但相对误差始终不超过 {@code 1/32} (约 3%)
+ * </li>
+ * </ul>
+ * 整个 {@code long} 范围只需要 {@code 1888} 个桶, 内存占用固定, 记录操作无锁且不分配对象
+ * </p>
+ *
+ * <p>
+ * 多个线程同时记录时, 如果共用同一组桶, 则对同一个桶 (以及同一个缓存行) 的并发修改会互相影响. 所以和
+ * {@link LongAdder} 的做法类似, 本类型按线程 ID 将记录分散到若干组桶 (记录器) 中, 每组桶在首次使用时才创建,
+ * 读取时再将所有记录器合并. 之所以不为每个线程创建一个记录器, 是因为虚拟线程的数量可能非常多, 记录器的数量需要有上限
+ * </p>
+ *
+ * <p>
+ * 通过 {@link #snapshot()} 方法获取直方图的快照, 并通过快照计算各项统计值; 两个快照相减 ({@link Snapshot#minus(Snapshot)})
+ * 即可得到两次快照之间的统计结果
+ * </p>
+ *
+ * <p>
+ * 在需要计时的代码中, 可以通过 {@link #start()} 和 {@link #stop(long)} 方法进行计时并记录, 这两个方法不会产生任何对象分配:
+ *
+ * <pre>
+ * var start = histogram.start();
+ * doSomething();
+ * histogram.stop(start);
+ * </pre>
+ * </p>
+ */
+public class LatencyHistogram {
+    // 每个区间的子区间数量, 即 2^SUB_BUCKET_BITS
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // 桶的总数
+    static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    // 记录器数量的上限
+    private static final int MAX_RECORDERS = 16;
+
+    // 记录器数组, 每个记录器为一组桶的计数, 首次使用时创建
+    private final AtomicReferenceArray<AtomicLongArray> recorders;
+    // 计算记录器下标的掩码
+    private final int recorderMask;
+
+    // 所有记录值的总和
+    private final LongAdder sum = new LongAdder();
+    // 记录值的最大值
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 构造器, 按 CPU 核心数创建记录器数组
+     */
+    public LatencyHistogram() {
+        var size = Math.min(MAX_RECORDERS, Integer.highestOneBit(SystemInfo.cpuCount() * 2 - 1) << 1);
+
+        this.recorders = new AtomicReferenceArray<>(size);
+        this.recorderMask = size - 1;
+    }
+
+    /**
+     * 开始计时
+     *
+     * @return 开始计时的时间点, 单位纳秒, 用于传递给 {@link #stop(long)} 方法
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 结束计时, 并记录从开始计时到当前的耗时
+     *
+     * @param startNanos 开始计时的时间点, 即 {@link #start()} 方法的返回值
+     * @return 耗时, 单位纳秒
+     */
+    public long stop(long startNanos) {
+        var elapsed = System.nanoTime() - startNanos;
+        record(elapsed);
+        return elapsed;
+    }
+
+    /**
+     * 记录一个值
+     *
+     * @param value 要记录的值, 小于 {@code 0} 的值按 {@code 0} 记录
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        recorder().incrementAndGet(bucketIndex(value));
+        sum.add(value);
+
+        // 先读取再更新, 大部分情况下无需进行 CAS 操作
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * 记录一个耗时
+     *
+     * @param duration 耗时
+     * @param unit     耗时的时间单位
+     */
+    public void record(long duration, TimeUnit unit) {
+        record(unit.toNanos(duration));
+    }
+
+    /**
+     * 获取直方图的快照
+     *
+     * <p>
+     * 快照过程中如果有并发的记录操作, 则这些记录可能只有部分被计入快照, 对于统计用途而言这是可以接受的
+     * </p>
+     *
+     * @return 快照对象
+     */
+    public Snapshot snapshot() {
+        var values = new long[BUCKET_COUNT];
+
+        // 合并所有记录器的计数
+        for (var r = 0; r < recorders.length(); r++) {
+            var counts = recorders.get(r);
+            if (counts != null) {
+                for (var i = 0; i < BUCKET_COUNT; i++) {
+                    values[i] += counts.get(i);
+                }
+            }
+        }
+        return new Snapshot(values, sum.sum(), max.get());
+    }
+
+    /**
+     * 获取当前线程对应的记录器, 如果记录器尚未创建, 则创建
+     *
+     * @return 记录器, 即一组桶的计数
+     */
+    private AtomicLongArray recorder() {
+        // 对线程 ID 进行散列, 避免连续创建的线程集中在相邻的记录器中
+        var index = (int) ((Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L) >>> 32) & recorderMask;
+
+        var counts = recorders.get(index);
+        if (counts == null) {
+            // 多个线程同时创建时, 只有一个线程创建成功, 其它线程使用已创建的记录器
+            var created = new AtomicLongArray(BUCKET_COUNT);
+            counts = recorders.compareAndExchange(index, null, created);
+            if (counts == null) {
+                counts = created;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 计算值所在桶的下标
+     *
+     * @param value 值, 不小于 {@code 0}
+     * @return 桶的下标
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        // 值的最高位, 即值所在的 2 的幂区间
+        var exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        // 值的最高 SUB_BUCKET_BITS 位, 范围为 [32, 63], 用于确定子区间
+        var top = (int) (value >>> (exponent - SUB_BUCKET_BITS));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + (top - SUB_BUCKET_COUNT);
+    }
+
+    /**
+     * 计算桶所能容纳的最大值
+     *
+     * @param index 桶的下标
+     * @return 桶所能容纳的最大值
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        var shift = index / SUB_BUCKET_COUNT - 1;
+        var top = (long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT);
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * 直方图的快照
+     *
+     * @param counts 每个桶的计数
+     * @param sum    所有记录值的总和
+     * @param max    记录值的最大值
+     */
+    public record Snapshot(long[] counts, long sum, long max) {
+        /**
+         * 获取记录的总次数
+         *
+         * @return 记录的总次数
+         */
+        public long count() {
+            var total = 0L;
+            for (var c : counts) {
+                total += c;
+            }
+            return total;
+        }
+
+        /**
+         * 获取记录值的平均值
+         *
+         * @return 平均值, 没有任何记录时返回 {@code 0}
+         */
+        public double mean() {
+            var count = count();
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * 获取指定百分位的值
+         *
+         * <p>
+         * 返回值为百分位所在桶能容纳的最大值 (但不超过 {@link #max()}), 与实际值的相对误差不超过 {@code 1/32}
+         * </p>
+         *
+         * @param percentile 百分位, 范围为 {@code [0, 100]}
+         * @return 百分位对应的值, 没有任何记录时返回 {@code 0}
+         */
+        public long percentile(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must between 0 and 100");
+            }
+
+            var count = count();
+            if (count == 0) {
+                return 0;
+            }
+
+            // 计算百分位对应的记录序号, 至少为第 1 个
+            var rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+
+            var seen = 0L;
+            for (var i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * 获取中位数
+         *
+         * @return 中位数
+         */
+        public long p50() {
+            return percentile(50);
+        }
+
+        /**
+         * 获取 99 百分位的值
+         *
+         * @return 99 百分位的值
+         */
+        public long p99() {
+            return percentile(99);
+        }
+
+        /**
+         * 获取 99.9 百分位的值
+         *
+         * @return 99.9 百分位的值
+         */
+        public long p999() {
+            return percentile(99.9);
+        }
+
+        /**
+         * 计算当前快照和之前的快照之间的差值, 即两次快照之间的统计结果
+         *
+         * <p>
+         * 注意: 最大值无法相减, 所以结果中的 {@link #max()} 仍为当前快照的最大值
+         * </p>
+         *
+         * @param previous 之前的快照
+         * @return 两次快照之间的统计结果
+         */
+        public Snapshot minus(Snapshot previous) {
+            var values = new long[counts.length];
+            for (var i = 0; i < counts.length; i++) {
+                values[i] = counts[i] - previous.counts[i];
+            }
+            return new Snapshot(values, sum - previous.sum, max);
+        }
+
+        /**
+         * 获取统计结果的摘要, 便于输出
+         *
+         * <p>
+         * 例如: {@code count=100, mean=1.204ms, p50=1.180ms, p99=2.031ms, p999=2.031ms, max=2.047ms}
+         * </p>
+         *
+         * @param unit 输出耗时所用的时间单位, 记录的值应该以纳秒为单位
+         * @return 统计结果的摘要
+         */
+        public String summary(TimeUnit unit) {
+            var nanosPerUnit = (double) unit.toNanos(1);
+            var suffix = switch (unit) {
+                case NANOSECONDS -> "ns";
+                case MICROSECONDS -> "µs";
+                case MILLISECONDS -> "ms";
+                case SECONDS -> "s";
+                default -> unit.name().toLowerCase();
+            };
+
+            return String.format(
+                "count=%d, mean=%.3f%s, p50=%.3f%s, p99=%.3f%s, p999=%.3f%s, max=%.3f%s",
+                count(),
+                mean() / nanosPerUnit, suffix,
+                p50() / nanosPerUnit, suffix,
+                p99() / nanosPerUnit, suffix,
+                p999() / nanosPerUnit, suffix,
+                max / nanosPerUnit, suffix);
+        }
+    }
+}
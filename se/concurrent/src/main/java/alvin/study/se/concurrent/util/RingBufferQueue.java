@@ -0,0 +1,387 @@
+package alvin.study.se.concurrent.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.Nullable;
+
+/**
+ * 基于环形数组的有界无锁多生产者/多消费者 (MPMC) 队列
+ *
+ * <p>
+ * {@link BlockingQueue} 通过 {@link java.util.LinkedList LinkedList} 存储消息, 每次添加消息都会分配一个链表节点,
+ * 且生产者和消费者都需要获取锁和信号量. 本类型采用 Dmitry Vyukov 提出的有界 MPMC 队列算法, 其原理如下:
+ * <ol>
+ * <li>
+ * 通过长度为 2 的幂的环形数组 ({@code buffer}) 存储消息, 并为数组的每个槽位记录一个序号 ({@code sequences});
+ * </li>
+ * <li>
+ * 生产者序号 ({@code producer}) 和消费者序号 ({@code consumer}) 单调递增, 序号 {@code n} 对应数组的 {@code n & mask} 槽位;
+ * </li>
+ * <li>
+ * 生产者在槽位序号等于生产者序号时 (表示槽位为空), 通过 CAS 将生产者序号加 1 以占有该槽位, 写入消息后将槽位序号设置为 {@code n + 1};
+ * </li>
+ * <li>
+ * 消费者在槽位序号等于消费者序号加 1 时 (表示槽位已写入消息), 通过 CAS 将消费者序号加 1 以占有该槽位, 读取消息后将槽位序号设置为
+ * {@code n + capacity}, 表示该槽位可供下一圈的生产者使用
+ * </li>
+ * </ol>
+ * </p>
+ *
+ * <p>
+ * 整个过程不使用锁, 不分配对象, 生产者和消费者只在同一个槽位上存在竞争; 生产者序号和消费者序号通过 {@link Sequence}
+ * 类型进行缓存行填充, 避免伪共享. 当队列已满或已空时, 阻塞式的方法通过 {@link WaitStrategy} 决定如何等待
+ * </p>
+ *
+ * @param <T> 消息类型
+ */
+public class RingBufferQueue<T> {
+    // 用于原子操作槽位序号数组元素的句柄
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // 存储消息的环形数组
+    private final Object[] buffer;
+    // 每个槽位的序号
+    private final long[] sequences;
+    // 计算槽位下标的掩码, 即 capacity - 1
+    private final int mask;
+
+    // 生产者序号, 即下一个要写入的位置
+    private final Sequence producer = new Sequence(0);
+    // 消费者序号, 即下一个要读取的位置
+    private final Sequence consumer = new Sequence(0);
+
+    // 阻塞等待时使用的等待策略
+    private final WaitStrategy waitStrategy;
+
+    /**
+     * 构造器, 使用 {@link WaitStrategy#parking()} 等待策略创建队列
+     *
+     * @param capacity 队列容量, 会被向上调整为 2 的幂
+     */
+    public RingBufferQueue(int capacity) {
+        this(capacity, WaitStrategy.parking());
+    }
+
+    /**
+     * 构造器, 创建队列
+     *
+     * @param capacity     队列容量, 会被向上调整为 2 的幂
+     * @param waitStrategy 阻塞等待时使用的等待策略
+     */
+    public RingBufferQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must between 1 and 2^30");
+        }
+
+        var size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+        this.buffer = new Object[size];
+        this.sequences = new long[size];
+        this.mask = size - 1;
+        this.waitStrategy = waitStrategy;
+
+        // 初始时, 第 n 个槽位的序号为 n, 表示该槽位可供序号为 n 的生产者写入
+        for (var i = 0; i < size; i++) {
+            SEQUENCE.setRelease(sequences, i, (long) i);
+        }
+    }
+
+    /**
+     * 尝试添加消息到队列中, 不进行等待
+     *
+     * @param value 消息对象
+     * @return 如果消息添加成功, 返回 {@code true}, 队列已满返回 {@code false}
+     */
+    public boolean tryOffer(T value) {
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+
+        var pos = producer.get();
+        while (true) {
+            var index = (int) pos & mask;
+            var diff = sequence(index) - pos;
+
+            if (diff == 0) {
+                // 槽位为空, 尝试占有该槽位
+                if (producer.compareAndSet(pos, pos + 1)) {
+                    buffer[index] = value;
+                    // 发布消息, 令消费者可以读取
+                    SEQUENCE.setRelease(sequences, index, pos + 1);
+                    return true;
+                }
+                pos = producer.get();
+            } else if (diff < 0) {
+                // 槽位仍存储着上一圈的消息, 表示队列已满
+                return false;
+            } else {
+                // 其它生产者已经占有了该槽位, 重新读取生产者序号
+                pos = producer.get();
+            }
+        }
+    }
+
+    /**
+     * 尝试从队列中获取消息, 不进行等待
+     *
+     * @return 消息对象, 队列为空返回 {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable T tryPoll() {
+        var pos = consumer.get();
+        while (true) {
+            var index = (int) pos & mask;
+            var diff = sequence(index) - (pos + 1);
+
+            if (diff == 0) {
+                // 槽位已写入消息, 尝试占有该槽位
+                if (consumer.compareAndSet(pos, pos + 1)) {
+                    var value = (T) buffer[index];
+                    buffer[index] = null;
+                    // 释放槽位, 令下一圈的生产者可以写入
+                    SEQUENCE.setRelease(sequences, index, pos + buffer.length);
+                    return value;
+                }
+                pos = consumer.get();
+            } else if (diff < 0) {
+                // 槽位尚未写入消息, 表示队列为空
+                return null;
+            } else {
+                // 其它消费者已经占有了该槽位, 重新读取消费者序号
+                pos = consumer.get();
+            }
+        }
+    }
+
+    /**
+     * 添加消息到队列中, 队列已满时按等待策略等待
+     *
+     * @param value 消息对象
+     * @throws InterruptedException 线程中断异常
+     */
+    public void offer(T value) throws InterruptedException {
+        for (var attempts = 0; !tryOffer(value); attempts++) {
+            checkInterrupted();
+            waitStrategy.idle(attempts);
+        }
+    }
+
+    /**
+     * 添加消息到队列中, 队列已满时按等待策略等待
+     *
+     * @param value   消息对象
+     * @param timeout 超时时间
+     * @param unit    超时时间单位
+     * @return 如果消息添加成功, 返回 {@code true}, 否则返回 {@code false}
+     * @throws InterruptedException 线程中断异常
+     */
+    public boolean offer(T value, long timeout, TimeUnit unit) throws InterruptedException {
+        var deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (var attempts = 0; !tryOffer(value); attempts++) {
+            checkInterrupted();
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            waitStrategy.idle(attempts);
+        }
+        return true;
+    }
+
+    /**
+     * 从队列中获取消息, 队列为空时按等待策略等待
+     *
+     * @return 消息对象
+     * @throws InterruptedException 线程中断异常
+     */
+    public T poll() throws InterruptedException {
+        T value;
+        for (var attempts = 0; (value = tryPoll()) == null; attempts++) {
+            checkInterrupted();
+            waitStrategy.idle(attempts);
+        }
+        return value;
+    }
+
+    /**
+     * 从队列中获取消息, 队列为空时按等待策略等待
+     *
+     * @param timeout 超时时间
+     * @param unit    超时时间单位
+     * @return 消息对象, 超时返回 {@code null}
+     * @throws InterruptedException 线程中断异常
+     */
+    public @Nullable T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        var deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        T value;
+        for (var attempts = 0; (value = tryPoll()) == null; attempts++) {
+            checkInterrupted();
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            waitStrategy.idle(attempts);
+        }
+        return value;
+    }
+
+    /**
+     * 批量添加消息到队列中, 不进行等待
+     *
+     * <p>
+     * 一次 CAS 操作即可占有多个连续的槽位, 队列剩余空间不足时, 只添加能够容纳的部分消息
+     * </p>
+     *
+     * @param values 消息对象列表
+     * @return 实际添加的消息数量
+     */
+    public int offerAll(List<? extends T> values) {
+        // 占有槽位后必须写入消息, 所以需提前检查消息是否为 null
+        for (var value : values) {
+            if (value == null) {
+                throw new NullPointerException("value must not be null");
+            }
+        }
+
+        var offered = 0;
+        while (offered < values.size()) {
+            var pos = producer.get();
+
+            // 计算从生产者序号开始, 连续为空的槽位数量
+            var count = 0;
+            var limit = Math.min(values.size() - offered, buffer.length);
+            while (count < limit && sequence((int) (pos + count) & mask) == pos + count) {
+                count++;
+            }
+
+            if (count == 0) {
+                if (sequence((int) pos & mask) - pos < 0) {
+                    // 队列已满
+                    break;
+                }
+                // 其它生产者已经占有了该槽位, 重试
+                continue;
+            }
+
+            // 一次占有所有连续的空槽位
+            if (!producer.compareAndSet(pos, pos + count)) {
+                continue;
+            }
+
+            for (var i = 0; i < count; i++) {
+                var index = (int) (pos + i) & mask;
+                buffer[index] = values.get(offered + i);
+                SEQUENCE.setRelease(sequences, index, pos + i + 1);
+            }
+            offered += count;
+        }
+        return offered;
+    }
+
+    /**
+     * 批量从队列中获取消息, 不进行等待
+     *
+     * <p>
+     * 一次 CAS 操作即可占有多个连续的槽位
+     * </p>
+     *
+     * @param target      存储消息的集合
+     * @param maxElements 最多获取的消息数量
+     * @return 实际获取的消息数量
+     */
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super T> target, int maxElements) {
+        var drained = 0;
+        while (drained < maxElements) {
+            var pos = consumer.get();
+
+            // 计算从消费者序号开始, 连续已写入消息的槽位数量
+            var count = 0;
+            var limit = Math.min(maxElements - drained, buffer.length);
+            while (count < limit && sequence((int) (pos + count) & mask) == pos + count + 1) {
+                count++;
+            }
+
+            if (count == 0) {
+                if (sequence((int) pos & mask) - (pos + 1) < 0) {
+                    // 队列为空
+                    break;
+                }
+                // 其它消费者已经占有了该槽位, 重试
+                continue;
+            }
+
+            // 一次占有所有连续的已写入消息的槽位
+            if (!consumer.compareAndSet(pos, pos + count)) {
+                continue;
+            }
+
+            for (var i = 0; i < count; i++) {
+                var index = (int) (pos + i) & mask;
+                target.add((T) buffer[index]);
+                buffer[index] = null;
+                SEQUENCE.setRelease(sequences, index, pos + i + buffer.length);
+            }
+            drained += count;
+        }
+        return drained;
+    }
+
+    /**
+     * 获取队列中消息的数量
+     *
+     * <p>
+     * 在并发修改的情况下, 返回值只是一个近似值
+     * </p>
+     *
+     * @return 消息数量
+     */
+    public int size() {
+        while (true) {
+            var before = consumer.get();
+            var pos = producer.get();
+            var after = consumer.get();
+            if (before == after) {
+                return (int) Math.max(0, Math.min(pos - after, buffer.length));
+            }
+        }
+    }
+
+    /**
+     * 判断消息队列是否为空
+     *
+     * @return 如果消息队列为空, 返回 {@code true}, 否则返回 {@code false}
+     */
+    public boolean isEmpty() { return size() == 0; }
+
+    /**
+     * 获取队列容量
+     *
+     * @return 队列容量
+     */
+    public int capacity() { return buffer.length; }
+
+    /**
+     * 读取槽位序号
+     *
+     * @param index 槽位下标
+     * @return 槽位序号
+     */
+    private long sequence(int index) {
+        return (long) SEQUENCE.getAcquire(sequences, index);
+    }
+
+    /**
+     * 检查当前线程是否被中断
+     *
+     * @throws InterruptedException 当前线程已被中断
+     */
+    private static void checkInterrupted() throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+}
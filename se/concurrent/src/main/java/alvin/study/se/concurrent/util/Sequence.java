@@ -0,0 +1,91 @@
+package alvin.study.se.concurrent.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 在值前后填充了缓存行的序号计数器
+ *
+ * <p>
+ * 多个线程频繁修改的计数器 (例如队列的生产者序号和消费者序号) 如果位于同一个 CPU 缓存行 (通常为 64 字节) 中, 则一个线程修改其中一个计数器,
+ * 会令其它 CPU 核心中缓存的整个缓存行失效, 即所谓的"伪共享" (False Sharing)
+ * </p>
+ *
+ * <p>
+ * JVM 会将子类的字段排列在父类的字段之后, 所以通过 {@code LhsPadding -> Value -> RhsPadding} 的继承关系, 可以保证
+ * {@code value} 字段前后各有 56 字节的填充, 独占一个缓存行
+ * </p>
+ */
+public final class Sequence extends SequenceRhsPadding {
+    // 用于原子操作 value 字段的句柄
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * 构造器, 设置初始值
+     *
+     * @param initial 初始值
+     */
+    public Sequence(long initial) {
+        VALUE.setRelease(this, initial);
+    }
+
+    /**
+     * 读取当前值
+     *
+     * @return 当前值
+     */
+    public long get() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    /**
+     * 设置新值
+     *
+     * @param newValue 新值
+     */
+    public void set(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    /**
+     * 比较并设置新值
+     *
+     * @param expected 期望的当前值
+     * @param newValue 新值
+     * @return 是否设置成功
+     */
+    public boolean compareAndSet(long expected, long newValue) {
+        return VALUE.compareAndSet(this, expected, newValue);
+    }
+}
+
+/**
+ * {@code value} 字段之前的填充
+ */
+@SuppressWarnings("unused")
+abstract class SequenceLhsPadding {
+    protected long p01, p02, p03, p04, p05, p06, p07;
+}
+
+/**
+ * 存储计数器值
+ */
+abstract class SequenceValue extends SequenceLhsPadding {
+    protected volatile long value;
+}
+
+/**
+ * {@code value} 字段之后的填充
+ */
+@SuppressWarnings("unused")
+abstract class SequenceRhsPadding extends SequenceValue {
+    protected long p11, p12, p13, p14, p15, p16, p17;
+}
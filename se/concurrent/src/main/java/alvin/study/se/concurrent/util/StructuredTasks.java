@@ -0,0 +1,183 @@
+package alvin.study.se.concurrent.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 结构化并发工具类, 用于将一组任务"分叉" (fan-out) 到虚拟线程中并发执行, 再"汇合" (fan-in) 其结果
+ *
+ * <p>
+ * 所谓结构化并发, 是指并发执行的子任务的生命周期被限制在调用方的代码块之内, 就像普通的方法调用一样:
+ * <ul>
+ * <li>
+ * 方法返回 (无论是正常返回还是抛出异常) 时, 所有子任务都已经结束, 不会有"泄露"的线程在后台继续运行;
+ * </li>
+ * <li>
+ * 任意一个子任务失败, 或者等待超时, 调用方被中断时, 其余的子任务会被立即取消 (中断), 而不是白白的执行到结束;
+ * </li>
+ * <li>
+ * 子任务的异常会传递给调用方
+ * </li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * JDK 通过 {@code java.util.concurrent.StructuredTaskScope} 类型提供结构化并发, 但该类型目前仍是预览 API,
+ * 且在各个 JDK 版本之间变化较大. 本类型通过 {@link Executors#newVirtualThreadPerTaskExecutor()} 和
+ * {@link ExecutorCompletionService} 实现了相同的语义: 每次调用使用独立的执行器, 并在方法返回前关闭该执行器,
+ * 以等待所有子任务结束
+ * </p>
+ */
+public final class StructuredTasks {
+    /**
+     * 私有构造器, 禁止实例化对象
+     */
+    private StructuredTasks() {}
+
+    /**
+     * 并发执行所有任务, 并按任务的顺序返回结果
+     *
+     * <p>
+     * 任意一个任务失败, 则取消其余的任务, 并抛出该任务的异常
+     * </p>
+     *
+     * @param <T>   任务结果类型
+     * @param tasks 任务集合
+     * @return 任务结果列表, 顺序和 {@code tasks} 参数的顺序一致
+     * @throws ExecutionException   任意任务执行失败, 异常的 {@code cause} 为任务抛出的异常
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    public static <T> List<T> invokeAll(Collection<? extends Callable<T>> tasks)
+            throws ExecutionException, InterruptedException {
+        try {
+            return invokeAll(tasks, -1);
+        } catch (TimeoutException e) {
+            // 未设置超时时间, 不会发生超时
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 并发执行所有任务, 并按任务的顺序返回结果
+     *
+     * <p>
+     * 任意一个任务失败或等待超时, 则取消其余的任务, 并抛出相应的异常
+     * </p>
+     *
+     * @param <T>     任务结果类型
+     * @param tasks   任务集合
+     * @param timeout 等待所有任务完成的最长时间
+     * @return 任务结果列表, 顺序和 {@code tasks} 参数的顺序一致
+     * @throws ExecutionException   任意任务执行失败, 异常的 {@code cause} 为任务抛出的异常
+     * @throws TimeoutException     等待超时
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    public static <T> List<T> invokeAll(Collection<? extends Callable<T>> tasks, Duration timeout)
+            throws ExecutionException, TimeoutException, InterruptedException {
+        return invokeAll(tasks, timeout.toNanos());
+    }
+
+    /**
+     * 将集合中的每个元素映射为一个任务, 并发执行后按元素的顺序返回结果
+     *
+     * <p>
+     * 例如: {@code StructuredTasks.map(ids, service::loadModel)} 可以并发的读取一组模型对象,
+     * 总耗时接近于单次读取的耗时
+     * </p>
+     *
+     * @param <T>    元素类型
+     * @param <R>    任务结果类型
+     * @param items  元素集合
+     * @param mapper 将元素映射为结果的函数, 在虚拟线程中执行
+     * @return 结果列表, 顺序和 {@code items} 参数的顺序一致
+     * @throws ExecutionException   任意任务执行失败, 异常的 {@code cause} 为任务抛出的异常
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    public static <T, R> List<R> map(Collection<? extends T> items, Function<? super T, ? extends R> mapper)
+            throws ExecutionException, InterruptedException {
+        return invokeAll(items.stream().<Callable<R>>map(item -> () -> mapper.apply(item)).toList());
+    }
+
+    /**
+     * 并发执行所有任务, 返回第一个执行成功的任务结果, 并取消其余的任务
+     *
+     * <p>
+     * 适用于向多个副本发起相同的请求, 只需要最快的一个结果的场景
+     * </p>
+     *
+     * @param <T>   任务结果类型
+     * @param tasks 任务集合
+     * @return 第一个执行成功的任务结果
+     * @throws ExecutionException   所有任务均执行失败
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    public static <T> T invokeAny(Collection<? extends Callable<T>> tasks)
+            throws ExecutionException, InterruptedException {
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                return executor.invokeAny(tasks);
+            } finally {
+                // 取消仍在执行的任务, 以便关闭执行器时无需等待这些任务结束
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 并发执行所有任务, 并按任务的顺序返回结果
+     *
+     * @param <T>          任务结果类型
+     * @param tasks        任务集合
+     * @param timeoutNanos 等待所有任务完成的最长时间, 单位纳秒, 小于 {@code 0} 表示不限制
+     * @return 任务结果列表
+     */
+    private static <T> List<T> invokeAll(Collection<? extends Callable<T>> tasks, long timeoutNanos)
+            throws ExecutionException, TimeoutException, InterruptedException {
+        var deadline = System.nanoTime() + timeoutNanos;
+
+        // 关闭执行器时会等待所有任务结束, 保证方法返回后没有仍在运行的任务
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var service = new ExecutorCompletionService<T>(executor);
+
+            var futures = new ArrayList<Future<T>>(tasks.size());
+            for (var task : tasks) {
+                futures.add(service.submit(task));
+            }
+
+            var success = false;
+            try {
+                // 按任务完成的顺序获取结果, 以便尽早发现执行失败的任务
+                for (var i = 0; i < futures.size(); i++) {
+                    Future<T> done;
+                    if (timeoutNanos < 0) {
+                        done = service.take();
+                    } else {
+                        done = service.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                        if (done == null) {
+                            throw new TimeoutException("tasks not completed in time");
+                        }
+                    }
+                    // 任务执行失败时抛出 ExecutionException 异常
+                    done.get();
+                }
+                success = true;
+            } finally {
+                if (!success) {
+                    // 取消其余的任务
+                    futures.forEach(f -> f.cancel(true));
+                }
+            }
+            return futures.stream().map(Future::resultNow).toList();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package alvin.study.se.concurrent.util;
 
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
@@ -82,6 +84,14 @@ import java.util.concurrent.TimeUnit;
  * 类来创建线程池的, 故 {@link java.util.concurrent.ThreadPoolExecutor
  * ThreadPoolExecutor} 类在使用上会复杂一些, 但更加灵活
  * </p>
+ *
+ * <p>
+ * 线程数和队列长度应该根据实际的负载来确定, 而不是简单的设置为 CPU 核心数,
+ * 所以本类型还提供了一组 {@code instrumentedXxx} 方法, 创建
+ * {@link InstrumentedThreadPoolExecutor} 类型的线程池执行器,
+ * 可以获取任务排队时间, 执行时间, 拒绝和丢弃任务数量等指标,
+ * 并可以配合 {@link AdaptivePoolSizer} 类型根据任务排队时间自动调整线程数
+ * </p>
  */
 public final class ThreadPool {
     // 允许的最大线程数
@@ -129,11 +139,99 @@ public final class ThreadPool {
             0,
             TimeUnit.NANOSECONDS,
             new ArrayBlockingQueue<>(queueSize),
-            (runnable, exec) -> {
-                var queue = exec.getQueue();
-                queue.poll();
-                queue.offer(runnable);
-            });
+            ThreadPool::discardOldest);
+    }
+
+    /**
+     * 创建一个可度量的有界任务队列线程池执行器
+     *
+     * <p>
+     * 参数和行为同 {@link #fixedPoolExecutor(int, int)} 方法,
+     * 但可以通过 {@link InstrumentedThreadPoolExecutor#metrics()} 方法获取线程池的指标
+     * </p>
+     *
+     * @param maxThread 线程池最大线程数
+     * @param queueSize 任务队列的长度
+     * @return 线程池执行器对象
+     */
+    public static InstrumentedThreadPoolExecutor instrumentedFixedPoolExecutor(int maxThread, int queueSize) {
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("queueSize must great than 0");
+        }
+
+        if (maxThread <= 0) {
+            throw new IllegalArgumentException("maxThread must great than 0");
+        }
+
+        return new InstrumentedThreadPoolExecutor(
+            maxThread,
+            maxThread,
+            0,
+            TimeUnit.NANOSECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            Executors.defaultThreadFactory(),
+            ThreadPool::discardOldest);
+    }
+
+    /**
+     * 任务队列已满时的淘汰策略: 从任务队列中淘汰一个最早的任务, 以容纳新任务
+     *
+     * <p>
+     * 和 {@link ThreadPoolExecutor.DiscardOldestPolicy} 一样, 该策略不会抛出异常: 线程池已关闭,
+     * 或并发提交任务导致腾出的位置被其它任务占用时, 静默丢弃新任务
+     * </p>
+     *
+     * <p>
+     * 被丢弃的任务如果是通过 {@code submit} 方法提交的, 则会被取消,
+     * 否则等待该任务结果的调用方会被永久阻塞; 如果线程池是
+     * {@link InstrumentedThreadPoolExecutor} 类型, 则同时记录被丢弃的任务数量
+     * </p>
+     *
+     * @param runnable 新提交的任务
+     * @param exec     线程池执行器对象
+     */
+    private static void discardOldest(Runnable runnable, ThreadPoolExecutor exec) {
+        if (exec.isShutdown()) {
+            drop(runnable, exec);
+            return;
+        }
+
+        var queue = exec.getQueue();
+
+        var oldest = queue.poll();
+        if (oldest != null) {
+            drop(oldest, exec);
+        }
+
+        // 并发提交任务时, 腾出的位置可能被其它任务占用
+        if (!queue.offer(runnable)) {
+            drop(runnable, exec);
+        }
+    }
+
+    /**
+     * 丢弃任务
+     *
+     * @param task 被丢弃的任务
+     * @param exec 线程池执行器对象
+     */
+    private static void drop(Runnable task, ThreadPoolExecutor exec) {
+        if (exec instanceof InstrumentedThreadPoolExecutor instrumented) {
+            instrumented.recordDropped(task);
+        } else {
+            cancelDropped(task);
+        }
+    }
+
+    /**
+     * 取消被淘汰的任务
+     *
+     * @param task 被淘汰的任务
+     */
+    static void cancelDropped(Runnable task) {
+        if (task instanceof Future<?> future) {
+            future.cancel(false);
+        }
     }
 
     /**
@@ -203,6 +301,32 @@ public final class ThreadPool {
         return synchronousTaskExecutor(MAX_THREAD_COUNT);
     }
 
+    /**
+     * 创建一个可度量的立即执行任务的线程池执行器
+     *
+     * <p>
+     * 参数和行为同 {@link #synchronousTaskExecutor(int)} 方法,
+     * 但可以通过 {@link InstrumentedThreadPoolExecutor#metrics()} 方法获取线程池的指标
+     * </p>
+     *
+     * @param maxThreads 允许同时运行的最大线程数
+     * @return 线程池执行器对象
+     */
+    public static InstrumentedThreadPoolExecutor instrumentedSynchronousTaskExecutor(int maxThreads) {
+        if (maxThreads <= 0) {
+            throw new IllegalArgumentException("maxThread must great than 0");
+        }
+
+        return new InstrumentedThreadPoolExecutor(
+            0,
+            maxThreads,
+            60,
+            TimeUnit.SECONDS,
+            new SynchronousQueue<>(),
+            Executors.defaultThreadFactory(),
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
     /**
      * 创建一个用于执行延时异步任务的线程池执行器对象
      *
@@ -249,6 +373,12 @@ public final class ThreadPool {
      * ThreadFactory} 参数, 并传入虚拟线程的线程构造工厂即可
      * </p>
      *
+     * <p>
+     * 注意: 该线程池最多只有 {@link #MAX_THREAD_COUNT} 个线程, 且任务队列已满时会拒绝任务,
+     * 对于大量阻塞 IO 的任务, 应使用 {@link #virtualThreadPerTaskExecutor()} 或
+     * {@link #virtualThreadPerTaskExecutor(int)} 方法创建的执行器
+     * </p>
+     *
      * @return 用于执行虚拟线程的线程池执行器对象
      */
 
@@ -262,4 +392,56 @@ public final class ThreadPool {
             new ArrayBlockingQueue<>(MAX_THREAD_COUNT),
             Thread.ofVirtual().factory());
     }
+
+    /**
+     * 创建一个可度量的用于执行虚拟线程的线程池执行器对象
+     *
+     * <p>
+     * 参数和行为同 {@link #virtualThreadExecutor()} 方法,
+     * 但可以通过 {@link InstrumentedThreadPoolExecutor#metrics()} 方法获取线程池的指标
+     * </p>
+     *
+     * @return 用于执行虚拟线程的线程池执行器对象
+     */
+    public static InstrumentedThreadPoolExecutor instrumentedVirtualThreadExecutor() {
+        return new InstrumentedThreadPoolExecutor(
+            0,
+            MAX_THREAD_COUNT,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(MAX_THREAD_COUNT),
+            Thread.ofVirtual().factory(),
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 创建一个为每个任务创建一个虚拟线程的执行器
+     *
+     * <p>
+     * 虚拟线程的创建和阻塞的开销都很低, 所以无需通过线程池复用线程,
+     * 也无需通过任务队列缓存任务, 提交的任务会立即在一个新的虚拟线程中执行,
+     * 不会因为线程数或任务队列长度的限制而被拒绝, 适合大量阻塞 IO 的任务
+     * </p>
+     *
+     * @return 执行器对象
+     */
+    public static ExecutorService virtualThreadPerTaskExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * 创建一个为每个任务创建一个虚拟线程, 且限制同时执行任务数量的执行器
+     *
+     * <p>
+     * 和 {@link #virtualThreadPerTaskExecutor()} 方法的区别在于, 同时执行的任务数量不超过
+     * {@code maxConcurrency} 参数, 超出的任务不会被拒绝, 而是挂起等待, 参见
+     * {@link ConcurrencyLimitedExecutor} 类型
+     * </p>
+     *
+     * @param maxConcurrency 同时执行任务的最大数量
+     * @return 执行器对象
+     */
+    public static ExecutorService virtualThreadPerTaskExecutor(int maxConcurrency) {
+        return new ConcurrencyLimitedExecutor(Executors.newVirtualThreadPerTaskExecutor(), maxConcurrency);
+    }
 }
@@ -0,0 +1,37 @@
+package alvin.study.se.concurrent.util;
+
+/**
+ * 线程池指标快照, 由 {@link InstrumentedThreadPoolExecutor#metrics()} 方法产生
+ *
+ * <p>
+ * 耗时分布的单位均为纳秒; 各项任务数量均为线程池创建以来的累计值, 计算一段时间内的变化量需要对两次快照的结果相减
+ * </p>
+ *
+ * @param poolSize          当前线程池中的线程数量
+ * @param corePoolSize      核心线程数量
+ * @param maximumPoolSize   最大线程数量
+ * @param activeThreads     正在执行任务的线程数量
+ * @param peakActiveThreads 正在执行任务的线程数量的峰值
+ * @param queuedTasks       在队列中等待的任务数量
+ * @param submittedTasks    提交的任务数量
+ * @param completedTasks    执行完毕的任务数量 (包括执行失败的任务)
+ * @param failedTasks       执行失败的任务数量
+ * @param rejectedTasks     被拒绝策略处理的任务数量
+ * @param droppedTasks      被拒绝策略从队列中丢弃的任务数量
+ * @param queueWait         任务在队列中等待时间的分布
+ * @param runTime           任务执行时间的分布
+ */
+public record ThreadPoolMetrics(
+        int poolSize,
+        int corePoolSize,
+        int maximumPoolSize,
+        int activeThreads,
+        int peakActiveThreads,
+        int queuedTasks,
+        long submittedTasks,
+        long completedTasks,
+        long failedTasks,
+        long rejectedTasks,
+        long droppedTasks,
+        LatencyHistogram.Snapshot queueWait,
+        LatencyHistogram.Snapshot runTime) {}
@@ -4,77 +4,132 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * 用于测量代码执行时间的工具类
+ *
+ * <p>
+ * 时间通过 {@link System#nanoTime()} 获取, 精度为纳秒, 且不受系统时钟调整的影响. 注意, 该时间只能用于计算时间间隔,
+ * 不能表示当前的日期时间
+ * </p>
+ *
+ * <p>
+ * 如果需要统计多次执行的耗时分布, 可以通过 {@link #lap(LatencyHistogram)} 方法将每次的耗时记录到
+ * {@link LatencyHistogram} 对象中, 该方法不会产生任何对象分配
+ * </p>
  */
 public final class TimeIt {
-    private long timestamp;
+    // 开始计时的时间点, 单位纳秒
+    private long startNanos;
 
     /**
      * 构造器, 创建一个 {@link TimeIt} 对象
      *
-     * @param timestamp 初始时间戳
+     * @param startNanos 开始计时的时间点, 单位纳秒
      */
-    private TimeIt(long timestamp) {
-        this.timestamp = timestamp;
+    private TimeIt(long startNanos) {
+        this.startNanos = startNanos;
     }
 
     /**
-     * 创建一个 {@link TimeIt} 对象, 并初始化时间戳为当前时间戳
+     * 创建一个 {@link TimeIt} 对象, 并从当前时间开始计时
      *
      * @return {@link TimeIt} 对象
      */
     public static TimeIt start() {
-        return new TimeIt(System.currentTimeMillis());
+        return new TimeIt(System.nanoTime());
     }
 
     /**
-     * 获取从创建 {@link TimeIt} 对象到调用该方法的时间间隔
+     * 获取从开始计时到调用该方法的时间间隔
      *
      * @return 时间间隔, 单位毫秒
      */
     public long since() {
-        return System.currentTimeMillis() - this.timestamp;
+        return since(TimeUnit.MILLISECONDS);
     }
 
     /**
-     * 重置时间戳, 并返回从创建 {@link TimeIt} 对象到调用该方法的时间间隔
+     * 获取从开始计时到调用该方法的时间间隔
+     *
+     * @param unit 时间单位
+     * @return 时间间隔
+     */
+    public long since(TimeUnit unit) {
+        return unit.convert(sinceNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 获取从开始计时到调用该方法的时间间隔
+     *
+     * @return 时间间隔, 单位纳秒
+     */
+    public long sinceNanos() {
+        return System.nanoTime() - this.startNanos;
+    }
+
+    /**
+     * 重新开始计时, 并返回从上次开始计时到调用该方法的时间间隔
      *
      * @return 时间间隔, 单位毫秒
      */
     public long restart() {
-        var timestamp = System.currentTimeMillis();
-        var since = System.currentTimeMillis() - timestamp;
+        return TimeUnit.NANOSECONDS.toMillis(restartNanos());
+    }
 
-        this.timestamp = timestamp;
+    /**
+     * 重新开始计时, 并返回从上次开始计时到调用该方法的时间间隔
+     *
+     * @return 时间间隔, 单位纳秒
+     */
+    public long restartNanos() {
+        var now = System.nanoTime();
+        var since = now - this.startNanos;
+
+        this.startNanos = now;
+        return since;
+    }
+
+    /**
+     * 将从上次开始计时到调用该方法的时间间隔记录到直方图中, 并重新开始计时
+     *
+     * <p>
+     * 可以重复使用同一个 {@link TimeIt} 对象, 在循环中记录每一次执行的耗时
+     * </p>
+     *
+     * @param histogram 记录耗时的直方图
+     * @return 时间间隔, 单位纳秒
+     */
+    public long lap(LatencyHistogram histogram) {
+        var since = restartNanos();
+        histogram.record(since);
         return since;
     }
 
     /**
-     * 创建一个 {@link TimeIt} 对象, 并初始化时间戳为当前时间戳
+     * 创建一个 {@link TimeIt} 对象, 其开始计时的时间点和当前对象相同
      *
      * @return {@link TimeIt} 对象
      */
     public TimeIt fork() {
-        return new TimeIt(this.timestamp);
+        return new TimeIt(this.startNanos);
     }
 
     /**
-     * 计算两个 {@link TimeIt} 对象的时间间隔
+     * 计算两个 {@link TimeIt} 对象开始计时的时间间隔
      *
      * @param other 另一个 {@link TimeIt} 对象
      * @return 时间间隔, 单位毫秒
      */
     public long since(TimeIt other) {
-        return other.timestamp - this.timestamp;
+        return TimeUnit.NANOSECONDS.toMillis(other.startNanos - this.startNanos);
     }
 
     /**
-     * 计算两个 {@link TimeIt} 对象的时间间隔
+     * 计算指定时间点和开始计时的时间间隔
      *
-     * @param timestamp 另一个 {@link TimeIt} 对象的时间戳
-     * @param unit      时间单位
+     * @param timestamp 时间点, 和 {@link System#nanoTime()} 使用相同的时间源
+     * @param unit      {@code timestamp} 参数的时间单位
      * @return 时间间隔, 单位毫秒
      */
     public long since(long timestamp, TimeUnit unit) {
-        return unit.toMillis(timestamp) - this.timestamp;
+        return TimeUnit.NANOSECONDS.toMillis(unit.toNanos(timestamp) - this.startNanos);
     }
 }
@@ -0,0 +1,78 @@
+package alvin.study.se.concurrent.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 等待策略, 用于无锁数据结构在无法继续操作 (例如队列已满或已空) 时, 决定当前线程如何等待
+ *
+ * <p>
+ * 无锁数据结构没有可以阻塞线程的锁或条件变量, 只能循环重试, 不同的等待策略在"响应延迟"和"CPU 占用"之间进行不同的取舍:
+ * <ul>
+ * <li>
+ * {@link #busySpin()}: 始终自旋, 延迟最低, 但会持续占用一个 CPU 核心, 只适合线程数不超过 CPU 核心数的场景;
+ * </li>
+ * <li>
+ * {@link #yielding()}: 自旋一定次数后让出 CPU 时间片, 延迟较低, 但 CPU 占用仍较高;
+ * </li>
+ * <li>
+ * {@link #parking()}: 自旋, 让出时间片后, 逐步增加休眠时间, 延迟较高, 但 CPU 占用最低, 适合生产者和消费者速度差异较大的场景
+ * </li>
+ * </ul>
+ * </p>
+ */
+@FunctionalInterface
+public interface WaitStrategy {
+    /**
+     * 进行一次等待
+     *
+     * @param attempts 本次操作已经连续等待的次数, 从 {@code 0} 开始
+     */
+    void idle(int attempts);
+
+    /**
+     * 获取始终自旋的等待策略
+     *
+     * @return 等待策略对象
+     */
+    static WaitStrategy busySpin() {
+        return attempts -> Thread.onSpinWait();
+    }
+
+    /**
+     * 获取自旋后让出时间片的等待策略
+     *
+     * @return 等待策略对象
+     */
+    static WaitStrategy yielding() {
+        return attempts -> {
+            if (attempts < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        };
+    }
+
+    /**
+     * 获取自旋, 让出时间片后休眠的等待策略
+     *
+     * <p>
+     * 休眠时间从 {@code 1µs} 开始逐次翻倍, 最长为 {@code 1ms}
+     * </p>
+     *
+     * @return 等待策略对象
+     */
+    static WaitStrategy parking() {
+        return attempts -> {
+            if (attempts < 100) {
+                Thread.onSpinWait();
+            } else if (attempts < 200) {
+                Thread.yield();
+            } else {
+                var shift = Math.min(attempts - 200, 10);
+                LockSupport.parkNanos(Math.min(TimeUnit.MICROSECONDS.toNanos(1) << shift, TimeUnit.MILLISECONDS.toNanos(1)));
+            }
+        };
+    }
+}
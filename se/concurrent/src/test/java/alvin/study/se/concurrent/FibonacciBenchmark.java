@@ -0,0 +1,141 @@
+package alvin.study.se.concurrent;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import alvin.study.se.concurrent.service.FibonacciService;
+
+/**
+ * 对比 {@link FibonacciService} 各种计算策略的耗时, 以及并行策略在不同并行度下的扩展性
+ *
+ * <p>
+ * 测试分为两组:
+ * <ul>
+ * <li>
+ * CPU 密集型: 计算 {@code F(32)}, 对比顺序的朴素递归 ({@code recursive}) 和 Fork/Join 并行递归 ({@code forkJoin});
+ * </li>
+ * <li>
+ * 大数计算: 计算 {@code F(20000)}, 对比迭代 ({@code iterative}), 快速倍增 ({@code fastDoubling}) 和并行流矩阵乘法
+ * ({@code parallelStream})
+ * </li>
+ * </ul>
+ * 并行策略通过 {@code parallelism} 参数指定 {@link ForkJoinPool} 的并行度, 当并行度超过 CPU 核心数后, 耗时不会继续降低,
+ * 可以据此确定当前硬件上合适的并行度. {@code memoized} 策略在第一次计算后直接返回缓存值, 故不参与对比
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FibonacciBenchmark {
+    // CPU 密集型计算的数列项
+    private static final int RECURSIVE_N = 32;
+    // 大数计算的数列项
+    private static final int BIG_N = 20_000;
+
+    /**
+     * 顺序计算策略使用的服务对象
+     */
+    @State(Scope.Benchmark)
+    public static class Sequential {
+        private final FibonacciService service = new FibonacciService();
+    }
+
+    /**
+     * 并行计算策略使用的服务对象, 其线程池的并行度由参数指定
+     */
+    @State(Scope.Benchmark)
+    public static class Parallel {
+        @Param({ "1", "2", "4", "8" })
+        private int parallelism;
+
+        private ForkJoinPool pool;
+        private FibonacciService service;
+
+        /**
+         * 创建指定并行度的线程池
+         */
+        @Setup
+        public void setup() {
+            pool = new ForkJoinPool(parallelism);
+            service = new FibonacciService(pool, 20);
+        }
+
+        /**
+         * 关闭线程池
+         */
+        @TearDown
+        public void tearDown() {
+            pool.close();
+        }
+    }
+
+    /**
+     * 测试朴素递归
+     */
+    @Benchmark
+    public long recursive(Sequential state) {
+        return state.service.recursive(RECURSIVE_N);
+    }
+
+    /**
+     * 测试 Fork/Join 并行递归
+     */
+    @Benchmark
+    public long forkJoin(Parallel state) {
+        return state.service.forkJoin(RECURSIVE_N);
+    }
+
+    /**
+     * 测试迭代计算
+     */
+    @Benchmark
+    public BigInteger iterative(Sequential state) {
+        return state.service.iterative(BIG_N);
+    }
+
+    /**
+     * 测试快速倍增法
+     */
+    @Benchmark
+    public BigInteger fastDoubling(Sequential state) {
+        return state.service.fastDoubling(BIG_N);
+    }
+
+    /**
+     * 测试并行流矩阵乘法
+     */
+    @Benchmark
+    public BigInteger parallelStream(Parallel state) {
+        return state.service.parallelStream(BIG_N);
+    }
+
+    /**
+     * 执行性能测试
+     */
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(FibonacciBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,64 @@
+package alvin.study.se.concurrent;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import alvin.study.se.concurrent.service.Fibonacci;
+import alvin.study.se.concurrent.service.FibonacciService;
+import alvin.study.se.concurrent.service.FibonacciService.Strategy;
+
+/**
+ * 测试 {@link FibonacciService} 类型, 确认各种计算策略的结果一致
+ */
+class FibonacciServiceTest {
+    /**
+     * 测试所有策略的计算结果和 {@link Fibonacci#calculate(int)} 一致
+     */
+    @Test
+    void calculate_shouldReturnSameResultForAllStrategies() {
+        try (var pool = new ForkJoinPool(4)) {
+            var service = new FibonacciService(pool, 10);
+
+            for (var n = 0; n <= 30; n++) {
+                var expected = BigInteger.valueOf(Fibonacci.calculate(n));
+                for (var strategy : Strategy.values()) {
+                    then(service.calculate(strategy, n)).as("%s(%d)", strategy, n).isEqualTo(expected);
+                }
+            }
+        }
+    }
+
+    /**
+     * 测试计算超出 {@code long} 范围的数列值
+     */
+    @Test
+    void calculate_shouldCalculateBigNumbers() {
+        var service = new FibonacciService();
+
+        var expected = new BigInteger("354224848179261915075");
+        then(service.iterative(100)).isEqualTo(expected);
+        then(service.memoized(100)).isEqualTo(expected);
+        then(service.fastDoubling(100)).isEqualTo(expected);
+        then(service.parallelStream(100)).isEqualTo(expected);
+
+        then(service.fastDoubling(10000)).isEqualTo(service.iterative(10000));
+        then(service.parallelStream(10000)).isEqualTo(service.memoized(10000));
+    }
+
+    /**
+     * 测试参数不合法时抛出异常
+     */
+    @Test
+    void calculate_shouldThrowIfNIsNegative() {
+        var service = new FibonacciService();
+
+        thenThrownBy(() -> service.calculate(Strategy.ITERATIVE, -1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("n must large than or equal to 0");
+    }
+}
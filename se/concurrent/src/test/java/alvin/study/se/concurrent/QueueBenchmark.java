@@ -0,0 +1,111 @@
+package alvin.study.se.concurrent;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import alvin.study.se.concurrent.util.BlockingQueue;
+import alvin.study.se.concurrent.util.RingBufferQueue;
+
+/**
+ * 对比 {@link BlockingQueue}, {@link ArrayBlockingQueue} 和 {@link RingBufferQueue} 在多个生产者和多个消费者并发访问时的吞吐量
+ *
+ * <p>
+ * 每组测试包含 {@code 4} 个生产者线程和 {@code 4} 个消费者线程, 生产者和消费者均使用带超时的方法, 避免测试迭代结束时,
+ * 某一方因为另一方已停止而被永久阻塞
+ * </p>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueBenchmark {
+    // 队列容量
+    private static final int CAPACITY = 1024;
+    // 入队和出队的超时时间, 单位毫秒
+    private static final long TIMEOUT = 10;
+
+    // 入队的消息对象, 避免测试过程中的装箱操作
+    private static final Integer VALUE = 1;
+
+    @Param({ "BlockingQueue", "ArrayBlockingQueue", "RingBufferQueue" })
+    private String type;
+
+    private BlockingQueue<Integer> blockingQueue;
+    private ArrayBlockingQueue<Integer> arrayBlockingQueue;
+    private RingBufferQueue<Integer> ringBufferQueue;
+
+    /**
+     * 根据参数创建要测试的队列对象
+     */
+    @Setup
+    public void setup() {
+        switch (type) {
+            case "BlockingQueue" -> blockingQueue = new BlockingQueue<>(CAPACITY);
+            case "ArrayBlockingQueue" -> arrayBlockingQueue = new ArrayBlockingQueue<>(CAPACITY);
+            case "RingBufferQueue" -> ringBufferQueue = new RingBufferQueue<>(CAPACITY);
+            default -> throw new IllegalArgumentException("Unknown queue type: " + type);
+        }
+    }
+
+    /**
+     * 测试生产者入队
+     *
+     * @return 是否入队成功, 返回结果以防止被 JIT 优化掉
+     */
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(4)
+    public boolean offer() throws InterruptedException {
+        return switch (type) {
+            case "BlockingQueue" -> blockingQueue.offer(VALUE, TIMEOUT, TimeUnit.MILLISECONDS);
+            case "ArrayBlockingQueue" -> arrayBlockingQueue.offer(VALUE, TIMEOUT, TimeUnit.MILLISECONDS);
+            default -> ringBufferQueue.offer(VALUE, TIMEOUT, TimeUnit.MILLISECONDS);
+        };
+    }
+
+    /**
+     * 测试消费者出队
+     *
+     * @return 出队的消息对象, 返回结果以防止被 JIT 优化掉
+     */
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(4)
+    public Integer poll() throws InterruptedException {
+        return switch (type) {
+            case "BlockingQueue" -> blockingQueue.peek(TIMEOUT, TimeUnit.MILLISECONDS);
+            case "ArrayBlockingQueue" -> arrayBlockingQueue.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+            default -> ringBufferQueue.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        };
+    }
+
+    /**
+     * 执行性能测试
+     */
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(QueueBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(options).run();
+    }
+}
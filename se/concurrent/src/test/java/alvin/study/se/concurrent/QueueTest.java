@@ -2,15 +2,22 @@ package alvin.study.se.concurrent;
 
 import static org.assertj.core.api.BDDAssertions.then;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.DelayQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 
 import lombok.SneakyThrows;
 
 import org.junit.jupiter.api.Test;
 
 import alvin.study.se.concurrent.delay.DelayedValue;
+import alvin.study.se.concurrent.util.RingBufferQueue;
+import alvin.study.se.concurrent.util.Threads;
 import alvin.study.se.concurrent.util.TimeIt;
+import alvin.study.se.concurrent.util.WaitStrategy;
 
 public class QueueTest {
     /**
@@ -76,4 +83,137 @@ public class QueueTest {
         // 确认整体出队耗时 210ms 左右, 为延时时间最久的元素出队时间
         then(timeit.since()).isBetween(210L, 220L);
     }
+
+    /**
+     * 测试 {@link RingBufferQueue} 类型的入队和出队
+     *
+     * <p>
+     * {@link RingBufferQueue} 的容量会被向上调整为 2 的幂, 队列已满时
+     * {@link RingBufferQueue#tryOffer(Object)} 方法返回 {@code false}, 队列为空时
+     * {@link RingBufferQueue#tryPoll()} 方法返回 {@code null}
+     * </p>
+     */
+    @Test
+    @SneakyThrows
+    void ringBufferQueue_shouldOfferAndPollInOrder() {
+        // 创建容量为 3 的队列, 实际容量被调整为 4
+        var queue = new RingBufferQueue<Integer>(3);
+        then(queue.capacity()).isEqualTo(4);
+        then(queue.isEmpty()).isTrue();
+
+        // 入队 4 个元素, 确认第 5 个元素入队失败, 因为队列已满
+        for (var i = 0; i < 4; i++) {
+            then(queue.tryOffer(i)).isTrue();
+        }
+        then(queue.size()).isEqualTo(4);
+        then(queue.tryOffer(4)).isFalse();
+        then(queue.offer(4, 10, TimeUnit.MILLISECONDS)).isFalse();
+
+        // 确认元素按入队顺序出队
+        for (var i = 0; i < 4; i++) {
+            then(queue.poll()).isEqualTo(i);
+        }
+
+        // 确认队列为空时出队失败
+        then(queue.tryPoll()).isNull();
+        then(queue.poll(10, TimeUnit.MILLISECONDS)).isNull();
+
+        // 多次入队出队, 确认环形数组可以循环使用
+        for (var i = 0; i < 10; i++) {
+            queue.offer(i);
+            then(queue.poll()).isEqualTo(i);
+        }
+        then(queue.isEmpty()).isTrue();
+    }
+
+    /**
+     * 测试 {@link RingBufferQueue} 类型的批量入队和出队
+     *
+     * <p>
+     * {@link RingBufferQueue#offerAll(List)} 和
+     * {@link RingBufferQueue#drainTo(java.util.Collection, int)} 方法通过一次 CAS
+     * 操作占有多个连续的槽位, 队列剩余空间不足时只处理能够容纳的部分
+     * </p>
+     */
+    @Test
+    void ringBufferQueue_shouldOfferAndDrainInBatch() {
+        var queue = new RingBufferQueue<Integer>(8);
+
+        // 批量入队 10 个元素, 确认只有 8 个元素入队成功
+        then(queue.offerAll(IntStream.range(0, 10).boxed().toList())).isEqualTo(8);
+        then(queue.size()).isEqualTo(8);
+
+        // 批量出队 5 个元素
+        var results = new ArrayList<Integer>();
+        then(queue.drainTo(results, 5)).isEqualTo(5);
+        then(results).containsExactly(0, 1, 2, 3, 4);
+
+        // 批量入队 5 个元素, 此时槽位跨越环形数组的末尾
+        then(queue.offerAll(List.of(10, 11, 12, 13, 14))).isEqualTo(5);
+
+        // 出队所有元素, 确认元素按入队顺序出队
+        results.clear();
+        then(queue.drainTo(results, Integer.MAX_VALUE)).isEqualTo(8);
+        then(results).containsExactly(5, 6, 7, 10, 11, 12, 13, 14);
+        then(queue.isEmpty()).isTrue();
+    }
+
+    /**
+     * 测试 {@link RingBufferQueue} 类型在多个生产者和多个消费者并发访问时的正确性
+     *
+     * <p>
+     * 多个生产者线程向小容量的队列中写入数据, 多个消费者线程同时读取, 确认每个元素恰好被消费一次
+     * </p>
+     *
+     * <p>
+     * 注意: 线程数多于 CPU 核心数时, {@link WaitStrategy#busySpin()} 策略会令自旋的线程耗尽时间片,
+     * 而占有槽位的线程无法得到调度, 所以本例不测试该策略
+     * </p>
+     */
+    @Test
+    @SneakyThrows
+    void ringBufferQueue_shouldWorkWithMultipleProducersAndConsumers() {
+        final int THREADS = 4;
+        final int COUNT = 10000;
+
+        for (var strategy : List.of(WaitStrategy.yielding(), WaitStrategy.parking())) {
+            var queue = new RingBufferQueue<Integer>(16, strategy);
+
+            // 记录消费到的元素的个数和总和
+            var consumed = new AtomicLong();
+            var sum = new AtomicLong();
+
+            var threads = new Thread[THREADS * 2];
+            for (var i = 0; i < THREADS; i++) {
+                // 生产者线程, 每个线程写入 1~COUNT 的整数
+                threads[i] = new Thread(() -> {
+                    try {
+                        for (var n = 1; n <= COUNT; n++) {
+                            queue.offer(n);
+                        }
+                    } catch (InterruptedException ignore) {}
+                });
+
+                // 消费者线程, 每个线程读取 COUNT 个整数
+                threads[THREADS + i] = new Thread(() -> {
+                    try {
+                        for (var n = 0; n < COUNT; n++) {
+                            sum.addAndGet(queue.poll());
+                            consumed.incrementAndGet();
+                        }
+                    } catch (InterruptedException ignore) {}
+                });
+            }
+
+            for (var thread : threads) {
+                thread.start();
+            }
+            then(Threads.joinAll(threads, 10000)).isTrue();
+
+            // 确认所有元素都被消费, 且没有元素被重复消费
+            then(consumed.get()).isEqualTo((long) THREADS * COUNT);
+            then(sum.get()).isEqualTo((long) THREADS * COUNT * (COUNT + 1) / 2);
+            then(queue.isEmpty()).isTrue();
+        }
+    }
 }
@@ -0,0 +1,157 @@
+package alvin.study.se.concurrent;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import lombok.SneakyThrows;
+
+import org.junit.jupiter.api.Test;
+
+import alvin.study.se.concurrent.service.BlockedService;
+import alvin.study.se.concurrent.util.StructuredTasks;
+import alvin.study.se.concurrent.util.TimeIt;
+
+/**
+ * 测试 {@link StructuredTasks} 类型的结构化并发
+ *
+ * <p>
+ * 结构化并发将一组子任务的生命周期限制在调用方法之内, 方法返回时所有子任务都已结束,
+ * 任意子任务失败或超时时, 其余子任务会被取消
+ * </p>
+ */
+class StructuredTasksTest {
+    /**
+     * 测试并发读取一组模型对象
+     *
+     * <p>
+     * {@link BlockedService#loadModel(long)} 方法每次调用阻塞 100ms, 通过
+     * {@link StructuredTasks#map(java.util.Collection, java.util.function.Function)}
+     * 方法并发读取 100 个模型对象, 总耗时接近于单次调用的耗时
+     * </p>
+     */
+    @Test
+    @SneakyThrows
+    void map_shouldFanOutBlockingCalls() {
+        var service = new BlockedService(
+            LongStream.rangeClosed(1, 100)
+                    .mapToObj(id -> new BlockedService.Model(id, "model-" + id))
+                    .toArray(BlockedService.Model[]::new));
+
+        var timeIt = TimeIt.start();
+
+        // 并发读取 100 个模型对象
+        var models = StructuredTasks.map(
+            LongStream.rangeClosed(1, 100).boxed().toList(),
+            service::loadModel);
+
+        // 确认结果的顺序和参数的顺序一致
+        then(models).hasSize(100)
+                .map(Optional::orElseThrow)
+                .map(BlockedService.Model::id)
+                .isEqualTo(LongStream.rangeClosed(1, 100).boxed().toList());
+
+        // 确认总耗时远小于串行执行的 10s
+        then(timeIt.since()).isLessThan(1000L);
+    }
+
+    /**
+     * 测试任意任务失败时, 取消其余任务
+     *
+     * <p>
+     * 第 1 个任务需要执行 5s, 第 2 个任务在 50ms 后抛出异常, 此时第 1 个任务被中断,
+     * 方法立即抛出第 2 个任务的异常, 而不必等待第 1 个任务执行完毕
+     * </p>
+     */
+    @Test
+    void invokeAll_shouldCancelOtherTasksWhenOneFailed() {
+        var interrupted = new AtomicInteger();
+
+        List<Callable<String>> tasks = List.of(
+            () -> {
+                try {
+                    Thread.sleep(5000);
+                    return "slow";
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                    throw e;
+                }
+            },
+            () -> {
+                Thread.sleep(50);
+                throw new IllegalStateException("failed");
+            });
+
+        var timeIt = TimeIt.start();
+
+        // 确认抛出第 2 个任务的异常
+        thenThrownBy(() -> StructuredTasks.invokeAll(tasks))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+
+        // 确认第 1 个任务被中断, 且方法返回时第 1 个任务已经结束
+        then(interrupted.get()).isEqualTo(1);
+        then(timeIt.since()).isLessThan(1000L);
+    }
+
+    /**
+     * 测试等待超时时, 取消所有任务
+     */
+    @Test
+    void invokeAll_shouldCancelTasksWhenTimeout() {
+        var interrupted = new AtomicInteger();
+
+        List<Callable<String>> tasks = List.of(
+            () -> "fast",
+            () -> {
+                try {
+                    Thread.sleep(5000);
+                    return "slow";
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                    throw e;
+                }
+            });
+
+        // 确认等待 100ms 后超时
+        thenThrownBy(() -> StructuredTasks.invokeAll(tasks, Duration.ofMillis(100)))
+                .isInstanceOf(TimeoutException.class);
+
+        // 确认未完成的任务被中断
+        then(interrupted.get()).isEqualTo(1);
+    }
+
+    /**
+     * 测试获取第一个执行成功的任务结果
+     */
+    @Test
+    @SneakyThrows
+    void invokeAny_shouldReturnFirstSuccessfulResult() {
+        List<Callable<String>> tasks = List.of(
+            () -> {
+                Thread.sleep(5000);
+                return "slow";
+            },
+            () -> {
+                throw new IllegalStateException("failed");
+            },
+            () -> {
+                Thread.sleep(50);
+                return "fast";
+            });
+
+        var timeIt = TimeIt.start();
+
+        // 确认返回执行成功且最快的任务结果, 无需等待较慢的任务
+        then(StructuredTasks.invokeAny(tasks)).isEqualTo("fast");
+        then(timeIt.since()).isLessThan(1000L);
+    }
+}
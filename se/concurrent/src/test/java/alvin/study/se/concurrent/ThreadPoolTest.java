@@ -14,6 +14,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
@@ -28,6 +29,8 @@ import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
 
 import alvin.study.se.concurrent.service.Fibonacci;
+import alvin.study.se.concurrent.util.AdaptivePoolSizer;
+import alvin.study.se.concurrent.util.InstrumentedThreadPoolExecutor;
 import alvin.study.se.concurrent.util.ThreadPool;
 import alvin.study.se.concurrent.util.TimeIt;
 
@@ -92,6 +95,24 @@ class ThreadPoolTest {
         then(futures).map(Future::get).containsExactly(1, 1, 2, 3, 5);
     }
 
+    /**
+     * 测试固定边界线程池执行器在关闭后, 静默丢弃新提交的任务
+     *
+     * <p>
+     * 和 {@link java.util.concurrent.ThreadPoolExecutor.DiscardOldestPolicy DiscardOldestPolicy} 一样,
+     * 线程池关闭后提交任务不会抛出异常, 通过 {@code submit} 方法提交的任务会被取消
+     * </p>
+     */
+    @Test
+    void fixedPoolExecutor_shouldDropTaskSilentlyAfterShutdown() {
+        var executor = ThreadPool.fixedPoolExecutor(1, 1);
+        executor.shutdown();
+
+        // 确认提交任务不会抛出异常, 且任务被取消
+        var future = executor.submit(() -> Fibonacci.calculate(1));
+        then(future.isCancelled()).isTrue();
+    }
+
     /**
      * 测试立即执行线程池执行器, 提交并立即执行任务
      *
@@ -178,6 +199,189 @@ class ThreadPoolTest {
         }
     }
 
+    /**
+     * 测试可度量的线程池执行器, 获取线程池的指标
+     *
+     * <p>
+     * 通过 {@link ThreadPool#instrumentedFixedPoolExecutor(int, int)} 方法创建的线程池执行器,
+     * 可以通过 {@link InstrumentedThreadPoolExecutor#metrics()}
+     * 方法获取任务排队时间, 执行时间, 以及拒绝和丢弃的任务数量等指标
+     * </p>
+     *
+     * <p>
+     * 本例中线程池只有 {@code 1} 个线程, 任务队列长度为 {@code 2}, 当提交第 {@code 4} 个任务时,
+     * 任务队列已满, 最早进入队列的任务被丢弃, 且该任务对应的 {@link Future} 对象被取消
+     * </p>
+     */
+    @Test
+    @SneakyThrows
+    void instrumentedFixedPoolExecutor_shouldRecordMetrics() {
+        var futures = new ArrayList<Future<?>>();
+
+        try (var executor = ThreadPool.instrumentedFixedPoolExecutor(1, 2)) {
+            // 提交第 1 个任务, 该任务在计数器归零前一直占用线程
+            var latch = new CountDownLatch(1);
+            futures.add(executor.submit(() -> {
+                try {
+                    latch.await();
+                    Thread.sleep(50);
+                } catch (InterruptedException ignore) {}
+            }));
+            await().atMost(Duration.ofSeconds(1)).until(() -> executor.metrics().activeThreads() == 1);
+
+            // 再提交 3 个任务, 每个任务执行 50ms
+            for (var i = 0; i < 3; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException ignore) {}
+                }));
+            }
+
+            // 确认第 2 个任务被丢弃, 且被取消
+            then(futures.get(1).isCancelled()).isTrue();
+            then(executor.metrics().queuedTasks()).isEqualTo(2);
+
+            // 令第 1 个任务继续执行
+            Thread.sleep(50);
+            latch.countDown();
+
+            // 等待其余任务执行完毕
+            for (var future : List.of(futures.get(0), futures.get(2), futures.get(3))) {
+                future.get();
+            }
+
+            // 提交一个执行失败的任务
+            futures.add(executor.submit(() -> {
+                throw new IllegalStateException();
+            }));
+            await().atMost(Duration.ofSeconds(1)).until(() -> executor.metrics().completedTasks() == 4);
+
+            var metrics = executor.metrics();
+
+            // 确认各项任务数量
+            then(metrics.submittedTasks()).isEqualTo(5);
+            then(metrics.completedTasks()).isEqualTo(4);
+            then(metrics.failedTasks()).isEqualTo(1);
+            then(metrics.rejectedTasks()).isEqualTo(1);
+            then(metrics.droppedTasks()).isEqualTo(1);
+            then(metrics.activeThreads()).isZero();
+            then(metrics.peakActiveThreads()).isEqualTo(1);
+
+            // 确认任务执行时间和排队时间的分布, 第 4 个任务至少排队了 100ms
+            then(metrics.runTime().count()).isEqualTo(4);
+            then(metrics.runTime().p50()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+            then(metrics.queueWait().max()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    /**
+     * 测试根据任务排队时间自动调整线程池的核心线程数
+     *
+     * <p>
+     * {@link AdaptivePoolSizer} 对象每次调整时, 根据任务排队时间的 p99 值决定增加或减少核心线程数,
+     * 任务排队时间超过目标值时扩容, 任务排队时间很短且有空闲线程时缩容
+     * </p>
+     */
+    @Test
+    @SneakyThrows
+    void adaptivePoolSizer_shouldResizePoolByQueueWait() {
+        try (var executor = ThreadPool.instrumentedFixedPoolExecutor(1, 100)) {
+            var sizer = new AdaptivePoolSizer(executor, Duration.ofMillis(5), 1, 4);
+
+            // 提交 10 个任务, 每个任务执行 20ms, 由于只有 1 个线程, 故后续任务排队时间较长
+            var futures = new ArrayList<Future<?>>();
+            for (var i = 0; i < 10; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException ignore) {}
+                }));
+            }
+
+            // 等待部分任务执行, 确认排队时间超过目标值, 核心线程数增加
+            await().atMost(Duration.ofSeconds(1)).until(() -> executor.metrics().completedTasks() >= 2);
+            then(sizer.adjust()).isEqualTo(2);
+            then(executor.getMaximumPoolSize()).isEqualTo(2);
+
+            for (var future : futures) {
+                future.get();
+            }
+
+            // 所有任务执行完毕后, 线程空闲, 核心线程数逐步减少到下限
+            for (var i = 0; i < 10; i++) {
+                sizer.adjust();
+            }
+            then(executor.getCorePoolSize()).isEqualTo(1);
+            then(executor.getMaximumPoolSize()).isEqualTo(1);
+        }
+    }
+
+    /**
+     * 测试为每个任务创建一个虚拟线程的执行器
+     *
+     * <p>
+     * 通过 {@link ThreadPool#virtualThreadPerTaskExecutor()} 方法创建的执行器,
+     * 不限制线程数量, 也没有任务队列, 所以即使同时提交 {@code 10000} 个阻塞任务,
+     * 也不会有任务被拒绝, 且所有任务并发执行, 总耗时接近于单个任务的耗时
+     * </p>
+     */
+    @Test
+    @SneakyThrows
+    void virtualThreadPerTaskExecutor_shouldExecuteBlockingTasksConcurrently() {
+        var counter = new AtomicInteger();
+
+        var timeIt = TimeIt.start();
+        try (var executor = ThreadPool.virtualThreadPerTaskExecutor()) {
+            // 提交 10000 个任务, 每个任务阻塞 100ms
+            for (var i = 0; i < 10000; i++) {
+                executor.submit(() -> {
+                    Thread.sleep(100);
+                    return counter.incrementAndGet();
+                });
+            }
+        }
+
+        // 确认所有任务均已执行, 且总耗时远小于串行执行的耗时
+        then(counter.get()).isEqualTo(10000);
+        then(timeIt.since()).isLessThan(5000L);
+    }
+
+    /**
+     * 测试限制同时执行任务数量的虚拟线程执行器
+     *
+     * <p>
+     * 通过 {@link ThreadPool#virtualThreadPerTaskExecutor(int)} 方法创建的执行器,
+     * 通过信号量限制同时执行的任务数量, 超出数量的任务在各自的虚拟线程中挂起等待, 而不会被拒绝
+     * </p>
+     */
+    @Test
+    @SneakyThrows
+    void virtualThreadPerTaskExecutor_shouldLimitConcurrency() {
+        var running = new AtomicInteger();
+        var peak = new AtomicInteger();
+        var counter = new AtomicInteger();
+
+        try (var executor = ThreadPool.virtualThreadPerTaskExecutor(10)) {
+            // 提交 100 个任务, 每个任务阻塞 10ms, 并记录同时执行的任务数量的峰值
+            for (var i = 0; i < 100; i++) {
+                executor.submit(() -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(10);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    return counter.incrementAndGet();
+                });
+            }
+        }
+
+        // 确认所有任务均已执行, 且同时执行的任务数量不超过 10 个
+        then(counter.get()).isEqualTo(100);
+        then(peak.get()).isBetween(1, 10);
+    }
+
     /**
      * 测试包含虚拟线程的线程池, 通过虚拟线程执行任务
      *
@@ -0,0 +1,127 @@
+package alvin.study.se.concurrent;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.within;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import lombok.SneakyThrows;
+
+import org.junit.jupiter.api.Test;
+
+import alvin.study.se.concurrent.util.LatencyHistogram;
+import alvin.study.se.concurrent.util.Threads;
+import alvin.study.se.concurrent.util.TimeIt;
+
+/**
+ * 测试 {@link TimeIt} 和 {@link LatencyHistogram} 类型, 测量代码执行时间并统计耗时分布
+ *
+ * <p>
+ * 单次测量的耗时容易受到 GC, 线程调度等因素的干扰, 对于并发程序而言, 更有意义的是多次执行的耗时分布,
+ * 例如中位数 (p50) 反映了一般情况, 而 p99, p999 反映了"长尾"情况
+ * </p>
+ */
+class TimeItTest {
+    /**
+     * 测试 {@link TimeIt#restart()} 方法, 返回上一次计时的时间间隔, 并重新开始计时
+     */
+    @Test
+    @SneakyThrows
+    void restart_shouldReturnElapsedTimeAndRestart() {
+        var timeit = TimeIt.start();
+
+        Thread.sleep(50);
+
+        // 确认返回上一次计时的时间间隔
+        then(timeit.restart()).isBetween(50L, 70L);
+
+        // 确认已经重新开始计时
+        then(timeit.since()).isBetween(0L, 10L);
+        then(timeit.since(TimeUnit.MICROSECONDS)).isLessThan(10_000L);
+    }
+
+    /**
+     * 测试 {@link LatencyHistogram} 计算百分位数
+     *
+     * <p>
+     * 记录 {@code 1µs ~ 10000µs} 共 {@code 10000} 个值, 计算得到的百分位数和实际值的误差不超过 {@code 1/32}
+     * </p>
+     */
+    @Test
+    void histogram_shouldCalculatePercentiles() {
+        var histogram = new LatencyHistogram();
+
+        for (var i = 1; i <= 10000; i++) {
+            histogram.record(i, TimeUnit.MICROSECONDS);
+        }
+
+        var snapshot = histogram.snapshot();
+
+        // 确认记录次数, 平均值和最大值
+        then(snapshot.count()).isEqualTo(10000);
+        then(snapshot.mean()).isCloseTo(5000.5 * 1000, within(1.0));
+        then(snapshot.max()).isEqualTo(TimeUnit.MICROSECONDS.toNanos(10000));
+
+        // 确认百分位数和实际值的误差不超过 1/32
+        then((double) snapshot.p50()).isCloseTo(5_000_000, within(5_000_000 / 32.0));
+        then((double) snapshot.p99()).isCloseTo(9_900_000, within(9_900_000 / 32.0));
+        then((double) snapshot.p999()).isCloseTo(9_990_000, within(9_990_000 / 32.0));
+
+        // 确认百分位数不超过最大值
+        then(snapshot.percentile(100)).isEqualTo(snapshot.max());
+
+        then(snapshot.summary(TimeUnit.MILLISECONDS)).startsWith("count=10000, mean=5.001ms, p50=");
+    }
+
+    /**
+     * 测试多个线程同时记录耗时
+     *
+     * <p>
+     * {@link LatencyHistogram} 按线程将记录分散到多个记录器中, 读取时再进行合并, 确认合并后的结果正确
+     * </p>
+     */
+    @Test
+    @SneakyThrows
+    void histogram_shouldRecordConcurrently() {
+        var histogram = new LatencyHistogram();
+
+        var threads = IntStream.range(0, 8).mapToObj(_ -> new Thread(() -> {
+            for (var i = 1; i <= 10000; i++) {
+                histogram.record(i);
+            }
+        })).toList();
+
+        threads.forEach(Thread::start);
+        then(Threads.joinAll(threads, 5000)).isTrue();
+
+        var snapshot = histogram.snapshot();
+        then(snapshot.count()).isEqualTo(80000);
+        then(snapshot.sum()).isEqualTo(8L * 10000 * 10001 / 2);
+        then(snapshot.max()).isEqualTo(10000);
+    }
+
+    /**
+     * 测试通过 {@link TimeIt#lap(LatencyHistogram)} 方法记录每一次执行的耗时
+     */
+    @Test
+    @SneakyThrows
+    void lap_shouldRecordEachExecution() {
+        var histogram = new LatencyHistogram();
+
+        var timeit = TimeIt.start();
+        for (var i = 0; i < 5; i++) {
+            Thread.sleep(10);
+            timeit.lap(histogram);
+        }
+
+        // 通过直方图的 start/stop 方法记录一次执行的耗时
+        var start = histogram.start();
+        Thread.sleep(10);
+        histogram.stop(start);
+
+        var snapshot = histogram.snapshot();
+        then(snapshot.count()).isEqualTo(6);
+        then(snapshot.p50()).isBetween(TimeUnit.MILLISECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(30));
+    }
+}
@@ -0,0 +1,289 @@
+package alvin.study.se.concurrent;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.awaitility.Awaitility.await;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.SneakyThrows;
+
+import org.junit.jupiter.api.Test;
+
+import alvin.study.se.concurrent.delay.DelayedValue;
+import alvin.study.se.concurrent.delay.HashedTimingWheel;
+import alvin.study.se.concurrent.delay.TimingWheelDelayQueue;
+import alvin.study.se.concurrent.util.TimeIt;
+
+/**
+ * 测试 {@link HashedTimingWheel} 和 {@link TimingWheelDelayQueue} 类型
+ *
+ * <p>
+ * 时间轮通过可替换的时钟获取当前时间, 测试中使用手动推进的时钟, 使结果和线程调度无关
+ * </p>
+ */
+class TimingWheelTest {
+    /**
+     * 测试定时任务按到期时间分批到期
+     *
+     * <p>
+     * 时间轮的刻度为 {@code 1ms}, 每层 {@code 8} 个槽位, 则第 0 层可容纳 {@code 8ms} 内到期的任务, 第 1 层可容纳 {@code 64ms}
+     * 内到期的任务, 第 2 层可容纳 {@code 512ms} 内到期的任务, 确认各层的任务都可以按时到期
+     * </p>
+     */
+    @Test
+    void schedule_shouldExpireAcrossLevels() {
+        var clock = new AtomicLong();
+        var wheel = new HashedTimingWheel<String>(1, TimeUnit.MILLISECONDS, 8, clock::get);
+
+        wheel.schedule("A", 3, TimeUnit.MILLISECONDS);
+        wheel.schedule("B", 20, TimeUnit.MILLISECONDS);
+        wheel.schedule("C", 300, TimeUnit.MILLISECONDS);
+        wheel.schedule("D", 300, TimeUnit.MILLISECONDS);
+        then(wheel.size()).isEqualTo(4);
+
+        // 时间未前进, 没有任务到期
+        then(wheel.advance()).isEmpty();
+
+        // 前进到 2ms, 没有任务到期
+        clock.set(TimeUnit.MILLISECONDS.toNanos(2));
+        then(wheel.advance()).isEmpty();
+
+        // 前进到 3ms, 任务 A 到期
+        clock.set(TimeUnit.MILLISECONDS.toNanos(3));
+        then(wheel.advance()).containsExactly("A");
+
+        // 前进到 19ms, 没有任务到期, 前进到 20ms, 任务 B 到期
+        clock.set(TimeUnit.MILLISECONDS.toNanos(19));
+        then(wheel.advance()).isEmpty();
+        clock.set(TimeUnit.MILLISECONDS.toNanos(20));
+        then(wheel.advance()).containsExactly("B");
+
+        // 一次前进到 400ms, 同一刻度到期的任务 C, D 一起返回
+        clock.set(TimeUnit.MILLISECONDS.toNanos(400));
+        then(wheel.advance()).containsExactly("C", "D");
+        then(wheel.size()).isZero();
+    }
+
+    /**
+     * 测试定时任务不会提前到期
+     *
+     * <p>
+     * 到期时间不是刻度的整数倍时, 向上取整到下一个刻度
+     * </p>
+     */
+    @Test
+    void schedule_shouldNotExpireEarly() {
+        var clock = new AtomicLong();
+        var wheel = new HashedTimingWheel<String>(10, TimeUnit.MILLISECONDS, 16, clock::get);
+
+        wheel.schedule("A", 15, TimeUnit.MILLISECONDS);
+
+        clock.set(TimeUnit.MILLISECONDS.toNanos(15));
+        then(wheel.advance()).isEmpty();
+
+        clock.set(TimeUnit.MILLISECONDS.toNanos(20));
+        then(wheel.advance()).containsExactly("A");
+
+        // 延迟为 0 的任务在下一个刻度到期
+        wheel.schedule("B", 0, TimeUnit.MILLISECONDS);
+        then(wheel.advance()).isEmpty();
+
+        clock.set(TimeUnit.MILLISECONDS.toNanos(30));
+        then(wheel.advance()).containsExactly("B");
+    }
+
+    /**
+     * 测试取消定时任务
+     */
+    @Test
+    void cancel_shouldRemoveTimeout() {
+        var clock = new AtomicLong();
+        var wheel = new HashedTimingWheel<String>(1, TimeUnit.MILLISECONDS, 8, clock::get);
+
+        var a = wheel.schedule("A", 5, TimeUnit.MILLISECONDS);
+        var b = wheel.schedule("B", 5, TimeUnit.MILLISECONDS);
+        var c = wheel.schedule("C", 100, TimeUnit.MILLISECONDS);
+
+        // 取消任务 B 和任务 C
+        then(b.cancel()).isTrue();
+        then(b.cancel()).isFalse();
+        then(wheel.cancelFirst("C"::equals)).isTrue();
+        then(c.isCancelled()).isTrue();
+        then(wheel.size()).isEqualTo(1);
+        then(wheel.values()).containsExactly("A");
+
+        clock.set(TimeUnit.MILLISECONDS.toNanos(200));
+        then(wheel.advance()).containsExactly("A");
+
+        // 已到期的任务无法取消
+        then(a.isExpired()).isTrue();
+        then(a.cancel()).isFalse();
+    }
+
+    /**
+     * 测试计算距离下一个可能有任务到期的刻度的时间
+     *
+     * <p>
+     * 第 0 层有任务时返回该任务所在的刻度; 第 0 层没有任务时返回第 0 层转完一圈的刻度, 届时高层时间轮的任务会降级到第 0 层
+     * </p>
+     */
+    @Test
+    void nanosToNextExpiration_shouldSkipEmptyTicks() {
+        var clock = new AtomicLong();
+        var wheel = new HashedTimingWheel<String>(1, TimeUnit.MILLISECONDS, 8, clock::get);
+
+        // 没有任务
+        then(wheel.nanosToNextExpiration()).isEqualTo(-1);
+
+        // 只有第 1 层的任务, 等待到第 0 层转完一圈 (8ms)
+        wheel.schedule("B", 20, TimeUnit.MILLISECONDS);
+        then(wheel.nanosToNextExpiration()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(8));
+
+        // 第 0 层有任务, 等待到该任务到期
+        wheel.schedule("A", 5, TimeUnit.MILLISECONDS);
+        clock.set(TimeUnit.MILLISECONDS.toNanos(1));
+        then(wheel.nanosToNextExpiration()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(4));
+
+        clock.set(TimeUnit.MILLISECONDS.toNanos(5));
+        then(wheel.advance()).containsExactly("A");
+
+        // 任务 B 位于第 1 层对应 16ms ~ 23ms 的槽位, 第 0 层再转完一圈 (16ms) 时才会降级
+        clock.set(TimeUnit.MILLISECONDS.toNanos(8));
+        then(wheel.advance()).isEmpty();
+        then(wheel.nanosToNextExpiration()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(8));
+
+        // 降级后, 等待到任务 B 到期
+        clock.set(TimeUnit.MILLISECONDS.toNanos(16));
+        then(wheel.advance()).isEmpty();
+        then(wheel.nanosToNextExpiration()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(4));
+
+        clock.set(TimeUnit.MILLISECONDS.toNanos(20));
+        then(wheel.advance()).containsExactly("B");
+        then(wheel.nanosToNextExpiration()).isEqualTo(-1);
+    }
+
+    /**
+     * 测试通过后台线程推进时间轮, 到期的任务批量回调给监听器
+     */
+    @Test
+    void start_shouldCallbackExpiredInBatch() {
+        var expired = new CopyOnWriteArrayList<List<Integer>>();
+
+        try (var wheel = new HashedTimingWheel<Integer>(10, TimeUnit.MILLISECONDS, 64)) {
+            for (var i = 0; i < 100; i++) {
+                wheel.schedule(i, 50, TimeUnit.MILLISECONDS);
+            }
+            wheel.start(expired::add);
+
+            await().atMost(1, TimeUnit.SECONDS).until(() -> wheel.size() == 0);
+        }
+
+        // 同一刻度到期的任务在一次回调中返回, 100 个任务在入队时最多跨越一个刻度, 故最多分两批回调
+        then(expired).hasSizeBetween(1, 2);
+        then(expired.stream().mapToInt(List::size).sum()).isEqualTo(100);
+    }
+
+    /**
+     * 测试 {@link TimingWheelDelayQueue} 类型, 和 {@link java.util.concurrent.DelayQueue DelayQueue} 的用法一致
+     *
+     * @see QueueTest#delayQueue_shouldGetDelayedValueFromQueue()
+     */
+    @Test
+    @SneakyThrows
+    void timingWheelDelayQueue_shouldGetDelayedValueFromQueue() {
+        var queue = new TimingWheelDelayQueue<DelayedValue<Integer>>();
+
+        queue.offer(new DelayedValue<>(1, 200, TimeUnit.MILLISECONDS));
+        queue.offer(new DelayedValue<>(2, 100, TimeUnit.MILLISECONDS));
+        queue.offer(new DelayedValue<>(3, 210, TimeUnit.MILLISECONDS));
+        then(queue).hasSize(3);
+
+        var timeit = TimeIt.start();
+
+        // 没有元素到期
+        then(queue.poll()).isNull();
+        then(queue.peek()).isNull();
+
+        // 阻塞直到元素 2 到期
+        then(queue.take().getValue()).isEqualTo(2);
+        then(timeit.since()).isBetween(100L, 120L);
+
+        // 等待超时
+        then(queue.poll(10, TimeUnit.MILLISECONDS)).isNull();
+
+        // 依次出队元素 1 和元素 3
+        then(queue.take().getValue()).isEqualTo(1);
+        then(queue.poll(110, TimeUnit.MILLISECONDS))
+                .extracting("value")
+                .isEqualTo(3);
+
+        then(timeit.since()).isBetween(210L, 230L);
+        then(queue).isEmpty();
+    }
+
+    /**
+     * 测试 {@link TimingWheelDelayQueue} 为空时, 等待出队的线程不会按刻度轮询, 而是等待新元素入队
+     *
+     * <p>
+     * 通过统计时钟被读取的次数, 确认等待期间线程没有被反复唤醒
+     * </p>
+     */
+    @Test
+    @SneakyThrows
+    void timingWheelDelayQueue_shouldNotPollWhenEmpty() {
+        var reads = new AtomicLong();
+        var queue = new TimingWheelDelayQueue<DelayedValue<Integer>>(
+            new HashedTimingWheel<>(1, TimeUnit.MILLISECONDS, 512, () -> {
+                reads.incrementAndGet();
+                return System.nanoTime();
+            }));
+
+        var consumer = Thread.ofPlatform().start(() -> {
+            try {
+                then(queue.take().getValue()).isEqualTo(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // 等待 100ms (100 个刻度), 消费线程只在开始等待时读取一次时钟
+        Thread.sleep(100);
+        then(reads.get()).isLessThan(5);
+
+        queue.offer(new DelayedValue<>(1, 0, TimeUnit.MILLISECONDS));
+        consumer.join(1000);
+        then(consumer.isAlive()).isFalse();
+        then(queue).isEmpty();
+    }
+
+    /**
+     * 测试 {@link TimingWheelDelayQueue} 删除元素和批量出队
+     */
+    @Test
+    @SneakyThrows
+    void timingWheelDelayQueue_shouldRemoveAndDrain() {
+        var queue = new TimingWheelDelayQueue<DelayedValue<Integer>>();
+
+        var removed = new DelayedValue<>(0, 10, TimeUnit.MILLISECONDS);
+        queue.offer(removed);
+        for (var i = 1; i <= 5; i++) {
+            queue.offer(new DelayedValue<>(i, 10, TimeUnit.MILLISECONDS));
+        }
+        queue.offer(new DelayedValue<>(6, 1, TimeUnit.SECONDS));
+
+        then(queue.remove(removed)).isTrue();
+        then(queue).hasSize(6);
+
+        Thread.sleep(20);
+
+        // 只有已到期的元素被批量出队
+        var drained = new ArrayList<DelayedValue<Integer>>();
+        then(queue.drainTo(drained)).isEqualTo(5);
+        then(drained).extracting("value").containsExactly(1, 2, 3, 4, 5);
+        then(queue).hasSize(1);
+    }
+}
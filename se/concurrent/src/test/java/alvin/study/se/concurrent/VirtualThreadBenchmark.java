@@ -0,0 +1,121 @@
+package alvin.study.se.concurrent;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import alvin.study.se.concurrent.util.ThreadPool;
+
+/**
+ * 对比虚拟线程执行器和平台线程池执行大量阻塞任务的耗时
+ *
+ * <p>
+ * 每次测试同时提交 {@code 10000} 个阻塞 {@code 10ms} 的任务 (模拟阻塞 IO), 并等待所有任务执行完毕, 参与对比的执行器包括:
+ * <ul>
+ * <li>
+ * {@code PlatformFixed}: 包含 {@code 256} 个平台线程的线程池, 任务需要在队列中排队;
+ * </li>
+ * <li>
+ * {@code PlatformCached}: 为每个任务创建 (或复用) 一个平台线程的线程池;
+ * </li>
+ * <li>
+ * {@code VirtualPerTask}: 为每个任务创建一个虚拟线程的执行器, 参见 {@link ThreadPool#virtualThreadPerTaskExecutor()};
+ * </li>
+ * <li>
+ * {@code VirtualLimited}: 同时最多执行 {@code 1000} 个任务的虚拟线程执行器, 参见
+ * {@link ThreadPool#virtualThreadPerTaskExecutor(int)}
+ * </li>
+ * </ul>
+ * {@link ThreadPool#virtualThreadExecutor()} 最多只能容纳 {@code 2048} 个任务, 提交 {@code 10000} 个任务会被拒绝, 故不参与对比
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VirtualThreadBenchmark {
+    // 同时提交的任务数量
+    private static final int TASKS = 10_000;
+    // 每个任务阻塞的时间, 单位毫秒
+    private static final long BLOCKING_MILLIS = 10;
+
+    @Param({ "PlatformFixed", "PlatformCached", "VirtualPerTask", "VirtualLimited" })
+    private String type;
+
+    private ExecutorService executor;
+
+    /**
+     * 根据参数创建要测试的执行器对象
+     */
+    @Setup
+    public void setup() {
+        executor = switch (type) {
+            case "PlatformFixed" -> Executors.newFixedThreadPool(256);
+            case "PlatformCached" -> Executors.newCachedThreadPool();
+            case "VirtualPerTask" -> ThreadPool.virtualThreadPerTaskExecutor();
+            case "VirtualLimited" -> ThreadPool.virtualThreadPerTaskExecutor(1000);
+            default -> throw new IllegalArgumentException("Unknown executor type: " + type);
+        };
+    }
+
+    /**
+     * 关闭执行器对象
+     */
+    @TearDown
+    public void tearDown() {
+        executor.close();
+    }
+
+    /**
+     * 测试提交并等待所有阻塞任务执行完毕
+     *
+     * @return 所有任务结果的总和, 返回结果以防止被 JIT 优化掉
+     */
+    @Benchmark
+    public long blockingTasks() throws Exception {
+        var futures = new ArrayList<Future<Integer>>(TASKS);
+        for (var i = 0; i < TASKS; i++) {
+            futures.add(executor.submit(() -> {
+                Thread.sleep(BLOCKING_MILLIS);
+                return 1;
+            }));
+        }
+
+        var sum = 0L;
+        for (var future : futures) {
+            sum += future.get();
+        }
+        return sum;
+    }
+
+    /**
+     * 执行性能测试
+     */
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(VirtualThreadBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,119 @@
+package alvin.study.se.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁固定窗口限流
+ *
+ * <p>
+ * 算法原理同 {@link FixedWindowRateLimiter}, 区别在于不再通过 {@code synchronized} 串行化所有调用, 而是将"窗口序号"和"窗口内计数"
+ * 打包到一个 {@code long} 值中, 通过 CAS 操作一次性更新:
+ * <ul>
+ * <li>
+ * 高 32 位: 当前窗口的序号, 即 {@code (now - origin) / windowNanos} 的低 32 位;
+ * </li>
+ * <li>
+ * 低 32 位: 当前窗口内已经允许的调用次数
+ * </li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * 和 {@link FixedWindowRateLimiter} 的另一个区别是, 窗口按构造时间对齐, 而不是从窗口过期后的第一次调用开始计算
+ * </p>
+ *
+ * <p>
+ * 时间通过 {@link System#nanoTime()} 获取, 不受系统时钟调整的影响, 且每次调用不会产生任何对象分配
+ * </p>
+ */
+public class AtomicFixedWindowRateLimiter implements RateLimiter {
+    // 低 32 位掩码, 用于取出窗口内计数
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+    // 窗口时间, 单位纳秒
+    private final long windowNanos;
+    // 窗口大小
+    private final int threshold;
+    // 计算窗口序号的时间起点
+    private final long origin;
+
+    // 打包后的状态值, 高 32 位为窗口序号, 低 32 位为窗口内计数
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * 构造器, 构造限流器对象
+     *
+     * @param windowUnit 窗口大小, 单位毫秒
+     * @param threshold  调用数量上限
+     */
+    public AtomicFixedWindowRateLimiter(long windowUnit, int threshold) {
+        this(windowUnit, TimeUnit.MILLISECONDS, threshold);
+    }
+
+    /**
+     * 构造器, 构造限流器对象
+     *
+     * @param window    窗口大小
+     * @param unit      窗口大小的时间单位
+     * @param threshold 调用数量上限
+     */
+    public AtomicFixedWindowRateLimiter(long window, TimeUnit unit, int threshold) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must large than 0");
+        }
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold must large than 0");
+        }
+
+        this.windowNanos = unit.toNanos(window);
+        this.threshold = threshold;
+        this.origin = System.nanoTime();
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        if (permits < 0) {
+            throw new IllegalArgumentException("permits must large than 0");
+        }
+
+        while (true) {
+            // 先读取状态再读取时间, 保证读到的时间不早于写入该状态的线程所读取的时间, 避免窗口序号回退
+            var current = state.get();
+            var window = (int) ((System.nanoTime() - origin) / windowNanos);
+
+            // 如果状态中记录的窗口序号和当前不一致, 则表示开启了新窗口, 计数从 0 开始
+            var count = (int) (current >>> 32) == window ? current & COUNT_MASK : 0L;
+
+            // 计算窗口内调用次数是否超出上限
+            if (count + permits > threshold) {
+                return false;
+            }
+
+            // 将窗口序号和新的计数打包后通过 CAS 更新, 失败则表示有其它线程抢先更新, 重新计算
+            if (state.compareAndSet(current, ((long) window << 32) | (count + permits))) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public long nanosToWait(int permits) {
+        if (permits > threshold) {
+            return Long.MAX_VALUE;
+        }
+
+        var current = state.get();
+        var elapsed = System.nanoTime() - origin;
+        var window = elapsed / windowNanos;
+
+        // 已经开启新窗口, 或者窗口内调用次数未超出上限, 无需等待
+        if ((int) (current >>> 32) != (int) window || (current & COUNT_MASK) + permits <= threshold) {
+            return 0;
+        }
+
+        // 等待当前窗口结束
+        return (window + 1) * windowNanos - elapsed;
+    }
+}
@@ -0,0 +1,96 @@
+package alvin.study.se.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁漏桶限流
+ *
+ * <p>
+ * 算法原理同 {@link LeakBucketRateLimiter}, 区别在于不再分别记录"当前水位"和"上次计算漏水的时间", 而是只记录一个时间点:
+ * "桶中的水全部漏完的时刻" ({@code drainAt}), 则任意时刻 {@code now} 桶中的水位为:
+ * {@code max(0, (drainAt - now) / nanosPerDrop)}
+ * </p>
+ *
+ * <p>
+ * 向桶中加入 {@code permits} 个请求, 相当于将 {@code drainAt} 向后推移 {@code permits * nanosPerDrop} 纳秒, 只要推移后的水位不超过桶的容量,
+ * 即允许请求. 这也就是通常所说的 GCRA (Generic Cell Rate Algorithm) 算法, 由于状态只有一个 {@code long} 值, 所以可以通过一次 CAS
+ * 操作完成"漏水"和"加水"两个步骤
+ * </p>
+ *
+ * <p>
+ * 时间通过 {@link System#nanoTime()} 获取, 不受系统时钟调整的影响, 且每次调用不会产生任何对象分配
+ * </p>
+ */
+public class AtomicLeakBucketRateLimiter implements RateLimiter {
+    // 漏出一个请求所需的时间, 单位纳秒
+    private final long nanosPerDrop;
+    // 桶装满后全部漏完所需的时间, 单位纳秒
+    private final long capacityNanos;
+
+    // 桶中的水全部漏完的时刻
+    private final AtomicLong drainAt;
+
+    /**
+     * 构造器, 实例化限流器对象
+     *
+     * @param capacity 桶整体容量
+     * @param rate     漏水的速率 (每秒)
+     */
+    public AtomicLeakBucketRateLimiter(int capacity, int rate) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must large than 0");
+        }
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must large than 0");
+        }
+
+        this.nanosPerDrop = Math.max(1L, TimeUnit.SECONDS.toNanos(1) / rate);
+        this.capacityNanos = nanosPerDrop * capacity;
+
+        // 初始时桶为空
+        this.drainAt = new AtomicLong(System.nanoTime());
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        if (permits < 0) {
+            throw new IllegalArgumentException("permits must large than 0");
+        }
+
+        var cost = permits * nanosPerDrop;
+        while (true) {
+            var current = drainAt.get();
+            var now = System.nanoTime();
+
+            // 计算漏水, 如果桶中的水已经漏完, 则从当前时刻开始计算
+            var base = current - now > 0 ? current : now;
+
+            // 计算加水后的水位是否超出桶的总容量
+            var next = base + cost;
+            if (next - now > capacityNanos) {
+                return false;
+            }
+
+            if (drainAt.compareAndSet(current, next)) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public long nanosToWait(int permits) {
+        var cost = permits * nanosPerDrop;
+        if (cost > capacityNanos) {
+            return Long.MAX_VALUE;
+        }
+
+        var current = drainAt.get();
+        var now = System.nanoTime();
+        var base = current - now > 0 ? current : now;
+
+        // 加水后超出桶容量的部分, 即为需要等待漏掉的时间
+        return Math.max(0, base + cost - now - capacityNanos);
+    }
+}
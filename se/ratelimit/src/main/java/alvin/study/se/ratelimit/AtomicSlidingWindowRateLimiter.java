@@ -0,0 +1,182 @@
+package alvin.study.se.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁滑动窗口限流
+ *
+ * <p>
+ * {@link SlidingWindowRateLimiter} 需要为每个窗口块维护一个对象, 无法压缩到一个 {@code long} 值中, 所以本类型采用"滑动窗口计数器"
+ * 的近似算法, 其原理如下:
+ * <ol>
+ * <li>
+ * 只记录"当前窗口"和"前一个窗口"两个固定窗口的调用次数;
+ * </li>
+ * <li>
+ * 计算限流时, 假设前一个窗口的调用在窗口内是均匀分布的, 则以当前时间为止, 大小为 {@code windowUnit} 的相对窗口内的调用次数约为:
+ * {@code previous * (1 - elapsed / windowUnit) + current}, 其中 {@code elapsed} 为当前窗口已经经过的时间;
+ * </li>
+ * <li>
+ * 将上一步计算的次数和 {@code threshold} 进行比较, 判断是否已经到达限流上限
+ * </li>
+ * </ol>
+ * </p>
+ *
+ * <p>
+ * 状态值被打包到一个 {@code long} 值中, 通过 CAS 操作一次性更新:
+ * <ul>
+ * <li>
+ * 高 24 位: 当前窗口的序号, 即 {@code (now - origin) / windowNanos} 的低 24 位;
+ * </li>
+ * <li>
+ * 中间 20 位: 前一个窗口的调用次数;
+ * </li>
+ * <li>
+ * 低 20 位: 当前窗口的调用次数
+ * </li>
+ * </ul>
+ * 所以 {@code threshold} 的上限为 {@code 2^20 - 1}
+ * </p>
+ *
+ * <p>
+ * 时间通过 {@link System#nanoTime()} 获取, 不受系统时钟调整的影响, 且每次调用不会产生任何对象分配
+ * </p>
+ */
+public class AtomicSlidingWindowRateLimiter implements RateLimiter {
+    // 计数占用的位数
+    private static final int COUNT_BITS = 20;
+    // 计数的掩码
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    // 窗口序号的掩码
+    private static final long WINDOW_MASK = (1L << (Long.SIZE - COUNT_BITS * 2)) - 1;
+
+    /**
+     * 可设置的调用数量上限
+     */
+    public static final int MAX_THRESHOLD = (int) COUNT_MASK;
+
+    // 窗口时间, 单位纳秒
+    private final long windowNanos;
+    // 调用数量上限
+    private final int threshold;
+    // 计算窗口序号的时间起点
+    private final long origin;
+
+    // 打包后的状态值
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * 构造器, 构造限流器对象
+     *
+     * @param windowUnit 窗口大小, 单位毫秒
+     * @param threshold  调用数量上限
+     */
+    public AtomicSlidingWindowRateLimiter(long windowUnit, int threshold) {
+        this(windowUnit, TimeUnit.MILLISECONDS, threshold);
+    }
+
+    /**
+     * 构造器, 构造限流器对象
+     *
+     * @param window    窗口大小
+     * @param unit      窗口大小的时间单位
+     * @param threshold 调用数量上限, 不能超过 {@link #MAX_THRESHOLD}
+     */
+    public AtomicSlidingWindowRateLimiter(long window, TimeUnit unit, int threshold) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must large than 0");
+        }
+        if (threshold <= 0 || threshold > MAX_THRESHOLD) {
+            throw new IllegalArgumentException("threshold must between 1 and " + MAX_THRESHOLD);
+        }
+
+        this.windowNanos = unit.toNanos(window);
+        this.threshold = threshold;
+        this.origin = System.nanoTime();
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        if (permits < 0) {
+            throw new IllegalArgumentException("permits must large than 0");
+        }
+
+        while (true) {
+            // 先读取状态再读取时间, 保证读到的时间不早于写入该状态的线程所读取的时间, 避免窗口序号回退
+            var current = state.get();
+            var elapsed = System.nanoTime() - origin;
+
+            var window = (elapsed / windowNanos) & WINDOW_MASK;
+            var storedWindow = current >>> (COUNT_BITS * 2);
+
+            long previous;
+            long count;
+            if (storedWindow == window) {
+                // 仍在状态记录的窗口内
+                previous = (current >>> COUNT_BITS) & COUNT_MASK;
+                count = current & COUNT_MASK;
+            } else if (((storedWindow + 1) & WINDOW_MASK) == window) {
+                // 状态记录的窗口成为前一个窗口
+                previous = current & COUNT_MASK;
+                count = 0;
+            } else {
+                // 状态记录的窗口已经和当前窗口不相邻, 全部清零
+                previous = 0;
+                count = 0;
+            }
+
+            // 计算前一个窗口在相对窗口内的权重, 得到相对窗口内的调用次数
+            var weight = 1.0 - (double) (elapsed % windowNanos) / windowNanos;
+            if (previous * weight + count + permits > threshold) {
+                return false;
+            }
+
+            var next = (window << (COUNT_BITS * 2)) | (previous << COUNT_BITS) | (count + permits);
+            if (state.compareAndSet(current, next)) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public long nanosToWait(int permits) {
+        if (permits > threshold) {
+            return Long.MAX_VALUE;
+        }
+
+        var current = state.get();
+        var elapsed = System.nanoTime() - origin;
+
+        var window = (elapsed / windowNanos) & WINDOW_MASK;
+        var storedWindow = current >>> (COUNT_BITS * 2);
+
+        long previous;
+        long count;
+        if (storedWindow == window) {
+            previous = (current >>> COUNT_BITS) & COUNT_MASK;
+            count = current & COUNT_MASK;
+        } else if (((storedWindow + 1) & WINDOW_MASK) == window) {
+            previous = current & COUNT_MASK;
+            count = 0;
+        } else {
+            return 0;
+        }
+
+        var offset = elapsed % windowNanos;
+
+        // 当前窗口的调用次数已经超出上限, 需等待当前窗口结束后重新计算
+        var room = threshold - count - permits;
+        if (room < 0) {
+            return windowNanos - offset;
+        }
+        if (previous <= room) {
+            return 0;
+        }
+
+        // 前一个窗口的权重随时间线性降低, 计算权重降低到 room / previous 时的时间点
+        var target = (long) Math.ceil(windowNanos * (1.0 - (double) room / previous));
+        return Math.max(0, target - offset);
+    }
+}
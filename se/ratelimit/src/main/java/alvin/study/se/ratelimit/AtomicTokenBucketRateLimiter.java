@@ -0,0 +1,104 @@
+package alvin.study.se.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶限流
+ *
+ * <p>
+ * 算法原理同 {@link TokenBucketRateLimiter}, 区别在于不再分别记录"令牌数量"和"上次生成令牌的时间", 而是只记录一个时间点:
+ * "令牌桶为空的时刻" ({@code emptyAt}), 则任意时刻 {@code now} 桶中的令牌数量为:
+ * {@code min(capacity, (now - emptyAt) / nanosPerToken)}
+ * </p>
+ *
+ * <p>
+ * 获取 {@code permits} 个令牌, 相当于将 {@code emptyAt} 向后推移 {@code permits * nanosPerToken} 纳秒, 由于状态只有一个
+ * {@code long} 值, 所以可以通过一次 CAS 操作完成"生成令牌"和"消耗令牌"两个步骤, 且不会像 {@link TokenBucketRateLimiter}
+ * 那样丢失不足一秒的令牌生成时间
+ * </p>
+ *
+ * <p>
+ * 时间通过 {@link System#nanoTime()} 获取, 不受系统时钟调整的影响, 且每次调用不会产生任何对象分配
+ * </p>
+ */
+public class AtomicTokenBucketRateLimiter implements RateLimiter {
+    // 令牌桶的总容量
+    private final int capacity;
+    // 生成一个令牌所需的时间, 单位纳秒
+    private final long nanosPerToken;
+    // 令牌桶装满所需的时间, 单位纳秒
+    private final long fillNanos;
+
+    // 令牌桶为空的时刻
+    private final AtomicLong emptyAt;
+
+    /**
+     * 构造器, 实例化限流器对象
+     *
+     * @param capacity 令牌桶的总容量
+     * @param rate     令牌生成的速率 (每秒)
+     */
+    public AtomicTokenBucketRateLimiter(int capacity, int rate) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must large than 0");
+        }
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must large than 0");
+        }
+
+        this.capacity = capacity;
+        this.nanosPerToken = Math.max(1L, TimeUnit.SECONDS.toNanos(1) / rate);
+        this.fillNanos = nanosPerToken * capacity;
+
+        // 初始时令牌桶为满
+        this.emptyAt = new AtomicLong(System.nanoTime() - fillNanos);
+    }
+
+    @Override
+    public boolean tryAcquire(int permits) {
+        if (permits < 0) {
+            throw new IllegalArgumentException("permits must large than 0");
+        }
+        if (permits > capacity) {
+            return false;
+        }
+
+        var cost = permits * nanosPerToken;
+        while (true) {
+            var current = emptyAt.get();
+            var now = System.nanoTime();
+
+            // 令牌数量不能超过桶的容量, 即 emptyAt 不能早于 now - fillNanos
+            var full = now - fillNanos;
+            var base = current - full > 0 ? current : full;
+
+            // 消耗令牌后, 令牌桶为空的时刻不能晚于当前时刻, 否则表示令牌不足
+            var next = base + cost;
+            if (next - now > 0) {
+                return false;
+            }
+
+            if (emptyAt.compareAndSet(current, next)) {
+                return true;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @Override
+    public long nanosToWait(int permits) {
+        if (permits > capacity) {
+            return Long.MAX_VALUE;
+        }
+
+        var current = emptyAt.get();
+        var now = System.nanoTime();
+
+        var full = now - fillNanos;
+        var base = current - full > 0 ? current : full;
+
+        // 令牌桶为空的时刻推移后超出当前时刻的部分, 即为补足令牌所需的时间
+        return Math.max(0, base + permits * nanosPerToken - now);
+    }
+}
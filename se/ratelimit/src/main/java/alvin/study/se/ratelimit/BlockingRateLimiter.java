@@ -0,0 +1,268 @@
+package alvin.study.se.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 支持阻塞等待的限流器
+ *
+ * <p>
+ * {@link RateLimiter#tryAcquire(int)} 方法在被限流时会立即返回, 调用方只能自行循环重试或休眠, 当大量线程同时重试时, 既浪费 CPU,
+ * 又会在令牌生成的瞬间产生"惊群"现象. 本类型对任意限流器进行包装, 提供阻塞式的 {@link #acquire(int, Duration)} 方法和异步的
+ * {@link #acquireAsync(int)} 方法, 其原理如下:
+ * <ol>
+ * <li>
+ * 被限流的调用方作为"等待者"进入一个 FIFO 队列, 等待者通过 {@link CompletableFuture} 表示, 同步调用方阻塞在
+ * {@link CompletableFuture#get(long, TimeUnit)} 方法上 (对虚拟线程非常友好), 异步调用方直接获得该对象;
+ * </li>
+ * <li>
+ * 任意时刻只有队列头部的等待者会尝试获取许可, 如果无法获取, 则通过 {@link RateLimiter#nanosToWait(int)} 方法计算出距离可以获取许可的时间,
+ * 并通过定时器在该时间点再次尝试, 期间不占用任何 CPU;
+ * </li>
+ * <li>
+ * 队列头部的等待者获取许可后被唤醒, 然后继续处理下一个等待者, 所以等待者按照进入队列的顺序依次被唤醒
+ * </li>
+ * </ol>
+ * </p>
+ *
+ * <p>
+ * 注意: 等待者的 {@link CompletableFuture} 在处理队列的线程 (通常为定时器线程) 中完成, 所以异步调用方应通过 {@code xxxAsync}
+ * 方法注册后续的处理, 避免阻塞对后续等待者的处理
+ * </p>
+ */
+public class BlockingRateLimiter implements RateLimiter {
+    // 默认的定时器, 所有未指定定时器的限流器共享
+    private static final ScheduledExecutorService DEFAULT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(
+        Thread.ofPlatform().name("rate-limiter-scheduler").daemon().factory());
+
+    // 被包装的限流器
+    private final RateLimiter delegate;
+    // 用于在指定时间点唤醒等待者的定时器
+    private final ScheduledExecutorService scheduler;
+
+    // 等待者队列
+    private final ConcurrentLinkedQueue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    // 请求处理队列的次数, 保证同一时刻只有一个线程处理等待者队列
+    private final AtomicInteger wip = new AtomicInteger();
+
+    // 当前已设置的定时任务
+    private ScheduledFuture<?> timer;
+    // 当前已设置的定时任务的执行时间点, 单位纳秒
+    private long timerDeadline;
+
+    /**
+     * 构造器, 使用默认定时器实例化限流器对象
+     *
+     * @param delegate 被包装的限流器, 必须是线程安全的
+     */
+    public BlockingRateLimiter(RateLimiter delegate) {
+        this(delegate, DEFAULT_SCHEDULER);
+    }
+
+    /**
+     * 构造器, 实例化限流器对象
+     *
+     * @param delegate  被包装的限流器, 必须是线程安全的
+     * @param scheduler 用于在指定时间点唤醒等待者的定时器
+     */
+    public BlockingRateLimiter(RateLimiter delegate, ScheduledExecutorService scheduler) {
+        this.delegate = delegate;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 尝试访问资源, 不进行等待
+     *
+     * <p>
+     * 如果有等待者正在排队, 则直接返回 {@code false}, 不会插队到等待者之前
+     * </p>
+     */
+    @Override
+    public boolean tryAcquire(int permits) {
+        return waiters.isEmpty() && delegate.tryAcquire(permits);
+    }
+
+    @Override
+    public long nanosToWait(int permits) {
+        return delegate.nanosToWait(permits);
+    }
+
+    /**
+     * 访问资源, 如果被限流则阻塞等待, 直到获取许可或超时
+     *
+     * @param permits 希望进行的调用次数
+     * @param timeout 最长等待时间
+     * @return {@code true} 表示获取许可, {@code false} 表示等待超时
+     * @throws InterruptedException     等待过程中线程被中断
+     * @throws IllegalArgumentException 调用次数超出了限流器的容量
+     */
+    public boolean acquire(int permits, Duration timeout) throws InterruptedException {
+        if (tryAcquire(permits)) {
+            return true;
+        }
+
+        var future = acquireAsync(permits);
+        try {
+            future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            // 等待超时, 取消等待; 如果取消失败, 表示在超时的同时获取到了许可
+            return !future.cancel(false);
+        } catch (InterruptedException e) {
+            if (!future.cancel(false)) {
+                Thread.currentThread().interrupt();
+                return true;
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalArgumentException iae) {
+                throw iae;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 异步访问资源, 如果被限流则进入队列等待
+     *
+     * <p>
+     * 返回的 {@link CompletableFuture} 对象在获取许可后完成; 如果调用次数超出了限流器的容量, 则以
+     * {@link IllegalArgumentException} 异常完成; 取消该对象即放弃等待
+     * </p>
+     *
+     * @param permits 希望进行的调用次数
+     * @return 表示获取许可的 {@link CompletableFuture} 对象
+     */
+    public CompletableFuture<Void> acquireAsync(int permits) {
+        if (permits < 0) {
+            throw new IllegalArgumentException("permits must large than 0");
+        }
+
+        var waiter = new Waiter(permits);
+        waiters.offer(waiter);
+        dispatch();
+
+        // 取消等待后, 令后续等待者继续获取许可
+        waiter.future.whenComplete((r, e) -> {
+            if (e instanceof CancellationException) {
+                dispatch();
+            }
+        });
+        return waiter.future;
+    }
+
+    /**
+     * 处理等待者队列, 依次为队列头部的等待者获取许可
+     *
+     * <p>
+     * 如果队列头部的等待者无法获取许可, 则设置定时任务, 在可以获取许可的时间点再次处理队列
+     * </p>
+     */
+    private void dispatch() {
+        // 如果已有其它线程在处理队列, 则只增加计数, 由该线程负责再处理一轮, 保证不会遗漏处理请求
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+
+        var missed = 1;
+        do {
+            Waiter ready;
+            while ((ready = pollReady()) != null) {
+                // 唤醒已获取许可的等待者
+                ready.future.complete(null);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * 从队列头部取出一个已获取许可的等待者
+     *
+     * @return 已获取许可的等待者, 如果队列为空或队列头部的等待者无法获取许可, 则返回 {@code null}
+     */
+    private Waiter pollReady() {
+        while (true) {
+            var head = waiters.peek();
+            if (head == null) {
+                return null;
+            }
+
+            // 丢弃已经取消的等待者
+            if (head.future.isDone()) {
+                waiters.poll();
+                continue;
+            }
+
+            var wait = delegate.nanosToWait(head.permits);
+            if (wait == Long.MAX_VALUE) {
+                // 调用次数超出了限流器的容量, 永远无法获取许可
+                waiters.poll();
+                head.future.completeExceptionally(
+                    new IllegalArgumentException("permits exceed the capacity of rate limiter"));
+                continue;
+            }
+
+            // 注意: 如果等待者在获取许可之后, 被唤醒之前取消, 则本次获取的许可会被浪费
+            if (wait <= 0 && delegate.tryAcquire(head.permits)) {
+                return waiters.poll();
+            }
+
+            // 无法获取许可, 在可以获取许可的时间点再次处理队列
+            schedule(Math.max(wait, TimeUnit.MICROSECONDS.toNanos(100)));
+            return null;
+        }
+    }
+
+    /**
+     * 设置定时任务, 在指定时间后处理等待者队列
+     *
+     * <p>
+     * 如果已设置的定时任务尚未执行, 且执行时间早于指定时间, 则无需重新设置
+     * </p>
+     *
+     * @param delayNanos 延迟时间, 单位纳秒
+     */
+    private void schedule(long delayNanos) {
+        var now = System.nanoTime();
+        var deadline = now + delayNanos;
+
+        // 已设置的定时任务尚未到期, 且到期时间不晚于指定时间, 则无需重新设置
+        if (timer != null && !timer.isDone() && timerDeadline - now > 0 && timerDeadline - deadline <= 0) {
+            return;
+        }
+
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        timerDeadline = deadline;
+        timer = scheduler.schedule(this::dispatch, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 等待者
+     */
+    private static final class Waiter {
+        // 希望进行的调用次数
+        private final int permits;
+        // 获取许可后完成的 future 对象
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        /**
+         * 构造器, 构造等待者对象
+         *
+         * @param permits 希望进行的调用次数
+         */
+        Waiter(int permits) {
+            this.permits = permits;
+        }
+    }
+}
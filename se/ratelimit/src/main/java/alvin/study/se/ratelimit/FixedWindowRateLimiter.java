@@ -1,5 +1,7 @@
 package alvin.study.se.ratelimit;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * 固定窗口限流
  *
@@ -76,4 +78,21 @@ public class FixedWindowRateLimiter implements RateLimiter {
         count += permits;
         return true;
     }
+
+    @Override
+    public synchronized long nanosToWait(int permits) {
+        if (permits > threshold) {
+            return Long.MAX_VALUE;
+        }
+
+        long now = System.currentTimeMillis();
+
+        // 当前窗口已经结束, 或者窗口内调用次数未超出上限, 无需等待
+        if (now - windowStartTime > windowUnit || count + permits <= threshold) {
+            return 0;
+        }
+
+        // 等待当前窗口结束
+        return TimeUnit.MILLISECONDS.toNanos(windowStartTime + windowUnit - now + 1);
+    }
 }
@@ -0,0 +1,286 @@
+package alvin.study.se.ratelimit;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+
+/**
+ * 按 Key 进行限流的限流器注册表
+ *
+ * <p>
+ * {@link RateLimiter} 接口只能表示一个全局的限流器, 而实际场景中往往需要为每个租户, API Key 或 IP 地址分别进行限流, 本类型即为每个 Key
+ * 维护一个独立的限流器, 其原理如下:
+ * <ol>
+ * <li>
+ * 将所有 Key 按哈希值分散到 {@code stripes} 个分段 ({@link Segment}) 中, 每个分段持有独立的锁, 以减少多线程之间的锁竞争;
+ * </li>
+ * <li>
+ * 第一次访问某个 Key 时, 通过 {@code factory} 为其创建限流器 (懒加载);
+ * </li>
+ * <li>
+ * 每个分段通过按访问顺序排列的 {@link LinkedHashMap} 保存限流器, 分段内的 Key 数量超出上限时, 淘汰最久未访问的 Key;
+ * </li>
+ * <li>
+ * 访问分段时, 顺带淘汰超过 {@code idleTimeout} 未被访问的 Key, 由此保证内存占用是有上限的
+ * </li>
+ * </ol>
+ * </p>
+ *
+ * <p>
+ * 注意: 限流器的 {@code tryAcquire} 方法是在分段锁之外调用的, 所以 {@code factory} 必须创建线程安全的限流器, 例如
+ * {@link AtomicTokenBucketRateLimiter}
+ * </p>
+ *
+ * @param <K> Key 类型
+ */
+public class KeyedRateLimiter<K> {
+    // 分段数组, 长度为 2 的幂
+    private final Segment<K>[] segments;
+
+    /**
+     * 构造器, 构造限流器注册表对象
+     *
+     * @param factory     为 Key 创建限流器的工厂函数, 创建的限流器必须是线程安全的
+     * @param stripes     分段的数量, 会被向上调整为 2 的幂
+     * @param maxKeys     最多保存的 Key 数量
+     * @param idleTimeout Key 的最大空闲时间, 超过该时间未被访问的 Key 会被淘汰
+     */
+    public KeyedRateLimiter(
+            Function<? super K, ? extends RateLimiter> factory,
+            int stripes,
+            int maxKeys,
+            Duration idleTimeout) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must large than 0");
+        }
+
+        // 将分段数量调整为 2 的幂, 以便通过位运算计算分段序号
+        var size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        if (maxKeys < size) {
+            throw new IllegalArgumentException("maxKeys must not less than stripes");
+        }
+
+        var idleNanos = idleTimeout.toNanos();
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        Segment<K>[] segments = new Segment[size];
+        for (var i = 0; i < size; i++) {
+            // 将 Key 的总数量上限平均分配到各个分段
+            segments[i] = new Segment<>(maxKeys / size, idleNanos, factory);
+        }
+        this.segments = segments;
+    }
+
+    /**
+     * 尝试访问指定 Key 对应的资源
+     *
+     * @param key     Key 值
+     * @param permits 希望进行的调用次数
+     * @return 是否可以进行调用
+     */
+    public boolean tryAcquire(K key, int permits) {
+        return segmentFor(key).limiterFor(key, System.nanoTime()).tryAcquire(permits);
+    }
+
+    /**
+     * 批量尝试访问多个 Key 对应的资源
+     *
+     * <p>
+     * 同一分段内的 Key 只需加锁一次
+     * </p>
+     *
+     * @param keys    Key 值数组
+     * @param permits 每个 Key 希望进行的调用次数
+     * @return 和 {@code keys} 一一对应的结果数组, 表示各个 Key 是否可以进行调用
+     */
+    public boolean[] tryAcquire(K[] keys, int permits) {
+        var results = new boolean[keys.length];
+        var limiters = new RateLimiter[keys.length];
+
+        // 记录每个 Key 所在的分段序号
+        var stripeOf = new int[keys.length];
+        for (var i = 0; i < keys.length; i++) {
+            stripeOf[i] = stripeOf(keys[i]);
+        }
+
+        var now = System.nanoTime();
+
+        // 按分段获取限流器, 每个分段只加锁一次
+        for (var i = 0; i < keys.length; i++) {
+            if (limiters[i] != null) {
+                continue;
+            }
+
+            var stripe = stripeOf[i];
+            var segment = segments[stripe];
+            synchronized (segment) {
+                for (var j = i; j < keys.length; j++) {
+                    if (stripeOf[j] == stripe) {
+                        limiters[j] = segment.limiterFor(keys[j], now);
+                    }
+                }
+            }
+        }
+
+        // 在分段锁之外进行限流计算
+        for (var i = 0; i < keys.length; i++) {
+            results[i] = limiters[i].tryAcquire(permits);
+        }
+        return results;
+    }
+
+    /**
+     * 淘汰所有分段中超过空闲时间未被访问的 Key
+     *
+     * <p>
+     * 访问 Key 时会自动淘汰所在分段的空闲 Key, 本方法用于定时清理长时间未被访问的分段
+     * </p>
+     */
+    public void evictIdle() {
+        var now = System.nanoTime();
+        for (var segment : segments) {
+            synchronized (segment) {
+                segment.evictIdle(now);
+            }
+        }
+    }
+
+    /**
+     * 获取当前保存的 Key 数量
+     *
+     * @return Key 数量
+     */
+    public int size() {
+        var size = 0;
+        for (var segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 计算 Key 所在的分段序号
+     *
+     * @param key Key 值
+     * @return 分段序号
+     */
+    private int stripeOf(K key) {
+        // 将哈希值的高位扩散到低位, 避免哈希值低位分布不均匀
+        var h = key.hashCode();
+        h ^= h >>> 16;
+        return h & (segments.length - 1);
+    }
+
+    /**
+     * 获取 Key 所在的分段
+     *
+     * @param key Key 值
+     * @return 分段对象
+     */
+    private Segment<K> segmentFor(K key) {
+        return segments[stripeOf(key)];
+    }
+
+    /**
+     * 保存限流器的分段
+     *
+     * <p>
+     * 通过按访问顺序排列的 {@link LinkedHashMap} 保存 Key 和限流器, 链表头部即为最久未被访问的 Key
+     * </p>
+     */
+    private static final class Segment<K> {
+        // 按访问顺序保存 Key 和限流器
+        private final LinkedHashMap<K, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+        // 分段内最多保存的 Key 数量
+        private final int capacity;
+        // Key 的最大空闲时间, 单位纳秒
+        private final long idleNanos;
+        // 为 Key 创建限流器的工厂函数
+        private final Function<? super K, ? extends RateLimiter> factory;
+
+        /**
+         * 构造器, 构造分段对象
+         *
+         * @param capacity  分段内最多保存的 Key 数量
+         * @param idleNanos Key 的最大空闲时间, 单位纳秒
+         * @param factory   为 Key 创建限流器的工厂函数
+         */
+        Segment(int capacity, long idleNanos, Function<? super K, ? extends RateLimiter> factory) {
+            this.capacity = capacity;
+            this.idleNanos = idleNanos;
+            this.factory = factory;
+        }
+
+        /**
+         * 获取 Key 对应的限流器, 如果不存在则创建
+         *
+         * @param key Key 值
+         * @param now 当前时间, 单位纳秒
+         * @return 限流器对象
+         */
+        synchronized RateLimiter limiterFor(K key, long now) {
+            evictIdle(now);
+
+            var bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(factory.apply(key));
+                buckets.put(key, bucket);
+
+                // 分段内的 Key 数量超出上限时, 淘汰最久未被访问的 Key
+                if (buckets.size() > capacity) {
+                    var iter = buckets.values().iterator();
+                    iter.next();
+                    iter.remove();
+                }
+            }
+            bucket.lastAccess = now;
+            return bucket.limiter;
+        }
+
+        /**
+         * 从链表头部开始, 淘汰超过空闲时间未被访问的 Key
+         *
+         * @param now 当前时间, 单位纳秒
+         */
+        void evictIdle(long now) {
+            var iter = buckets.values().iterator();
+            while (iter.hasNext()) {
+                if (now - iter.next().lastAccess <= idleNanos) {
+                    // 由于按访问顺序排列, 之后的 Key 都未超过空闲时间
+                    break;
+                }
+                iter.remove();
+            }
+        }
+
+        /**
+         * 获取分段内保存的 Key 数量
+         *
+         * @return Key 数量
+         */
+        int size() {
+            return buckets.size();
+        }
+    }
+
+    /**
+     * 记录限流器及其最近访问时间
+     */
+    private static final class Bucket {
+        // 限流器对象
+        private final RateLimiter limiter;
+        // 最近一次访问的时间, 单位纳秒
+        private long lastAccess;
+
+        /**
+         * 构造器, 构造对象
+         *
+         * @param limiter 限流器对象
+         */
+        Bucket(RateLimiter limiter) {
+            this.limiter = limiter;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package alvin.study.se.ratelimit;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * 漏桶限流
  *
@@ -65,6 +67,26 @@ public class LeakBucketRateLimiter implements RateLimiter {
         return false;
     }
 
+    @Override
+    public synchronized long nanosToWait(int permits) {
+        if (permits > capacity) {
+            return Long.MAX_VALUE;
+        }
+
+        // 计算漏水
+        leak();
+
+        // 计算超出桶容量的部分
+        var excess = waterLevel + permits - capacity;
+        if (excess <= 0) {
+            return 0;
+        }
+
+        // 计算漏掉超出部分所需的时间
+        var leakMills = (excess * 1000L + rate - 1) / rate;
+        return Math.max(0, TimeUnit.MILLISECONDS.toNanos(lastLeakTimestamp + leakMills - System.currentTimeMillis()));
+    }
+
     /**
      * 计算桶漏水
      */
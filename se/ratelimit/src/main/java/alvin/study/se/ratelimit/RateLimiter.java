@@ -11,4 +11,17 @@ public interface RateLimiter {
      * @return 是否可以进行调用
      */
     boolean tryAcquire(int permits);
+
+    /**
+     * 计算距离可以进行指定次数的调用还需等待的时间
+     *
+     * <p>
+     * 返回值仅作为等待的参考, 等待结束后仍需通过 {@link #tryAcquire(int)} 方法确认是否可以进行调用, 参见 {@link BlockingRateLimiter}
+     * </p>
+     *
+     * @param permits 希望进行的调用次数
+     * @return 需等待的时间, 单位纳秒; {@code 0} 表示当前即可进行调用, {@link Long#MAX_VALUE} 表示调用次数超出了限流器的容量,
+     *         永远无法进行调用
+     */
+    long nanosToWait(int permits);
 }
@@ -0,0 +1,148 @@
+package alvin.study.se.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于环形数组的滑动窗口限流
+ *
+ * <p>
+ * 算法原理同 {@link SlidingWindowRateLimiter}, 区别在于不再通过双端队列管理窗口块, 而是:
+ * <ol>
+ * <li>
+ * 通过一个固定长度 ({@code blocks}) 的环形数组 ({@code counts}) 记录每个块的调用次数, 第 {@code n} 个块 (即
+ * {@code n = (now - origin) / blockNanos}) 位于数组的 {@code n % blocks} 位置;
+ * </li>
+ * <li>
+ * 维护窗口内调用次数的总和 ({@code total}), 窗口滑动时, 将滑出窗口的块的调用次数从总和中减去, 并将该块清零以供复用;
+ * </li>
+ * <li>
+ * 判断是否到达限流上限时, 只需比较 {@code total} 和 {@code threshold}, 无需遍历所有块
+ * </li>
+ * </ol>
+ * </p>
+ *
+ * <p>
+ * 所以每次调用的时间复杂度为 {@code O(1)} (窗口滑动时最多清理 {@code blocks} 个块), 且不会产生任何对象分配; 时间通过
+ * {@link System#nanoTime()} 获取, 所以块的大小可以小于 1 毫秒, 以适应高 QPS 的场景
+ * </p>
+ */
+public class RingSlidingWindowRateLimiter implements RateLimiter {
+    // 每个块的大小, 单位纳秒
+    private final long blockNanos;
+    // 调用数量上限
+    private final int threshold;
+    // 计算块序号的时间起点
+    private final long origin;
+
+    // 记录每个块调用次数的环形数组
+    private final int[] counts;
+
+    // 最近一次调用所在块的序号
+    private long lastBlock = 0;
+    // 窗口内的调用次数总和
+    private long total = 0;
+
+    /**
+     * 构造器, 构造限流器对象
+     *
+     * @param windowUnit 总窗口大小, 单位毫秒
+     * @param blocks     窗口中块的数量
+     * @param threshold  调用数量上限
+     */
+    public RingSlidingWindowRateLimiter(long windowUnit, int blocks, int threshold) {
+        this(windowUnit, TimeUnit.MILLISECONDS, blocks, threshold);
+    }
+
+    /**
+     * 构造器, 构造限流器对象
+     *
+     * @param window    总窗口大小
+     * @param unit      总窗口大小的时间单位
+     * @param blocks    窗口中块的数量
+     * @param threshold 调用数量上限
+     */
+    public RingSlidingWindowRateLimiter(long window, TimeUnit unit, int blocks, int threshold) {
+        if (blocks <= 0) {
+            throw new IllegalArgumentException("blocks must large than 0");
+        }
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("threshold must large than 0");
+        }
+
+        this.blockNanos = unit.toNanos(window) / blocks;
+        if (blockNanos <= 0) {
+            throw new IllegalArgumentException("window is too small to split into blocks");
+        }
+
+        this.threshold = threshold;
+        this.counts = new int[blocks];
+        this.origin = System.nanoTime();
+    }
+
+    @Override
+    public synchronized boolean tryAcquire(int permits) {
+        if (permits < 0) {
+            throw new IllegalArgumentException("permits must large than 0");
+        }
+
+        // 计算当前时间所在块的序号, 并滑动窗口
+        var block = (System.nanoTime() - origin) / blockNanos;
+        slide(block);
+
+        // 判断调用次数是否达到了上限
+        if (total + permits > threshold) {
+            return false;
+        }
+
+        // 为当前块增加调用次数
+        counts[(int) (block % counts.length)] += permits;
+        total += permits;
+        return true;
+    }
+
+    @Override
+    public synchronized long nanosToWait(int permits) {
+        if (permits > threshold) {
+            return Long.MAX_VALUE;
+        }
+
+        var now = System.nanoTime() - origin;
+        var block = now / blockNanos;
+        slide(block);
+
+        // 计算超出上限的调用次数
+        var excess = total + permits - threshold;
+        if (excess <= 0) {
+            return 0;
+        }
+
+        // 从窗口中最早的块开始, 找到滑出窗口后可以令调用次数不超出上限的块, 第 n 个块在第 n + blocks 个块开始时滑出窗口
+        for (var b = Math.max(0, block - counts.length + 1); b <= block; b++) {
+            excess -= counts[(int) (b % counts.length)];
+            if (excess <= 0) {
+                return (b + counts.length) * blockNanos - now;
+            }
+        }
+        return counts.length * blockNanos;
+    }
+
+    /**
+     * 将窗口滑动到指定的块, 即清理已经滑出窗口的块
+     *
+     * @param block 当前时间所在块的序号
+     */
+    private void slide(long block) {
+        if (block <= lastBlock) {
+            return;
+        }
+
+        // 从上次调用的块之后, 到当前块为止的块都已经滑出窗口 (或者是新块), 最多需要清理整个数组
+        var expired = Math.min(block - lastBlock, counts.length);
+        for (var i = 1; i <= expired; i++) {
+            var index = (int) ((lastBlock + i) % counts.length);
+            total -= counts[index];
+            counts[index] = 0;
+        }
+        lastBlock = block;
+    }
+}
@@ -2,6 +2,7 @@ package alvin.study.se.ratelimit;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -87,6 +88,30 @@ public class SlidingWindowRateLimiter implements RateLimiter {
         return true;
     }
 
+    @Override
+    public synchronized long nanosToWait(int permits) {
+        if (permits > threshold) {
+            return Long.MAX_VALUE;
+        }
+
+        var nowMills = System.currentTimeMillis();
+
+        // 计算超出上限的调用次数
+        var excess = countCurrentWindow(nowMills) + permits - threshold;
+        if (excess <= 0) {
+            return 0;
+        }
+
+        // 从最早的块开始, 找到滑出窗口后可以令调用次数不超出上限的块, 等待该块滑出窗口
+        for (var win : windowQueue) {
+            excess -= win.getCount();
+            if (excess <= 0) {
+                return TimeUnit.MILLISECONDS.toNanos(win.getStartTime() + windowUnit - nowMills + 1);
+            }
+        }
+        return TimeUnit.MILLISECONDS.toNanos(windowUnit);
+    }
+
     /**
      * 计算当前窗口中已经发生的调用次数
      *
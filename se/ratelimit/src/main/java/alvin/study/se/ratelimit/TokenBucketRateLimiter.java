@@ -1,5 +1,7 @@
 package alvin.study.se.ratelimit;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * 令牌桶限流
  *
@@ -49,7 +51,7 @@ public class TokenBucketRateLimiter implements RateLimiter {
     }
 
     @Override
-    public boolean tryAcquire(int permits) {
+    public synchronized boolean tryAcquire(int permits) {
         // 生成令牌
         refill();
 
@@ -62,6 +64,23 @@ public class TokenBucketRateLimiter implements RateLimiter {
         return false;
     }
 
+    @Override
+    public synchronized long nanosToWait(int permits) {
+        if (permits > capacity) {
+            return Long.MAX_VALUE;
+        }
+
+        // 生成令牌
+        refill();
+        if (tokens >= permits) {
+            return 0;
+        }
+
+        // 令牌按整秒生成, 计算补足令牌所需的秒数, 等待到对应的时间点
+        var seconds = (permits - tokens + rate - 1) / rate;
+        return TimeUnit.MILLISECONDS.toNanos(lastRefillTimestamp + seconds * 1000L - System.currentTimeMillis());
+    }
+
     /**
      * 生成令牌
      */
@@ -0,0 +1,166 @@
+package alvin.study.se.ratelimit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * 测试基于 CAS 的无锁限流类型
+ *
+ * <p>
+ * 包括 {@link AtomicFixedWindowRateLimiter}, {@link AtomicSlidingWindowRateLimiter},
+ * {@link AtomicLeakBucketRateLimiter} 以及 {@link AtomicTokenBucketRateLimiter} 类型,
+ * 各类型的测试流程相同, 只是限流参数和预期结果不同
+ * </p>
+ */
+class AtomicRateLimiterTest extends RateLimiterTest {
+    /**
+     * 逐次调用测试的参数
+     *
+     * @return 依次为限流对象名称, 限流对象工厂, 通过限流次数的下限 (不含) 和上限 (含),
+     *         被限流次数的下限 (含) 和上限 (不含)
+     */
+    static Stream<Arguments> oneByOneArguments() {
+        return Stream.of(
+            // 时间窗口 1s, 窗口中限制 50 次请求
+            Arguments.of("FixedWindow", (Supplier<RateLimiter>) () -> new AtomicFixedWindowRateLimiter(1000, 50),
+                70, 135, 65, 130),
+            // 时间窗口 1s, 窗口中限制 50 次请求
+            Arguments.of("SlidingWindow", (Supplier<RateLimiter>) () -> new AtomicSlidingWindowRateLimiter(1000, 50),
+                70, 130, 70, 130),
+            // 桶容量 50, 每秒漏 25
+            Arguments.of("LeakBucket", (Supplier<RateLimiter>) () -> new AtomicLeakBucketRateLimiter(50, 25),
+                85, 115, 85, 115),
+            // 桶容量 10, 每秒创建 50 个令牌
+            Arguments.of("TokenBucket", (Supplier<RateLimiter>) () -> new AtomicTokenBucketRateLimiter(10, 50),
+                90, 130, 70, 110));
+    }
+
+    /**
+     * 批量调用测试的参数
+     *
+     * @return 依次为限流对象名称, 限流对象工厂, 每次请求的调用次数
+     */
+    static Stream<Arguments> byBatchArguments() {
+        return Stream.of(
+            // 时间窗口 1s, 窗口中限制 50 次请求
+            Arguments.of("FixedWindow", (Supplier<RateLimiter>) () -> new AtomicFixedWindowRateLimiter(1000, 50), 30),
+            // 时间窗口 1s, 窗口中限制 50 次请求
+            Arguments.of("SlidingWindow", (Supplier<RateLimiter>) () -> new AtomicSlidingWindowRateLimiter(1000, 50),
+                30),
+            // 桶容量 50, 每秒漏 25
+            Arguments.of("LeakBucket", (Supplier<RateLimiter>) () -> new AtomicLeakBucketRateLimiter(50, 25), 30),
+            // 桶容量 10, 每秒创建 50 个令牌
+            Arguments.of("TokenBucket", (Supplier<RateLimiter>) () -> new AtomicTokenBucketRateLimiter(10, 50), 6));
+    }
+
+    /**
+     * 并发调用测试的参数, 各限流对象在测试期间最多允许 {@code 1000} 次调用
+     *
+     * @return 依次为限流对象名称, 限流对象工厂
+     */
+    static Stream<Arguments> concurrentlyArguments() {
+        return Stream.of(
+            // 时间窗口 10s, 窗口中限制 1000 次请求
+            Arguments.of("FixedWindow", (Supplier<RateLimiter>) () -> new AtomicFixedWindowRateLimiter(10000, 1000)),
+            // 时间窗口 10s, 窗口中限制 1000 次请求
+            Arguments.of("SlidingWindow",
+                (Supplier<RateLimiter>) () -> new AtomicSlidingWindowRateLimiter(10000, 1000)),
+            // 桶容量 1000, 每秒漏 1
+            Arguments.of("LeakBucket", (Supplier<RateLimiter>) () -> new AtomicLeakBucketRateLimiter(1000, 1)),
+            // 桶容量 1000, 每秒创建 1 个令牌
+            Arguments.of("TokenBucket", (Supplier<RateLimiter>) () -> new AtomicTokenBucketRateLimiter(1000, 1)));
+    }
+
+    /**
+     * 测试 {@link RateLimiter#tryAcquire(int)} 方法, 通过无锁限流对象进行限流
+     *
+     * <p>
+     * 本次测试参数值为 {@code 1} 的情况
+     * </p>
+     */
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("oneByOneArguments")
+    void testTryAcquire_shouldLimitOneByOne(
+            String name,
+            Supplier<RateLimiter> factory,
+            int minExecuted,
+            int maxExecuted,
+            int minBlocked,
+            int maxBlocked) {
+        var limiter = factory.get();
+
+        // 记录通过限流的调用次数
+        var executeCount = new AtomicInteger();
+        // 记录被限流的调用次数
+        var blockedCount = new AtomicInteger();
+
+        // 按每秒执行 100 次的频率执行 2s 时间
+        executeByRate(100, 2, () -> {
+            if (limiter.tryAcquire(1)) {
+                // 记录通过限流
+                executeCount.incrementAndGet();
+            } else {
+                // 记录被限流
+                blockedCount.incrementAndGet();
+            }
+        });
+
+        // 确认通过限流和未通过限流的次数
+        then(executeCount.get()).isGreaterThan(minExecuted).isLessThanOrEqualTo(maxExecuted);
+        then(blockedCount.get()).isGreaterThanOrEqualTo(minBlocked).isLessThan(maxBlocked);
+    }
+
+    /**
+     * 测试 {@link RateLimiter#tryAcquire(int)} 方法, 通过无锁限流对象进行限流
+     *
+     * <p>
+     * 本次测试参数值大于 {@code 1} 的情况
+     * </p>
+     */
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("byBatchArguments")
+    void testTryAcquire_shouldLimitByBatch(String name, Supplier<RateLimiter> factory, int permits) {
+        var limiter = factory.get();
+
+        // 先请求一批调用, 在限流次数范围内, 返回允许
+        var r = limiter.tryAcquire(permits);
+        then(r).isTrue();
+
+        // 再请求一批调用, 超出限流次数, 返回不允许
+        r = limiter.tryAcquire(permits);
+        then(r).isFalse();
+    }
+
+    /**
+     * 测试 {@link RateLimiter#tryAcquire(int)} 方法, 在多线程并发调用时进行限流
+     *
+     * <p>
+     * 通过 CAS 更新状态, 在多线程竞争时不能出现超出限流上限的情况
+     * </p>
+     */
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("concurrentlyArguments")
+    void testTryAcquire_shouldLimitConcurrently(String name, Supplier<RateLimiter> factory) throws Exception {
+        var limiter = factory.get();
+
+        // 记录通过限流的调用次数
+        var executeCount = new AtomicInteger();
+
+        // 在 8 个线程中, 每个线程调用 500 次
+        executeConcurrently(8, 500, () -> {
+            if (limiter.tryAcquire(1)) {
+                executeCount.incrementAndGet();
+            }
+        });
+
+        // 确认通过限流的次数为 1000 次
+        then(executeCount.get()).isBetween(1000, 1001);
+    }
+}
@@ -0,0 +1,104 @@
+package alvin.study.se.ratelimit;
+
+import static org.assertj.core.api.BDDAssertions.catchThrowable;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 测试 {@link BlockingRateLimiter} 类型, 被限流时进行阻塞等待
+ */
+class BlockingRateLimiterTest {
+    /**
+     * 测试 {@link BlockingRateLimiter#acquire(int, Duration)} 方法, 被限流时等待令牌生成
+     */
+    @Test
+    void testAcquire_shouldWaitForTokens() throws Exception {
+        // 实例化令牌桶限流对象, 桶容量 5, 每秒创建 50 个令牌 (即每 20ms 生成一个令牌)
+        var limiter = new BlockingRateLimiter(new AtomicTokenBucketRateLimiter(5, 50));
+
+        // 消耗全部令牌
+        then(limiter.tryAcquire(5)).isTrue();
+
+        // 再请求 5 次调用, 需等待约 100ms
+        var start = System.nanoTime();
+        then(limiter.acquire(5, Duration.ofSeconds(1))).isTrue();
+        then(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isBetween(80L, 300L);
+    }
+
+    /**
+     * 测试 {@link BlockingRateLimiter#acquire(int, Duration)} 方法, 等待超时返回 {@code false}
+     */
+    @Test
+    void testAcquire_shouldTimeout() throws Exception {
+        // 实例化漏桶限流对象, 桶容量 1, 每秒漏 1
+        var limiter = new BlockingRateLimiter(new LeakBucketRateLimiter(1, 1));
+
+        then(limiter.acquire(1, Duration.ofMillis(50))).isTrue();
+
+        // 桶已满, 约 1s 后才能继续, 等待 50ms 后超时
+        then(limiter.acquire(1, Duration.ofMillis(50))).isFalse();
+
+        // 超出桶容量的请求永远无法获取许可
+        var thrown = catchThrowable(() -> limiter.acquire(2, Duration.ofMillis(50)));
+        then(thrown).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * 测试 {@link BlockingRateLimiter#acquireAsync(int)} 方法, 等待者按照进入队列的顺序被唤醒
+     */
+    @Test
+    void testAcquireAsync_shouldWakeUpInOrder() {
+        // 实例化固定窗口限流对象, 时间窗口 50ms, 窗口中限制 2 次请求
+        var limiter = new BlockingRateLimiter(new FixedWindowRateLimiter(50, 2));
+
+        // 记录等待者被唤醒的顺序
+        var order = Collections.synchronizedList(new ArrayList<Integer>());
+
+        var futures = new ArrayList<CompletableFuture<Void>>();
+        for (var i = 0; i < 6; i++) {
+            var n = i;
+            futures.add(limiter.acquireAsync(1).thenRun(() -> order.add(n)));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+        // 确认按照请求的顺序获取许可
+        then(order).containsExactly(0, 1, 2, 3, 4, 5);
+    }
+
+    /**
+     * 测试 {@link BlockingRateLimiter#acquire(int, Duration)} 方法, 在大量虚拟线程中等待许可
+     */
+    @Test
+    void testAcquire_shouldWorkWithVirtualThreads() throws Exception {
+        // 实例化令牌桶限流对象, 桶容量 10, 每秒创建 200 个令牌 (即每 5ms 生成一个令牌)
+        var limiter = new BlockingRateLimiter(new AtomicTokenBucketRateLimiter(10, 200));
+
+        // 记录获取许可的次数
+        var acquired = new AtomicInteger();
+
+        var start = System.nanoTime();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var i = 0; i < 50; i++) {
+                executor.submit(() -> {
+                    if (limiter.acquire(1, Duration.ofSeconds(5))) {
+                        acquired.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+        }
+
+        // 确认所有线程都获取了许可, 其中 40 个许可需等待约 200ms 生成
+        then(acquired.get()).isEqualTo(50);
+        then(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(150L);
+    }
+}
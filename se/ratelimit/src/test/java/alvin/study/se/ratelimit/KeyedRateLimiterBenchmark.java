@@ -0,0 +1,229 @@
+package alvin.study.se.ratelimit;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 测试 {@link KeyedRateLimiter} 在 Zipf 分布的 Key 访问下的吞吐量
+ *
+ * <p>
+ * 实际场景中, 少量的租户或 IP 地址会占据大部分的访问量, 所以通过 Zipf 分布生成访问的 Key 序列, 其中排名第 {@code k} 的 Key
+ * 被访问的概率和 {@code 1 / k^s} 成正比
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class KeyedRateLimiterBenchmark {
+    // 预先生成的 Key 序列长度, 必须为 2 的幂
+    private static final int SAMPLES = 1 << 20;
+    // 批量请求的 Key 数量
+    private static final int BATCH = 16;
+
+    /**
+     * 所有线程共享的限流器注册表和 Key 序列
+     */
+    @State(Scope.Benchmark)
+    public static class Registry {
+        // Key 的总数量
+        @Param({ "1000000" })
+        private int keys;
+
+        // Zipf 分布的指数, 值越大访问越集中
+        @Param({ "0.99" })
+        private double exponent;
+
+        // 分段数量
+        @Param({ "1", "64" })
+        private int stripes;
+
+        private KeyedRateLimiter<Long> limiter;
+
+        // 预先生成并装箱的 Key 序列, 避免测试过程中产生对象分配
+        private Long[] samples;
+
+        /**
+         * 创建限流器注册表, 并按 Zipf 分布生成 Key 序列
+         */
+        @Setup
+        public void setup() {
+            limiter = new KeyedRateLimiter<>(
+                key -> new AtomicTokenBucketRateLimiter(100, 100), stripes, keys / 10, Duration.ofSeconds(10));
+
+            var zipf = new Zipf(keys, exponent, new SplittableRandom(0));
+            samples = new Long[SAMPLES];
+            for (var i = 0; i < SAMPLES; i++) {
+                samples[i] = zipf.next();
+            }
+        }
+    }
+
+    /**
+     * 每个线程独立的 Key 序列游标
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int index;
+
+        // 用于批量请求的 Key 数组
+        private final Long[] batch = new Long[BATCH];
+
+        /**
+         * 令每个线程从 Key 序列的不同位置开始
+         */
+        @Setup
+        public void setup() {
+            index = (int) (Thread.currentThread().threadId() * 7919) & (SAMPLES - 1);
+        }
+
+        /**
+         * 获取下一个 Key
+         *
+         * @param registry 限流器注册表和 Key 序列
+         * @return Key 值
+         */
+        Long next(Registry registry) {
+            index = (index + 1) & (SAMPLES - 1);
+            return registry.samples[index];
+        }
+    }
+
+    /**
+     * 测试单个 Key 的限流
+     *
+     * @param registry 限流器注册表和 Key 序列
+     * @param cursor   Key 序列游标
+     * @return 是否获取成功, 返回结果以防止被 JIT 优化掉
+     */
+    @Benchmark
+    public boolean tryAcquire(Registry registry, Cursor cursor) {
+        return registry.limiter.tryAcquire(cursor.next(registry), 1);
+    }
+
+    /**
+     * 测试批量 Key 的限流
+     *
+     * @param registry 限流器注册表和 Key 序列
+     * @param cursor   Key 序列游标
+     * @return 限流结果, 返回结果以防止被 JIT 优化掉
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public boolean[] tryAcquireBatch(Registry registry, Cursor cursor) {
+        for (var i = 0; i < BATCH; i++) {
+            cursor.batch[i] = cursor.next(registry);
+        }
+        return registry.limiter.tryAcquire(cursor.batch, 1);
+    }
+
+    /**
+     * 执行性能测试
+     */
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(KeyedRateLimiterBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(options).run();
+    }
+
+    /**
+     * Zipf 分布随机数生成器
+     *
+     * <p>
+     * 通过拒绝采样 (Rejection-Inversion) 算法生成 {@code [1, n]} 范围内的随机数, 无需预先计算概率表, 参见: W. Hörmann, G.
+     * Derflinger: "Rejection-Inversion to Generate Variates from Monotone Discrete Distributions"
+     * </p>
+     */
+    static final class Zipf {
+        private final int n;
+        private final double s;
+        private final SplittableRandom random;
+
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double threshold;
+
+        /**
+         * 构造器, 构造生成器对象
+         *
+         * @param n      随机数上限
+         * @param s      Zipf 分布的指数
+         * @param random 均匀分布的随机数生成器
+         */
+        Zipf(int n, double s, SplittableRandom random) {
+            this.n = n;
+            this.s = s;
+            this.random = random;
+            this.hIntegralX1 = hIntegral(1.5) - 1.0;
+            this.hIntegralN = hIntegral(n + 0.5);
+            this.threshold = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2.0));
+        }
+
+        /**
+         * 生成下一个随机数
+         *
+         * @return {@code [1, n]} 范围内的随机数
+         */
+        long next() {
+            while (true) {
+                var u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+                var x = hIntegralInverse(u);
+
+                var k = (long) (x + 0.5);
+                if (k < 1) {
+                    k = 1;
+                } else if (k > n) {
+                    k = n;
+                }
+
+                if (k - x <= threshold || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-s * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            var logX = Math.log(x);
+            return helper2((1.0 - s) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            var t = Math.max(-1.0, x * (1.0 - s));
+            return Math.exp(helper1(t) * x);
+        }
+
+        private static double helper1(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+        }
+
+        private static double helper2(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1.0 + x * 0.5 * (1.0 + x / 3.0 * (1.0 + 0.25 * x));
+        }
+    }
+}
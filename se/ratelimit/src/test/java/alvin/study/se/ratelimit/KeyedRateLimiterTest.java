@@ -0,0 +1,101 @@
+package alvin.study.se.ratelimit;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 测试 {@link KeyedRateLimiter} 类型, 为每个 Key 分别进行限流
+ */
+class KeyedRateLimiterTest {
+    /**
+     * 测试 {@link KeyedRateLimiter#tryAcquire(Object, int)} 方法, 每个 Key 使用独立的限流器
+     */
+    @Test
+    void testTryAcquire_shouldLimitPerKey() {
+        // 实例化限流器注册表, 每个 Key 使用容量为 10 的令牌桶, 分为 4 个分段, 最多保存 100 个 Key
+        var limiter = new KeyedRateLimiter<String>(
+            key -> new AtomicTokenBucketRateLimiter(10, 1), 4, 100, Duration.ofMinutes(1));
+
+        // 对 Key "A" 请求 10 次调用, 返回允许, 再请求 1 次, 返回不允许
+        then(limiter.tryAcquire("A", 10)).isTrue();
+        then(limiter.tryAcquire("A", 1)).isFalse();
+
+        // Key "B" 不受 Key "A" 的影响, 返回允许
+        then(limiter.tryAcquire("B", 10)).isTrue();
+
+        // 确认共保存了 2 个 Key
+        then(limiter.size()).isEqualTo(2);
+    }
+
+    /**
+     * 测试 {@link KeyedRateLimiter#tryAcquire(Object[], int)} 方法, 批量进行限流
+     */
+    @Test
+    void testTryAcquire_shouldLimitByBatch() {
+        // 实例化限流器注册表, 每个 Key 使用容量为 10 的令牌桶
+        var limiter = new KeyedRateLimiter<String>(
+            key -> new AtomicTokenBucketRateLimiter(10, 1), 4, 100, Duration.ofMinutes(1));
+
+        // 先将 Key "A" 的令牌消耗完
+        then(limiter.tryAcquire("A", 10)).isTrue();
+
+        // 批量请求, 只有 Key "A" 被限流
+        var results = limiter.tryAcquire(new String[] { "A", "B", "C", "D", "E" }, 5);
+        then(results).containsExactly(false, true, true, true, true);
+
+        // 再次批量请求, Key "B" 剩余 5 个令牌, Key "F" 为新 Key
+        results = limiter.tryAcquire(new String[] { "B", "F" }, 6);
+        then(results).containsExactly(false, true);
+    }
+
+    /**
+     * 测试 {@link KeyedRateLimiter} 的 Key 数量上限, 超出上限时淘汰最久未访问的 Key
+     */
+    @Test
+    void testTryAcquire_shouldEvictEldestKey() {
+        // 实例化限流器注册表, 只有 1 个分段, 最多保存 3 个 Key
+        var limiter = new KeyedRateLimiter<Integer>(
+            key -> new AtomicTokenBucketRateLimiter(1, 1), 1, 3, Duration.ofMinutes(1));
+
+        // 消耗 Key 0~2 的令牌
+        for (var i = 0; i < 3; i++) {
+            then(limiter.tryAcquire(i, 1)).isTrue();
+        }
+
+        // 访问 Key 0, 令其成为最近访问的 Key
+        then(limiter.tryAcquire(0, 1)).isFalse();
+
+        // 加入 Key 3, 淘汰最久未访问的 Key 1
+        then(limiter.tryAcquire(3, 1)).isTrue();
+        then(limiter.size()).isEqualTo(3);
+
+        // Key 1 被淘汰, 重新创建限流器, 返回允许; Key 0 未被淘汰, 返回不允许
+        then(limiter.tryAcquire(1, 1)).isTrue();
+        then(limiter.tryAcquire(0, 1)).isFalse();
+    }
+
+    /**
+     * 测试 {@link KeyedRateLimiter#evictIdle()} 方法, 淘汰超过空闲时间的 Key
+     */
+    @Test
+    void testEvictIdle_shouldEvictIdleKeys() {
+        // 实例化限流器注册表, Key 的空闲时间为 20ms
+        var limiter = new KeyedRateLimiter<Integer>(
+            key -> new AtomicTokenBucketRateLimiter(1, 1), 4, 100, Duration.ofMillis(20));
+
+        for (var i = 0; i < 10; i++) {
+            limiter.tryAcquire(i, 1);
+        }
+        then(limiter.size()).isEqualTo(10);
+
+        // 等待超过空闲时间后, 所有 Key 都被淘汰
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+        limiter.evictIdle();
+        then(limiter.size()).isZero();
+    }
+}
@@ -0,0 +1,97 @@
+package alvin.study.se.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 对比各限流器 {@link RateLimiter#tryAcquire(int)} 方法在多线程竞争下的吞吐量
+ *
+ * <p>
+ * 通过 {@link #main(String[])} 方法分别以 {@code 1}, {@code 8} 和 {@code 64} 个线程执行, 对比基于 {@code synchronized}
+ * 的限流器和基于 CAS 的无锁限流器
+ * </p>
+ *
+ * <p>
+ * 注意: {@link TokenBucketRateLimiter} 和其它基于 {@code synchronized} 的限流器一样通过对象锁进行同步,
+ * 多线程下的结果可以和 {@link AtomicTokenBucketRateLimiter} 直接对比
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+    // 窗口大小, 单位毫秒
+    private static final int WINDOW = 1000;
+    // 窗口内的调用上限, 以及每秒生成的令牌数
+    private static final int THRESHOLD = 1_000_000;
+
+    @Param({
+        "FixedWindow", "AtomicFixedWindow",
+        "SlidingWindow", "AtomicSlidingWindow", "RingSlidingWindow",
+        "TokenBucket", "AtomicTokenBucket",
+        "LeakBucket", "AtomicLeakBucket"
+    })
+    private String type;
+
+    private RateLimiter limiter;
+
+    /**
+     * 根据参数创建要测试的限流器对象
+     */
+    @Setup
+    public void setup() {
+        limiter = switch (type) {
+            case "FixedWindow" -> new FixedWindowRateLimiter(WINDOW, THRESHOLD);
+            case "AtomicFixedWindow" -> new AtomicFixedWindowRateLimiter(WINDOW, THRESHOLD);
+            case "SlidingWindow" -> new SlidingWindowRateLimiter(WINDOW, 10, THRESHOLD);
+            case "AtomicSlidingWindow" -> new AtomicSlidingWindowRateLimiter(WINDOW, THRESHOLD);
+            case "RingSlidingWindow" -> new RingSlidingWindowRateLimiter(WINDOW, 10, THRESHOLD);
+            case "TokenBucket" -> new TokenBucketRateLimiter(THRESHOLD, THRESHOLD);
+            case "AtomicTokenBucket" -> new AtomicTokenBucketRateLimiter(THRESHOLD, THRESHOLD);
+            case "LeakBucket" -> new LeakBucketRateLimiter(THRESHOLD, THRESHOLD);
+            case "AtomicLeakBucket" -> new AtomicLeakBucketRateLimiter(THRESHOLD, THRESHOLD);
+            default -> throw new IllegalArgumentException("Unknown limiter type: " + type);
+        };
+    }
+
+    /**
+     * 测试获取一个调用许可
+     *
+     * @return 是否获取成功, 返回结果以防止被 JIT 优化掉
+     */
+    @Benchmark
+    public boolean tryAcquire() {
+        return limiter.tryAcquire(1);
+    }
+
+    /**
+     * 分别以 {@code 1}, {@code 8} 和 {@code 64} 个线程执行性能测试
+     */
+    public static void main(String[] args) throws RunnerException {
+        for (var threads : new int[] { 1, 8, 64 }) {
+            var options = new OptionsBuilder()
+                    .include(RateLimiterBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package alvin.study.se.ratelimit;
 
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 
@@ -20,4 +22,37 @@ abstract class RateLimiterTest {
             LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
         }
     }
+
+    /**
+     * 在多个线程中同时执行回调函数
+     *
+     * @param threads 线程数量
+     * @param times   每个线程执行回调函数的次数
+     * @param runner  要执行的回调函数
+     */
+    protected void executeConcurrently(int threads, int times, Runnable runner) throws InterruptedException {
+        // 令所有线程在同一时刻开始执行
+        var startLatch = new CountDownLatch(1);
+
+        var threadList = new ArrayList<Thread>(threads);
+        for (var i = 0; i < threads; i++) {
+            threadList.add(Thread.ofPlatform().start(() -> {
+                try {
+                    startLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                for (var n = 0; n < times; n++) {
+                    runner.run();
+                }
+            }));
+        }
+
+        startLatch.countDown();
+        for (var thread : threadList) {
+            thread.join();
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package alvin.study.springboot.ds.conf;
 
+import java.time.Duration;
+
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -10,6 +12,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import alvin.study.springboot.ds.core.data.DataSourceFactory;
 import alvin.study.springboot.ds.core.data.DynamicDataSource;
+import alvin.study.springboot.ds.core.data.SchemaSwitchingDataSource;
 
 /**
  * 配置数据源
@@ -38,15 +41,33 @@ public class DataSourceConfig {
      * 该数据库有多个
      * </p>
      *
-     * @param defaultDbName     默认的数据库名称
-     * @param dataSourceFactory 数据源工厂对象
+     * <p>
+     * 业务数据库的连接池数量随组织数量增长, 所以需要限制所有业务连接池的最大连接数之和, 并关闭长时间未被使用的连接池
+     * </p>
+     *
+     * <p>
+     * 如果所有数据库位于同一个数据库服务器, 可以将 {@code spring.datasource-template.tenant-switch-by} 配置为 {@code CATALOG} 或
+     * {@code SCHEMA}, 此时所有数据库共享同一个连接池, 获取连接时切换到对应的数据库, 参见 {@link SchemaSwitchingDataSource}
+     * </p>
+     *
+     * @param defaultDbName       默认的数据库名称
+     * @param switchBy            共享连接池时切换数据库的方式, 为空表示为每个数据库创建独立的连接池
+     * @param maxTotalConnections 业务数据库连接池最大连接数之和的上限
+     * @param idleTimeout         业务数据库连接池空闲多久后被关闭
+     * @param dataSourceFactory   数据源工厂对象
      * @return 动态数据源对象
      */
     @Bean
     @Primary
     DataSource dynamicDataSource(
             @Value("${spring.datasource-template.default-db-name}") String defaultDbName,
+            @Value("${spring.datasource-template.tenant-switch-by:#{null}}") SchemaSwitchingDataSource.SwitchBy switchBy,
+            @Value("${spring.datasource-template.tenant-max-total-connections:1000}") int maxTotalConnections,
+            @Value("${spring.datasource-template.tenant-idle-timeout:10m}") Duration idleTimeout,
             DataSourceFactory dataSourceFactory) {
-        return new DynamicDataSource(defaultDbName, dataSourceFactory);
+        if (switchBy != null) {
+            return new DynamicDataSource(defaultDbName, dataSourceFactory, switchBy);
+        }
+        return new DynamicDataSource(defaultDbName, dataSourceFactory, maxTotalConnections, idleTimeout);
     }
 }
@@ -2,10 +2,8 @@ package alvin.study.springboot.ds.core.data;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 import javax.sql.DataSource;
 
@@ -22,31 +20,72 @@ import lombok.extern.slf4j.Slf4j;
  * <p>
  * 动态数据源相当于一个 {@link DataSource} 的代理类, 其根据线程上下文的一个标识字符串, 切换到对应的数据源对象
  * </p>
+ *
+ * <p>
+ * 每次获取数据库连接都会查找目标数据源, 所以查找过程不能加锁, 目标数据源保存在 {@link TenantDataSources} 对象中, 可以为每个租户创建独立的连接池
+ * ({@link TenantDataSourceRegistry}), 或者所有租户共享同一个连接池 ({@link SchemaSwitchingDataSource})
+ * </p>
  */
 @Slf4j
-public class DynamicDataSource extends AbstractDataSource {
-    // 数据源工厂对象
-    private final DataSourceFactory dataSourceFactory;
-
+public class DynamicDataSource extends AbstractDataSource implements AutoCloseable {
     // 默认数据源对象
     private final DataSource defaultDataSource;
 
-    // 目标数据源集合, key 为数据源标识, Value 为实际的数据源对象
-    private final Map<String, DataSource> targetDataSources;
+    // 目标数据源集合, 保存除默认数据源外的所有数据源
+    private final TenantDataSources targetDataSources;
 
     /**
-     * 构造器
+     * 构造器, 为每个租户创建独立的连接池
+     *
+     * @param defaultDBName       默认数据库名称
+     * @param dataSourceFactory   数据源工厂对象
+     * @param maxTotalConnections 目标数据源最大连接数之和的上限
+     * @param idleTimeout         目标数据源空闲多久后被关闭
+     */
+    public DynamicDataSource(
+            String defaultDBName,
+            DataSourceFactory dataSourceFactory,
+            int maxTotalConnections,
+            Duration idleTimeout) {
+        this(
+            // 创建连接到默认数据库的数据源
+            dataSourceFactory.build(defaultDBName),
+            // 实例化目标数据源注册表
+            new TenantDataSourceRegistry(dataSourceFactory, maxTotalConnections, idleTimeout));
+    }
+
+    /**
+     * 构造器, 所有租户共享同一个连接池
      *
      * @param defaultDBName     默认数据库名称
      * @param dataSourceFactory 数据源工厂对象
+     * @param switchBy          切换租户数据库的方式
+     */
+    public DynamicDataSource(
+            String defaultDBName,
+            DataSourceFactory dataSourceFactory,
+            SchemaSwitchingDataSource.SwitchBy switchBy) {
+        this(new SchemaSwitchingDataSource(dataSourceFactory.build(defaultDBName), switchBy));
+    }
+
+    /**
+     * 构造器, 默认数据源和租户数据源使用同一个共享连接池
+     *
+     * @param schemaSwitchingDataSource 共享连接池的租户数据源集合
      */
-    public DynamicDataSource(String defaultDBName, DataSourceFactory dataSourceFactory) {
-        // 创建连接到默认数据库的数据源
-        this.defaultDataSource = dataSourceFactory.build(defaultDBName);
+    private DynamicDataSource(SchemaSwitchingDataSource schemaSwitchingDataSource) {
+        this(schemaSwitchingDataSource.defaultDataSource(), schemaSwitchingDataSource);
+    }
 
-        // 实例化数据源
-        this.targetDataSources = new HashMap<>();
-        this.dataSourceFactory = dataSourceFactory;
+    /**
+     * 构造器
+     *
+     * @param defaultDataSource 默认数据源对象
+     * @param targetDataSources 目标数据源集合
+     */
+    public DynamicDataSource(DataSource defaultDataSource, TenantDataSources targetDataSources) {
+        this.defaultDataSource = defaultDataSource;
+        this.targetDataSources = targetDataSources;
     }
 
     /**
@@ -57,7 +96,7 @@ public class DynamicDataSource extends AbstractDataSource {
     private String determineCurrentLookupKey() {
         // 从线程上下文中获取当前的数据源标识
         var key = DataSourceContext.current();
-        log.info("Switch to database \"{}\"", key == null ? "default" : key);
+        log.debug("Switch to database \"{}\"", key == null ? "default" : key);
         return key;
     }
 
@@ -66,7 +105,7 @@ public class DynamicDataSource extends AbstractDataSource {
      *
      * @return 数据源对象
      */
-    private synchronized DataSource determineTargetDataSource() {
+    private DataSource determineTargetDataSource() throws SQLException {
         // 获取当前的数据源标识
         var key = determineCurrentLookupKey();
 
@@ -76,11 +115,19 @@ public class DynamicDataSource extends AbstractDataSource {
         }
 
         // 根据数据源标识获取要切换的数据源对象, 其中如果对应的数据源不存在, 则创建该数据源
-        return targetDataSources.computeIfAbsent(key, dataSourceFactory::build);
+        return targetDataSources.get(key);
     }
 
     @Override
-    public Connection getConnection() throws SQLException { return determineTargetDataSource().getConnection(); }
+    public Connection getConnection() throws SQLException {
+        var key = determineCurrentLookupKey();
+        if (Strings.isNullOrEmpty(key)) {
+            return defaultDataSource.getConnection();
+        }
+
+        // 通过注册表获取连接, 以便在数据源被关闭时重试
+        return targetDataSources.getConnection(key);
+    }
 
     @Override
     public Connection getConnection(String username, String password) throws SQLException {
@@ -106,7 +153,7 @@ public class DynamicDataSource extends AbstractDataSource {
      *
      * @return 所有的数据源标识
      */
-    public Collection<String> getAllLookupKeys() { return new ArrayList<>(targetDataSources.keySet()); }
+    public Collection<String> getAllLookupKeys() { return targetDataSources.keys(); }
 
     /**
      * 删除数据源
@@ -114,16 +161,18 @@ public class DynamicDataSource extends AbstractDataSource {
      * @param dbName 数据源标识
      */
     public void delete(String dbName) {
-        // 从 targetDataSources 中删除标识符对应的数据源
-        var dataSource = targetDataSources.remove(dbName);
-        if (dataSource != null) {
-            try {
-                // 获取数据源的 close 方法并执行
-                var method = dataSource.getClass().getMethod("close");
-                method.invoke(dataSource);
-            } catch (Exception e) {
-                log.error("Cannot close datasource " + dataSource, e);
-            }
+        // 从 targetDataSources 中删除标识符对应的数据源, 并关闭该数据源
+        targetDataSources.remove(dbName);
+    }
+
+    /**
+     * 关闭所有数据源
+     */
+    @Override
+    public void close() throws Exception {
+        targetDataSources.close();
+        if (defaultDataSource instanceof AutoCloseable closeable) {
+            closeable.close();
         }
     }
 }
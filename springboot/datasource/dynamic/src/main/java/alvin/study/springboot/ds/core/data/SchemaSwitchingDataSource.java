@@ -0,0 +1,216 @@
+package alvin.study.springboot.ds.core.data;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.lang.NonNull;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 共享连接池的租户数据源集合
+ *
+ * <p>
+ * {@link TenantDataSourceRegistry} 为每个租户创建独立的连接池, {@code N} 个租户即需要 {@code N × maximumPoolSize} 个连接,
+ * 以及 {@code N} 组连接池维护线程. 当所有租户的数据库位于同一个数据库服务器时, 可以改为所有租户共享同一个连接池,
+ * 在获取连接时将连接切换到租户对应的数据库:
+ * <ul>
+ * <li>
+ * {@link SwitchBy#CATALOG}: 通过 {@link Connection#setCatalog(String)} 切换, 对于 MySQL 即 {@code USE <db>} 语句.
+ * H2 的 {@link Connection#setCatalog(String)} 方法不执行任何操作, 所有租户会落到同一个数据库, 所以 H2 不支持该方式;
+ * </li>
+ * <li>
+ * {@link SwitchBy#SCHEMA}: 通过 {@link Connection#setSchema(String)} 切换, 对于 H2, PostgreSQL 即 {@code SET SCHEMA <schema>}
+ * 语句
+ * </li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * 获取的连接被包装为 {@link SchemaSwitchingConnection} 对象, 切换数据库的操作通过连接池返回的连接对象执行 (而不是其背后的物理连接),
+ * 令连接池可以正确记录连接状态的变化. 连接归还时会切换回默认数据库, 所以连接池中的空闲连接总是位于默认数据库,
+ * 共享连接池的其它使用者不会获取到位于租户数据库的连接. 每个连接在借出期间记录了其当前所在的数据库, 对于默认数据源获取的连接,
+ * 或归还时已经位于默认数据库的连接, 可以省略切换语句. 这些记录只属于一次借出的连接对象, 所以获取连接时无需访问任何共享状态
+ * </p>
+ *
+ * <p>
+ * 和为每个租户创建数据库的方式一致, 首次访问某个租户时, 如果对应的数据库 (schema) 不存在, 则自动创建
+ * </p>
+ */
+@Slf4j
+public class SchemaSwitchingDataSource implements TenantDataSources {
+    /**
+     * 切换租户数据库的方式
+     */
+    public enum SwitchBy {
+        CATALOG,
+        SCHEMA
+    }
+
+    // 所有租户共享的连接池
+    private final DataSource sharedDataSource;
+
+    // 切换租户数据库的方式
+    private final SwitchBy switchBy;
+
+    // 连接池默认所在的数据库, 即默认数据源对应的数据库
+    private final String defaultSchema;
+
+    // 默认数据源对象, 使用共享连接池, 并切换到默认数据库
+    private final DataSource defaultDataSource;
+
+    // 租户数据源集合, key 为数据源标识
+    private final Map<String, DataSource> tenants = new ConcurrentHashMap<>();
+
+    /**
+     * 构造器
+     *
+     * @param sharedDataSource 所有租户共享的连接池
+     * @param switchBy         切换租户数据库的方式
+     * @throws IllegalArgumentException 数据库不支持指定的切换方式
+     */
+    @SneakyThrows
+    public SchemaSwitchingDataSource(DataSource sharedDataSource, SwitchBy switchBy) {
+        this.sharedDataSource = sharedDataSource;
+        this.switchBy = switchBy;
+
+        // 获取连接池默认所在的数据库
+        try (var conn = sharedDataSource.getConnection()) {
+            if (switchBy == SwitchBy.CATALOG && "H2".equals(conn.getMetaData().getDatabaseProductName())) {
+                // H2 的 setCatalog 方法不执行任何操作, 无法通过 catalog 区分租户
+                throw new IllegalArgumentException("CATALOG switching is not supported by H2, use SCHEMA instead");
+            }
+            this.defaultSchema = switchBy == SwitchBy.CATALOG ? conn.getCatalog() : conn.getSchema();
+        }
+        this.defaultDataSource = new TenantDataSource(null);
+    }
+
+    /**
+     * 获取默认数据源对象
+     *
+     * @return 使用共享连接池, 并切换到默认数据库的数据源对象
+     */
+    public DataSource defaultDataSource() {
+        return defaultDataSource;
+    }
+
+    @Override
+    public DataSource get(String key) {
+        return tenants.computeIfAbsent(key, TenantDataSource::new);
+    }
+
+    @Override
+    public Connection getConnection(String key) throws SQLException {
+        return get(key).getConnection();
+    }
+
+    @Override
+    public Collection<String> keys() {
+        return new ArrayList<>(tenants.keySet());
+    }
+
+    @Override
+    public void remove(String key) {
+        tenants.remove(key);
+    }
+
+    @Override
+    public void close() {
+        if (sharedDataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.error("Cannot close datasource " + sharedDataSource, e);
+            }
+        }
+    }
+
+    /**
+     * 将从共享连接池获取的连接切换到指定的数据库
+     *
+     * @param conn   从共享连接池获取的连接
+     * @param schema 目标数据库名称
+     * @param create 是否需要先创建目标数据库
+     * @return 切换后的连接对象
+     */
+    private Connection switchTo(Connection conn, String schema, boolean create) throws SQLException {
+        var result = new SchemaSwitchingConnection(conn, switchBy, defaultSchema);
+        try {
+            if (create) {
+                createSchema(conn, schema);
+            }
+            result.switchTo(schema);
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            result.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 如果数据库不存在, 则创建该数据库
+     *
+     * @param conn   从共享连接池获取的连接
+     * @param schema 数据库名称
+     */
+    private static void createSchema(Connection conn, String schema) throws SQLException {
+        var quote = conn.getMetaData().getIdentifierQuoteString().trim();
+        var name = quote.isEmpty() ? schema : quote + schema.replace(quote, quote + quote) + quote;
+
+        try (var stmt = conn.createStatement()) {
+            stmt.execute("CREATE SCHEMA IF NOT EXISTS " + name);
+        }
+    }
+
+    /**
+     * 租户数据源, 从共享连接池获取连接并切换到租户对应的数据库
+     */
+    private final class TenantDataSource extends AbstractDataSource {
+        // 数据源标识, null 表示默认数据源
+        private final String key;
+
+        // 是否已经确认租户数据库存在
+        private volatile boolean created;
+
+        /**
+         * 构造器
+         *
+         * @param key 数据源标识, {@code null} 表示默认数据源
+         */
+        TenantDataSource(String key) {
+            this.key = key;
+            this.created = key == null;
+        }
+
+        @Override
+        public @NonNull Connection getConnection() throws SQLException {
+            return open(sharedDataSource.getConnection());
+        }
+
+        @Override
+        public @NonNull Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+            return open(sharedDataSource.getConnection(username, password));
+        }
+
+        /**
+         * 将连接切换到租户对应的数据库
+         *
+         * @param conn 从共享连接池获取的连接
+         * @return 切换后的连接对象
+         */
+        private Connection open(Connection conn) throws SQLException {
+            var schema = key == null ? defaultSchema : key;
+            var result = switchTo(conn, schema, !created);
+            created = true;
+            return result;
+        }
+    }
+}
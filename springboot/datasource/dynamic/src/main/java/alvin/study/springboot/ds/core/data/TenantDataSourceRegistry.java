@@ -0,0 +1,427 @@
+package alvin.study.springboot.ds.core.data;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 租户数据源注册表
+ *
+ * <p>
+ * 保存每个租户 (数据库) 对应的连接池, 具备如下特性:
+ * <ul>
+ * <li>
+ * 查找已存在的连接池不需要加锁, 只是一次 {@link ConcurrentHashMap#get(Object)} 操作和一次 {@code volatile} 读操作;
+ * </li>
+ * <li>
+ * 每个租户的连接池只会通过 {@link DataSourceFactory#build(String)} 方法创建一次, 创建过程只锁定该租户自身的条目,
+ * 不会阻塞其它租户的查找和创建;
+ * </li>
+ * <li>
+ * 所有连接池的最大连接数之和不超过 {@code maxTotalConnections}, 达到上限时, 优先关闭最久未被使用且没有活动连接的连接池;
+ * </li>
+ * <li>
+ * 超过 {@code idleTimeout} 时间未被使用且没有活动连接的连接池, 会被后台线程定时关闭
+ * </li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * 关闭空闲连接池和获取连接之间通过 "先标记再检查" 的方式避免竞争: {@link #getConnection(String)} 方法先增加条目的在途请求数,
+ * 再检查条目是否已关闭; 关闭连接池时则先在条目锁中将其标记为已关闭, 再检查在途请求数和活动连接数, 如果不为 {@code 0}, 则撤销标记并放弃关闭.
+ * 由此保证不会关闭一个正在获取连接或已经借出连接的连接池, 而看到关闭标记的线程会重新获取连接池并重试
+ * </p>
+ *
+ * <p>
+ * 注意, {@link #get(String)} 方法返回的连接池对象不受上述保护, 通过它获取的连接不计入在途请求数
+ * </p>
+ */
+@Slf4j
+public class TenantDataSourceRegistry implements TenantDataSources {
+    // 数据源工厂对象
+    private final DataSourceFactory dataSourceFactory;
+
+    // 所有连接池最大连接数之和的上限
+    private final int maxTotalConnections;
+
+    // 连接池空闲多久后被关闭, 单位纳秒
+    private final long idleTimeoutNanos;
+
+    // 租户连接池集合, key 为数据源标识
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // 当前所有连接池最大连接数之和
+    private final AtomicInteger reservedConnections = new AtomicInteger();
+
+    // 定时关闭空闲连接池的线程
+    private final ScheduledExecutorService evictor;
+
+    /**
+     * 构造器
+     *
+     * @param dataSourceFactory   数据源工厂对象
+     * @param maxTotalConnections 所有连接池最大连接数之和的上限
+     * @param idleTimeout         连接池空闲多久后被关闭
+     */
+    public TenantDataSourceRegistry(DataSourceFactory dataSourceFactory, int maxTotalConnections, Duration idleTimeout) {
+        if (maxTotalConnections < dataSourceFactory.getMaximumPoolSize()) {
+            throw new IllegalArgumentException("maxTotalConnections must large than maximumPoolSize");
+        }
+        if (idleTimeout.isNegative() || idleTimeout.isZero()) {
+            throw new IllegalArgumentException("idleTimeout must large than 0");
+        }
+
+        this.dataSourceFactory = dataSourceFactory;
+        this.maxTotalConnections = maxTotalConnections;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+
+        // 每隔 idleTimeout 的一半检查一次空闲的连接池
+        var interval = Math.max(1, idleTimeoutNanos / 2);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("tenant-datasource-evictor").daemon().factory());
+        this.evictor.scheduleWithFixedDelay(this::evictIdle, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 获取指定租户的连接池, 如果连接池不存在, 则创建该连接池
+     *
+     * @param key 数据源标识
+     * @return 连接池对象
+     * @throws SQLException 连接池数量已达上限, 且无法关闭其它连接池
+     */
+    @Override
+    public DataSource get(String key) throws SQLException {
+        return acquire(key).dataSource();
+    }
+
+    /**
+     * 从指定租户的连接池中获取连接
+     *
+     * @param key 数据源标识
+     * @return 数据库连接对象
+     * @throws SQLException 获取连接失败
+     */
+    @Override
+    public Connection getConnection(String key) throws SQLException {
+        while (true) {
+            var entry = acquire(key);
+
+            // 先增加在途请求数, 再检查关闭标记, 和 tryEvict 方法的 "先标记, 再检查" 相对应
+            entry.inFlight.incrementAndGet();
+            try {
+                if (entry.closed) {
+                    // 连接池正在或已经被关闭, 重新获取连接池后重试
+                    continue;
+                }
+                return entry.dataSource().getConnection();
+            } catch (SQLException e) {
+                // 连接池在获取连接期间被关闭, 重新获取连接池后重试
+                if (!entry.closed) {
+                    throw e;
+                }
+            } finally {
+                entry.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 获取当前所有的数据源标识
+     *
+     * @return 所有的数据源标识
+     */
+    @Override
+    public Collection<String> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * 关闭并删除指定租户的连接池
+     *
+     * @param key 数据源标识
+     */
+    @Override
+    public void remove(String key) {
+        var entry = entries.remove(key);
+        if (entry != null) {
+            release(entry);
+        }
+    }
+
+    /**
+     * 关闭超过空闲时间未被使用, 且没有活动连接的连接池
+     */
+    public void evictIdle() {
+        var now = System.nanoTime();
+        for (var entry : entries.values()) {
+            if (now - entry.lastAccessNanos > idleTimeoutNanos && isIdle(entry) && tryEvict(entry)) {
+                log.info("Evict idle datasource \"{}\"", entry.key);
+            }
+        }
+    }
+
+    /**
+     * 关闭所有连接池, 并停止后台线程
+     */
+    @Override
+    public void close() {
+        evictor.shutdownNow();
+        for (var key : keys()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * 获取指定租户的条目, 并确保其连接池已经创建
+     *
+     * @param key 数据源标识
+     * @return 条目对象
+     */
+    private Entry acquire(String key) throws SQLException {
+        while (true) {
+            var entry = entries.get(key);
+            if (entry == null) {
+                // computeIfAbsent 中只创建条目对象, 不创建连接池, 以免长时间占用 ConcurrentHashMap 的桶锁
+                entry = entries.computeIfAbsent(key, Entry::new);
+            }
+
+            entry.touch();
+
+            // 快速路径: 连接池已创建, 无需加锁
+            if (entry.dataSource != null && !entry.closed) {
+                return entry;
+            }
+
+            // 慢速路径: 只锁定当前租户的条目, 保证连接池只被创建一次
+            synchronized (entry) {
+                if (entry.closed) {
+                    // 条目在等待锁期间被关闭, 重新获取
+                    continue;
+                }
+
+                if (entry.dataSource == null) {
+                    reserve(entry);
+                    try {
+                        entry.dataSource = dataSourceFactory.build(key);
+                    } catch (RuntimeException e) {
+                        discard(entry);
+                        reservedConnections.addAndGet(-dataSourceFactory.getMaximumPoolSize());
+                        throw e;
+                    }
+                }
+                return entry;
+            }
+        }
+    }
+
+    /**
+     * 为新的连接池预留连接数, 如果超出上限, 则关闭最久未被使用的空闲连接池
+     *
+     * <p>
+     * 调用者持有条目锁, 所以关闭失败 (例如有线程正在获取连接) 的连接池在本次预留中不再重复尝试, 以免持有锁时空转;
+     * 所有候选连接池都无法关闭时, 抛出 {@link SQLTransientConnectionException} 异常
+     * </p>
+     *
+     * @param entry 要创建连接池的条目
+     */
+    private void reserve(Entry entry) throws SQLException {
+        var size = dataSourceFactory.getMaximumPoolSize();
+
+        // 本次预留过程中关闭失败的连接池
+        var failed = new HashSet<Entry>();
+        while (true) {
+            var reserved = reservedConnections.get();
+            if (reserved + size <= maxTotalConnections) {
+                if (reservedConnections.compareAndSet(reserved, reserved + size)) {
+                    return;
+                }
+                continue;
+            }
+
+            // 按最后访问时间排序, 关闭最久未被使用且没有活动连接的连接池
+            var victim = entries.values().stream()
+                    .filter(e -> e != entry && !failed.contains(e) && e.dataSource != null && isIdle(e))
+                    .min(Comparator.comparingLong(e -> e.lastAccessNanos))
+                    .orElse(null);
+            if (victim == null) {
+                discard(entry);
+                throw new SQLTransientConnectionException(
+                    String.format("Cannot create datasource \"%s\", total connections exceed %d",
+                        entry.key, maxTotalConnections));
+            }
+
+            if (tryEvict(victim)) {
+                log.info("Evict least recently used datasource \"{}\"", victim.key);
+            } else {
+                // 跳过该连接池, 尝试下一个最久未被使用的连接池
+                failed.add(victim);
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * 丢弃创建连接池失败的条目, 令等待该条目的线程重新获取
+     *
+     * @param entry 条目对象
+     */
+    private void discard(Entry entry) {
+        entry.closed = true;
+        entries.remove(entry.key, entry);
+    }
+
+    /**
+     * 如果连接池没有在途请求和活动连接, 则从集合中移除并关闭连接池
+     *
+     * <p>
+     * 在条目锁中先标记条目已关闭, 再检查在途请求数和活动连接数, 此后开始的 {@link #getConnection(String)} 调用都会看到关闭标记而重试,
+     * 在此之前开始的调用则一定会被检查到; 如果检查不通过, 则撤销关闭标记
+     * </p>
+     *
+     * <p>
+     * 只有连接池已经创建的条目才会被关闭, 而条目锁只有在创建连接池期间才会被长时间持有, 所以调用该方法不会长时间阻塞,
+     * 也不会和 {@link #acquire(String)} 方法形成死锁
+     * </p>
+     *
+     * @param entry 条目对象
+     * @return 是否关闭了连接池
+     */
+    private boolean tryEvict(Entry entry) {
+        DataSource dataSource;
+        synchronized (entry) {
+            if (entry.closed || entry.dataSource == null) {
+                return false;
+            }
+
+            entry.closed = true;
+            if (entry.inFlight.get() > 0 || !isIdle(entry) || !entries.remove(entry.key, entry)) {
+                // 有线程正在获取连接或持有连接, 或条目已被移除 (由 release 方法负责关闭), 撤销关闭标记
+                entry.closed = false;
+                return false;
+            }
+            dataSource = entry.dataSource;
+        }
+
+        close(dataSource);
+        return true;
+    }
+
+    /**
+     * 关闭条目中的连接池, 并归还其预留的连接数
+     *
+     * @param entry 条目对象
+     */
+    private void release(Entry entry) {
+        DataSource dataSource;
+        synchronized (entry) {
+            if (entry.closed) {
+                return;
+            }
+            entry.closed = true;
+            dataSource = entry.dataSource;
+        }
+
+        if (dataSource != null) {
+            close(dataSource);
+        }
+    }
+
+    /**
+     * 关闭连接池, 并归还其预留的连接数
+     *
+     * @param dataSource 连接池对象
+     */
+    private void close(DataSource dataSource) {
+        reservedConnections.addAndGet(-dataSourceFactory.getMaximumPoolSize());
+
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.error("Cannot close datasource " + dataSource, e);
+            }
+        }
+    }
+
+    /**
+     * 判断条目中的连接池是否没有活动连接
+     *
+     * @param entry 条目对象
+     * @return 是否没有活动连接
+     */
+    private static boolean isIdle(Entry entry) {
+        if (entry.dataSource instanceof HikariDataSource hds) {
+            var pool = hds.getHikariPoolMXBean();
+            return pool == null || pool.getActiveConnections() == 0;
+        }
+        return true;
+    }
+
+    /**
+     * 租户连接池条目
+     */
+    private static final class Entry {
+        // 访问时间的更新间隔, 避免每次获取连接都写入共享变量
+        private static final long TOUCH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        // 数据源标识
+        private final String key;
+
+        // 连接池对象, 创建前为 null
+        private volatile DataSource dataSource;
+
+        // 最后访问时间, 单位纳秒
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        // 条目是否已经关闭
+        private volatile boolean closed;
+
+        // 正在通过该条目的连接池获取连接的请求数
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        /**
+         * 构造器
+         *
+         * @param key 数据源标识
+         */
+        Entry(String key) {
+            this.key = key;
+        }
+
+        /**
+         * 获取连接池对象
+         *
+         * @return 连接池对象
+         */
+        DataSource dataSource() {
+            return dataSource;
+        }
+
+        /**
+         * 更新最后访问时间
+         */
+        void touch() {
+            var now = System.nanoTime();
+            if (now - lastAccessNanos > TOUCH_INTERVAL_NANOS) {
+                lastAccessNanos = now;
+            }
+        }
+    }
+}
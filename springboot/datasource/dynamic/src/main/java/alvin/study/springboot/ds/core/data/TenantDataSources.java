@@ -0,0 +1,62 @@
+package alvin.study.springboot.ds.core.data;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+
+import javax.sql.DataSource;
+
+/**
+ * 租户数据源集合接口
+ *
+ * <p>
+ * 定义了 {@link DynamicDataSource} 根据数据源标识获取目标数据源的方式, 包括:
+ * <ul>
+ * <li>
+ * {@link TenantDataSourceRegistry}: 为每个租户创建独立的连接池;
+ * </li>
+ * <li>
+ * {@link SchemaSwitchingDataSource}: 所有租户共享同一个连接池, 获取连接时切换到租户对应的数据库 (catalog/schema)
+ * </li>
+ * </ul>
+ * </p>
+ */
+public interface TenantDataSources extends AutoCloseable {
+    /**
+     * 获取指定租户的数据源
+     *
+     * @param key 数据源标识
+     * @return 数据源对象
+     * @throws SQLException 获取数据源失败
+     */
+    DataSource get(String key) throws SQLException;
+
+    /**
+     * 获取指定租户的数据库连接
+     *
+     * @param key 数据源标识
+     * @return 数据库连接对象
+     * @throws SQLException 获取连接失败
+     */
+    Connection getConnection(String key) throws SQLException;
+
+    /**
+     * 获取当前所有的数据源标识
+     *
+     * @return 所有的数据源标识
+     */
+    Collection<String> keys();
+
+    /**
+     * 删除指定租户的数据源
+     *
+     * @param key 数据源标识
+     */
+    void remove(String key);
+
+    /**
+     * 关闭所有数据源
+     */
+    @Override
+    void close();
+}
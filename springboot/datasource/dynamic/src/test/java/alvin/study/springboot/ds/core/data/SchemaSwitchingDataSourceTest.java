@@ -0,0 +1,191 @@
+package alvin.study.springboot.ds.core.data;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * 测试 {@link SchemaSwitchingDataSource} 类型
+ *
+ * <p>
+ * 共享连接池连接到一个 H2 内存数据库, 且只有 {@code 1} 个连接, 以保证每次获取的都是同一个物理连接,
+ * 从而验证连接在不同租户之间复用时所在的 schema
+ * </p>
+ */
+class SchemaSwitchingDataSourceTest {
+    // 共享连接池
+    private HikariDataSource sharedDataSource;
+
+    // 被测试的数据源集合
+    private SchemaSwitchingDataSource dataSources;
+
+    @BeforeEach
+    void beforeEach() {
+        var config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=MYSQL");
+        config.setUsername("test");
+        config.setMaximumPoolSize(1);
+        sharedDataSource = new HikariDataSource(config);
+    }
+
+    @AfterEach
+    void afterEach() {
+        if (dataSources != null) {
+            dataSources.close();
+        }
+        sharedDataSource.close();
+    }
+
+    /**
+     * 获取连接所在的 schema
+     *
+     * @param conn 连接对象
+     * @return schema 名称
+     */
+    private static String schemaOf(Connection conn) throws SQLException {
+        try (var stmt = conn.createStatement(); var rs = stmt.executeQuery("SELECT CURRENT_SCHEMA")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    /**
+     * 获取连接背后的物理连接
+     *
+     * @param conn 从数据源获取的连接对象
+     * @return 物理连接对象
+     */
+    private static Connection physicalOf(Connection conn) throws SQLException {
+        return ((ConnectionProxy) conn).getTargetConnection().unwrap(Connection.class);
+    }
+
+    /**
+     * 测试获取租户连接时, 创建租户对应的 schema 并切换到该 schema
+     */
+    @Test
+    void getConnection_shouldSwitchToTenantSchema() throws Exception {
+        dataSources = new SchemaSwitchingDataSource(sharedDataSource, SchemaSwitchingDataSource.SwitchBy.SCHEMA);
+
+        try (var conn = dataSources.getConnection("db_a")) {
+            then(schemaOf(conn)).isEqualTo("db_a");
+            try (var stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE data (id INT)");
+                stmt.execute("INSERT INTO data (id) VALUES (1)");
+            }
+        }
+
+        // 不同租户的数据表相互隔离
+        try (var conn = dataSources.getConnection("db_b")) {
+            then(schemaOf(conn)).isEqualTo("db_b");
+            try (var stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE data (id INT)");
+                try (var rs = stmt.executeQuery("SELECT COUNT(*) FROM data")) {
+                    rs.next();
+                    then(rs.getInt(1)).isZero();
+                }
+            }
+        }
+
+        then(dataSources.keys()).containsExactlyInAnyOrder("db_a", "db_b");
+    }
+
+    /**
+     * 测试租户连接归还后, 同一个物理连接再次被获取时恢复到获取者对应的 schema
+     */
+    @Test
+    void getConnection_shouldRestoreSchemaAfterConnectionReturned() throws Exception {
+        dataSources = new SchemaSwitchingDataSource(sharedDataSource, SchemaSwitchingDataSource.SwitchBy.SCHEMA);
+
+        String defaultSchema;
+        try (var conn = dataSources.defaultDataSource().getConnection()) {
+            defaultSchema = schemaOf(conn);
+        }
+
+        Connection physical;
+        try (var conn = dataSources.getConnection("db_a")) {
+            physical = physicalOf(conn);
+            then(schemaOf(conn)).isEqualTo("db_a");
+        }
+
+        // 归还的连接被默认数据源获取, 恢复到默认 schema
+        try (var conn = dataSources.defaultDataSource().getConnection()) {
+            then(physicalOf(conn)).isSameAs(physical);
+            then(schemaOf(conn)).isEqualTo(defaultSchema);
+        }
+
+        // 归还的连接被同一个租户再次获取, 仍位于该租户的 schema
+        try (var conn = dataSources.getConnection("db_a")) {
+            then(schemaOf(conn)).isEqualTo("db_a");
+        }
+        try (var conn = dataSources.getConnection("db_a")) {
+            then(physicalOf(conn)).isSameAs(physical);
+            then(schemaOf(conn)).isEqualTo("db_a");
+        }
+    }
+
+    /**
+     * 测试租户连接归还时恢复到默认 schema, 直接使用共享连接池的调用者不会获取到位于租户 schema 的连接
+     */
+    @Test
+    void close_shouldRestoreDefaultSchemaForSharedPool() throws Exception {
+        dataSources = new SchemaSwitchingDataSource(sharedDataSource, SchemaSwitchingDataSource.SwitchBy.SCHEMA);
+
+        String defaultSchema;
+        try (var conn = sharedDataSource.getConnection()) {
+            defaultSchema = schemaOf(conn);
+        }
+
+        Connection physical;
+        try (var conn = dataSources.getConnection("db_a")) {
+            physical = physicalOf(conn);
+            then(schemaOf(conn)).isEqualTo("db_a");
+        }
+
+        try (var conn = sharedDataSource.getConnection()) {
+            then(conn.unwrap(Connection.class)).isSameAs(physical);
+            then(schemaOf(conn)).isEqualTo(defaultSchema);
+        }
+    }
+
+    /**
+     * 测试通过连接对象直接切换 schema 后, 再次获取连接时仍能切换到正确的 schema
+     */
+    @Test
+    void getConnection_shouldTrackSchemaChangedByConnection() throws Exception {
+        dataSources = new SchemaSwitchingDataSource(sharedDataSource, SchemaSwitchingDataSource.SwitchBy.SCHEMA);
+
+        String defaultSchema;
+        try (var conn = dataSources.defaultDataSource().getConnection()) {
+            defaultSchema = schemaOf(conn);
+        }
+
+        try (var conn = dataSources.getConnection("db_a")) {
+            conn.setSchema(defaultSchema);
+            then(schemaOf(conn)).isEqualTo(defaultSchema);
+        }
+
+        try (var conn = dataSources.getConnection("db_a")) {
+            then(schemaOf(conn)).isEqualTo("db_a");
+        }
+    }
+
+    /**
+     * 测试 H2 不支持通过 catalog 切换租户数据库
+     */
+    @Test
+    void new_shouldRejectCatalogModeOnH2() {
+        thenThrownBy(() -> new SchemaSwitchingDataSource(sharedDataSource, SchemaSwitchingDataSource.SwitchBy.CATALOG))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,154 @@
+package alvin.study.springboot.ds.core.data;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 对比为每个租户创建连接池 ({@link TenantDataSourceRegistry}) 和所有租户共享连接池 ({@link SchemaSwitchingDataSource})
+ * 两种方式的连接占用和获取连接的耗时
+ *
+ * <p>
+ * 测试使用 H2 内存数据库, 每个连接池最多 {@code 4} 个连接, 共 {@code 50} 个租户:
+ * <ul>
+ * <li>
+ * {@code sameTenant}: 总是获取同一个租户的连接, 共享连接池时, 连接已位于目标数据库, 无需执行切换语句;
+ * </li>
+ * <li>
+ * {@code randomTenant}: 每次随机获取一个租户的连接, 共享连接池时, 大部分情况都需要执行切换语句
+ * </li>
+ * </ul>
+ * 测试结束时输出连接池数量, 物理连接数量和线程数量, 以对比两种方式的资源占用
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class TenantDataSourceBenchmark {
+    // 租户数量
+    private static final int TENANTS = 50;
+    // 每个连接池的最大连接数
+    private static final int POOL_SIZE = 4;
+
+    @Param({ "PoolPerTenant", "SharedPool" })
+    private String mode;
+
+    private DynamicDataSource dataSource;
+
+    /**
+     * 创建动态数据源, 并访问每个租户一次, 令所有连接池完成初始化
+     */
+    @Setup
+    public void setup() throws SQLException {
+        var factory = new DataSourceFactory();
+        factory.setJdbcUrl("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1;MODE=MYSQL");
+        factory.setUsername("test");
+        factory.setMaximumPoolSize(POOL_SIZE);
+        factory.setMinimumIdle(POOL_SIZE);
+        factory.setRegisterMbeans(true);
+
+        dataSource = switch (mode) {
+            case "PoolPerTenant" ->
+                new DynamicDataSource("common", factory, TENANTS * POOL_SIZE, Duration.ofMinutes(10));
+            case "SharedPool" -> new DynamicDataSource("common", factory, SchemaSwitchingDataSource.SwitchBy.SCHEMA);
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        };
+
+        for (var i = 0; i < TENANTS; i++) {
+            checkout(tenant(i));
+        }
+    }
+
+    /**
+     * 输出资源占用情况, 并关闭数据源
+     */
+    @TearDown
+    public void tearDown() throws Exception {
+        var server = ManagementFactory.getPlatformMBeanServer();
+
+        var pools = server.queryNames(new ObjectName("com.zaxxer.hikari:type=Pool (*"), null);
+        var connections = 0;
+        for (var pool : pools) {
+            connections += (Integer) server.getAttribute(pool, "TotalConnections");
+        }
+
+        System.out.printf("%n[%s] pools=%d, connections=%d, threads=%d%n",
+            mode, pools.size(), connections, Thread.activeCount());
+
+        dataSource.close();
+    }
+
+    /**
+     * 测试总是获取同一个租户的连接
+     */
+    @Benchmark
+    public boolean sameTenant() throws SQLException {
+        return checkout(tenant(0));
+    }
+
+    /**
+     * 测试每次随机获取一个租户的连接
+     */
+    @Benchmark
+    public boolean randomTenant() throws SQLException {
+        return checkout(tenant(ThreadLocalRandom.current().nextInt(TENANTS)));
+    }
+
+    /**
+     * 获取并归还指定租户的连接
+     *
+     * @param key 数据源标识
+     * @return 连接的 autoCommit 属性, 返回结果以防止被 JIT 优化掉
+     */
+    private boolean checkout(String key) throws SQLException {
+        try (var _ = DataSourceContext.switchTo(key); var conn = dataSource.getConnection()) {
+            return conn.getAutoCommit();
+        }
+    }
+
+    /**
+     * 获取租户的数据源标识
+     *
+     * @param index 租户序号
+     * @return 数据源标识
+     */
+    private static String tenant(int index) {
+        return "db_tenant_" + index;
+    }
+
+    /**
+     * 执行性能测试
+     */
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(TenantDataSourceBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,285 @@
+package alvin.study.springboot.ds.core.data;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * 测试 {@link TenantDataSourceRegistry} 类型
+ *
+ * <p>
+ * 每个租户的连接池连接到一个独立的 H2 内存数据库, 每个连接池最多 {@code 2} 个连接
+ * </p>
+ */
+class TenantDataSourceRegistryTest {
+    // 每个连接池的最大连接数
+    private static final int POOL_SIZE = 2;
+
+    // 测试用数据源工厂
+    private final CountingDataSourceFactory factory = new CountingDataSourceFactory();
+
+    // 被测试的注册表对象
+    private TenantDataSourceRegistry registry;
+
+    @AfterEach
+    void afterEach() {
+        if (registry != null) {
+            registry.close();
+        }
+    }
+
+    /**
+     * 测试超过空闲时间且没有活动连接的连接池被关闭
+     */
+    @Test
+    void evictIdle_shouldEvictIdleDataSource() throws Exception {
+        registry = new TenantDataSourceRegistry(factory, POOL_SIZE * 4, Duration.ofMillis(50));
+
+        var dataSource = (HikariDataSource) registry.get("a");
+        try (var conn = registry.getConnection("a")) {
+            Thread.sleep(100);
+
+            // 持有活动连接时, 连接池不会被关闭
+            registry.evictIdle();
+            then(registry.keys()).containsExactly("a");
+            then(conn.isValid(1)).isTrue();
+        }
+
+        Thread.sleep(100);
+        registry.evictIdle();
+
+        then(registry.keys()).isEmpty();
+        then(dataSource.isClosed()).isTrue();
+
+        // 连接池被关闭后, 再次访问时重新创建
+        try (var conn = registry.getConnection("a")) {
+            then(conn.isValid(1)).isTrue();
+        }
+        then(factory.buildCount("a")).isEqualTo(2);
+    }
+
+    /**
+     * 测试正在获取连接时, 连接池不会被关闭, 获取到的连接在关闭检查之后仍然可用
+     */
+    @Test
+    void evictIdle_shouldNotEvictDataSourceWhileGettingConnection() throws Exception {
+        registry = new TenantDataSourceRegistry(factory, POOL_SIZE * 4, Duration.ofMillis(50));
+
+        // 令下一次获取连接阻塞, 直到放行
+        var entered = new CountDownLatch(1);
+        var gate = new CountDownLatch(1);
+        factory.blockNextGetConnection(entered, gate);
+
+        try (var executor = Executors.newSingleThreadExecutor()) {
+            var future = executor.submit(() -> registry.getConnection("a"));
+            then(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // 获取连接的请求尚未完成, 此时连接池没有活动连接, 但仍不能被关闭
+            Thread.sleep(100);
+            registry.evictIdle();
+            then(registry.keys()).containsExactly("a");
+
+            gate.countDown();
+            try (var conn = future.get(5, TimeUnit.SECONDS)) {
+                registry.evictIdle();
+                then(registry.keys()).containsExactly("a");
+                then(conn.isValid(1)).isTrue();
+            }
+        }
+        then(factory.buildCount("a")).isEqualTo(1);
+    }
+
+    /**
+     * 测试连接数达到上限时, 关闭最久未被使用且没有活动连接的连接池
+     */
+    @Test
+    void get_shouldEvictLeastRecentlyUsedDataSource() throws Exception {
+        registry = new TenantDataSourceRegistry(factory, POOL_SIZE * 2, Duration.ofMinutes(10));
+
+        var dataSourceA = (HikariDataSource) registry.get("a");
+        Thread.sleep(10);
+        var dataSourceB = (HikariDataSource) registry.get("b");
+
+        // "a" 最久未被使用, 但持有活动连接, 所以关闭 "b"
+        try (var connA = registry.getConnection("a")) {
+            registry.get("c");
+            then(registry.keys()).containsExactlyInAnyOrder("a", "c");
+            then(dataSourceA.isClosed()).isFalse();
+            then(dataSourceB.isClosed()).isTrue();
+
+            // 所有连接池都持有活动连接时, 无法创建新的连接池
+            try (var connC = registry.getConnection("c")) {
+                thenThrownBy(() -> registry.get("d")).isInstanceOf(SQLTransientConnectionException.class);
+                then(registry.keys()).containsExactlyInAnyOrder("a", "c");
+            }
+        }
+
+        // "a" 最久未被使用, 且没有活动连接, 所以关闭 "a"
+        registry.get("d");
+        then(registry.keys()).containsExactlyInAnyOrder("c", "d");
+        then(dataSourceA.isClosed()).isTrue();
+    }
+
+    /**
+     * 测试连接数达到上限, 且唯一可关闭的连接池正在获取连接时, 创建新的连接池立即失败而不是空转等待
+     */
+    @Test
+    void get_shouldFailWhenVictimIsGettingConnection() throws Exception {
+        registry = new TenantDataSourceRegistry(factory, POOL_SIZE, Duration.ofMinutes(10));
+
+        var entered = new CountDownLatch(1);
+        var gate = new CountDownLatch(1);
+        factory.blockNextGetConnection(entered, gate);
+
+        try (var executor = Executors.newSingleThreadExecutor()) {
+            var future = executor.submit(() -> registry.getConnection("a"));
+            then(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // "a" 没有活动连接, 但正在获取连接, 无法被关闭
+            var start = System.nanoTime();
+            thenThrownBy(() -> registry.get("b")).isInstanceOf(SQLTransientConnectionException.class);
+            then(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+            then(registry.keys()).containsExactly("a");
+
+            gate.countDown();
+            try (var conn = future.get(5, TimeUnit.SECONDS)) {
+                then(conn.isValid(1)).isTrue();
+            }
+        }
+    }
+
+    /**
+     * 测试并发访问时, 每个租户的连接池只创建一次
+     */
+    @Test
+    void getConnection_shouldBuildEachDataSourceOnceUnderConcurrency() throws Exception {
+        registry = new TenantDataSourceRegistry(factory, POOL_SIZE * 4, Duration.ofMinutes(10));
+
+        var threads = 16;
+        var keys = new String[] { "a", "b", "c" };
+        var start = new CountDownLatch(1);
+
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            var futures = new ArrayList<Future<Boolean>>();
+            for (var i = 0; i < threads; i++) {
+                var key = keys[i % keys.length];
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try (var conn = registry.getConnection(key)) {
+                        return conn.isValid(1);
+                    }
+                }));
+            }
+
+            start.countDown();
+            for (var future : futures) {
+                then(future.get(10, TimeUnit.SECONDS)).isTrue();
+            }
+        }
+
+        then(registry.keys()).containsExactlyInAnyOrder(keys);
+        for (var key : keys) {
+            then(factory.buildCount(key)).isEqualTo(1);
+        }
+    }
+
+    /**
+     * 测试用数据源工厂, 记录每个租户连接池的创建次数, 并可以令获取连接的操作阻塞
+     */
+    private static final class CountingDataSourceFactory extends DataSourceFactory {
+        // 每个租户连接池的创建次数
+        private final Map<String, AtomicInteger> buildCounts = new ConcurrentHashMap<>();
+
+        // 每个测试使用独立的内存数据库
+        private final String prefix = UUID.randomUUID().toString().replace("-", "");
+
+        // 下一次获取连接时, 通知已进入获取连接的操作
+        private volatile CountDownLatch entered;
+
+        // 下一次获取连接时, 等待放行
+        private volatile CountDownLatch gate;
+
+        CountingDataSourceFactory() {
+            setJdbcUrl("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1;MODE=MYSQL");
+            setUsername("test");
+            setMaximumPoolSize(POOL_SIZE);
+            setMinimumIdle(1);
+        }
+
+        /**
+         * 令下一次获取连接的操作阻塞, 直到放行
+         *
+         * @param entered 进入获取连接的操作时计数
+         * @param gate    放行获取连接的操作
+         */
+        void blockNextGetConnection(CountDownLatch entered, CountDownLatch gate) {
+            this.gate = gate;
+            this.entered = entered;
+        }
+
+        /**
+         * 获取指定租户连接池的创建次数
+         *
+         * @param key 数据源标识
+         * @return 创建次数
+         */
+        int buildCount(String key) {
+            var count = buildCounts.get(key);
+            return count == null ? 0 : count.get();
+        }
+
+        @Override
+        public DataSource build(String dbName) {
+            buildCounts.computeIfAbsent(dbName, _ -> new AtomicInteger()).incrementAndGet();
+
+            var config = new HikariConfig();
+            config.setJdbcUrl(String.format(getJdbcUrl(), prefix + "_" + dbName));
+            config.setUsername(getUsername());
+            config.setMaximumPoolSize(getMaximumPoolSize());
+            config.setMinimumIdle(getMinimumIdle());
+            config.setPoolName("pool-" + dbName);
+
+            return new HikariDataSource(config) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    var entered = CountingDataSourceFactory.this.entered;
+                    var gate = CountingDataSourceFactory.this.gate;
+                    if (entered != null) {
+                        CountingDataSourceFactory.this.entered = null;
+                        CountingDataSourceFactory.this.gate = null;
+
+                        entered.countDown();
+                        try {
+                            gate.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new SQLException(e);
+                        }
+                    }
+                    return super.getConnection();
+                }
+            };
+        }
+    }
+}
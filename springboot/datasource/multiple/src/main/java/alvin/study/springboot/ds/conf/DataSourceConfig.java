@@ -3,8 +3,13 @@ package alvin.study.springboot.ds.conf;
 import alvin.study.springboot.ds.core.data.DataSourceContext;
 import alvin.study.springboot.ds.core.data.DataSourceTarget;
 import alvin.study.springboot.ds.core.data.DynamicDataSource;
+import alvin.study.springboot.ds.core.data.ReadWriteDataSource;
+import alvin.study.springboot.ds.core.data.ReplicaDataSource;
+import alvin.study.springboot.ds.core.data.ReplicaProperties;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,7 +17,7 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
-import java.util.Map;
+import java.util.HashMap;
 
 /**
  * 数据源相关配置类
@@ -35,11 +40,17 @@ import java.util.Map;
  * </p>
  *
  * <p>
+ * 如果在 {@code spring.datasource.replica.pools} 配置项中为数据源配置了只读副本, 则该数据源会被包装为
+ * {@link ReadWriteDataSource} 对象, 进行读写分离, 参见 {@link ReplicaProperties}
+ * </p>
+ *
+ * <p>
  * {@link EnableTransactionManagement @EnableTransactionManagement} 表示启动默认的事务管理器
  * </p>
  */
 @Configuration("conf/datasource")
 @EnableTransactionManagement
+@EnableConfigurationProperties(ReplicaProperties.class)
 public class DataSourceConfig {
     /**
      * 创建第一个数据库的数据源
@@ -66,24 +77,56 @@ public class DataSourceConfig {
     /**
      * 创建动态切换数据源
      *
+     * @param db1DataSource     第一个数据库的数据源
+     * @param db2DataSource     第二个数据库的数据源
+     * @param replicaProperties 只读副本配置
      * @return 数据源对象
      */
     @Bean("dynamicDataSource")
     @Primary
     DataSource dynamicDataSource(
             @Qualifier("db1DataSource") DataSource db1DataSource,
-            @Qualifier("db2DataSource") DataSource db2DataSource) {
+            @Qualifier("db2DataSource") DataSource db2DataSource,
+            ReplicaProperties replicaProperties) {
         // 实例化对象
         var ds = new DynamicDataSource();
 
+        // 为数据源配置只读副本
+        var db1 = withReplicas(DataSourceTarget.db1, db1DataSource, replicaProperties);
+        var db2 = withReplicas(DataSourceTarget.db2, db2DataSource, replicaProperties);
+
         // 设置默认的数据源, 即无法获取切换标识时使用的数据源
-        ds.setDefaultTargetDataSource(db1DataSource);
+        ds.setDefaultTargetDataSource(db1);
 
         // 设置标识和数据源的关系
-        ds.setTargetDataSources(Map.of(
-            DataSourceTarget.db1, db1DataSource,
-            DataSourceTarget.db2, db2DataSource));
+        var targets = new HashMap<Object, Object>();
+        targets.put(DataSourceTarget.db1, db1);
+        targets.put(DataSourceTarget.db2, db2);
+        ds.setTargetDataSources(targets);
 
         return ds;
     }
+
+    /**
+     * 如果为数据源配置了只读副本, 则将数据源包装为读写分离数据源
+     *
+     * @param target            数据源标识
+     * @param primary           主库数据源
+     * @param replicaProperties 只读副本配置
+     * @return 数据源对象
+     */
+    private static DataSource withReplicas(DataSourceTarget target, DataSource primary, ReplicaProperties replicaProperties) {
+        var configs = replicaProperties.getPools().get(target);
+        if (configs == null || configs.isEmpty()) {
+            return primary;
+        }
+
+        var replicas = configs.stream().map(c -> (DataSource) new HikariDataSource(c)).toList();
+        return new ReadWriteDataSource(primary, new ReplicaDataSource(
+            replicas,
+            primary,
+            replicaProperties.getLagQuery(),
+            replicaProperties.getMaxLag(),
+            replicaProperties.getCheckInterval()));
+    }
 }
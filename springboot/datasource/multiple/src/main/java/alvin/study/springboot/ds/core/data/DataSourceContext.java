@@ -18,6 +18,9 @@ public final class DataSourceContext {
     // 本地线程存储对象
     private static final ThreadLocal<DataSourceTarget> LOCAL = new ThreadLocal<>();
 
+    // 是否显式指定从只读副本读取
+    private static final ThreadLocal<Boolean> READ_FROM_REPLICA = new ThreadLocal<>();
+
     private DataSourceContext() {}
 
     /**
@@ -47,6 +50,29 @@ public final class DataSourceContext {
      */
     public static void clear() {
         LOCAL.remove();
+        READ_FROM_REPLICA.remove();
+    }
+
+    /**
+     * 判断当前是否显式指定从只读副本读取
+     *
+     * @return 是否从只读副本读取
+     */
+    public static boolean isReadFromReplica() {
+        return Boolean.TRUE.equals(READ_FROM_REPLICA.get());
+    }
+
+    /**
+     * 获取一个 {@link ReplicaSwitcher} 自动切换对象, 在作用范围内从当前数据源的只读副本读取数据
+     *
+     * <p>
+     * 适用于不在事务中执行的查询, 在事务中应使用只读事务, 参见 {@link ReadWriteDataSource}
+     * </p>
+     *
+     * @return 自动切换对象
+     */
+    public static ReplicaSwitcher readFromReplica() {
+        return new ReplicaSwitcher();
     }
 
     /**
@@ -90,4 +116,32 @@ public final class DataSourceContext {
             DataSourceContext.change(previously);
         }
     }
+
+    /**
+     * 只读副本自动切换类型
+     *
+     * <p>
+     * 在作用范围内从只读副本读取数据, 离开作用范围后恢复原先的设置
+     * </p>
+     */
+    public static class ReplicaSwitcher implements AutoCloseable {
+        // 记录原先的设置
+        private final boolean previously;
+
+        /**
+         * 构造器
+         */
+        public ReplicaSwitcher() {
+            previously = DataSourceContext.isReadFromReplica();
+            READ_FROM_REPLICA.set(true);
+        }
+
+        /**
+         * 离开作用域范围, 恢复原先的设置
+         */
+        @Override
+        public void close() {
+            READ_FROM_REPLICA.set(previously);
+        }
+    }
 }
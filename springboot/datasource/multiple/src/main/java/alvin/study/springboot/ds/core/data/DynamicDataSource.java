@@ -3,6 +3,8 @@ package alvin.study.springboot.ds.core.data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 
+import javax.sql.DataSource;
+
 /**
  * 动态数据源类型
  *
@@ -14,14 +16,35 @@ import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
  * <p>
  * 该类型通过 {@link #determineCurrentLookupKey()} 方法获取到一个标识, 并根据标识的值代理不同的数据源对象, 具体标识和被代理对象之间的关系
  * </p>
+ *
+ * <p>
+ * 被代理的数据源可以是 {@link ReadWriteDataSource} 对象, 从而在切换数据库的基础上进一步进行读写分离
+ * </p>
  */
 @Slf4j
-public class DynamicDataSource extends AbstractRoutingDataSource {
+public class DynamicDataSource extends AbstractRoutingDataSource implements AutoCloseable {
     @Override
     protected Object determineCurrentLookupKey() {
         var target = DataSourceContext.current();
 
-        log.info("Switch to datasource: {}", target);
+        // 每次获取连接都会执行, 故只在 debug 级别输出日志
+        log.debug("Switch to datasource: {}", target);
         return target;
     }
+
+    /**
+     * 关闭被代理的读写分离数据源中的只读副本数据源
+     *
+     * <p>
+     * 主库数据源由 Spring 容器负责关闭
+     * </p>
+     */
+    @Override
+    public void close() {
+        for (DataSource ds : getResolvedDataSources().values()) {
+            if (ds instanceof ReadWriteDataSource rw) {
+                rw.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,71 @@
+package alvin.study.springboot.ds.core.data;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 读写分离数据源类型
+ *
+ * <p>
+ * 写操作使用主库数据源, 读操作使用只读副本数据源 ({@link ReplicaDataSource}), 以下两种情况视为读操作:
+ * <ul>
+ * <li>
+ * 只读事务, 即 {@link org.springframework.transaction.annotation.Transactional#readOnly()
+ * Transactional(readOnly = true)};
+ * </li>
+ * <li>
+ * 通过 {@link DataSourceContext#readFromReplica()} 方法显式指定从副本读取
+ * </li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * 事务管理器会先获取连接, 再将连接设置为只读, 所以在获取连接时无法得知事务是否为只读.
+ * {@link LazyConnectionDataSourceProxy} 在获取连接时只返回一个代理对象, 直到第一次执行语句时才获取实际的连接,
+ * 此时如果连接已被设置为只读, 则从只读数据源获取连接
+ * </p>
+ */
+public class ReadWriteDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+    // 只读副本数据源
+    private final ReplicaDataSource replicaDataSource;
+
+    /**
+     * 构造器
+     *
+     * @param primary           主库数据源
+     * @param replicaDataSource 只读副本数据源
+     */
+    public ReadWriteDataSource(DataSource primary, ReplicaDataSource replicaDataSource) {
+        super(primary);
+        setReadOnlyDataSource(replicaDataSource);
+        this.replicaDataSource = replicaDataSource;
+    }
+
+    /**
+     * 获取只读副本数据源
+     *
+     * @return 只读副本数据源
+     */
+    public ReplicaDataSource getReplicaDataSource() { return replicaDataSource; }
+
+    @Override
+    public @NonNull Connection getConnection() throws SQLException {
+        // 显式指定从副本读取时, 直接从副本获取连接
+        if (DataSourceContext.isReadFromReplica()) {
+            return replicaDataSource.getConnection();
+        }
+        return super.getConnection();
+    }
+
+    /**
+     * 关闭只读副本数据源
+     */
+    @Override
+    public void close() {
+        replicaDataSource.close();
+    }
+}
@@ -0,0 +1,333 @@
+package alvin.study.springboot.ds.core.data;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 只读副本数据源类型
+ *
+ * <p>
+ * 该类型管理一组只读副本 (replica) 的连接池, 每次获取连接时, 从健康的副本中选择"未完成请求数"最少的一个 (least outstanding requests),
+ * 未完成请求数即从该副本获取且尚未关闭的连接数量, 和轮询相比, 该策略可以自动避开响应较慢的副本
+ * </p>
+ *
+ * <p>
+ * 后台线程定时检查每个副本的健康状况:
+ * <ul>
+ * <li>
+ * 无法获取连接或连接无效的副本被标记为不健康;
+ * </li>
+ * <li>
+ * 如果设置了复制延迟查询语句, 则执行该语句获取副本的复制延迟 (单位秒), 延迟超过上限的副本同样被标记为不健康, 以免读到过旧的数据
+ * </li>
+ * </ul>
+ * 如果没有健康的副本, 或从副本获取连接失败, 则回退到主库获取连接
+ * </p>
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+    // 所有副本
+    private final List<Replica> replicas;
+
+    // 没有可用副本时使用的主库数据源
+    private final DataSource primary;
+
+    // 复制延迟查询语句, 返回副本的复制延迟秒数, 为 null 表示不检查复制延迟
+    private final String lagQuery;
+
+    // 允许的最大复制延迟, 单位毫秒
+    private final long maxLagMillis;
+
+    // 选择副本的起始位置, 令未完成请求数相同的副本被轮流选中
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    // 回退到主库的次数
+    private final LongAdder fallbacks = new LongAdder();
+
+    // 定时检查副本健康状况的线程
+    private final ScheduledExecutorService checker;
+
+    /**
+     * 构造器
+     *
+     * @param replicas      所有副本的数据源
+     * @param primary       没有可用副本时使用的主库数据源
+     * @param lagQuery      复制延迟查询语句, 返回副本的复制延迟秒数, 为 {@code null} 表示不检查复制延迟
+     * @param maxLag        允许的最大复制延迟
+     * @param checkInterval 检查副本健康状况的时间间隔
+     */
+    public ReplicaDataSource(
+            List<DataSource> replicas,
+            DataSource primary,
+            String lagQuery,
+            Duration maxLag,
+            Duration checkInterval) {
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.primary = primary;
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLag.toMillis();
+
+        this.checker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("replica-health-checker").daemon().factory());
+        this.checker.scheduleWithFixedDelay(
+            this::checkHealth, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public @NonNull Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public @NonNull Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+        return connect(ds -> ds.getConnection(username, password));
+    }
+
+    /**
+     * 获取所有副本的状态
+     *
+     * @return 副本状态集合, 顺序和构造器参数中的副本顺序一致
+     */
+    public List<Status> getStatus() {
+        return replicas.stream()
+                .map(r -> new Status(r.healthy, r.lagMillis, r.outstanding.get(), r.served.sum()))
+                .toList();
+    }
+
+    /**
+     * 获取回退到主库的次数
+     *
+     * @return 回退到主库的次数
+     */
+    public long getFallbacks() { return fallbacks.sum(); }
+
+    /**
+     * 检查所有副本的健康状况和复制延迟
+     */
+    public void checkHealth() {
+        for (var replica : replicas) {
+            try (var conn = replica.dataSource.getConnection()) {
+                if (!conn.isValid(5)) {
+                    replica.healthy = false;
+                    continue;
+                }
+
+                if (lagQuery != null) {
+                    try (var stmt = conn.createStatement(); var rs = stmt.executeQuery(lagQuery)) {
+                        replica.lagMillis = readLagMillis(rs);
+                    }
+                }
+                replica.healthy = replica.lagMillis <= maxLagMillis;
+            } catch (SQLException e) {
+                replica.healthy = false;
+                log.warn("Replica health check failed", e);
+            }
+        }
+    }
+
+    /**
+     * 从复制延迟查询结果中读取复制延迟
+     *
+     * <p>
+     * 复制停止或中断时, MySQL 和 PostgreSQL 返回的复制延迟为 {@code NULL}, 查询结果为空则表示副本未在复制,
+     * 这两种情况均视为延迟无限大
+     * </p>
+     *
+     * @param rs 复制延迟查询结果
+     * @return 复制延迟, 单位毫秒
+     */
+    private static long readLagMillis(ResultSet rs) throws SQLException {
+        if (!rs.next()) {
+            return Long.MAX_VALUE;
+        }
+
+        var lagSeconds = rs.getDouble(1);
+        if (rs.wasNull()) {
+            return Long.MAX_VALUE;
+        }
+        return (long) (lagSeconds * 1000);
+    }
+
+    /**
+     * 停止健康检查, 并关闭所有副本的连接池
+     */
+    @Override
+    public void close() {
+        checker.shutdownNow();
+        for (var replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.error("Cannot close replica datasource " + replica.dataSource, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 从选中的副本获取连接, 没有可用的副本时回退到主库
+     *
+     * @param connector 从指定数据源获取连接的方法
+     * @return 连接对象
+     */
+    private Connection connect(Connector connector) throws SQLException {
+        var replica = choose();
+        if (replica != null) {
+            replica.outstanding.incrementAndGet();
+            try {
+                return replica.track(connector.connect(replica.dataSource));
+            } catch (SQLException e) {
+                replica.outstanding.decrementAndGet();
+                replica.healthy = false;
+                log.warn("Cannot get connection from replica, mark it as unhealthy", e);
+            }
+        }
+
+        // 没有可用的副本, 回退到主库
+        fallbacks.increment();
+        return connector.connect(primary);
+    }
+
+    /**
+     * 选择未完成请求数最少的健康副本
+     *
+     * @return 副本对象, 没有健康的副本时返回 {@code null}
+     */
+    private Replica choose() {
+        var size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+
+        // 从轮转的起始位置开始遍历, 令未完成请求数相同的副本被轮流选中
+        var start = Math.floorMod(cursor.getAndIncrement(), size);
+
+        Replica chosen = null;
+        var min = Integer.MAX_VALUE;
+        for (var i = 0; i < size; i++) {
+            var replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+
+            var outstanding = replica.outstanding.get();
+            if (outstanding < min) {
+                chosen = replica;
+                min = outstanding;
+            }
+        }
+        return chosen;
+    }
+
+    /**
+     * 副本状态
+     *
+     * @param healthy     是否健康
+     * @param lagMillis   最近一次检查得到的复制延迟, 单位毫秒
+     * @param outstanding 未完成的请求数, 即尚未关闭的连接数量
+     * @param served      已提供的连接总数
+     */
+    public record Status(boolean healthy, long lagMillis, int outstanding, long served) {}
+
+    /**
+     * 从数据源获取连接的方法
+     */
+    @FunctionalInterface
+    private interface Connector {
+        /**
+         * 从数据源获取连接
+         *
+         * @param dataSource 数据源
+         * @return 连接对象
+         */
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+
+    /**
+     * 副本
+     */
+    private static final class Replica {
+        // 副本的数据源
+        private final DataSource dataSource;
+
+        // 未完成的请求数, 即尚未关闭的连接数量
+        private final AtomicInteger outstanding = new AtomicInteger();
+
+        // 已提供的连接总数
+        private final LongAdder served = new LongAdder();
+
+        // 是否健康, 在第一次健康检查前假定为健康
+        private volatile boolean healthy = true;
+
+        // 最近一次检查得到的复制延迟, 单位毫秒
+        private volatile long lagMillis;
+
+        /**
+         * 构造器
+         *
+         * @param dataSource 副本的数据源
+         */
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * 代理连接对象, 在连接关闭时减少未完成的请求数
+         *
+         * @param conn 从副本获取的连接
+         * @return 代理连接对象
+         */
+        Connection track(Connection conn) {
+            served.increment();
+
+            var closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(
+                ConnectionProxy.class.getClassLoader(),
+                new Class<?>[] { ConnectionProxy.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        case "getTargetConnection" -> {
+                            return conn;
+                        }
+                        case "close" -> {
+                            // 保证重复关闭连接时只减少一次
+                            if (closed.compareAndSet(false, true)) {
+                                outstanding.decrementAndGet();
+                            }
+                        }
+                        default -> {}
+                    }
+
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package alvin.study.springboot.ds.core.data;
+
+import com.zaxxer.hikari.HikariConfig;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 只读副本配置
+ *
+ * <p>
+ * 读取 {@code classpath:application.yml} 文件中 {@code spring.datasource.replica} 前缀下的配置, 其中 {@code pools}
+ * 配置项为每个数据源标识配置一组只读副本的连接池, 配置方式和主库的连接池一致
+ * </p>
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring.datasource.replica")
+public class ReplicaProperties {
+    // 复制延迟查询语句, 返回副本的复制延迟秒数, 为空表示不检查复制延迟
+    private String lagQuery;
+
+    // 允许的最大复制延迟, 超过该延迟的副本不再被使用
+    private Duration maxLag = Duration.ofSeconds(10);
+
+    // 检查副本健康状况的时间间隔
+    private Duration checkInterval = Duration.ofSeconds(5);
+
+    // 各数据源标识对应的只读副本连接池配置
+    private Map<DataSourceTarget, List<HikariConfig>> pools = new HashMap<>();
+}
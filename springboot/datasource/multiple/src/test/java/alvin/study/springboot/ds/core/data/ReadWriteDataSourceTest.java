@@ -0,0 +1,96 @@
+package alvin.study.springboot.ds.core.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static alvin.study.springboot.ds.core.data.ReplicaDataSourceTest.createDataSource;
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * 测试 {@link ReadWriteDataSource} 类型
+ *
+ * <p>
+ * 主库和副本均为独立的 H2 内存数据库, 通过查询 {@code source} 表确认语句在哪个数据库上执行, 参见
+ * {@link ReplicaDataSourceTest#createDataSource(String, Double)} 方法
+ * </p>
+ */
+class ReadWriteDataSourceTest {
+    // 被测试的读写分离数据源
+    private ReadWriteDataSource dataSource;
+
+    // 执行查询的对象
+    private JdbcTemplate jdbcTemplate;
+
+    // 事务管理器
+    private DataSourceTransactionManager txManager;
+
+    @BeforeEach
+    void beforeEach() {
+        var replicaDataSource = new ReplicaDataSource(
+            List.of(createDataSource("replica", 0.0)),
+            createDataSource("fallback", null),
+            null,
+            Duration.ofSeconds(10),
+            Duration.ofHours(1));
+
+        dataSource = new ReadWriteDataSource(createDataSource("primary", null), replicaDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        txManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @AfterEach
+    void afterEach() {
+        DataSourceContext.clear();
+        dataSource.close();
+    }
+
+    /**
+     * 查询当前语句所在数据库的名称
+     *
+     * @return 数据库名称
+     */
+    private String querySource() {
+        return jdbcTemplate.queryForObject("SELECT name FROM source", String.class);
+    }
+
+    /**
+     * 测试读写事务以及不在事务中的查询使用主库
+     */
+    @Test
+    void getConnection_shouldUsePrimaryForReadWrite() {
+        then(querySource()).isEqualTo("primary");
+
+        var tx = new TransactionTemplate(txManager);
+        then(tx.execute(_ -> querySource())).isEqualTo("primary");
+    }
+
+    /**
+     * 测试只读事务使用只读副本
+     */
+    @Test
+    void getConnection_shouldUseReplicaForReadOnlyTransaction() {
+        var tx = new TransactionTemplate(txManager);
+        tx.setReadOnly(true);
+
+        then(tx.execute(_ -> querySource())).isEqualTo("replica");
+        then(dataSource.getReplicaDataSource().getStatus().get(0).served()).isEqualTo(1);
+    }
+
+    /**
+     * 测试通过 {@link DataSourceContext#readFromReplica()} 方法显式指定从副本读取, 离开作用范围后恢复使用主库
+     */
+    @Test
+    void getConnection_shouldUseReplicaWhenReadFromReplica() {
+        try (var _ = DataSourceContext.readFromReplica()) {
+            then(querySource()).isEqualTo("replica");
+        }
+        then(querySource()).isEqualTo("primary");
+    }
+}
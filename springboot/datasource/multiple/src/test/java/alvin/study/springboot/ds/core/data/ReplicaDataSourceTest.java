@@ -0,0 +1,209 @@
+package alvin.study.springboot.ds.core.data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+/**
+ * 测试 {@link ReplicaDataSource} 类型
+ *
+ * <p>
+ * 每个副本和主库均为一个独立的 H2 内存数据库, 其中 {@code source} 表记录数据库名称, 用于确认连接来自哪个数据库;
+ * {@code lag} 表记录模拟的复制延迟秒数, 作为复制延迟查询的桩数据
+ * </p>
+ */
+class ReplicaDataSourceTest {
+    // 复制延迟查询语句
+    private static final String LAG_QUERY = "SELECT seconds FROM lag";
+
+    // 被测试的副本数据源
+    private ReplicaDataSource replicaDataSource;
+
+    /**
+     * 创建 H2 内存数据库数据源
+     *
+     * @param name       数据库名称, 记录在 {@code source} 表中
+     * @param lagSeconds 模拟的复制延迟秒数, 为 {@code null} 表示复制中断
+     * @return 数据源对象
+     */
+    static DataSource createDataSource(String name, Double lagSeconds) {
+        var dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:" + name + "_" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE source (name VARCHAR(50) NOT NULL)");
+        jdbcTemplate.update("INSERT INTO source (name) VALUES (?)", name);
+        jdbcTemplate.execute("CREATE TABLE lag (seconds DOUBLE)");
+        jdbcTemplate.update("INSERT INTO lag (seconds) VALUES (?)", lagSeconds);
+        return dataSource;
+    }
+
+    /**
+     * 获取连接所属数据库的名称
+     *
+     * @param conn 连接对象
+     * @return 数据库名称
+     */
+    static String sourceOf(Connection conn) throws SQLException {
+        try (var stmt = conn.createStatement(); var rs = stmt.executeQuery("SELECT name FROM source")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    /**
+     * 创建副本数据源, 并完成一次健康检查
+     *
+     * <p>
+     * 后台健康检查的时间间隔设置的足够长, 测试中通过 {@link ReplicaDataSource#checkHealth()} 方法手动检查
+     * </p>
+     *
+     * @param replicas 所有副本的数据源
+     * @param lagQuery 复制延迟查询语句
+     * @return 副本数据源对象
+     */
+    private ReplicaDataSource createReplicaDataSource(List<DataSource> replicas, String lagQuery) {
+        replicaDataSource = new ReplicaDataSource(
+            replicas, createDataSource("primary", null), lagQuery, Duration.ofSeconds(10), Duration.ofHours(1));
+        replicaDataSource.checkHealth();
+        return replicaDataSource;
+    }
+
+    @AfterEach
+    void afterEach() {
+        if (replicaDataSource != null) {
+            replicaDataSource.close();
+        }
+    }
+
+    /**
+     * 测试从健康的副本获取连接
+     */
+    @Test
+    void getConnection_shouldGetConnectionFromReplica() throws Exception {
+        var ds = createReplicaDataSource(List.of(createDataSource("replica1", 0.0)), LAG_QUERY);
+
+        try (var conn = ds.getConnection()) {
+            then(sourceOf(conn)).isEqualTo("replica1");
+        }
+
+        try (var conn = ds.getConnection("sa", "")) {
+            then(sourceOf(conn)).isEqualTo("replica1");
+        }
+
+        then(ds.getStatus().get(0).served()).isEqualTo(2);
+        then(ds.getStatus().get(0).outstanding()).isZero();
+        then(ds.getFallbacks()).isZero();
+    }
+
+    /**
+     * 测试复制延迟超过上限, 或复制延迟为 {@code NULL} 的副本被标记为不健康
+     */
+    @Test
+    void checkHealth_shouldMarkLaggingReplicaAsUnhealthy() throws Exception {
+        var ds = createReplicaDataSource(List.of(
+            createDataSource("replica1", 3.0),
+            createDataSource("replica2", 60.0),
+            createDataSource("replica3", null)), LAG_QUERY);
+
+        var status = ds.getStatus();
+        then(status.get(0).healthy()).isTrue();
+        then(status.get(0).lagMillis()).isEqualTo(3000);
+
+        then(status.get(1).healthy()).isFalse();
+        then(status.get(1).lagMillis()).isEqualTo(60000);
+
+        // 复制中断时复制延迟为 NULL, 视为延迟无限大
+        then(status.get(2).healthy()).isFalse();
+        then(status.get(2).lagMillis()).isEqualTo(Long.MAX_VALUE);
+
+        // 只会从健康的副本获取连接
+        for (var i = 0; i < 5; i++) {
+            try (var conn = ds.getConnection()) {
+                then(sourceOf(conn)).isEqualTo("replica1");
+            }
+        }
+    }
+
+    /**
+     * 测试无法获取连接的副本被标记为不健康
+     */
+    @Test
+    void checkHealth_shouldMarkUnreachableReplicaAsUnhealthy() {
+        var ds = createReplicaDataSource(List.of(
+            new DriverManagerDataSource("jdbc:unknown:replica"),
+            createDataSource("replica2", null)), null);
+
+        var status = ds.getStatus();
+        then(status.get(0).healthy()).isFalse();
+
+        // 未设置复制延迟查询语句时, 不检查复制延迟
+        then(status.get(1).healthy()).isTrue();
+    }
+
+    /**
+     * 测试没有健康的副本时回退到主库
+     */
+    @Test
+    void getConnection_shouldFallbackToPrimary() throws Exception {
+        var ds = createReplicaDataSource(List.of(createDataSource("replica1", 60.0)), LAG_QUERY);
+
+        try (var conn = ds.getConnection()) {
+            then(sourceOf(conn)).isEqualTo("primary");
+        }
+
+        try (var conn = ds.getConnection("sa", "")) {
+            then(sourceOf(conn)).isEqualTo("primary");
+        }
+        then(ds.getFallbacks()).isEqualTo(2);
+    }
+
+    /**
+     * 测试选择未完成请求数最少的副本
+     */
+    @Test
+    void getConnection_shouldChooseReplicaWithLeastOutstandingConnections() throws Exception {
+        var ds = createReplicaDataSource(List.of(
+            createDataSource("replica1", 0.0),
+            createDataSource("replica2", 0.0)), LAG_QUERY);
+
+        // 两个副本的未完成请求数相同时, 轮流选中
+        try (var conn1 = ds.getConnection(); var conn2 = ds.getConnection()) {
+            then(List.of(sourceOf(conn1), sourceOf(conn2))).containsExactlyInAnyOrder("replica1", "replica2");
+        }
+
+        try (var held = ds.getConnection()) {
+            var heldSource = sourceOf(held);
+
+            // 持有一个副本的连接期间, 总是选择另一个副本
+            for (var i = 0; i < 4; i++) {
+                try (var conn = ds.getConnection()) {
+                    then(sourceOf(conn)).isNotEqualTo(heldSource);
+                }
+            }
+
+            var status = ds.getStatus();
+            var heldIndex = "replica1".equals(heldSource) ? 0 : 1;
+            then(status.get(heldIndex).outstanding()).isEqualTo(1);
+            then(status.get(heldIndex).served()).isEqualTo(2);
+            then(status.get(1 - heldIndex).outstanding()).isZero();
+            then(status.get(1 - heldIndex).served()).isEqualTo(5);
+        }
+
+        // 重复关闭连接时, 未完成请求数只减少一次
+        var conn = ds.getConnection();
+        conn.close();
+        conn.close();
+        then(ds.getStatus().stream().mapToInt(ReplicaDataSource.Status::outstanding).sum()).isZero();
+    }
+}
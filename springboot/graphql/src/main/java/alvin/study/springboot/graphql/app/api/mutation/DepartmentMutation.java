@@ -9,6 +9,7 @@ import lombok.RequiredArgsConstructor;
 import graphql.GraphQLContext;
 
 import alvin.study.springboot.graphql.app.api.mutation.common.BaseMutation;
+import alvin.study.springboot.graphql.app.dataloader.DepartmentLoader;
 import alvin.study.springboot.graphql.app.model.MutationResult;
 import alvin.study.springboot.graphql.app.service.DepartmentService;
 import alvin.study.springboot.graphql.infra.entity.Department;
@@ -17,6 +18,7 @@ import alvin.study.springboot.graphql.infra.entity.Department;
 @RequiredArgsConstructor
 public class DepartmentMutation extends BaseMutation {
     private final DepartmentService departmentService;
+    private final DepartmentLoader departmentLoader;
 
     static record DepartmentInput(String name, Long parentId) {
         public Department toEntity(Long id) {
@@ -39,11 +41,18 @@ public class DepartmentMutation extends BaseMutation {
     public MutationResult<Department> updateDepartment(@Argument Long id, @Argument DepartmentInput input) {
         var department = input.toEntity(id);
         departmentService.update(department);
+
+        // 使数据加载器中缓存的实体失效
+        departmentLoader.invalidate(id);
         return MutationResult.of(department);
     }
 
     @MutationMapping
     public boolean deleteDepartment(@Argument Long id, GraphQLContext ctx) {
-        return departmentService.delete(id);
+        var success = departmentService.delete(id);
+
+        // 使数据加载器中缓存的实体失效
+        departmentLoader.invalidate(id);
+        return success;
     }
 }
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Controller;
 import lombok.RequiredArgsConstructor;
 
 import alvin.study.springboot.graphql.app.context.ContextKey;
+import alvin.study.springboot.graphql.app.dataloader.OrgLoader;
 import alvin.study.springboot.graphql.app.model.MutationResult;
 import alvin.study.springboot.graphql.app.service.OrgService;
 import alvin.study.springboot.graphql.core.context.ContextHolder;
@@ -19,6 +20,7 @@ import alvin.study.springboot.graphql.infra.entity.UserGroup;
 @RequiredArgsConstructor
 public class OrgMutation {
     private final OrgService orgService;
+    private final OrgLoader orgLoader;
 
     /**
      * 用户输入对象类型
@@ -56,13 +58,21 @@ public class OrgMutation {
         checkUserPermission();
 
         var org = input.toEntity(id);
-        return MutationResult.of(orgService.update(org));
+        var updated = orgService.update(org);
+
+        // 使数据加载器中缓存的实体失效
+        orgLoader.invalidate(id);
+        return MutationResult.of(updated);
     }
 
     @MutationMapping
     public boolean deleteOrg(@Argument Long id) {
         checkUserPermission();
 
-        return orgService.delete(id);
+        var success = orgService.delete(id);
+
+        // 使数据加载器中缓存的实体失效
+        orgLoader.invalidate(id);
+        return success;
     }
 }
@@ -7,6 +7,7 @@ import org.springframework.stereotype.Controller;
 import lombok.RequiredArgsConstructor;
 
 import alvin.study.springboot.graphql.app.api.mutation.common.BaseMutation;
+import alvin.study.springboot.graphql.app.dataloader.UserLoader;
 import alvin.study.springboot.graphql.app.model.MutationResult;
 import alvin.study.springboot.graphql.app.model.UserGroup;
 import alvin.study.springboot.graphql.app.service.UserService;
@@ -16,6 +17,7 @@ import alvin.study.springboot.graphql.infra.entity.User;
 @RequiredArgsConstructor
 public class UserMutation extends BaseMutation {
     private final UserService userService;
+    private final UserLoader userLoader;
 
     /**
      * 用户输入对象类型
@@ -45,11 +47,19 @@ public class UserMutation extends BaseMutation {
     @MutationMapping
     public MutationResult<User> updateUser(@Argument Long id, @Argument UserInput input) {
         User user = input.toEntity(id);
-        return MutationResult.of(userService.update(user));
+        var updated = userService.update(user);
+
+        // 使数据加载器中缓存的实体失效
+        userLoader.invalidate(id);
+        return MutationResult.of(updated);
     }
 
     @MutationMapping
     public boolean deleteUser(@Argument Long id) {
-        return userService.delete(id);
+        var success = userService.delete(id);
+
+        // 使数据加载器中缓存的实体失效
+        userLoader.invalidate(id);
+        return success;
     }
 }
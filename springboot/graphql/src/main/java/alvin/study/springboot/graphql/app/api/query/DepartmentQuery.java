@@ -15,6 +15,8 @@ import com.google.common.base.Functions;
 
 import lombok.RequiredArgsConstructor;
 
+import graphql.schema.DataFetchingFieldSelectionSet;
+
 import alvin.study.springboot.graphql.app.api.query.common.AuditedBaseQuery;
 import alvin.study.springboot.graphql.app.service.DepartmentService;
 import alvin.study.springboot.graphql.app.service.EmployeeService;
@@ -67,8 +69,8 @@ public class DepartmentQuery extends AuditedBaseQuery<Department> {
      * 除了通过 {@link org.dataloader.DataLoader DataLoader} 类型对象进行优化外, 还可以通过在
      * {@code Controller} 类中通过 {@link org.springframework.graphql.data.method.annotation.BatchMapping BatchMapping}
      * 注解将多次单次查询合并为一次批量查询, 从而减少查询次数, 参见
-     * {@link alvin.study.springboot.graphql.app.api.query.DepartmentQuery#children(alvin.study.springboot.graphql.infra.entity.Department, String, int)
-     * DepartmentQuery.children(Department, String, int)} 方法
+     * {@link alvin.study.springboot.graphql.app.api.query.DepartmentQuery#children(alvin.study.springboot.graphql.infra.entity.Department, String, int, graphql.schema.DataFetchingFieldSelectionSet)
+     * DepartmentQuery.children(Department, String, int, DataFetchingFieldSelectionSet)} 方法
      * </p>
      * </p>
      *
@@ -119,23 +121,47 @@ public class DepartmentQuery extends AuditedBaseQuery<Department> {
     /**
      * 根据部门实体 {@code ID} 查询 {@link Department} 类型部门实体对象
      *
-     * @param entity {@link Department} 类型部门实体对象
-     * @param after  分页参数, 表示上一页结尾的游标值
-     * @param first  分页参数, 表示每页记录数
+     * <p>
+     * 只有查询了 {@code totalCount} 字段时才会执行 {@code COUNT} 查询, 参见
+     * {@link alvin.study.springboot.graphql.core.graphql.relay.Pagination.PageBuilder#withSelectionSet(DataFetchingFieldSelectionSet)
+     * PageBuilder.withSelectionSet(DataFetchingFieldSelectionSet)} 方法
+     * </p>
+     *
+     * @param entity       {@link Department} 类型部门实体对象
+     * @param after        分页参数, 表示上一页结尾的游标值
+     * @param first        分页参数, 表示每页记录数
+     * @param selectionSet 查询的字段选择集
      * @return {@link Department} 类型部门实体对象集合, 表示当前部门下一级部门
      */
     @SchemaMapping
-    public Connection<Department> children(Department entity, @Argument String after, @Argument int first) {
-        var page = pagination.<Department>newBuilder().withFirst(first).withAfter(after).build();
+    public Connection<Department> children(
+            Department entity,
+            @Argument String after,
+            @Argument int first,
+            DataFetchingFieldSelectionSet selectionSet) {
+        var page = pagination.<Department>newBuilder()
+                .withFirst(first)
+                .withAfter(after)
+                .withKeyset(Department.class)
+                .withSelectionSet(selectionSet)
+                .withApproximateCount()
+                .build();
         page = departmentService.listChildren(page, entity.getId());
         return ConnectionBuilder.build(page);
     }
 
     @SchemaMapping
-    public Connection<Employee> employees(Department entity, @Argument String after, @Argument int first) {
+    public Connection<Employee> employees(
+            Department entity,
+            @Argument String after,
+            @Argument int first,
+            DataFetchingFieldSelectionSet selectionSet) {
         var page = pagination.<Employee>newBuilder()
                 .withFirst(first)
                 .withAfter(after)
+                .withKeyset(Employee.class)
+                .withSelectionSet(selectionSet)
+                .withApproximateCount()
                 .build();
         page = employeeService.listByDepartmentId(page, entity.getId());
         return ConnectionBuilder.build(page);
@@ -80,8 +80,8 @@ public class AuditedBaseQuery<T extends AuditedEntity> extends TenantedBaseQuery
      * 除了通过 {@link org.dataloader.DataLoader DataLoader} 类型对象进行优化外, 还可以通过在
      * {@code Controller} 类中通过 {@link org.springframework.graphql.data.method.annotation.BatchMapping BatchMapping}
      * 注解将多次单次查询合并为一次批量查询, 从而减少查询次数, 参见
-     * {@link alvin.study.springboot.graphql.app.api.query.DepartmentQuery#children(alvin.study.springboot.graphql.infra.entity.Department, String, int)
-     * DepartmentQuery.children(Department, String, int)} 方法
+     * {@link alvin.study.springboot.graphql.app.api.query.DepartmentQuery#children(alvin.study.springboot.graphql.infra.entity.Department, String, int, graphql.schema.DataFetchingFieldSelectionSet)
+     * DepartmentQuery.children(Department, String, int, DataFetchingFieldSelectionSet)} 方法
      * </p>
      * </p>
      *
@@ -123,8 +123,8 @@ public class AuditedBaseQuery<T extends AuditedEntity> extends TenantedBaseQuery
      * 除了通过 {@link org.dataloader.DataLoader DataLoader} 类型对象进行优化外, 还可以通过在
      * {@code Controller} 类中通过 {@link org.springframework.graphql.data.method.annotation.BatchMapping BatchMapping}
      * 注解将多次单次查询合并为一次批量查询, 从而减少查询次数, 参见
-     * {@link alvin.study.springboot.graphql.app.api.query.DepartmentQuery#children(alvin.study.springboot.graphql.infra.entity.Department, String, int)
-     * DepartmentQuery.children(Department, String, int)} 方法
+     * {@link alvin.study.springboot.graphql.app.api.query.DepartmentQuery#children(alvin.study.springboot.graphql.infra.entity.Department, String, int, graphql.schema.DataFetchingFieldSelectionSet)
+     * DepartmentQuery.children(Department, String, int, DataFetchingFieldSelectionSet)} 方法
      * </p>
      * </p>
      *
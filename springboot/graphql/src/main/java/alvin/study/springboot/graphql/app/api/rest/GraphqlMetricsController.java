@@ -0,0 +1,35 @@
+package alvin.study.springboot.graphql.app.api.rest;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.RequiredArgsConstructor;
+
+import alvin.study.springboot.graphql.core.graphql.instrumentation.GraphqlMetrics;
+
+/**
+ * 查询 GraphQL 执行指标
+ *
+ * <p>
+ * 返回各字段解析耗时 (微秒) 以及各数据加载器批量大小的直方图, 参见 {@link GraphqlMetrics} 类型
+ * </p>
+ *
+ * <p>
+ * 该接口只读, 且需要在请求头中携带和 GraphQL 请求相同的 Bearer token, 参见
+ * {@link alvin.study.springboot.graphql.app.interceptor.RestAuthInterceptor RestAuthInterceptor}
+ * </p>
+ */
+@RestController
+@RequestMapping("/metrics/graphql")
+@RequiredArgsConstructor
+public class GraphqlMetricsController {
+    private final GraphqlMetrics metrics;
+
+    @GetMapping
+    @ResponseBody
+    GraphqlMetrics.Snapshot snapshot() {
+        return metrics.snapshot();
+    }
+}
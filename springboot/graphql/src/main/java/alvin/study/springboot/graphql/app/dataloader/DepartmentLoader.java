@@ -1,26 +1,23 @@
 package alvin.study.springboot.graphql.app.dataloader;
 
+import java.util.Collection;
 import java.util.Map;
-import java.util.Set;
-import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
-import org.dataloader.BatchLoaderEnvironment;
-
 import org.springframework.stereotype.Component;
 
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 
 import com.google.common.base.Functions;
 
-import lombok.RequiredArgsConstructor;
-
 import alvin.study.springboot.graphql.app.context.ContextKey;
+import alvin.study.springboot.graphql.core.context.Context;
 import alvin.study.springboot.graphql.core.context.ContextHolder;
+import alvin.study.springboot.graphql.core.graphql.dataloader.AsyncBatchLoader;
+import alvin.study.springboot.graphql.core.graphql.dataloader.LoaderSettings;
 import alvin.study.springboot.graphql.infra.entity.Department;
 import alvin.study.springboot.graphql.infra.entity.Org;
 import alvin.study.springboot.graphql.infra.mapper.DepartmentMapper;
-import reactor.core.publisher.Mono;
 
 /**
  * 通过 {@code id} 集合获取 {@link Department} 实例集合的数据加载器类型
@@ -40,28 +37,45 @@ import reactor.core.publisher.Mono;
  * 除了通过 {@link org.dataloader.DataLoader DataLoader} 类型对象进行优化外, 还可以通过在
  * {@code Controller} 类中通过 {@link org.springframework.graphql.data.method.annotation.BatchMapping BatchMapping}
  * 注解将多次单次查询合并为一次批量查询, 从而减少查询次数, 参见
- * {@link alvin.study.springboot.graphql.app.api.query.DepartmentQuery#children(alvin.study.springboot.graphql.infra.entity.Department, String, int)
- * DepartmentQuery.children(Department, String, int)} 方法
+ * {@link alvin.study.springboot.graphql.app.api.query.DepartmentQuery#children(alvin.study.springboot.graphql.infra.entity.Department, String, int, graphql.schema.DataFetchingFieldSelectionSet)
+ * DepartmentQuery.children(Department, String, int, DataFetchingFieldSelectionSet)} 方法
  * </p>
  *
  * </p>
  */
 @Component
-@RequiredArgsConstructor
-public class DepartmentLoader implements BiFunction<Set<Long>, BatchLoaderEnvironment, Mono<Map<Long, Department>>> {
+public class DepartmentLoader extends AsyncBatchLoader<Long, Department> {
     private final DepartmentMapper departmentMapper;
 
+    /**
+     * 构造器
+     *
+     * @param departmentMapper 数据访问对象
+     * @param settings         批量数据加载器的公共设置
+     */
+    public DepartmentLoader(DepartmentMapper departmentMapper, LoaderSettings settings) {
+        super(settings, true);
+        this.departmentMapper = departmentMapper;
+    }
+
     @Override
-    public Mono<Map<Long, Department>> apply(Set<Long> ids, BatchLoaderEnvironment env) {
+    protected Map<Long, Department> load(Collection<Long> ids) {
         var ctx = ContextHolder.getValue();
         var org = ctx.<Org>get(ContextKey.KEY_ORG);
 
-        return Mono.just(
-            departmentMapper.selectList(
-                Wrappers.lambdaQuery(Department.class)
-                        .eq(Department::getOrgId, org.getId())
-                        .in(Department::getId, ids))
-                    .stream()
-                    .collect(Collectors.toMap(Department::getId, Functions.identity())));
+        return departmentMapper.selectList(
+            Wrappers.lambdaQuery(Department.class)
+                    .eq(Department::getOrgId, org.getId())
+                    .in(Department::getId, ids))
+                .stream()
+                .collect(Collectors.toMap(Department::getId, Functions.identity()));
+    }
+
+    /**
+     * 以组织作为二级缓存的租户标识
+     */
+    @Override
+    protected Object tenantOf(Context ctx) {
+        return ctx == null ? null : ctx.<Org>get(ContextKey.KEY_ORG).getId();
     }
 }
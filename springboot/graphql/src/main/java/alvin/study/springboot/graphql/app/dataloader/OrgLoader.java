@@ -1,21 +1,17 @@
 package alvin.study.springboot.graphql.app.dataloader;
 
+import java.util.Collection;
 import java.util.Map;
-import java.util.Set;
-import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
-import org.dataloader.BatchLoaderEnvironment;
-
 import org.springframework.stereotype.Component;
 
 import com.google.common.base.Functions;
 
-import lombok.RequiredArgsConstructor;
-
+import alvin.study.springboot.graphql.core.graphql.dataloader.AsyncBatchLoader;
+import alvin.study.springboot.graphql.core.graphql.dataloader.LoaderSettings;
 import alvin.study.springboot.graphql.infra.entity.Org;
 import alvin.study.springboot.graphql.infra.mapper.OrgMapper;
-import reactor.core.publisher.Mono;
 
 /**
  * 通过 {@code id} 集合获取 {@link Org} 实例集合的数据加载器类型
@@ -35,22 +31,31 @@ import reactor.core.publisher.Mono;
  * 除了通过 {@link org.dataloader.DataLoader DataLoader} 类型对象进行优化外, 还可以通过在
  * {@code Controller} 类中通过 {@link org.springframework.graphql.data.method.annotation.BatchMapping BatchMapping}
  * 注解将多次单次查询合并为一次批量查询, 从而减少查询次数, 参见
- * {@link alvin.study.springboot.graphql.app.api.query.DepartmentQuery#children(alvin.study.springboot.graphql.infra.entity.Department, String, int)
- * DepartmentQuery.children(Department, String, int)} 方法
+ * {@link alvin.study.springboot.graphql.app.api.query.DepartmentQuery#children(alvin.study.springboot.graphql.infra.entity.Department, String, int, graphql.schema.DataFetchingFieldSelectionSet)
+ * DepartmentQuery.children(Department, String, int, DataFetchingFieldSelectionSet)} 方法
  * </p>
  *
  * </p>
  */
 @Component
-@RequiredArgsConstructor
-public class OrgLoader implements BiFunction<Set<Long>, BatchLoaderEnvironment, Mono<Map<Long, Org>>> {
+public class OrgLoader extends AsyncBatchLoader<Long, Org> {
     private final OrgMapper orgMapper;
 
+    /**
+     * 构造器
+     *
+     * @param orgMapper 数据访问对象
+     * @param settings  批量数据加载器的公共设置
+     */
+    public OrgLoader(OrgMapper orgMapper, LoaderSettings settings) {
+        super(settings, true);
+        this.orgMapper = orgMapper;
+    }
+
     @Override
-    public Mono<Map<Long, Org>> apply(Set<Long> ids, BatchLoaderEnvironment env) {
-        return Mono.just(
-            orgMapper.selectByIds(ids)
-                    .stream()
-                    .collect(Collectors.toMap(Org::getId, Functions.identity())));
+    protected Map<Long, Org> load(Collection<Long> ids) {
+        return orgMapper.selectByIds(ids)
+                .stream()
+                .collect(Collectors.toMap(Org::getId, Functions.identity()));
     }
 }
@@ -1,12 +1,11 @@
 package alvin.study.springboot.graphql.app.interceptor;
 
-import java.util.Objects;
-
 import org.springframework.graphql.server.WebGraphQlInterceptor;
 import org.springframework.graphql.server.WebGraphQlRequest;
 import org.springframework.graphql.server.WebGraphQlResponse;
 import org.springframework.http.HttpHeaders;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
 import com.google.common.base.Strings;
@@ -44,13 +43,7 @@ public class ApiAuthInterceptor implements WebGraphQlInterceptor {
         log.info("Execute operation \"{}\"", request.getOperationName());
 
         if (!INTROSPECTION_QUERY.equals(request.getOperationName())) {
-            var auth = Objects.requireNonNull(
-                request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
-            if (Strings.isNullOrEmpty(auth) || !auth.startsWith(TOKEN_PREFIX)) {
-                throw new ForbiddenException("Invalid bearer token");
-            }
-
-            var token = auth.substring(TOKEN_PREFIX.length()).trim();
+            var token = bearerToken(request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
 
             try {
                 // 解析 token, 获取 token 负载
@@ -75,4 +68,18 @@ public class ApiAuthInterceptor implements WebGraphQlInterceptor {
 
         return chain.next(request);
     }
+
+    /**
+     * 从 {@code Authorization} 请求头中获取 Bearer token
+     *
+     * @param auth {@code Authorization} 请求头的值
+     * @return token 字符串
+     * @throws ForbiddenException 请求头不是 Bearer token 格式
+     */
+    static String bearerToken(@Nullable String auth) {
+        if (Strings.isNullOrEmpty(auth) || !auth.startsWith(TOKEN_PREFIX)) {
+            throw new ForbiddenException("Invalid bearer token");
+        }
+        return auth.substring(TOKEN_PREFIX.length()).trim();
+    }
 }
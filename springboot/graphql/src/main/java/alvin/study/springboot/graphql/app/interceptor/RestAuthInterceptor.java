@@ -0,0 +1,44 @@
+package alvin.study.springboot.graphql.app.interceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import lombok.RequiredArgsConstructor;
+
+import alvin.study.springboot.graphql.core.exception.ForbiddenException;
+import alvin.study.springboot.graphql.util.security.Jwt;
+
+/**
+ * 校验 REST 请求的 Bearer token
+ *
+ * <p>
+ * {@link ApiAuthInterceptor} 只拦截 GraphQL 请求, 对于需要登录后才能访问的 REST 接口, 通过
+ * {@code conf.WebConfig} 为其注册本拦截器, 使用和 GraphQL 请求相同的 token 进行校验
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class RestAuthInterceptor implements HandlerInterceptor {
+    // 注入 Jwt 对象
+    private final Jwt jwt;
+
+    @Override
+    public boolean preHandle(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull Object handler) {
+        var token = ApiAuthInterceptor.bearerToken(request.getHeader(HttpHeaders.AUTHORIZATION));
+
+        try {
+            jwt.verify(token);
+        } catch (Exception e) {
+            throw new ForbiddenException("Invalid bearer token", e);
+        }
+        return true;
+    }
+}
@@ -3,16 +3,28 @@ package alvin.study.springboot.graphql.conf;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.dataloader.BatchLoader;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.graphql.execution.BatchLoaderRegistry;
 import org.springframework.graphql.execution.DefaultBatchLoaderRegistry;
+import org.springframework.graphql.execution.GraphQlSource;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -26,13 +38,22 @@ import lombok.extern.slf4j.Slf4j;
 import alvin.study.springboot.graphql.app.dataloader.DepartmentLoader;
 import alvin.study.springboot.graphql.app.dataloader.OrgLoader;
 import alvin.study.springboot.graphql.app.dataloader.UserLoader;
+import alvin.study.springboot.graphql.core.graphql.dataloader.LoaderSettings;
 import alvin.study.springboot.graphql.core.graphql.directive.LengthDirective;
 import alvin.study.springboot.graphql.core.graphql.directive.UppercaseDirective;
+import alvin.study.springboot.graphql.core.graphql.instrumentation.ConnectionComplexityCalculator;
+import alvin.study.springboot.graphql.core.graphql.instrumentation.FieldMetricsInstrumentation;
+import alvin.study.springboot.graphql.core.graphql.instrumentation.GraphqlMetrics;
+import alvin.study.springboot.graphql.core.graphql.persisted.PersistedDocumentProvider;
+import alvin.study.springboot.graphql.core.graphql.persisted.PersistedQueryStore;
+import alvin.study.springboot.graphql.core.graphql.relay.Pagination;
 import alvin.study.springboot.graphql.infra.entity.Department;
 import alvin.study.springboot.graphql.infra.entity.Org;
 import alvin.study.springboot.graphql.infra.entity.User;
 import graphql.ExecutionResult;
 import graphql.GraphQLContext;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
 import graphql.execution.CoercedVariables;
 import graphql.execution.instrumentation.Instrumentation;
 import graphql.execution.instrumentation.InstrumentationContext;
@@ -64,6 +85,9 @@ import graphql.validation.schemawiring.ValidationSchemaWiring;
  * <li>{@link RuntimeWiringConfigurer} 类型实例, 用于对 Graphql 的数据类型进行扩展, 包括: 1. 注册新的 Graphql scalar 类型;
  * 2. 注册 Graphql 中使用的 directive 处理器;</li>
  * <li>{@link BatchLoaderRegistry} 类型实例, 用于对 Graphql 处理过程中使用到的 {@code DataLoader} 进行注册;</li>
+ * <li>其它 {@link Instrumentation} 类型实例, 用于在执行前限制查询的深度和复杂度, 以及在执行过程中记录字段解析耗时,
+ * Spring Graphql 会将所有 {@link Instrumentation} 类型的 Bean 组合使用;</li>
+ * <li>{@link PersistedQueryStore} 类型实例, 用于缓存已解析并校验的查询语句, 并支持自动持久化查询 (APQ);</li>
  * </ul>
  * </p>
  */
@@ -271,6 +295,167 @@ public class GraphqlConfig implements Instrumentation {
                 .build();
     }
 
+    /**
+     * 构建 GraphQL 执行指标对象, 用于记录字段解析耗时和数据加载器的批量大小
+     *
+     * @return {@link GraphqlMetrics} 类型对象
+     */
+    @Bean
+    GraphqlMetrics graphqlMetrics() {
+        return new GraphqlMetrics();
+    }
+
+    /**
+     * 构建记录字段解析耗时的拦截器
+     *
+     * @param metrics GraphQL 执行指标
+     * @return {@link FieldMetricsInstrumentation} 类型对象
+     */
+    @Bean
+    FieldMetricsInstrumentation fieldMetricsInstrumentation(GraphqlMetrics metrics) {
+        return new FieldMetricsInstrumentation(metrics);
+    }
+
+    /**
+     * 构建限制查询深度的拦截器
+     *
+     * <p>
+     * 在执行前对查询语句进行静态分析, 嵌套层级超过 {@code maxDepth} 的查询将被拒绝执行
+     * </p>
+     *
+     * @param maxDepth 最大查询深度
+     * @return {@link MaxQueryDepthInstrumentation} 类型对象
+     */
+    @Bean
+    MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(
+            @Value("${application.graphql.max-depth:10}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    /**
+     * 构建限制查询复杂度的拦截器
+     *
+     * <p>
+     * 在执行前对查询语句进行静态分析, 复杂度 (参见 {@link ConnectionComplexityCalculator} 类型) 超过
+     * {@code maxComplexity} 的查询将被拒绝执行
+     * </p>
+     *
+     * @param maxComplexity 最大查询复杂度
+     * @param pagination    分页对象, 用于获取默认的分页大小
+     * @return {@link MaxQueryComplexityInstrumentation} 类型对象
+     */
+    @Bean
+    MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${application.graphql.max-complexity:50000}") int maxComplexity,
+            Pagination pagination) {
+        return new MaxQueryComplexityInstrumentation(
+            maxComplexity, new ConnectionComplexityCalculator(pagination.getDefaultPageSize()));
+    }
+
+    /**
+     * 构建已解析并校验的 GraphQL 文档缓存
+     *
+     * @param cacheSize 缓存的最大文档数量, 不包括预加载的文档
+     * @return {@link PersistedQueryStore} 类型对象
+     */
+    @Bean
+    PersistedQueryStore persistedQueryStore(
+            @Value("${application.graphql.persisted-queries.cache-size:1000}") long cacheSize) {
+        return new PersistedQueryStore(cacheSize);
+    }
+
+    /**
+     * 令 GraphQL 执行时从 {@link PersistedQueryStore} 对象中获取已解析并校验的文档, 并支持自动持久化查询 (APQ)
+     *
+     * @param store 文档缓存
+     * @return {@link GraphQlSourceBuilderCustomizer} 类型对象
+     */
+    @Bean
+    GraphQlSourceBuilderCustomizer persistedQueryCustomizer(PersistedQueryStore store) {
+        return builder -> builder.configureGraphQl(
+            graphQl -> graphQl.preparsedDocumentProvider(new PersistedDocumentProvider(store)));
+    }
+
+    /**
+     * 在启动时预加载允许列表中的查询语句
+     *
+     * <p>
+     * 每个文件的内容作为一个完整的查询语句, 其 SHA-256 值即为客户端发送的持久化查询 ID
+     * </p>
+     *
+     * @param source    GraphQL 源对象, 用于获取 Schema 对象以校验查询语句
+     * @param store     文档缓存
+     * @param allowlist 允许列表文件的路径, 支持通配符, 例如 {@code classpath*:graphql-persisted/*.graphql}, 为空表示不预加载
+     * @return {@link ApplicationRunner} 类型对象
+     */
+    @Bean
+    ApplicationRunner persistedQueryPreloader(
+            GraphQlSource source,
+            PersistedQueryStore store,
+            @Value("${application.graphql.persisted-queries.allowlist:}") String allowlist) {
+        return _ -> {
+            if (allowlist.isBlank()) {
+                return;
+            }
+
+            var queries = new ArrayList<String>();
+            for (var resource : new PathMatchingResourcePatternResolver().getResources(allowlist)) {
+                queries.add(resource.getContentAsString(StandardCharsets.UTF_8));
+            }
+            store.preload(source.schema(), queries);
+
+            log.info("Preloaded {} persisted queries from \"{}\"", store.preloadedSize(), allowlist);
+        };
+    }
+
+    /**
+     * 构建执行批量数据加载的线程池
+     *
+     * <p>
+     * 线程数和任务队列长度均有限, 以免并发的批量查询耗尽数据库连接池; 当任务队列已满时, 由调用线程直接执行查询
+     * ({@link ThreadPoolExecutor.CallerRunsPolicy}), 从而对请求方形成反压
+     * </p>
+     *
+     * @param threads   线程数
+     * @param queueSize 任务队列长度
+     * @return 线程池对象
+     */
+    @Bean
+    ExecutorService dataLoaderExecutor(
+            @Value("${application.dataloader.threads:8}") int threads,
+            @Value("${application.dataloader.queue-size:1000}") int queueSize) {
+        return new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(queueSize),
+            new CustomizableThreadFactory("dataloader-"),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 构建批量数据加载器的公共设置
+     *
+     * @param dataLoaderExecutor 执行批量数据加载的线程池
+     * @param maxBatchSize       每次批量加载的最大 Key 数量
+     * @param chunkSize          每条查询语句中 {@code IN} 条件的最大元素数量
+     * @param cacheTtl           二级缓存的有效时间, 为 {@code 0} 表示不启用二级缓存
+     * @param cacheSize          二级缓存的最大条目数
+     * @param metrics            GraphQL 执行指标, 用于记录每批加载的 Key 数量
+     * @return {@link LoaderSettings} 类型对象
+     */
+    @Bean
+    LoaderSettings loaderSettings(
+            ExecutorService dataLoaderExecutor,
+            @Value("${application.dataloader.max-batch-size:500}") int maxBatchSize,
+            @Value("${application.dataloader.chunk-size:100}") int chunkSize,
+            @Value("${application.dataloader.cache-ttl:1m}") Duration cacheTtl,
+            @Value("${application.dataloader.cache-size:10000}") long cacheSize,
+            GraphqlMetrics metrics) {
+        return new LoaderSettings(dataLoaderExecutor, maxBatchSize, chunkSize, cacheTtl, cacheSize, metrics);
+    }
+
     /**
      * 构建 {@link BatchLoaderRegistry} 类型对象, 用于配置 {@link BatchLoader} 类型对象
      *
@@ -278,24 +463,30 @@ public class GraphqlConfig implements Instrumentation {
      * 要在代码中使用 {@link BatchLoader} 类型对象, 需要使用 {@link BatchLoaderRegistry} 类型对象进行注册
      * </p>
      *
-     * @param userLoader {@link BatchLoader} 类型对象, 用于根据 {@code ID} 加载用户实体对象
-     * @param orgLoader  {@link BatchLoader} 类型对象, 用于根据 {@code ID} 加载组织实体对象
+     * @param userLoader       {@link BatchLoader} 类型对象, 用于根据 {@code ID} 加载用户实体对象
+     * @param orgLoader        {@link BatchLoader} 类型对象, 用于根据 {@code ID} 加载组织实体对象
+     * @param departmentLoader {@link BatchLoader} 类型对象, 用于根据 {@code ID} 加载部门实体对象
+     * @param settings         批量数据加载器的公共设置, 用于限定每批的最大 Key 数量
      * @return {@link BatchLoaderRegistry} 类型对象, 用于配置 {@link BatchLoader} 类型对象
      */
     @Bean
     BatchLoaderRegistry batchLoaderRegistry(
             UserLoader userLoader,
             OrgLoader orgLoader,
-            DepartmentLoader departmentLoader) {
+            DepartmentLoader departmentLoader,
+            LoaderSettings settings) {
         var registry = new DefaultBatchLoaderRegistry();
 
         registry.forTypePair(Long.class, User.class)
+                .withOptions(settings.toDataLoaderOptions())
                 .registerMappedBatchLoader(userLoader);
 
         registry.forTypePair(Long.class, Org.class)
+                .withOptions(settings.toDataLoaderOptions())
                 .registerMappedBatchLoader(orgLoader);
 
         registry.forTypePair(Long.class, Department.class)
+                .withOptions(settings.toDataLoaderOptions())
                 .registerMappedBatchLoader(departmentLoader);
 
         return registry;
@@ -1,5 +1,6 @@
 package alvin.study.springboot.graphql.conf;
 
+import java.time.Duration;
 import java.util.List;
 
 import org.mybatis.spring.annotation.MapperScan;
@@ -18,10 +19,11 @@ import com.baomidou.mybatisplus.core.metadata.TableInfo;
 import com.baomidou.mybatisplus.extension.incrementer.H2KeyGenerator;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.OptimisticLockerInnerInterceptor;
-import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.pagination.dialects.MySqlDialect;
 
+import alvin.study.springboot.graphql.core.graphql.relay.CountCacheInnerInterceptor;
+import alvin.study.springboot.graphql.core.graphql.relay.KeysetInnerInterceptor;
 import alvin.study.springboot.graphql.infra.handler.TenantHandler;
 import alvin.study.springboot.graphql.infra.mapper.method.DeleteAllMethod;
 import alvin.study.springboot.graphql.infra.mapper.method.InsertAllBatchMethod;
@@ -70,16 +72,25 @@ public class MyBatisConfig extends DefaultSqlInjector {
     @Bean
     MybatisPlusInterceptor interceptor(
             @Value("${spring.data.web.pageable.max-page-size:null}") Long maxPageSize,
+            @Value("${application.pagination.count-cache-ttl:1m}") Duration countCacheTtl,
             TenantHandler tenantHandler) {
         var interceptor = new MybatisPlusInterceptor();
 
-        // 添加内置拦截器, 用于启动分页控制
-        var paginationInterceptor = new PaginationInnerInterceptor(DbType.MYSQL);
+        // 添加总记录数缓存拦截器, 需在分页拦截器之前, 以便在 COUNT 查询前命中缓存
+        var countCacheInterceptor
+            = new CountCacheInnerInterceptor(countCacheTtl, 10000, () -> tenantHandler.getTenantId().toString());
+        interceptor.addInnerInterceptor(countCacheInterceptor);
+
+        // 添加分页拦截器, 用于启动分页控制, 在原查询语句上执行 COUNT 查询, 再添加键集条件和 LIMIT
+        var paginationInterceptor = new KeysetInnerInterceptor(DbType.MYSQL);
         paginationInterceptor.setDialect(new MySqlDialect()); // 设置方言 (可选, 如已经设置 DbType 可忽略)
         paginationInterceptor.setOptimizeJoin(true); // 优化 count 语句时 left join 部分
         paginationInterceptor.setMaxLimit(10000L); // 设置最大分页数量
         interceptor.addInnerInterceptor(paginationInterceptor);
 
+        // 添加总记录数记录拦截器, 需在分页拦截器之后, 以便缓存分页拦截器 COUNT 查询的结果
+        interceptor.addInnerInterceptor(countCacheInterceptor.recorder());
+
         // 添加内置拦截器, 用于启动乐观锁版本控制
         interceptor.addInnerInterceptor(new OptimisticLockerInnerInterceptor());
 
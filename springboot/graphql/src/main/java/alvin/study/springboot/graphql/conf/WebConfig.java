@@ -11,10 +11,16 @@ import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import lombok.RequiredArgsConstructor;
+
+import alvin.study.springboot.graphql.app.interceptor.RestAuthInterceptor;
 import alvin.study.springboot.graphql.core.context.ContextHolder;
 
 @Configuration("conf/web")
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
+    private final RestAuthInterceptor restAuthInterceptor;
+
     @Value("${application.env}")
     private String env;
 
@@ -32,5 +38,8 @@ public class WebConfig implements WebMvcConfigurer {
                 }
             }
         });
+
+        // 指标接口需要登录后才能访问
+        registry.addInterceptor(restAuthInterceptor).addPathPatterns("/metrics/**");
     }
 }
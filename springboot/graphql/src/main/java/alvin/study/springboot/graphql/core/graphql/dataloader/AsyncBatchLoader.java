@@ -0,0 +1,193 @@
+package alvin.study.springboot.graphql.core.graphql.dataloader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+
+import org.dataloader.BatchLoaderEnvironment;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+
+import alvin.study.springboot.graphql.core.context.Context;
+import alvin.study.springboot.graphql.core.context.ContextHolder;
+import reactor.core.publisher.Mono;
+
+/**
+ * 异步批量数据加载器超类
+ *
+ * <p>
+ * 如果直接通过 {@link Mono#just(Object)} 返回查询结果, 查询会在调用线程 (即 GraphQL 执行线程) 中同步执行, 且每个请求的
+ * {@link org.dataloader.DataLoader DataLoader} 缓存互不共享. 本类型在此基础上:
+ * <ul>
+ * <li>
+ * 在 {@link LoaderSettings#executor()} 线程池中执行查询, 返回的 {@link Mono} 对象在查询完成后才发出结果, 不阻塞调用线程;
+ * </li>
+ * <li>
+ * 将超过 {@link LoaderSettings#chunkSize()} 的 Key 集合拆分为多组, 每组执行一条 {@code IN} 查询, 各组并行执行;
+ * </li>
+ * <li>
+ * 如果启用了二级缓存, 则跨请求缓存查询结果, 缓存的 Key 包含租户标识 (参见 {@link #tenantOf(Context)} 方法),
+ * 实体被修改或删除时需调用 {@link #invalidate(Object)} 方法使缓存失效
+ * </li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * 查询在线程池中执行时, 会将调用线程的 {@link Context} 对象设置到执行线程中, 以便查询过程 (例如租户拦截器) 获取当前的租户信息
+ * </p>
+ *
+ * @param <K> Key 类型
+ * @param <V> 实体类型
+ */
+public abstract class AsyncBatchLoader<K, V> implements BiFunction<Set<K>, BatchLoaderEnvironment, Mono<Map<K, V>>> {
+    // 批量数据加载器的公共设置
+    private final LoaderSettings settings;
+
+    // 二级缓存, 为 null 表示不启用二级缓存
+    private final Cache<CacheKey, V> cache;
+
+    /**
+     * 构造器
+     *
+     * @param settings 批量数据加载器的公共设置
+     * @param cached   是否启用二级缓存, 只有在 {@link LoaderSettings#isCacheEnabled()} 同时为 {@code true} 时才生效
+     */
+    protected AsyncBatchLoader(LoaderSettings settings, boolean cached) {
+        this.settings = settings;
+        if (cached && settings.isCacheEnabled()) {
+            this.cache = CacheBuilder.newBuilder()
+                    .expireAfterWrite(settings.cacheTtl())
+                    .maximumSize(settings.cacheSize())
+                    .build();
+        } else {
+            this.cache = null;
+        }
+    }
+
+    @Override
+    public Mono<Map<K, V>> apply(Set<K> keys, BatchLoaderEnvironment env) {
+        if (settings.metrics() != null) {
+            settings.metrics().recordBatchSize(getClass().getSimpleName(), keys.size());
+        }
+
+        var ctx = ContextHolder.getValue();
+        var tenant = tenantOf(ctx);
+
+        // 从二级缓存中获取结果, 未命中的 Key 需要查询
+        var result = new HashMap<K, V>();
+        var missed = new ArrayList<K>();
+        for (var key : keys) {
+            var value = cache == null ? null : cache.getIfPresent(new CacheKey(tenant, key));
+            if (value != null) {
+                result.put(key, value);
+            } else {
+                missed.add(key);
+            }
+        }
+
+        if (missed.isEmpty()) {
+            return Mono.just(result);
+        }
+
+        // 将 Key 集合拆分为多组, 在线程池中并行查询
+        var futures = Lists.partition(missed, settings.chunkSize()).stream()
+                .map(chunk -> CompletableFuture.supplyAsync(() -> loadWithContext(ctx, chunk), settings.executor()))
+                .toList();
+
+        return Mono.fromFuture(
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                    .thenApply(_ -> {
+                        for (var future : futures) {
+                            var loaded = future.join();
+                            if (cache != null) {
+                                loaded.forEach((k, v) -> cache.put(new CacheKey(tenant, k), v));
+                            }
+                            result.putAll(loaded);
+                        }
+                        return result;
+                    }));
+    }
+
+    /**
+     * 使当前租户下指定 Key 的二级缓存失效
+     *
+     * @param key Key 值
+     */
+    public void invalidate(K key) {
+        if (cache != null) {
+            cache.invalidate(new CacheKey(tenantOf(ContextHolder.getValue()), key));
+        }
+    }
+
+    /**
+     * 使所有二级缓存失效
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * 批量查询实体
+     *
+     * <p>
+     * 该方法在线程池中执行, 执行时 {@link ContextHolder} 中已设置了调用线程的 {@link Context} 对象
+     * </p>
+     *
+     * @param keys Key 集合, 数量不超过 {@link LoaderSettings#chunkSize()}
+     * @return Key 和实体对象的 {@link Map} 集合, 不存在的实体无需包含在结果中
+     */
+    protected abstract Map<K, V> load(Collection<K> keys);
+
+    /**
+     * 获取二级缓存所使用的租户标识
+     *
+     * <p>
+     * 默认返回 {@code null}, 表示实体不区分租户
+     * </p>
+     *
+     * @param ctx 调用线程的 {@link Context} 对象, 可能为 {@code null}
+     * @return 租户标识
+     */
+    protected Object tenantOf(Context ctx) {
+        return null;
+    }
+
+    /**
+     * 在指定的 {@link Context} 对象下执行批量查询, 执行完毕后恢复执行线程原本的 {@link Context} 对象
+     *
+     * @param ctx  调用线程的 {@link Context} 对象
+     * @param keys Key 集合
+     * @return 查询结果
+     */
+    private Map<K, V> loadWithContext(Context ctx, List<K> keys) {
+        // 线程池饱和时任务可能在调用线程中执行, 所以需要恢复原本的上下文而不是直接清除
+        var previous = ContextHolder.getValue();
+        ContextHolder.setValue(ctx);
+        try {
+            return load(keys);
+        } finally {
+            if (previous == null) {
+                ContextHolder.reset();
+            } else {
+                ContextHolder.setValue(previous);
+            }
+        }
+    }
+
+    /**
+     * 二级缓存的 Key
+     *
+     * @param tenant 租户标识
+     * @param key    实体的 Key 值
+     */
+    private record CacheKey(Object tenant, Object key) {}
+}
@@ -0,0 +1,57 @@
+package alvin.study.springboot.graphql.core.graphql.dataloader;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+import org.dataloader.DataLoaderOptions;
+
+import alvin.study.springboot.graphql.core.graphql.instrumentation.GraphqlMetrics;
+
+/**
+ * 批量数据加载器的公共设置
+ *
+ * @param executor     执行批量查询的线程池, 应为有界线程池, 以免并发的批量查询耗尽数据库连接
+ * @param maxBatchSize 每次批量加载的最大 Key 数量, 超过该数量时 {@link org.dataloader.DataLoader DataLoader} 会分多批加载
+ * @param chunkSize    每条查询语句中 {@code IN} 条件的最大元素数量, 超过该数量时拆分为多条查询语句并行执行
+ * @param cacheTtl     二级缓存的有效时间, 为 {@code 0} 表示不启用二级缓存
+ * @param cacheSize    二级缓存的最大条目数
+ * @param metrics      记录每批加载的 Key 数量, 为 {@code null} 表示不记录
+ */
+public record LoaderSettings(
+        Executor executor,
+        int maxBatchSize,
+        int chunkSize,
+        Duration cacheTtl,
+        long cacheSize,
+        GraphqlMetrics metrics) {
+    /**
+     * 构造器, 检查参数
+     */
+    public LoaderSettings {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must large than 0");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must large than 0");
+        }
+    }
+
+    /**
+     * 判断是否启用二级缓存
+     *
+     * @return 是否启用二级缓存
+     */
+    public boolean isCacheEnabled() {
+        return cacheTtl != null && cacheTtl.isPositive() && cacheSize > 0;
+    }
+
+    /**
+     * 创建 {@link DataLoaderOptions} 对象, 用于在 {@link org.springframework.graphql.execution.BatchLoaderRegistry
+     * BatchLoaderRegistry} 中注册加载器时限定每批的最大 Key 数量
+     *
+     * @return {@link DataLoaderOptions} 对象
+     */
+    public DataLoaderOptions toDataLoaderOptions() {
+        return DataLoaderOptions.newOptions().setMaxBatchSize(maxBatchSize);
+    }
+}
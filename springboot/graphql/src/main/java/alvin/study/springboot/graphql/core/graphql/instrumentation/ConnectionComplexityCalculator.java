@@ -0,0 +1,70 @@
+package alvin.study.springboot.graphql.core.graphql.instrumentation;
+
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.FieldComplexityEnvironment;
+import graphql.schema.GraphQLTypeUtil;
+
+/**
+ * 按分页大小计算字段复杂度
+ *
+ * <p>
+ * 默认的复杂度计算方式为每个字段计 {@code 1}, 无法体现嵌套分页查询的代价. 对于返回 {@code Connection} 类型的字段,
+ * 本类型将其子字段的复杂度乘以分页大小 ({@code first} 或 {@code last} 参数, 未指定时使用默认分页大小), 例如:
+ *
+ * <pre>
+ * department(id: 1) {
+ *   children(first: 100) {
+ *     edges { node { employees(first: 100) { edges { node { id } } } } }
+ *   }
+ * }
+ * </pre>
+ *
+ * 其复杂度约为 {@code 100 * 100}, 即可能需要加载的记录数量级, 从而可以通过
+ * {@link graphql.analysis.MaxQueryComplexityInstrumentation MaxQueryComplexityInstrumentation} 拒绝嵌套过深的分页查询
+ * </p>
+ */
+public class ConnectionComplexityCalculator implements FieldComplexityCalculator {
+    // Connection 类型名称的后缀
+    private static final String CONNECTION_SUFFIX = "Connection";
+
+    // 单个字段复杂度的上限, 预留足够空间, 以免各字段复杂度相加时溢出
+    private static final int MAX_COMPLEXITY = Integer.MAX_VALUE >> 10;
+
+    // 未指定分页参数时使用的分页大小
+    private final int defaultPageSize;
+
+    /**
+     * 构造器
+     *
+     * @param defaultPageSize 未指定分页参数时使用的分页大小
+     */
+    public ConnectionComplexityCalculator(int defaultPageSize) {
+        if (defaultPageSize <= 0) {
+            throw new IllegalArgumentException("defaultPageSize must large than 0");
+        }
+        this.defaultPageSize = defaultPageSize;
+    }
+
+    @Override
+    public int calculate(FieldComplexityEnvironment env, int childComplexity) {
+        // 子字段复杂度之和已溢出
+        if (childComplexity < 0) {
+            return MAX_COMPLEXITY;
+        }
+
+        var type = GraphQLTypeUtil.unwrapAll(env.getFieldDefinition().getType());
+        if (!type.getName().endsWith(CONNECTION_SUFFIX)) {
+            return (int) Math.min(MAX_COMPLEXITY, 1L + childComplexity);
+        }
+
+        var args = env.getArguments();
+        var pageSize = defaultPageSize;
+        if (args.get("first") instanceof Integer first) {
+            pageSize = first;
+        } else if (args.get("last") instanceof Integer last) {
+            pageSize = last;
+        }
+
+        return (int) Math.min(MAX_COMPLEXITY, 1 + (long) Math.max(pageSize, 1) * childComplexity);
+    }
+}
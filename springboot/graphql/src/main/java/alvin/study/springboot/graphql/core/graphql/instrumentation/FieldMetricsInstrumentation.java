@@ -0,0 +1,62 @@
+package alvin.study.springboot.graphql.core.graphql.instrumentation;
+
+import java.util.concurrent.CompletionStage;
+
+import lombok.RequiredArgsConstructor;
+
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+
+/**
+ * 记录字段解析耗时的拦截器
+ *
+ * <p>
+ * 通过 {@link #instrumentDataFetcher(DataFetcher, InstrumentationFieldFetchParameters, InstrumentationState)}
+ * 方法包装每个字段的 {@link DataFetcher} 对象, 记录其执行耗时. 如果 {@link DataFetcher} 返回的是异步结果 (例如通过
+ * {@link org.dataloader.DataLoader DataLoader} 加载的字段), 则在异步结果完成时记录耗时, 此时耗时包含了等待批量加载的时间
+ * </p>
+ *
+ * <p>
+ * 直接读取对象属性的 {@link DataFetcher} (即 {@link InstrumentationFieldFetchParameters#isTrivialDataFetcher()}
+ * 为 {@code true}) 不会被记录, 以免为每个简单字段增加额外开销
+ * </p>
+ */
+@RequiredArgsConstructor
+public class FieldMetricsInstrumentation implements Instrumentation {
+    // 执行指标
+    private final GraphqlMetrics metrics;
+
+    @Override
+    public DataFetcher<?> instrumentDataFetcher(
+            DataFetcher<?> dataFetcher,
+            InstrumentationFieldFetchParameters parameters,
+            InstrumentationState state) {
+        if (parameters.isTrivialDataFetcher()) {
+            return dataFetcher;
+        }
+
+        var stepInfo = parameters.getExecutionStepInfo();
+        var coordinate = stepInfo.getObjectType().getName() + "." + stepInfo.getFieldDefinition().getName();
+
+        return env -> {
+            var start = System.nanoTime();
+
+            Object result = null;
+            try {
+                result = dataFetcher.get(env);
+                if (result instanceof CompletionStage<?> stage) {
+                    // 异步结果, 在完成时记录耗时
+                    return stage.whenComplete(
+                        (_, _) -> metrics.recordFieldLatency(coordinate, System.nanoTime() - start));
+                }
+                return result;
+            } finally {
+                if (!(result instanceof CompletionStage)) {
+                    metrics.recordFieldLatency(coordinate, System.nanoTime() - start);
+                }
+            }
+        };
+    }
+}
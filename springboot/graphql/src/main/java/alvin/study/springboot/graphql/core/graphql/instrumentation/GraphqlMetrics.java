@@ -0,0 +1,97 @@
+package alvin.study.springboot.graphql.core.graphql.instrumentation;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GraphQL 执行指标
+ *
+ * <p>
+ * 记录两类指标, 用于发现执行缓慢的字段解析器以及 N+1 查询:
+ * <ul>
+ * <li>
+ * 各字段解析器的执行耗时 (微秒), Key 为字段坐标, 例如 {@code Department.employees}, 参见
+ * {@link FieldMetricsInstrumentation} 类型;
+ * </li>
+ * <li>
+ * 各数据加载器每批加载的 Key 数量, Key 为数据加载器类型名称. 如果批量大小长期为 {@code 1}, 说明对应字段并未真正合并查询
+ * </li>
+ * </ul>
+ * </p>
+ */
+public class GraphqlMetrics {
+    // 字段解析耗时的桶边界 (微秒)
+    private static final long[] LATENCY_BOUNDS = {
+        100, 500, 1_000, 5_000, 10_000, 50_000, 100_000, 500_000, 1_000_000
+    };
+
+    // 批量加载大小的桶边界
+    private static final long[] BATCH_SIZE_BOUNDS = { 1, 2, 5, 10, 20, 50, 100, 200, 500 };
+
+    // 字段坐标和解析耗时直方图的对应关系
+    private final ConcurrentMap<String, Histogram> fieldLatencies = new ConcurrentHashMap<>();
+
+    // 数据加载器名称和批量大小直方图的对应关系
+    private final ConcurrentMap<String, Histogram> batchSizes = new ConcurrentHashMap<>();
+
+    /**
+     * 记录字段解析耗时
+     *
+     * @param coordinate 字段坐标, 格式为 {@code 类型名.字段名}
+     * @param nanos      解析耗时 (纳秒)
+     */
+    public void recordFieldLatency(String coordinate, long nanos) {
+        fieldLatencies.computeIfAbsent(coordinate, _ -> new Histogram(LATENCY_BOUNDS))
+                .record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * 记录数据加载器的批量大小
+     *
+     * @param loader 数据加载器名称
+     * @param size   本批加载的 Key 数量
+     */
+    public void recordBatchSize(String loader, int size) {
+        batchSizes.computeIfAbsent(loader, _ -> new Histogram(BATCH_SIZE_BOUNDS)).record(size);
+    }
+
+    /**
+     * 获取所有指标的快照
+     *
+     * @return 指标快照
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(snapshotOf(fieldLatencies), snapshotOf(batchSizes));
+    }
+
+    /**
+     * 清空所有指标
+     */
+    public void reset() {
+        fieldLatencies.clear();
+        batchSizes.clear();
+    }
+
+    /**
+     * 获取直方图集合的快照, 按名称排序
+     *
+     * @param histograms 直方图集合
+     * @return 直方图快照集合
+     */
+    private static Map<String, Histogram.Snapshot> snapshotOf(Map<String, Histogram> histograms) {
+        var result = new TreeMap<String, Histogram.Snapshot>();
+        histograms.forEach((name, histogram) -> result.put(name, histogram.snapshot()));
+        return result;
+    }
+
+    /**
+     * 指标快照
+     *
+     * @param fieldLatencies 各字段解析耗时 (微秒) 的直方图快照
+     * @param batchSizes     各数据加载器批量大小的直方图快照
+     */
+    public record Snapshot(Map<String, Histogram.Snapshot> fieldLatencies, Map<String, Histogram.Snapshot> batchSizes) {}
+}
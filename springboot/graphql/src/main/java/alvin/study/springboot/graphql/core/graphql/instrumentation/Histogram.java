@@ -0,0 +1,97 @@
+package alvin.study.springboot.graphql.core.graphql.instrumentation;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定桶边界的直方图
+ *
+ * <p>
+ * 每个桶记录 "小于等于该桶边界且大于前一个桶边界" 的数值个数, 最后一个桶记录大于所有边界的数值个数. 计数使用
+ * {@link LongAdder} 类型, 多线程并发记录时不会互相竞争
+ * </p>
+ */
+public class Histogram {
+    // 各桶的上边界, 升序排列
+    private final long[] bounds;
+
+    // 各桶的计数, 比边界多一个桶, 用于记录超出最大边界的数值
+    private final LongAdder[] buckets;
+
+    // 记录总数
+    private final LongAdder count = new LongAdder();
+
+    // 记录值之和
+    private final LongAdder sum = new LongAdder();
+
+    // 记录的最大值
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    /**
+     * 构造器
+     *
+     * @param bounds 各桶的上边界, 必须升序排列
+     */
+    public Histogram(long... bounds) {
+        if (bounds.length == 0) {
+            throw new IllegalArgumentException("bounds must not be empty");
+        }
+        for (var i = 1; i < bounds.length; i++) {
+            if (bounds[i] <= bounds[i - 1]) {
+                throw new IllegalArgumentException("bounds must be in ascending order");
+            }
+        }
+
+        this.bounds = bounds.clone();
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (var i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一个数值
+     *
+     * @param value 数值
+     */
+    public void record(long value) {
+        // 查找第一个大于等于 value 的边界, 即 value 所在的桶
+        var index = Arrays.binarySearch(bounds, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+
+        buckets[index].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * 获取直方图的快照
+     *
+     * @return 直方图快照
+     */
+    public Snapshot snapshot() {
+        var result = new LinkedHashMap<String, Long>();
+        for (var i = 0; i < bounds.length; i++) {
+            result.put("le_" + bounds[i], buckets[i].sum());
+        }
+        result.put("gt_" + bounds[bounds.length - 1], buckets[bounds.length].sum());
+
+        return new Snapshot(count.sum(), sum.sum(), max.get(), result);
+    }
+
+    /**
+     * 直方图快照
+     *
+     * @param count   记录总数
+     * @param sum     记录值之和
+     * @param max     记录的最大值
+     * @param buckets 各桶的计数, Key 为 {@code le_边界值} 或 {@code gt_最大边界值}
+     */
+    public record Snapshot(long count, long sum, long max, Map<String, Long> buckets) {}
+}
@@ -0,0 +1,50 @@
+package alvin.study.springboot.graphql.core.graphql.persisted;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+
+/**
+ * 为 GraphQL 执行过程提供已解析和校验的文档
+ *
+ * <p>
+ * 对于包含 {@code extensions.persistedQuery} 的 APQ 请求, 交由 {@link ApolloPersistedQuerySupport} 处理,
+ * 包括校验请求中的 SHA-256 值和查询语句是否匹配, 以及返回 {@code PersistedQueryNotFound} 等错误;
+ * 对于普通请求, 同样以查询语句的 SHA-256 值为 Key 缓存解析和校验的结果. 两者共用同一个 {@link PersistedQueryStore} 对象
+ * </p>
+ */
+public class PersistedDocumentProvider implements PreparsedDocumentProvider {
+    // APQ 请求的扩展字段名
+    private static final String PERSISTED_QUERY_EXTENSION = "persistedQuery";
+
+    // 文档缓存
+    private final PersistedQueryStore store;
+
+    // 处理 APQ 请求
+    private final ApolloPersistedQuerySupport apqSupport;
+
+    /**
+     * 构造器
+     *
+     * @param store 文档缓存
+     */
+    public PersistedDocumentProvider(PersistedQueryStore store) {
+        this.store = store;
+        this.apqSupport = new ApolloPersistedQuerySupport(store);
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(
+            ExecutionInput executionInput,
+            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        var extensions = executionInput.getExtensions();
+        if (extensions != null && extensions.containsKey(PERSISTED_QUERY_EXTENSION)) {
+            return apqSupport.getDocumentAsync(executionInput, parseAndValidateFunction);
+        }
+        return CompletableFuture.completedFuture(store.getDocument(executionInput, parseAndValidateFunction));
+    }
+}
@@ -0,0 +1,160 @@
+package alvin.study.springboot.graphql.core.graphql.persisted;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+import graphql.ExecutionInput;
+import graphql.ParseAndValidate;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+import graphql.execution.preparsed.persisted.PersistedQueryCacheMiss;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.schema.GraphQLSchema;
+
+/**
+ * 已解析并校验的 GraphQL 文档缓存
+ *
+ * <p>
+ * GraphQL 请求在执行前需要对查询语句进行解析和校验, 对于简短而频繁的查询, 这部分开销在执行时间中的占比不可忽略.
+ * 本类型以查询语句的 SHA-256 值为 Key 缓存解析和校验的结果 ({@link PreparsedDocumentEntry} 对象), 包括:
+ * <ul>
+ * <li>
+ * 启动时预加载的查询语句 (参见 {@link #preload(GraphQLSchema, Collection)} 方法), 不会被淘汰;
+ * </li>
+ * <li>
+ * 执行过程中遇到的查询语句, 保存在容量有限的缓存中, 超出容量时淘汰最近最少使用的文档
+ * </li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * 本类型实现了 {@link PersistedQueryCache} 接口, 用于配合
+ * {@link graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport ApolloPersistedQuerySupport} 支持自动持久化查询
+ * (APQ): 客户端只发送查询语句的 SHA-256 值, 如果服务端未缓存该查询, 则返回 {@code PersistedQueryNotFound} 错误,
+ * 客户端随后发送完整的查询语句和 SHA-256 值进行注册, 之后即可只发送 SHA-256 值
+ * </p>
+ */
+public class PersistedQueryStore implements PersistedQueryCache {
+    // 预加载的文档, 不会被淘汰
+    private final Map<Object, PreparsedDocumentEntry> preloaded = new ConcurrentHashMap<>();
+
+    // 执行过程中缓存的文档
+    private final Cache<Object, PreparsedDocumentEntry> cache;
+
+    /**
+     * 构造器
+     *
+     * @param maximumSize 缓存的最大文档数量, 不包括预加载的文档
+     */
+    public PersistedQueryStore(long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must large than 0");
+        }
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    /**
+     * 计算查询语句的 SHA-256 值, 和 APQ 协议中客户端的计算方式一致
+     *
+     * @param query 查询语句
+     * @return 16 进制表示的 SHA-256 值
+     */
+    public static String hashOf(String query) {
+        return Hashing.sha256().hashString(query, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * 获取 APQ 请求对应的文档
+     *
+     * <p>
+     * 如果缓存中不存在, 则通过 {@code onCacheMiss} 解析和校验请求中携带的查询语句, 如果请求中未携带查询语句,
+     * {@code onCacheMiss} 会抛出 {@link PersistedQueryNotFound} 异常
+     * </p>
+     */
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getPersistedQueryDocumentAsync(
+            Object persistedQueryId,
+            ExecutionInput executionInput,
+            PersistedQueryCacheMiss onCacheMiss) throws PersistedQueryNotFound {
+        return CompletableFuture.completedFuture(
+            getOrParse(persistedQueryId, executionInput.getQuery(), onCacheMiss));
+    }
+
+    /**
+     * 获取普通请求 (请求中携带完整的查询语句) 对应的文档
+     *
+     * @param executionInput           执行参数
+     * @param parseAndValidateFunction 解析和校验查询语句的函数
+     * @return 文档
+     */
+    public PreparsedDocumentEntry getDocument(
+            ExecutionInput executionInput,
+            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        var query = executionInput.getQuery();
+        return getOrParse(hashOf(query), query, _ -> parseAndValidateFunction.apply(executionInput));
+    }
+
+    /**
+     * 预加载查询语句
+     *
+     * <p>
+     * 查询语句在加载时即完成解析和校验, 如果存在错误则抛出异常, 以便在启动阶段发现已失效的查询语句
+     * </p>
+     *
+     * @param schema  GraphQL Schema 对象, 用于校验查询语句
+     * @param queries 查询语句集合
+     */
+    public void preload(GraphQLSchema schema, Collection<String> queries) {
+        for (var query : queries) {
+            var result = ParseAndValidate.parseAndValidate(schema, ExecutionInput.newExecutionInput(query).build());
+            if (result.isFailure()) {
+                throw new IllegalArgumentException("invalid persisted query: " + result.getErrors());
+            }
+            preloaded.put(hashOf(query), new PreparsedDocumentEntry(result.getDocument()));
+        }
+    }
+
+    /**
+     * 获取预加载的文档数量
+     *
+     * @return 预加载的文档数量
+     */
+    public int preloadedSize() {
+        return preloaded.size();
+    }
+
+    /**
+     * 从缓存中获取文档, 不存在时解析和校验查询语句, 并缓存没有错误的结果
+     *
+     * @param hash  查询语句的 SHA-256 值
+     * @param query 查询语句
+     * @param parse 解析和校验查询语句的函数
+     * @return 文档
+     */
+    private PreparsedDocumentEntry getOrParse(
+            Object hash,
+            String query,
+            Function<String, PreparsedDocumentEntry> parse) {
+        var entry = preloaded.get(hash);
+        if (entry == null) {
+            entry = cache.getIfPresent(hash);
+        }
+        if (entry == null) {
+            entry = parse.apply(query);
+            if (!entry.hasErrors()) {
+                cache.put(hash, entry);
+            }
+        }
+        return entry;
+    }
+}
@@ -35,6 +35,10 @@ public final class ConnectionBuilder {
      * @return {@link ListConnection} 对象
      */
     public static <T> ListConnection<T> build(IPage<T> page) {
+        if (page instanceof Page<T> p && p.keyset() != null) {
+            return buildByKeyset(p);
+        }
+
         log.debug("Build graphql connection with: startPos={}, pageSize={}, dataCount={} and totalCount={}",
             page.offset(), page.getSize(), page.getRecords().size(), page.getTotal());
 
@@ -48,6 +52,39 @@ public final class ConnectionBuilder {
         return new ListConnection<>(edges, pageInfo, (int) page.getTotal());
     }
 
+    /**
+     * 通过键集分页结果构建 {@link ListConnection} 对象
+     *
+     * <p>
+     * 每条记录的游标由该记录各排序字段的值编码而成, 是否有上一页/下一页由分页对象多取的一条记录以及是否携带游标决定,
+     * 参见 {@link Keyset} 类型
+     * </p>
+     *
+     * @param <T>  {@link ListConnection} 负载对象的类型
+     * @param page 包含键集分页条件的分页对象
+     * @return {@link ListConnection} 对象
+     */
+    private static <T> ListConnection<T> buildByKeyset(Page<T> page) {
+        var keyset = page.keyset();
+
+        log.debug("Build graphql connection by keyset: columns={}, backward={}, dataCount={} and totalCount={}",
+            keyset.columns(), keyset.backward(), page.getRecords().size(), page.getTotal());
+
+        var edges = page.getRecords().stream()
+                .map(r -> (Edge<T>) new DefaultEdge<>(r, Cursors.makeKeysetConnCursor(keyset.valuesOf(r))))
+                .toList();
+
+        // 从游标开始查询时, 游标所在的方向一定还有记录
+        var fromCursor = keyset.values() != null;
+        var pageInfo = new DefaultPageInfo(
+            edges.isEmpty() ? null : edges.getFirst().getCursor(),
+            edges.isEmpty() ? null : edges.getLast().getCursor(),
+            keyset.backward() ? page.hasMore() : fromCursor,
+            keyset.backward() ? fromCursor : page.hasMore());
+
+        return new ListConnection<>(edges, pageInfo, (int) page.getTotal());
+    }
+
     /**
      * 创建 {@link Edge} 对象集合
      *
@@ -61,8 +98,8 @@ public final class ConnectionBuilder {
      * @return {@link Edge} 对象的 {@link List} 集合
      */
     private static <T> List<Edge<T>> buildEdges(IPage<T> page) {
-        // 如果查询结果总数量为 0, 则返回空集合
-        if (page.getTotal() == 0) {
+        // 如果查询结果为空, 则返回空集合 (未执行 COUNT 查询时总记录数为 0, 不能以此判断)
+        if (page.getRecords().isEmpty()) {
             return List.of();
         }
 
@@ -89,10 +126,23 @@ public final class ConnectionBuilder {
      * {@link PageInfo#isHasNextPage()} 属性
      * </p>
      *
+     * <p>
+     * 如果分页对象未执行 {@code COUNT} 查询, 则通过多查询的一条记录判断是否具备下一页
+     * </p>
+     *
      * @param page Mybatis 分页对象
      * @return {@link PageInfo} 对象
      */
     private static PageInfo buildPageInfo(IPage<?> page) {
+        // 多查询了一条记录时, 通过该记录判断是否有下一页, 无需依赖总记录数
+        if (page instanceof Page<?> p && p.probe()) {
+            return new DefaultPageInfo(
+                Cursors.makeConnCursor((int) page.offset()),
+                Cursors.makeConnCursor((int) page.offset() + page.getRecords().size()),
+                page.offset() > 0,
+                p.hasMore());
+        }
+
         return new DefaultPageInfo(
             Cursors.makeConnCursor((int) page.offset()),
             Cursors.makeConnCursor((int) page.offset() + page.getRecords().size()),
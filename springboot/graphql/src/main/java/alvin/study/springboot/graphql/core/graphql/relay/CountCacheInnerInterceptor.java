@@ -0,0 +1,172 @@
+package alvin.study.springboot.graphql.core.graphql.relay;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import com.baomidou.mybatisplus.core.toolkit.ParameterUtils;
+import com.baomidou.mybatisplus.extension.plugins.inner.InnerInterceptor;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * 总记录数缓存拦截器
+ *
+ * <p>
+ * 对于通过 {@link Pagination.PageBuilder#withApproximateCount()} 方法允许使用缓存总记录数的分页对象, 在 {@code ttl}
+ * 时间内复用同一租户, 同一查询条件的 {@code COUNT} 查询结果, 缓存的 Key 由以下内容组成:
+ * <ul>
+ * <li>
+ * 当前租户标识;
+ * </li>
+ * <li>
+ * MappedStatement 的 id, 查询语句以及各参数值, 即 MyBatis 一级缓存所使用的 {@link CacheKey}, 此时语句中尚未添加分页和键集条件
+ * </li>
+ * </ul>
+ * 缓存期间数据的变化不会反映到总记录数中, 所以只适合总记录数仅作为参考显示的场景
+ * </p>
+ *
+ * <p>
+ * {@link com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor MybatisPlusInterceptor} 按添加顺序依次调用每个拦截器的
+ * {@link #willDoQuery} 和 {@link #beforeQuery} 方法, 即前一个拦截器的 {@link #beforeQuery} 会在后一个拦截器的 {@link #willDoQuery}
+ * 之前执行, 所以读取缓存和写入缓存需要由两个拦截器分别完成:
+ * <ul>
+ * <li>
+ * 本拦截器必须添加在分页拦截器 (参见 {@link KeysetInnerInterceptor}) 之前, 在 {@link #willDoQuery} 阶段 (分页拦截器执行
+ * {@code COUNT} 查询之前), 如果缓存命中, 则设置总记录数并关闭 {@code COUNT} 查询; 否则将缓存的 Key 保存在分页对象中;
+ * </li>
+ * <li>
+ * {@link #recorder()} 方法返回的拦截器必须添加在分页拦截器之后, 在其 {@link #willDoQuery} 阶段分页拦截器已完成 {@code COUNT}
+ * 查询, 此时以分页对象中保存的 Key 缓存查询得到的总记录数
+ * </li>
+ * </ul>
+ * 分页拦截器的 {@link #beforeQuery} 阶段会为语句添加键集条件和 {@code LIMIT}, 所以缓存的 Key 只在语句被改写前计算一次, 而不在
+ * {@link #recorder()} 返回的拦截器中重新计算. 当总记录数为 {@code 0} 时, 分页拦截器会直接结束查询, 后续拦截器不会执行,
+ * 所以总记录数为 {@code 0} 的结果不会被缓存
+ * </p>
+ */
+public class CountCacheInnerInterceptor implements InnerInterceptor {
+    // 总记录数缓存
+    private final Cache<CacheKey, Long> cache;
+
+    // 获取当前租户标识
+    private final Supplier<?> tenantSupplier;
+
+    /**
+     * 构造器
+     *
+     * @param ttl            缓存的有效时间
+     * @param maximumSize    缓存的最大条目数
+     * @param tenantSupplier 获取当前租户标识
+     */
+    public CountCacheInnerInterceptor(Duration ttl, long maximumSize, Supplier<?> tenantSupplier) {
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .build();
+        this.tenantSupplier = tenantSupplier;
+    }
+
+    @Override
+    public boolean willDoQuery(
+            Executor executor,
+            MappedStatement ms,
+            Object parameter,
+            RowBounds rowBounds,
+            ResultHandler resultHandler,
+            BoundSql boundSql) {
+        var page = findPage(parameter);
+        if (page != null) {
+            var key = cacheKey(executor, ms, parameter, rowBounds, boundSql);
+            var total = cache.getIfPresent(key);
+            if (total != null) {
+                // 缓存命中, 无需执行 COUNT 查询
+                page.setTotal(total).setSearchCount(false);
+            } else {
+                // 缓存未命中, 保存语句被改写前计算的 Key, 用于缓存 COUNT 查询的结果
+                page.setCountCacheKey(key);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取用于缓存 {@code COUNT} 查询结果的拦截器
+     *
+     * <p>
+     * 返回的拦截器和当前拦截器共享同一个缓存, 必须添加在分页拦截器之后
+     * </p>
+     *
+     * @return 用于缓存 {@code COUNT} 查询结果的拦截器
+     */
+    public InnerInterceptor recorder() {
+        return new Recorder();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 从查询参数中查找允许使用缓存总记录数, 且需要执行 {@code COUNT} 查询的分页对象
+     *
+     * @param parameter 查询参数
+     * @return 分页对象, 不存在时返回 {@code null}
+     */
+    private static Page<?> findPage(Object parameter) {
+        var page = ParameterUtils.findPage(parameter).orElse(null);
+        if (page instanceof Page<?> p && p.cacheCount() && p.searchCount()) {
+            return p;
+        }
+        return null;
+    }
+
+    /**
+     * 计算缓存的 Key
+     *
+     * @return 缓存的 Key
+     */
+    private CacheKey cacheKey(
+            Executor executor,
+            MappedStatement ms,
+            Object parameter,
+            RowBounds rowBounds,
+            BoundSql boundSql) {
+        var key = executor.createCacheKey(ms, parameter, rowBounds, boundSql);
+        key.update(String.valueOf(tenantSupplier.get()));
+        return key;
+    }
+
+    /**
+     * 缓存 {@code COUNT} 查询结果的拦截器
+     */
+    private class Recorder implements InnerInterceptor {
+        @Override
+        public boolean willDoQuery(
+                Executor executor,
+                MappedStatement ms,
+                Object parameter,
+                RowBounds rowBounds,
+                ResultHandler resultHandler,
+                BoundSql boundSql) {
+            // 缓存命中时 searchCount 已被关闭, 此时不会找到分页对象
+            var page = findPage(parameter);
+            if (page != null && page.countCacheKey() instanceof CacheKey key) {
+                // 分页拦截器已执行 COUNT 查询, 缓存其结果
+                cache.put(key, page.getTotal());
+                page.setCountCacheKey(null);
+            }
+            return true;
+        }
+    }
+}
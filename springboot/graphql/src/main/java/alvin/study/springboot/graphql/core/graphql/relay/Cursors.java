@@ -1,12 +1,23 @@
 package alvin.study.springboot.graphql.core.graphql.relay;
 
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 
 import jakarta.validation.constraints.NotNull;
 
 import org.springframework.lang.Contract;
 
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 
 import alvin.study.springboot.graphql.core.exception.InputException;
@@ -17,7 +28,16 @@ import graphql.relay.DefaultConnectionCursor;
  * 对查询结果在整体记录集合的位置 (游标) 进行编解码操作的类型
  *
  * <p>
- * 在本例中, 游标是通过一个 前缀 + 记录序号 (即第几条记录) 经过编码后的结果
+ * 在本例中, 游标包括两种形式:
+ * <ul>
+ * <li>
+ * 位置游标: 通过一个 前缀 + 记录序号 (即第几条记录) 经过编码后的结果, 用于基于偏移量的分页;
+ * </li>
+ * <li>
+ * 键集游标: 通过一个 前缀 + 记录各排序字段的值经过编码后的结果, 用于键集分页, 参见 {@link Keyset} 类型
+ * </li>
+ * </ul>
+ * 键集游标中的每个值都带有类型标记, 以便解码后按原类型作为 SQL 参数
  * </p>
  */
 public class Cursors {
@@ -27,6 +47,12 @@ public class Cursors {
     // 游标前缀
     private static final String DUMMY_CURSOR_PREFIX = "alvin_study_";
 
+    // 键集游标前缀
+    private static final String KEYSET_CURSOR_PREFIX = "alvin_study_k:";
+
+    // 键集游标中各个值的分隔符
+    private static final char KEYSET_SEPARATOR = ',';
+
     private Cursors() {}
 
     /**
@@ -74,4 +100,119 @@ public class Cursors {
     public static @NotNull ConnectionCursor makeConnCursor(Integer cursor) {
         return new DefaultConnectionCursor(makeCursor(cursor));
     }
+
+    /**
+     * 判断游标是否为键集游标
+     *
+     * @param cursor 游标字符串
+     * @return 是否为键集游标
+     */
+    public static boolean isKeysetCursor(String cursor) {
+        if (Strings.isNullOrEmpty(cursor)) {
+            return false;
+        }
+        try {
+            return new String(DECODER.decode(cursor), StandardCharsets.UTF_8).startsWith(KEYSET_CURSOR_PREFIX);
+        } catch (IllegalArgumentException e) {
+            throw new InputException("invalid_cursor");
+        }
+    }
+
+    /**
+     * 从 Base64 字符串中解析键集游标的值
+     *
+     * @param cursor 游标字符串
+     * @return 各排序字段的值
+     */
+    public static List<Object> parseKeysetCursor(String cursor) {
+        if (Strings.isNullOrEmpty(cursor)) {
+            return null;
+        }
+        try {
+            var rawCursor = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+            if (!rawCursor.startsWith(KEYSET_CURSOR_PREFIX)) {
+                throw new InputException("invalid_cursor");
+            }
+
+            var values = new ArrayList<>();
+            for (var token : Splitter.on(KEYSET_SEPARATOR).split(rawCursor.substring(KEYSET_CURSOR_PREFIX.length()))) {
+                values.add(decodeValue(URLDecoder.decode(token, StandardCharsets.UTF_8)));
+            }
+            return values;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InputException("invalid_cursor");
+        }
+    }
+
+    /**
+     * 将记录各排序字段的值编码为键集游标
+     *
+     * @param values 各排序字段的值
+     * @return 游标值
+     */
+    public static String makeKeysetCursor(List<Object> values) {
+        var tokens = values.stream()
+                .map(v -> URLEncoder.encode(encodeValue(v), StandardCharsets.UTF_8))
+                .toList();
+
+        var bytes = (KEYSET_CURSOR_PREFIX + Joiner.on(KEYSET_SEPARATOR).join(tokens)).getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(bytes);
+    }
+
+    /**
+     * 将记录各排序字段的值编码为键集游标
+     *
+     * @param values 各排序字段的值
+     * @return 游标值
+     */
+    @Contract("_ -> new")
+    public static @NotNull ConnectionCursor makeKeysetConnCursor(List<Object> values) {
+        return new DefaultConnectionCursor(makeKeysetCursor(values));
+    }
+
+    /**
+     * 将排序字段的值编码为 "类型标记 + 值" 形式的字符串
+     *
+     * @param value 排序字段的值
+     * @return 编码后的字符串
+     */
+    private static String encodeValue(Object value) {
+        return switch (value) {
+            case Long l -> "l" + l;
+            case Integer i -> "i" + i;
+            case String s -> "s" + s;
+            case Instant t -> "t" + t;
+            case LocalDateTime t -> "T" + t;
+            case LocalDate d -> "d" + d;
+            case BigDecimal n -> "n" + n.toPlainString();
+            case Boolean b -> "b" + b;
+            case null -> throw new IllegalArgumentException("keyset value cannot be null");
+            default -> throw new IllegalArgumentException("unsupported keyset value type " + value.getClass());
+        };
+    }
+
+    /**
+     * 将 "类型标记 + 值" 形式的字符串解码为排序字段的值
+     *
+     * @param token 编码后的字符串
+     * @return 排序字段的值
+     */
+    private static Object decodeValue(String token) {
+        if (token.isEmpty()) {
+            throw new IllegalArgumentException("empty keyset token");
+        }
+
+        var value = token.substring(1);
+        return switch (token.charAt(0)) {
+            case 'l' -> Long.parseLong(value);
+            case 'i' -> Integer.parseInt(value);
+            case 's' -> value;
+            case 't' -> Instant.parse(value);
+            case 'T' -> LocalDateTime.parse(value);
+            case 'd' -> LocalDate.parse(value);
+            case 'n' -> new BigDecimal(value);
+            case 'b' -> Boolean.parseBoolean(value);
+            default -> throw new IllegalArgumentException("unknown keyset token type " + token.charAt(0));
+        };
+    }
 }
@@ -0,0 +1,59 @@
+package alvin.study.springboot.graphql.core.graphql.relay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+/**
+ * 键集 (Keyset) 分页条件
+ *
+ * <p>
+ * 基于偏移量的分页 ({@code LIMIT offset, size}) 需要数据库扫描并丢弃 {@code offset} 之前的全部记录, 页码越大代价越高,
+ * 且在翻页期间插入或删除记录会导致结果错位. 键集分页 (又称 Seek 分页) 则将上一页最后一条记录的排序字段值作为游标,
+ * 下一页的查询条件为 "排序字段组合大于游标值", 例如:
+ *
+ * <pre>
+ * WHERE (created_at, id) &gt; (?, ?) ORDER BY created_at, id LIMIT ?
+ * </pre>
+ *
+ * 只要排序字段上有索引, 数据库即可直接定位到游标位置, 任意一页的代价都和第一页相同
+ * </p>
+ *
+ * <p>
+ * 键集分页要求排序字段组合唯一且不为 {@code NULL}, 所以排序字段的最后一个总是实体的主键. 查询条件由
+ * {@link KeysetInnerInterceptor} 拦截器添加到 SQL 语句中
+ * </p>
+ *
+ * @param columns  排序字段对应的数据表字段名
+ * @param props    排序字段对应的实体属性名, 用于从查询结果中获取下一个游标的值
+ * @param asc      各排序字段是否为升序, 已按照查询方向调整
+ * @param values   游标中各排序字段的值, {@code null} 表示从第一条记录开始
+ * @param backward 是否为向前翻页 ({@code before}/{@code last}), 此时排序方向和比较方向均被反转, 查询结果需再次反转
+ */
+record Keyset(List<String> columns, List<String> props, List<Boolean> asc, List<Object> values, boolean backward) {
+    /**
+     * 从查询结果中获取排序字段的值, 作为该记录的游标值
+     *
+     * @param record 查询结果的一条记录
+     * @return 排序字段值集合
+     */
+    List<Object> valuesOf(Object record) {
+        var meta = SystemMetaObject.forObject(record);
+
+        var result = new ArrayList<>(props.size());
+        for (var prop : props) {
+            result.add(meta.getValue(prop));
+        }
+        return result;
+    }
+
+    /**
+     * 判断所有排序字段的方向是否一致
+     *
+     * @return 所有排序字段的方向是否一致
+     */
+    boolean isUniform() {
+        return asc.stream().distinct().count() <= 1;
+    }
+}
@@ -0,0 +1,180 @@
+package alvin.study.springboot.graphql.core.graphql.relay;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.toolkit.ParameterUtils;
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+
+/**
+ * 键集分页拦截器
+ *
+ * <p>
+ * 当查询参数中的分页对象包含 {@link Keyset} 键集分页条件时, 将原查询语句改写为:
+ *
+ * <pre>
+ * SELECT * FROM (原查询语句) keyset_t
+ * WHERE created_at &gt;= ? AND (created_at &gt; ? OR (created_at = ? AND id &gt; ?))
+ * ORDER BY created_at ASC, id ASC
+ * </pre>
+ *
+ * 查询条件和 {@code (created_at, id) > (?, ?)} 等价, 之所以展开书写, 是因为并非所有数据库都能对行值比较使用索引范围扫描,
+ * 且展开后也可以表达各字段排序方向不同的情况. 当各字段排序方向一致时, 额外添加的 {@code created_at >= ?} 条件令数据库可以直接从索引中定位起点
+ * </p>
+ *
+ * <p>
+ * 原查询语句被包装为派生表, 因此排序字段无需关心原查询中的表别名; MySQL, H2 等数据库会将简单的派生表合并到外层查询中,
+ * 不会产生额外的物化开销
+ * </p>
+ *
+ * <p>
+ * 本类型从 {@link PaginationInnerInterceptor} 继承, 用于替代分页拦截器:
+ * <ul>
+ * <li>
+ * {@link #willDoQuery} 阶段由分页拦截器在原查询语句上执行 {@code COUNT} 查询, 所以总记录数不受游标位置的影响;
+ * </li>
+ * <li>
+ * {@link #beforeQuery} 阶段先添加键集条件, 再由分页拦截器在改写后的语句上添加 {@code LIMIT}
+ * </li>
+ * </ul>
+ * {@link com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor MybatisPlusInterceptor} 对每个拦截器依次调用
+ * {@link #willDoQuery} 和 {@link #beforeQuery} 方法, 如果键集拦截器和分页拦截器分别添加, 则无论先后顺序,
+ * 都无法令 {@code COUNT} 查询使用原查询语句的同时令 {@code LIMIT} 添加在键集条件之后
+ * </p>
+ */
+public class KeysetInnerInterceptor extends PaginationInnerInterceptor {
+    // 派生表别名
+    private static final String ALIAS = "keyset_t";
+
+    // 附加参数名前缀
+    private static final String PARAM_PREFIX = "keyset_";
+
+    /**
+     * 构造器
+     *
+     * @param dbType 数据库类型
+     */
+    public KeysetInnerInterceptor(DbType dbType) {
+        super(dbType);
+    }
+
+    @Override
+    public void beforeQuery(
+            Executor executor,
+            MappedStatement ms,
+            Object parameter,
+            RowBounds rowBounds,
+            ResultHandler resultHandler,
+            BoundSql boundSql) throws SQLException {
+        var page = ParameterUtils.findPage(parameter).orElse(null);
+        if (page instanceof Page<?> p && p.keyset() != null) {
+            applyKeyset(p.keyset(), ms, boundSql);
+        }
+
+        // 在改写后的语句上添加 LIMIT
+        super.beforeQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+    }
+
+    /**
+     * 将原查询语句改写为键集分页查询语句
+     *
+     * @param keyset   键集分页条件
+     * @param ms       {@link MappedStatement} 对象
+     * @param boundSql 要改写的 {@link BoundSql} 对象
+     */
+    private static void applyKeyset(Keyset keyset, MappedStatement ms, BoundSql boundSql) {
+        var mpBoundSql = PluginUtils.mpBoundSql(boundSql);
+
+        var sql = new StringBuilder("SELECT * FROM (").append(mpBoundSql.sql()).append(") ").append(ALIAS);
+        var args = new ArrayList<>();
+
+        // 第一页无需查询条件, 只需要排序
+        if (keyset.values() != null) {
+            sql.append(" WHERE ").append(buildCondition(keyset, args));
+        }
+        sql.append(" ORDER BY ").append(buildOrderBy(keyset));
+
+        var mappings = new ArrayList<>(mpBoundSql.parameterMappings());
+        for (var i = 0; i < args.size(); i++) {
+            var name = PARAM_PREFIX + i;
+            var arg = args.get(i);
+            mappings.add(new ParameterMapping.Builder(ms.getConfiguration(), name, arg.getClass()).build());
+            boundSql.setAdditionalParameter(name, arg);
+        }
+
+        mpBoundSql.sql(sql.toString());
+        mpBoundSql.parameterMappings(mappings);
+    }
+
+    /**
+     * 构建键集查询条件
+     *
+     * <p>
+     * 对于排序字段 {@code c1, c2, ..., cn}, 条件为 {@code c1 > ? OR (c1 = ? AND c2 > ?) OR ...}, 其中比较方向取决于各字段的排序方向
+     * </p>
+     *
+     * @param keyset 键集分页条件
+     * @param args   按顺序收集的参数值
+     * @return 查询条件
+     */
+    private static String buildCondition(Keyset keyset, List<Object> args) {
+        var columns = keyset.columns();
+        var values = keyset.values();
+
+        var disjuncts = new ArrayList<String>();
+        for (var i = 0; i < columns.size(); i++) {
+            var terms = new ArrayList<String>();
+            for (var j = 0; j < i; j++) {
+                terms.add(column(columns.get(j)) + " = ?");
+                args.add(values.get(j));
+            }
+            terms.add(column(columns.get(i)) + (keyset.asc().get(i) ? " > ?" : " < ?"));
+            args.add(values.get(i));
+
+            disjuncts.add(terms.size() == 1 ? terms.get(0) : "(" + String.join(" AND ", terms) + ")");
+        }
+
+        var condition = "(" + String.join(" OR ", disjuncts) + ")";
+        if (columns.size() == 1 || !keyset.isUniform()) {
+            return condition;
+        }
+
+        // 排序方向一致时, 添加首个排序字段的范围条件, 以便使用索引定位起点
+        args.add(0, values.get(0));
+        return column(columns.get(0)) + (keyset.asc().get(0) ? " >= ?" : " <= ?") + " AND " + condition;
+    }
+
+    /**
+     * 构建排序语句
+     *
+     * @param keyset 键集分页条件
+     * @return 排序语句
+     */
+    private static String buildOrderBy(Keyset keyset) {
+        var items = new ArrayList<String>();
+        for (var i = 0; i < keyset.columns().size(); i++) {
+            items.add(column(keyset.columns().get(i)) + (keyset.asc().get(i) ? " ASC" : " DESC"));
+        }
+        return String.join(", ", items);
+    }
+
+    /**
+     * 获取派生表中的字段名
+     *
+     * @param column 字段名
+     * @return 带派生表别名的字段名
+     */
+    private static String column(String column) {
+        return ALIAS + "." + column;
+    }
+}
@@ -1,6 +1,7 @@
 package alvin.study.springboot.graphql.core.graphql.relay;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
@@ -18,6 +19,11 @@ import com.baomidou.mybatisplus.core.metadata.OrderItem;
  * {@link com.baomidou.mybatisplus.extension.plugins.pagination.Page Page} 不支持
  * Graphql 的分页参数 (after/first, before/last 等)
  * </p>
+ *
+ * <p>
+ * 如果设置了探测记录 ({@link #setProbe(boolean)}), 则每页记录数比实际请求的记录数多 {@code 1}, 多查询的一条记录只用于判断是否还有更多记录,
+ * 在 {@link #setRecords(List)} 时会被去除. 键集分页 (参见 {@link Keyset}) 以及不查询总记录数的分页均通过这种方式判断是否有下一页
+ * </p>
  */
 class Page<T> implements IPage<T> {
     /**
@@ -50,6 +56,36 @@ class Page<T> implements IPage<T> {
      */
     private String countId;
 
+    /**
+     * 键集分页条件, {@code null} 表示基于偏移量分页
+     */
+    private Keyset keyset;
+
+    /**
+     * 是否多查询一条记录, 用于判断是否还有更多记录
+     */
+    private boolean probe;
+
+    /**
+     * 本页之后 (向前翻页时为本页之前) 是否还有更多记录, 只在 {@link #probe} 为 {@code true} 时有效
+     */
+    private boolean hasMore;
+
+    /**
+     * 是否执行 {@code COUNT} 查询获取总记录数
+     */
+    private boolean searchCount = true;
+
+    /**
+     * 是否允许使用缓存的总记录数, 参见 {@link CountCacheInnerInterceptor}
+     */
+    private boolean cacheCount;
+
+    /**
+     * 缓存总记录数所用的 Key, 在语句被改写前计算, 参见 {@link CountCacheInnerInterceptor}
+     */
+    private Object countCacheKey;
+
     /**
      * 获取排序字段
      *
@@ -93,6 +129,19 @@ class Page<T> implements IPage<T> {
      */
     @Override
     public Page<T> setRecords(List<T> records) {
+        if (probe) {
+            // 去除用于判断是否还有更多记录的多余记录
+            hasMore = records.size() >= size;
+            if (hasMore) {
+                records = records.subList(0, (int) size - 1);
+            }
+        }
+
+        // 向前翻页时查询结果为反向排列, 需要恢复为正常顺序
+        if (keyset != null && keyset.backward()) {
+            records = new ArrayList<>(records);
+            Collections.reverse(records);
+        }
         this.records = records;
         return this;
     }
@@ -187,4 +236,120 @@ class Page<T> implements IPage<T> {
     public String countId() {
         return this.countId;
     }
+
+    /**
+     * 获取键集分页条件
+     *
+     * @return 键集分页条件, {@code null} 表示基于偏移量分页
+     */
+    Keyset keyset() {
+        return keyset;
+    }
+
+    /**
+     * 设置键集分页条件
+     *
+     * @param keyset 键集分页条件
+     * @return 当前对象
+     */
+    Page<T> setKeyset(Keyset keyset) {
+        this.keyset = keyset;
+        return this;
+    }
+
+    /**
+     * 获取是否多查询一条记录, 用于判断是否还有更多记录
+     *
+     * @return 是否多查询一条记录
+     */
+    boolean probe() {
+        return probe;
+    }
+
+    /**
+     * 设置是否多查询一条记录, 用于判断是否还有更多记录
+     *
+     * <p>
+     * 调用者需自行将每页记录数加 {@code 1}
+     * </p>
+     *
+     * @param probe 是否多查询一条记录
+     * @return 当前对象
+     */
+    Page<T> setProbe(boolean probe) {
+        this.probe = probe;
+        return this;
+    }
+
+    /**
+     * 获取本页之后 (向前翻页时为本页之前) 是否还有更多记录
+     *
+     * @return 是否还有更多记录
+     */
+    boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * 获取是否执行 {@code COUNT} 查询获取总记录数
+     *
+     * <p>
+     * 返回 {@code false} 时, Mybatis-Plus 分页插件不会执行 {@code COUNT} 查询, 总记录数为 {@code 0}
+     * </p>
+     */
+    @Override
+    public boolean searchCount() {
+        return searchCount;
+    }
+
+    /**
+     * 设置是否执行 {@code COUNT} 查询获取总记录数
+     *
+     * @param searchCount 是否执行 {@code COUNT} 查询
+     * @return 当前对象
+     */
+    Page<T> setSearchCount(boolean searchCount) {
+        this.searchCount = searchCount;
+        return this;
+    }
+
+    /**
+     * 获取是否允许使用缓存的总记录数
+     *
+     * @return 是否允许使用缓存的总记录数
+     */
+    boolean cacheCount() {
+        return cacheCount;
+    }
+
+    /**
+     * 设置是否允许使用缓存的总记录数
+     *
+     * @param cacheCount 是否允许使用缓存的总记录数
+     * @return 当前对象
+     */
+    Page<T> setCacheCount(boolean cacheCount) {
+        this.cacheCount = cacheCount;
+        return this;
+    }
+
+    /**
+     * 获取缓存总记录数所用的 Key
+     *
+     * @return 缓存的 Key, 未计算时返回 {@code null}
+     */
+    Object countCacheKey() {
+        return countCacheKey;
+    }
+
+    /**
+     * 设置缓存总记录数所用的 Key
+     *
+     * @param countCacheKey 缓存的 Key
+     * @return 当前对象
+     */
+    Page<T> setCountCacheKey(Object countCacheKey) {
+        this.countCacheKey = countCacheKey;
+        return this;
+    }
 }
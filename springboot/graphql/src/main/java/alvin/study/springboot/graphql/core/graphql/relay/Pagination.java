@@ -1,19 +1,25 @@
 package alvin.study.springboot.graphql.core.graphql.relay;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import jakarta.validation.constraints.NotNull;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.core.metadata.OrderItem;
+import com.baomidou.mybatisplus.core.metadata.TableFieldInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 
 import com.google.common.base.Splitter;
 
 import lombok.Getter;
 
 import alvin.study.springboot.graphql.core.exception.InputException;
+import graphql.schema.DataFetchingFieldSelectionSet;
 
 /**
  * 辅助分页工具类
@@ -82,8 +88,10 @@ public class Pagination {
      * </p>
      *
      * <p>
-     * 当然, 为了简单起见, 本例中的所有游标也都是通过数据的位置索引计算的, 除此方法外, 还可以通过 {@code id},
-     * {@code timestamp} 等有序字段来计算游标
+     * 默认情况下, 游标是通过数据的位置索引计算的, 即转化为 {@code OFFSET} 分页. 如果通过 {@link #withKeyset(Class)}
+     * 方法指定了实体类型, 且排序字段均为该实体的字段, 则改为通过排序字段的值 (以及作为最后排序字段的 {@code id})
+     * 计算游标, 即键集分页, 参见 {@link Keyset} 类型. 对于任意的排序规则 (例如排序字段不属于实体), 以及通过
+     * {@code offset} 或位置游标指定的分页, 仍然使用 {@code OFFSET} 分页
      * </p>
      */
     public final class PageBuilder<T> {
@@ -99,9 +107,24 @@ public class Pagination {
         // 表示游标, 将从该游标之前取 `last` 条记录
         private Integer before;
 
+        // 表示键集游标, 将从该游标之后取 `first` 条记录
+        private List<Object> afterKey;
+
+        // 表示键集游标, 将从该游标之前取 `last` 条记录
+        private List<Object> beforeKey;
+
         // 表示排序规则
         private List<String> orders;
 
+        // 表示键集分页对应的实体类型, 为 null 时使用 OFFSET 分页
+        private Class<?> keysetType;
+
+        // 表示是否需要查询总记录数
+        private boolean countRequired = true;
+
+        // 表示是否允许使用缓存的总记录数
+        private boolean cacheCount;
+
         public PageBuilder<T> withFirst(Integer first) {
             if (first != null) {
                 this.first = first;
@@ -131,19 +154,67 @@ public class Pagination {
         }
 
         public PageBuilder<T> withBefore(String before) {
-            if (before != null) {
+            if (Cursors.isKeysetCursor(before)) {
+                this.beforeKey = Cursors.parseKeysetCursor(before);
+            } else if (before != null) {
                 this.before = Cursors.parseCursor(before);
             }
             return this;
         }
 
         public PageBuilder<T> withAfter(String after) {
-            if (after != null) {
+            if (Cursors.isKeysetCursor(after)) {
+                this.afterKey = Cursors.parseKeysetCursor(after);
+            } else if (after != null) {
                 this.after = Cursors.parseCursor(after);
             }
             return this;
         }
 
+        /**
+         * 根据 GraphQL 查询的字段选择集, 确定是否需要查询总记录数
+         *
+         * <p>
+         * 只有查询了 Connection 的 {@code totalCount} 字段时, 才需要执行 {@code COUNT} 查询; 否则通过多查询一条记录的方式判断是否有下一页,
+         * 对于大数据表, {@code COUNT} 查询的代价往往高于分页查询本身
+         * </p>
+         *
+         * @param selectionSet 返回 Connection 对象的字段的选择集
+         * @return 当前对象
+         */
+        public PageBuilder<T> withSelectionSet(DataFetchingFieldSelectionSet selectionSet) {
+            if (selectionSet != null) {
+                this.countRequired = selectionSet.contains("totalCount");
+            }
+            return this;
+        }
+
+        /**
+         * 允许使用缓存的总记录数
+         *
+         * <p>
+         * 对于总记录数只作为参考显示的场景, 可以在一段时间内复用同一租户, 同一查询条件的 {@code COUNT} 查询结果, 参见
+         * {@link CountCacheInnerInterceptor} 类型
+         * </p>
+         *
+         * @return 当前对象
+         */
+        public PageBuilder<T> withApproximateCount() {
+            this.cacheCount = true;
+            return this;
+        }
+
+        /**
+         * 启用键集分页
+         *
+         * @param entityType 查询结果的实体类型, 用于确认排序字段和主键字段
+         * @return 当前对象
+         */
+        public PageBuilder<T> withKeyset(Class<? super T> entityType) {
+            this.keysetType = entityType;
+            return this;
+        }
+
         public PageBuilder<T> withOrder(String order) {
             if (order == null) {
                 this.orders = List.of();
@@ -182,9 +253,25 @@ public class Pagination {
          * @return {@link IPage} 分页对象
          */
         public IPage<T> build() {
+            // 优先构建键集分页对象
+            var keyset = buildKeyset();
+            if (keyset != null) {
+                return keysetToPage(keyset).setSearchCount(countRequired).setCacheCount(cacheCount);
+            }
+
+            if (afterKey != null || beforeKey != null) {
+                throw new InputException("invalid_cursor");
+            }
+
             // 构建分页对象
             var page = relayToPage();
 
+            // 无需查询总记录数时, 通过多查询一条记录判断是否有下一页
+            if (!countRequired) {
+                page.setSearchCount(false).setProbe(true).setSize(page.getSize() + 1);
+            }
+            page.setCacheCount(cacheCount);
+
             // 添加排序属性
             if (orders != null) {
                 page.addOrder(buildOrderItems());
@@ -223,6 +310,118 @@ public class Pagination {
             return new Page<T>().setOffset(Math.max(before - last, 0)).setSize(Math.min(last, maxPageSize));
         }
 
+        /**
+         * 将 Relay 分页参数和键集分页条件转化为 Mybatis-Plus 分页对象
+         *
+         * <p>
+         * 分页对象的偏移量为 {@code 0}, 每页记录数多取 {@code 1} 条, 用于判断是否还有更多记录
+         * </p>
+         *
+         * @param keyset 键集分页条件
+         * @return {@link Page} 类型 Mybatis-Plus 分页对象
+         */
+        private Page<T> keysetToPage(Keyset keyset) {
+            var size = keyset.backward() ? last : first;
+            if (size == null) {
+                size = defaultPageSize;
+            }
+            return new Page<T>()
+                    .setKeyset(keyset)
+                    .setProbe(true)
+                    .setOffset(0)
+                    .setSize(Math.min(size, maxPageSize) + 1);
+        }
+
+        /**
+         * 构建键集分页条件
+         *
+         * <p>
+         * 以下情况无法使用键集分页, 返回 {@code null}:
+         * <ul>
+         * <li>
+         * 未通过 {@link #withKeyset(Class)} 方法启用键集分页;
+         * </li>
+         * <li>
+         * 通过 {@code offset} 或位置游标指定了分页位置;
+         * </li>
+         * <li>
+         * 排序字段不属于实体;
+         * </li>
+         * <li>
+         * 排序字段可能为 {@code null}, 即字段既不是基本类型, 也未标记 {@link NotNull @NotNull} 注解. {@code null} 值无法参与键集条件的比较,
+         * 也无法编码为键集游标
+         * </li>
+         * </ul>
+         * </p>
+         *
+         * @return 键集分页条件
+         */
+        private Keyset buildKeyset() {
+            if (keysetType == null || after != null || before != null) {
+                return null;
+            }
+
+            var tableInfo = TableInfoHelper.getTableInfo(keysetType);
+            if (tableInfo == null || tableInfo.getKeyColumn() == null) {
+                return null;
+            }
+
+            var columns = new ArrayList<String>();
+            var props = new ArrayList<String>();
+            var asc = new ArrayList<Boolean>();
+
+            // 主键的排序方向, 默认为升序
+            var keyAsc = true;
+
+            for (var item : orders == null ? List.<OrderItem>of() : buildOrderItems()) {
+                // 主键即可确定唯一的顺序, 之后的排序字段无意义
+                if (item.getColumn().equals(tableInfo.getKeyColumn())) {
+                    keyAsc = item.isAsc();
+                    break;
+                }
+
+                var field = tableInfo.getFieldList().stream()
+                        .filter(f -> f.getColumn().equals(item.getColumn()))
+                        .findFirst();
+                if (field.isEmpty() || !isNonNull(field.get())) {
+                    // 排序字段不属于实体或可能为 null, 使用 OFFSET 分页
+                    return null;
+                }
+
+                columns.add(field.get().getColumn());
+                props.add(field.get().getProperty());
+                asc.add(item.isAsc());
+            }
+
+            // 以主键作为最后一个排序字段, 令排序字段组合唯一
+            columns.add(tableInfo.getKeyColumn());
+            props.add(tableInfo.getKeyProperty());
+            asc.add(keyAsc);
+
+            var values = beforeKey != null ? beforeKey : afterKey;
+            if (values != null && values.size() != columns.size()) {
+                // 游标和排序规则不匹配
+                throw new InputException("invalid_cursor");
+            }
+
+            // 向前翻页时, 反转排序方向
+            var backward = beforeKey != null;
+            if (backward) {
+                asc.replaceAll(a -> !a);
+            }
+            return new Keyset(List.copyOf(columns), List.copyOf(props), List.copyOf(asc), values, backward);
+        }
+
+        /**
+         * 判断实体字段的值是否不可能为 {@code null}
+         *
+         * @param field 实体字段信息
+         * @return 字段为基本类型或标记了 {@link NotNull @NotNull} 注解时返回 {@code true}
+         */
+        private static boolean isNonNull(TableFieldInfo field) {
+            return field.getPropertyType().isPrimitive() || field.getField().isAnnotationPresent(NotNull.class);
+        }
+
         /**
          * 构建排序字段集合
          *
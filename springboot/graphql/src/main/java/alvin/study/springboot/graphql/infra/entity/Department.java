@@ -1,5 +1,7 @@
 package alvin.study.springboot.graphql.infra.entity;
 
+import jakarta.validation.constraints.NotNull;
+
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableLogic;
 import com.baomidou.mybatisplus.annotation.TableName;
@@ -41,6 +43,7 @@ public class Department extends AuditedEntity {
     /**
      * 部门名称
      */
+    @NotNull
     @TableField("name")
     private String name;
 
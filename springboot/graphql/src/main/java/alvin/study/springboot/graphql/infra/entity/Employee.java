@@ -3,6 +3,8 @@ package alvin.study.springboot.graphql.infra.entity;
 import java.util.HashMap;
 import java.util.Map;
 
+import jakarta.validation.constraints.NotNull;
+
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableLogic;
 import com.baomidou.mybatisplus.annotation.TableName;
@@ -35,18 +37,21 @@ public class Employee extends AuditedEntity {
     /**
      * 职员名称
      */
+    @NotNull
     @TableField("name")
     private String name;
 
     /**
      * 职员电子邮件地址
      */
+    @NotNull
     @TableField("email")
     private String email;
 
     /**
      * 职员职称
      */
+    @NotNull
     @TableField("title")
     private String title;
 
@@ -2,6 +2,8 @@ package alvin.study.springboot.graphql.infra.entity.common;
 
 import java.time.Instant;
 
+import jakarta.validation.constraints.NotNull;
+
 import com.baomidou.mybatisplus.annotation.FieldFill;
 import com.baomidou.mybatisplus.annotation.TableField;
 
@@ -52,10 +54,12 @@ public abstract class AuditedEntity extends TenantedEntity {
     private Long updatedBy;
 
     // 记录实体创建时间
+    @NotNull
     @TableField(value = "created_at", fill = FieldFill.INSERT)
     private Instant createdAt;
 
     // 记录实体更新时间
+    @NotNull
     @TableField(value = "updated_at", fill = FieldFill.INSERT_UPDATE)
     private Instant updatedAt;
 }
@@ -92,13 +92,20 @@ public abstract class WebTest extends IntegrationTest {
     }
 
     protected GraphQlTester qlTester() {
-        var token = jwt.encode(currentOrg().getId().toString(), currentUser().getId().toString());
-
         return qlTester.mutate()
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .header(HttpHeaders.AUTHORIZATION, bearerToken())
                 .build();
     }
 
+    /**
+     * 为当前组织和用户产生 {@code Authorization} 请求头的值
+     *
+     * @return {@code Bearer} 开头的 token 字符串
+     */
+    protected String bearerToken() {
+        return "Bearer " + jwt.encode(currentOrg().getId().toString(), currentUser().getId().toString());
+    }
+
     protected String formatDatetime(Instant instant) {
         return instant.atZone(ZoneOffset.UTC)
                 .format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'.000Z'"));
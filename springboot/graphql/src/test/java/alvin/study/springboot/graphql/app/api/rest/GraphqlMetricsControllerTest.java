@@ -0,0 +1,51 @@
+package alvin.study.springboot.graphql.app.api.rest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+
+import org.junit.jupiter.api.Test;
+
+import alvin.study.springboot.graphql.WebTest;
+import alvin.study.springboot.graphql.builder.UserBuilder;
+import alvin.study.springboot.graphql.core.graphql.instrumentation.GraphqlMetrics;
+
+class GraphqlMetricsControllerTest extends WebTest {
+    @Autowired
+    private GraphqlMetrics metrics;
+
+    /**
+     * 测试执行 GraphQL 查询后, 可以获取字段解析耗时和数据加载器批量大小
+     */
+    @Test
+    void snapshot_shouldGetFieldLatenciesAndBatchSizes() {
+        var user = newBuilder(UserBuilder.class).create();
+
+        metrics.reset();
+
+        qlTester().documentName("user")
+                .operationName("queryUser")
+                .variable("id", user.getId())
+                .execute()
+                .path("user.id").entity(String.class).isEqualTo(user.getId().toString());
+
+        client().get().uri("/metrics/graphql")
+                .header(HttpHeaders.AUTHORIZATION, bearerToken())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.payload.fieldLatencies['Query.user'].count").isEqualTo(1)
+                .jsonPath("$.payload.fieldLatencies['User.createdByUser'].count").isEqualTo(1)
+                .jsonPath("$.payload.batchSizes.UserLoader.count").isEqualTo(1)
+                .jsonPath("$.payload.batchSizes.UserLoader.buckets.le_1").isEqualTo(1);
+    }
+
+    /**
+     * 测试未携带 token 时无法获取指标
+     */
+    @Test
+    void snapshot_shouldBeForbiddenWithoutToken() {
+        client().get().uri("/metrics/graphql")
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 
 import alvin.study.springboot.graphql.IntegrationTest;
 import alvin.study.springboot.graphql.builder.DepartmentBuilder;
+import alvin.study.springboot.graphql.core.graphql.dataloader.LoaderSettings;
 import alvin.study.springboot.graphql.infra.entity.Department;
 import alvin.study.springboot.graphql.infra.mapper.DepartmentMapper;
 
@@ -17,6 +18,9 @@ class DepartmentLoaderTest extends IntegrationTest {
     @Autowired
     private DepartmentMapper departmentMapper;
 
+    @Autowired
+    private LoaderSettings settings;
+
     @Test
     void apply_shouldLoadDepartments() {
         Department department1, department2, department3;
@@ -27,7 +31,7 @@ class DepartmentLoaderTest extends IntegrationTest {
             department3 = newBuilder(DepartmentBuilder.class).create();
         }
 
-        var loader = new DepartmentLoader(departmentMapper);
+        var loader = new DepartmentLoader(departmentMapper, settings);
         var result = loader.apply(
             Set.of(department1.getId(), department2.getId(), department3.getId()), null);
 
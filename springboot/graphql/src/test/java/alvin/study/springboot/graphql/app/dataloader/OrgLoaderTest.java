@@ -2,6 +2,7 @@ package alvin.study.springboot.graphql.app.dataloader;
 
 import static org.assertj.core.api.BDDAssertions.then;
 
+import java.time.Duration;
 import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.Test;
 
 import alvin.study.springboot.graphql.IntegrationTest;
 import alvin.study.springboot.graphql.builder.OrgBuilder;
+import alvin.study.springboot.graphql.core.graphql.dataloader.LoaderSettings;
 import alvin.study.springboot.graphql.infra.entity.Org;
 import alvin.study.springboot.graphql.infra.mapper.OrgMapper;
 
@@ -17,6 +19,9 @@ class OrgLoaderTest extends IntegrationTest {
     @Autowired
     private OrgMapper orgMapper;
 
+    @Autowired
+    private LoaderSettings settings;
+
     @Test
     void apply_shouldLoadOrgs() {
         Org org1, org2, org3;
@@ -27,7 +32,7 @@ class OrgLoaderTest extends IntegrationTest {
             org3 = newBuilder(OrgBuilder.class).create();
         }
 
-        var loader = new OrgLoader(orgMapper);
+        var loader = new OrgLoader(orgMapper, settings);
         var result = loader.apply(
             Set.of(org1.getId(), org2.getId(), org3.getId()), null);
 
@@ -36,4 +41,44 @@ class OrgLoaderTest extends IntegrationTest {
         then(map.get(org2.getId()).getId()).isEqualTo(org2.getId());
         then(map.get(org3.getId()).getId()).isEqualTo(org3.getId());
     }
+
+    /**
+     * 测试分组查询和二级缓存
+     *
+     * <p>
+     * 每组最多查询 2 个实体, 3 个实体需分为 2 组查询; 实体被删除后, 在缓存失效前仍可从缓存中获取
+     * </p>
+     */
+    @Test
+    void apply_shouldLoadInChunksAndCacheOrgs() {
+        Org org1, org2, org3;
+
+        try (var _ = beginTx(false)) {
+            org1 = newBuilder(OrgBuilder.class).create();
+            org2 = newBuilder(OrgBuilder.class).create();
+            org3 = newBuilder(OrgBuilder.class).create();
+        }
+
+        var loader = new OrgLoader(
+            orgMapper, new LoaderSettings(settings.executor(), 10, 2, Duration.ofMinutes(1), 100, null));
+
+        var ids = Set.of(org1.getId(), org2.getId(), org3.getId());
+
+        var map = loader.apply(ids, null).block();
+        then(map).hasSize(3).containsKeys(org1.getId(), org2.getId(), org3.getId());
+
+        try (var _ = beginTx(false)) {
+            orgMapper.deleteById(org1.getId());
+        }
+
+        // 实体已被删除, 但仍可从缓存中获取
+        map = loader.apply(ids, null).block();
+        then(map).hasSize(3).containsKey(org1.getId());
+
+        // 缓存失效后, 被删除的实体无法再获取
+        loader.invalidate(org1.getId());
+
+        map = loader.apply(ids, null).block();
+        then(map).hasSize(2).doesNotContainKey(org1.getId());
+    }
 }
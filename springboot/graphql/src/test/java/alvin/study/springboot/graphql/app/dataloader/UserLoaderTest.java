@@ -10,6 +10,7 @@ import org.junit.jupiter.api.Test;
 
 import alvin.study.springboot.graphql.IntegrationTest;
 import alvin.study.springboot.graphql.builder.UserBuilder;
+import alvin.study.springboot.graphql.core.graphql.dataloader.LoaderSettings;
 import alvin.study.springboot.graphql.infra.entity.User;
 import alvin.study.springboot.graphql.infra.mapper.UserMapper;
 
@@ -17,6 +18,9 @@ class UserLoaderTest extends IntegrationTest {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private LoaderSettings settings;
+
     @Test
     void apply_shouldLoadUsers() {
         User user1, user2, user3;
@@ -29,7 +33,7 @@ class UserLoaderTest extends IntegrationTest {
             user3 = newBuilder(UserBuilder.class).create();
         }
 
-        var loader = new UserLoader(userMapper);
+        var loader = new UserLoader(userMapper, settings);
         var result = loader.apply(
             Set.of(user1.getId(), user2.getId(), user3.getId()), null);
 
@@ -2,9 +2,12 @@ package alvin.study.springboot.graphql.app.service;
 
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+import static org.mockito.Mockito.doReturn;
 
 import java.util.List;
 
+import org.mockito.Mock;
+
 import org.springframework.beans.factory.annotation.Autowired;
 
 import org.junit.jupiter.api.Test;
@@ -14,10 +17,12 @@ import alvin.study.springboot.graphql.builder.DepartmentBuilder;
 import alvin.study.springboot.graphql.builder.DepartmentEmployeeBuilder;
 import alvin.study.springboot.graphql.builder.EmployeeBuilder;
 import alvin.study.springboot.graphql.core.exception.NotFoundException;
+import alvin.study.springboot.graphql.core.graphql.relay.ConnectionBuilder;
 import alvin.study.springboot.graphql.core.graphql.relay.Pagination;
 import alvin.study.springboot.graphql.infra.entity.Department;
 import alvin.study.springboot.graphql.infra.entity.DepartmentEmployee;
 import alvin.study.springboot.graphql.infra.entity.Employee;
+import graphql.schema.DataFetchingFieldSelectionSet;
 
 class EmployeeServiceTest extends IntegrationTest {
     @Autowired
@@ -29,6 +34,9 @@ class EmployeeServiceTest extends IntegrationTest {
     @Autowired
     private Pagination pagination;
 
+    @Mock
+    private DataFetchingFieldSelectionSet mockedSelectionSet;
+
     @Test
     void create_shouldCreateEmployee() {
         Department department;
@@ -129,6 +137,138 @@ class EmployeeServiceTest extends IntegrationTest {
         then(page.getRecords().stream().map(Employee::getId)).containsExactly(employee1.getId());
     }
 
+    /**
+     * 测试通过键集分页查询部门下的员工, 下一页从上一页最后一条记录的游标开始
+     */
+    @Test
+    void listByDepartmentId_shouldListEmployeesByKeyset() {
+        Department department;
+        Employee employee1, employee2, employee3, employee4;
+
+        try (var _ = beginTx(false)) {
+            department = newBuilder(DepartmentBuilder.class).create();
+
+            employee1 = newBuilder(EmployeeBuilder.class).create();
+            employee2 = newBuilder(EmployeeBuilder.class).create();
+            employee3 = newBuilder(EmployeeBuilder.class).create();
+            employee4 = newBuilder(EmployeeBuilder.class).create();
+
+            for (var employee : List.of(employee1, employee2, employee3, employee4)) {
+                newBuilder(DepartmentEmployeeBuilder.class)
+                        .withEmployeeId(employee.getId())
+                        .withDepartmentId(department.getId())
+                        .create();
+            }
+        }
+
+        var page = pagination.<Employee>newBuilder()
+                .withFirst(3)
+                .withOrder("-id")
+                .withKeyset(Employee.class)
+                .build();
+
+        page = employeeService.listByDepartmentId(page, department.getId());
+        then(page.getTotal()).isEqualTo(4);
+        then(page.getRecords().stream().map(Employee::getId)).containsExactly(
+            employee4.getId(),
+            employee3.getId(),
+            employee2.getId());
+
+        var conn = ConnectionBuilder.build(page);
+        then(conn.getPageInfo().isHasPreviousPage()).isFalse();
+        then(conn.getPageInfo().isHasNextPage()).isTrue();
+
+        page = pagination.<Employee>newBuilder()
+                .withFirst(3)
+                .withAfter(conn.getPageInfo().getEndCursor().getValue())
+                .withOrder("-id")
+                .withKeyset(Employee.class)
+                .build();
+
+        page = employeeService.listByDepartmentId(page, department.getId());
+        // 总记录数不受游标位置的影响
+        then(page.getTotal()).isEqualTo(4);
+        then(page.getRecords().stream().map(Employee::getId)).containsExactly(employee1.getId());
+
+        conn = ConnectionBuilder.build(page);
+        then(conn.getPageInfo().isHasPreviousPage()).isTrue();
+        then(conn.getPageInfo().isHasNextPage()).isFalse();
+
+        // 从第二页向前翻页, 得到第一页的后两条记录
+        page = pagination.<Employee>newBuilder()
+                .withLast(2)
+                .withBefore(conn.getPageInfo().getStartCursor().getValue())
+                .withOrder("-id")
+                .withKeyset(Employee.class)
+                .build();
+
+        page = employeeService.listByDepartmentId(page, department.getId());
+        then(page.getTotal()).isEqualTo(4);
+        then(page.getRecords().stream().map(Employee::getId)).containsExactly(
+            employee3.getId(),
+            employee2.getId());
+    }
+
+    /**
+     * 测试未查询 {@code totalCount} 字段时, 不执行 {@code COUNT} 查询, 通过多查询一条记录判断是否有下一页
+     */
+    @Test
+    void listByDepartmentId_shouldSkipCountWithoutTotalCount() {
+        Department department;
+        Employee employee1, employee2, employee3, employee4;
+
+        try (var _ = beginTx(false)) {
+            department = newBuilder(DepartmentBuilder.class).create();
+
+            employee1 = newBuilder(EmployeeBuilder.class).create();
+            employee2 = newBuilder(EmployeeBuilder.class).create();
+            employee3 = newBuilder(EmployeeBuilder.class).create();
+            employee4 = newBuilder(EmployeeBuilder.class).create();
+
+            for (var employee : List.of(employee1, employee2, employee3, employee4)) {
+                newBuilder(DepartmentEmployeeBuilder.class)
+                        .withEmployeeId(employee.getId())
+                        .withDepartmentId(department.getId())
+                        .create();
+            }
+        }
+
+        doReturn(false).when(mockedSelectionSet).contains("totalCount");
+
+        var page = pagination.<Employee>newBuilder()
+                .withOffset(0)
+                .withLimit(3)
+                .withOrder("-id")
+                .withSelectionSet(mockedSelectionSet)
+                .build();
+
+        page = employeeService.listByDepartmentId(page, department.getId());
+        then(page.getTotal()).isZero();
+        then(page.getRecords().stream().map(Employee::getId)).containsExactly(
+            employee4.getId(),
+            employee3.getId(),
+            employee2.getId());
+
+        var conn = ConnectionBuilder.build(page);
+        then(conn.getEdges()).hasSize(3);
+        then(conn.getPageInfo().isHasPreviousPage()).isFalse();
+        then(conn.getPageInfo().isHasNextPage()).isTrue();
+
+        page = pagination.<Employee>newBuilder()
+                .withAfter(conn.getPageInfo().getEndCursor().getValue())
+                .withFirst(3)
+                .withOrder("-id")
+                .withSelectionSet(mockedSelectionSet)
+                .build();
+
+        page = employeeService.listByDepartmentId(page, department.getId());
+        then(page.getRecords().stream().map(Employee::getId)).containsExactly(employee1.getId());
+
+        conn = ConnectionBuilder.build(page);
+        then(conn.getPageInfo().isHasPreviousPage()).isTrue();
+        then(conn.getPageInfo().isHasNextPage()).isFalse();
+    }
+
     @Test
     void update_shouldUpdateExistEmployee() {
         Department department1, department2;
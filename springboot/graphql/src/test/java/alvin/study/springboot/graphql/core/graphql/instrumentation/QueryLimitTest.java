@@ -0,0 +1,48 @@
+package alvin.study.springboot.graphql.core.graphql.instrumentation;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import org.junit.jupiter.api.Test;
+
+import alvin.study.springboot.graphql.WebTest;
+
+class QueryLimitTest extends WebTest {
+    /**
+     * 测试嵌套层级超过限制的查询在执行前被拒绝
+     */
+    @Test
+    void execute_shouldRejectTooDeepQuery() {
+        var query = new StringBuilder("{ department(id: 1) { ");
+        for (var i = 0; i < 12; i++) {
+            query.append("parent { ");
+        }
+        query.append("id");
+        query.append(" }".repeat(12)).append(" } }");
+
+        qlTester().document(query.toString())
+                .execute()
+                .errors()
+                .satisfy(errors -> then(errors)
+                        .anySatisfy(err -> then(err.getMessage()).contains("maximum query depth exceeded")));
+    }
+
+    /**
+     * 测试嵌套分页的复杂度超过限制的查询在执行前被拒绝
+     */
+    @Test
+    void execute_shouldRejectTooComplexQuery() {
+        qlTester().document("""
+                {
+                    department(id: 1) {
+                        children(first: 1000) {
+                            edges { node { employees(first: 1000) { edges { node { id } } } } }
+                        }
+                    }
+                }
+                """)
+                .execute()
+                .errors()
+                .satisfy(errors -> then(errors)
+                        .anySatisfy(err -> then(err.getMessage()).contains("maximum query complexity exceeded")));
+    }
+}
@@ -0,0 +1,95 @@
+package alvin.study.springboot.graphql.core.graphql.persisted;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import org.junit.jupiter.api.Test;
+
+import lombok.SneakyThrows;
+
+import alvin.study.springboot.graphql.WebTest;
+import alvin.study.springboot.graphql.builder.UserBuilder;
+import alvin.study.springboot.graphql.util.security.Jwt;
+
+class PersistedQueryTest extends WebTest {
+    @Autowired
+    private Jwt jwt;
+
+    /**
+     * 测试通过 SHA-256 值执行启动时预加载的查询语句
+     */
+    @Test
+    @SneakyThrows
+    void execute_shouldRunPreloadedQueryByHash() {
+        var user = newBuilder(UserBuilder.class).create();
+
+        var query = new ClassPathResource("graphql-test/user.graphql").getContentAsString(StandardCharsets.UTF_8);
+
+        post(null, PersistedQueryStore.hashOf(query), "queryUser", user.getId())
+                .expectBody()
+                .jsonPath("$.errors").doesNotExist()
+                .jsonPath("$.data.user.id").isEqualTo(user.getId().toString());
+    }
+
+    /**
+     * 测试未缓存的查询语句需先注册, 之后可通过 SHA-256 值执行
+     */
+    @Test
+    void execute_shouldRegisterQueryAfterNotFound() {
+        var user = newBuilder(UserBuilder.class).create();
+
+        var query = "query queryAccount($id: ID!) { user(id: $id) { id account } }";
+        var hash = PersistedQueryStore.hashOf(query);
+
+        // 仅发送 SHA-256 值, 服务端未缓存该查询
+        post(null, hash, "queryAccount", user.getId())
+                .expectBody()
+                .jsonPath("$.errors[0].message").isEqualTo("PersistedQueryNotFound");
+
+        // 发送完整的查询语句进行注册
+        post(query, hash, "queryAccount", user.getId())
+                .expectBody()
+                .jsonPath("$.data.user.account").isEqualTo(user.getAccount());
+
+        // 再次仅发送 SHA-256 值
+        post(null, hash, "queryAccount", user.getId())
+                .expectBody()
+                .jsonPath("$.errors").doesNotExist()
+                .jsonPath("$.data.user.account").isEqualTo(user.getAccount());
+    }
+
+    /**
+     * 发送 APQ 请求
+     *
+     * @param query         查询语句, 为 {@code null} 表示仅发送 SHA-256 值
+     * @param hash          查询语句的 SHA-256 值
+     * @param operationName 操作名称
+     * @param id            用户 {@code id}
+     * @return 响应对象
+     */
+    private WebTestClient.ResponseSpec post(String query, String hash, String operationName, Long id) {
+        var body = new HashMap<String, Object>();
+        if (query != null) {
+            body.put("query", query);
+        }
+        body.put("operationName", operationName);
+        body.put("variables", Map.of("id", id));
+        body.put("extensions", Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)));
+
+        var token = jwt.encode(currentOrg().getId().toString(), currentUser().getId().toString());
+
+        return client().post().uri("/graphql")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -0,0 +1,139 @@
+package alvin.study.springboot.graphql.core.graphql.relay;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import org.junit.jupiter.api.Test;
+
+import alvin.study.springboot.graphql.IntegrationTest;
+import alvin.study.springboot.graphql.app.service.DepartmentService;
+import alvin.study.springboot.graphql.builder.DepartmentBuilder;
+import alvin.study.springboot.graphql.infra.entity.Department;
+
+/**
+ * 测试 {@link CountCacheInnerInterceptor} 类型
+ */
+class CountCacheInnerInterceptorTest extends IntegrationTest {
+    @Autowired
+    private Pagination pagination;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    /**
+     * 创建指定数量的子部门
+     *
+     * @param parentId 上级部门 ID
+     * @param count    子部门数量
+     */
+    private void createChildren(long parentId, int count) {
+        try (var _ = beginTx(false)) {
+            for (var i = 0; i < count; i++) {
+                newBuilder(DepartmentBuilder.class).withParent(parentId).create();
+            }
+        }
+    }
+
+    /**
+     * 创建允许使用缓存总记录数的分页对象
+     *
+     * @return 分页对象
+     */
+    private Page<Department> newPage() {
+        return (Page<Department>) pagination.<Department>newBuilder()
+                .withFirst(2)
+                .withApproximateCount()
+                .build();
+    }
+
+    /**
+     * 测试第一次查询执行 {@code COUNT} 查询并缓存其结果, 第二次查询复用缓存的总记录数
+     */
+    @Test
+    void selectPage_shouldCacheTotalCountAfterCountQuery() {
+        Department parent;
+        try (var _ = beginTx(false)) {
+            parent = newBuilder(DepartmentBuilder.class).create();
+        }
+        createChildren(parent.getId(), 3);
+
+        // 第一次查询, 执行 COUNT 查询
+        var page = newPage();
+        departmentService.listChildren(page, parent.getId());
+        then(page.getTotal()).isEqualTo(3);
+        then(page.searchCount()).isTrue();
+
+        // 新增子部门, 缓存期间的数据变化不会反映到总记录数中
+        createChildren(parent.getId(), 2);
+
+        // 第二次查询, 命中缓存, 不执行 COUNT 查询
+        page = newPage();
+        departmentService.listChildren(page, parent.getId());
+        then(page.getTotal()).isEqualTo(3);
+        then(page.searchCount()).isFalse();
+        then(page.getRecords()).hasSize(2);
+    }
+
+    /**
+     * 测试键集分页时, 缓存的 Key 在添加键集条件前计算, 后续页复用第一页缓存的总记录数
+     */
+    @Test
+    void selectPage_shouldCacheTotalCountForKeysetPages() {
+        Department parent;
+        try (var _ = beginTx(false)) {
+            parent = newBuilder(DepartmentBuilder.class).create();
+        }
+        createChildren(parent.getId(), 3);
+
+        // 第一页, 执行 COUNT 查询
+        var page = (Page<Department>) pagination.<Department>newBuilder()
+                .withFirst(2)
+                .withKeyset(Department.class)
+                .withApproximateCount()
+                .build();
+        departmentService.listChildren(page, parent.getId());
+        then(page.keyset()).isNotNull();
+        then(page.getTotal()).isEqualTo(3);
+        then(page.searchCount()).isTrue();
+
+        var conn = ConnectionBuilder.build(page);
+
+        createChildren(parent.getId(), 2);
+
+        // 第二页, 添加了键集条件, 但仍命中第一页缓存的总记录数
+        page = (Page<Department>) pagination.<Department>newBuilder()
+                .withFirst(2)
+                .withAfter(conn.getPageInfo().getEndCursor().getValue())
+                .withKeyset(Department.class)
+                .withApproximateCount()
+                .build();
+        departmentService.listChildren(page, parent.getId());
+        then(page.keyset().values()).isNotNull();
+        then(page.getTotal()).isEqualTo(3);
+        then(page.searchCount()).isFalse();
+        then(page.getRecords()).hasSize(2);
+    }
+
+    /**
+     * 测试未允许使用缓存总记录数的分页对象总是执行 {@code COUNT} 查询
+     */
+    @Test
+    void selectPage_shouldNotUseCacheWithoutApproximateCount() {
+        Department parent;
+        try (var _ = beginTx(false)) {
+            parent = newBuilder(DepartmentBuilder.class).create();
+        }
+        createChildren(parent.getId(), 3);
+
+        var page = newPage();
+        departmentService.listChildren(page, parent.getId());
+        then(page.getTotal()).isEqualTo(3);
+
+        createChildren(parent.getId(), 2);
+
+        var exactPage = pagination.<Department>newBuilder().withFirst(2).build();
+        departmentService.listChildren(exactPage, parent.getId());
+        then(exactPage.getTotal()).isEqualTo(5);
+    }
+}
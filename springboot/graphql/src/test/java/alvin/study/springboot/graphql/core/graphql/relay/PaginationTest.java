@@ -2,12 +2,19 @@ package alvin.study.springboot.graphql.core.graphql.relay;
 
 import static org.assertj.core.api.BDDAssertions.then;
 
+import java.time.Instant;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
 import org.junit.jupiter.api.Test;
 
 import alvin.study.springboot.graphql.IntegrationTest;
+import alvin.study.springboot.graphql.app.service.DepartmentService;
+import alvin.study.springboot.graphql.builder.DepartmentBuilder;
+import alvin.study.springboot.graphql.infra.entity.Department;
+import alvin.study.springboot.graphql.infra.entity.Employee;
 
 /**
  * 测试 {@link Pagination} 类型
@@ -27,6 +34,9 @@ class PaginationTest extends IntegrationTest {
     @Autowired
     private Pagination pagination;
 
+    @Autowired
+    private DepartmentService departmentService;
+
     /**
      * 测试从 {@code application.yml} 文件中读取
      * `spring.data.web.pageable.max-page-size` 属性
@@ -99,4 +109,129 @@ class PaginationTest extends IntegrationTest {
         then(page.orders().get(1).getColumn()).isEqualTo("time");
         then(page.orders().get(1).isAsc()).isTrue();
     }
+
+    /**
+     * 测试启用键集分页后, 根据排序字段和主键构建键集分页条件
+     */
+    @Test
+    void newBuilder_shouldBuildKeysetPageObject() {
+        var page = (Page<Employee>) pagination.<Employee>newBuilder()
+                .withFirst(10)
+                .withOrder("-created_at")
+                .withKeyset(Employee.class)
+                .build();
+
+        // 偏移量总是为 0, 并多取一条记录用于判断是否有下一页
+        then(page.offset()).isZero();
+        then(page.getSize()).isEqualTo(11);
+        then(page.orders()).isEmpty();
+
+        var keyset = page.keyset();
+        then(keyset.columns()).containsExactly("created_at", "id");
+        then(keyset.props()).containsExactly("createdAt", "id");
+        then(keyset.asc()).containsExactly(false, true);
+        then(keyset.values()).isNull();
+        then(keyset.backward()).isFalse();
+    }
+
+    /**
+     * 测试通过键集游标构建键集分页条件, 向前翻页时反转排序方向
+     */
+    @Test
+    void newBuilder_shouldBuildKeysetPageObjectByCursor() {
+        var values = List.<Object>of(Instant.parse("2024-01-01T00:00:00Z"), 100L);
+
+        var page = (Page<Employee>) pagination.<Employee>newBuilder()
+                .withFirst(10)
+                .withAfter(Cursors.makeKeysetCursor(values))
+                .withOrder("+created_at")
+                .withKeyset(Employee.class)
+                .build();
+
+        then(page.keyset().values()).isEqualTo(values);
+        then(page.keyset().asc()).containsExactly(true, true);
+
+        page = (Page<Employee>) pagination.<Employee>newBuilder()
+                .withLast(10)
+                .withBefore(Cursors.makeKeysetCursor(values))
+                .withOrder("+created_at")
+                .withKeyset(Employee.class)
+                .build();
+
+        then(page.keyset().values()).isEqualTo(values);
+        then(page.keyset().asc()).containsExactly(false, false);
+        then(page.keyset().backward()).isTrue();
+    }
+
+    /**
+     * 测试排序字段不属于实体, 或指定了偏移量时, 回退到 {@code OFFSET} 分页
+     */
+    @Test
+    void newBuilder_shouldFallbackToOffsetPageObject() {
+        var page = (Page<Employee>) pagination.<Employee>newBuilder()
+                .withFirst(10)
+                .withOrder("-unknown")
+                .withKeyset(Employee.class)
+                .build();
+
+        then(page.keyset()).isNull();
+        then(page.orders()).hasSize(1);
+
+        page = (Page<Employee>) pagination.<Employee>newBuilder()
+                .withLimit(10)
+                .withOffset(100)
+                .withKeyset(Employee.class)
+                .build();
+
+        then(page.keyset()).isNull();
+        then(page.offset()).isEqualTo(100);
+    }
+
+    /**
+     * 测试排序字段可能为 {@code null} 时, 回退到 {@code OFFSET} 分页, 避免 {@code null} 值无法编码为键集游标
+     */
+    @Test
+    void newBuilder_shouldFallbackToOffsetPageObjectForNullableSortField() {
+        var page = (Page<Department>) pagination.<Department>newBuilder()
+                .withFirst(10)
+                .withOrder("-parent_id")
+                .withKeyset(Department.class)
+                .build();
+
+        then(page.keyset()).isNull();
+        then(page.orders()).hasSize(1);
+        then(page.orders().get(0).getColumn()).isEqualTo("parent_id");
+
+        page = (Page<Department>) pagination.<Department>newBuilder()
+                .withFirst(10)
+                .withOrder("+name")
+                .withKeyset(Department.class)
+                .build();
+
+        then(page.keyset()).isNotNull();
+        then(page.keyset().columns()).containsExactly("name", "id");
+    }
+
+    /**
+     * 测试按可能为 {@code null} 的字段排序时, 查询结果使用位置游标构建连接对象
+     */
+    @Test
+    void build_shouldUseOffsetCursorForNullableSortField() {
+        Department parent;
+        try (var _ = beginTx(false)) {
+            parent = newBuilder(DepartmentBuilder.class).create();
+            newBuilder(DepartmentBuilder.class).withParent(parent.getId()).create();
+        }
+
+        var page = pagination.<Department>newBuilder()
+                .withFirst(10)
+                .withOrder("+parent_id")
+                .withKeyset(Department.class)
+                .build();
+        page = departmentService.listChildren(page, parent.getId());
+
+        var conn = ConnectionBuilder.build(page);
+        then(conn.getEdges()).hasSize(1);
+        then(Cursors.isKeysetCursor(conn.getEdges().get(0).getCursor().getValue())).isFalse();
+    }
 }
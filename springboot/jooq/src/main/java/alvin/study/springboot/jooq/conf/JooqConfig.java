@@ -3,13 +3,14 @@ package alvin.study.springboot.jooq.conf;
 import javax.sql.DataSource;
 
 import org.jooq.DSLContext;
+import org.jooq.ExecuteListenerProvider;
 import org.jooq.RecordListenerProvider;
 import org.jooq.SQLDialect;
-import org.jooq.VisitListenerProvider;
 import org.jooq.impl.DSL;
 import org.jooq.impl.DataSourceConnectionProvider;
 import org.jooq.impl.DefaultConfiguration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jooq.ExceptionTranslatorExecuteListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,9 +19,13 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import lombok.RequiredArgsConstructor;
 
+import alvin.study.springboot.jooq.core.context.Context;
 import alvin.study.springboot.jooq.core.jooq.dsl.JdbcDSLContextManager;
+import alvin.study.springboot.jooq.core.jooq.dsl.ScopedDSLContextManager;
 import alvin.study.springboot.jooq.core.jooq.listener.AuditAndTentedRecordListener;
+import alvin.study.springboot.jooq.core.jooq.listener.TenantRenderCacheListener;
 import alvin.study.springboot.jooq.core.jooq.listener.TentedVisitListener;
+import alvin.study.springboot.jooq.core.jooq.policy.TenantPolicy;
 
 /**
  * JOOQ 相关 Spring Boot 配置
@@ -91,24 +96,48 @@ public class JooqConfig {
         return ExceptionTranslatorExecuteListener.DEFAULT;
     }
 
+    /**
+     * 配置租户条件渲染缓存监听器
+     *
+     * <p>
+     * 该监听器取代 {@link TentedVisitListener} 为查询语句添加租户条件, 同一形态的查询只需添加一次租户条件,
+     * 之后复用缓存的语句模板, 并将租户标识作为绑定变量设置到语句中
+     * </p>
+     *
+     * @param context      请求上下文对象
+     * @param tenantPolicy 租户策略对象
+     * @param cacheSize    语句模板缓存的最大条目数
+     * @return 租户条件渲染缓存监听器对象
+     */
+    @Bean
+    TenantRenderCacheListener tenantRenderCacheListener(
+            Context context,
+            TenantPolicy tenantPolicy,
+            @Value("${application.jooq.tenant-sql-cache-size:1000}") long cacheSize) {
+        return new TenantRenderCacheListener(context, tenantPolicy, cacheSize);
+    }
+
     /**
      * 配置 jooq 的 DSL 上下文对象
      *
      * <p>
-     * 由于 {@code spring-boot-jooq-starter} 插件已经处理了 Spring Boot 与 JOOQ 的集成, 故无需产生该
+     * 由于 {@code spring-boot-starter-jooq} 插件已经处理了 Spring Boot 与 JOOQ 的集成, 故无需产生该
      * Bean 对象
      * </p>
      *
      * @param connectionProvider 数据库连接提供器对象
+     * @param tenantListener     租户条件渲染缓存监听器对象
      * @see #connectionProvider(DataSource)
      */
     @Bean
-    DSLContext dslContext(DataSourceConnectionProvider connectionProvider) {
+    DSLContext dslContext(
+            DataSourceConnectionProvider connectionProvider,
+            TenantRenderCacheListener tenantListener) {
         var config = new DefaultConfiguration()
                 .set(connectionProvider)
                 .set(SQLDialect.MYSQL)
                 .set((RecordListenerProvider) auditRecordListener)
-                .set((VisitListenerProvider) tentedVisitListener);
+                .set((ExecuteListenerProvider) tenantListener);
 
         return DSL.using(config);
     }
@@ -134,4 +163,27 @@ public class JooqConfig {
             auditRecordListener,
             tentedVisitListener);
     }
+
+    /**
+     * 创建 {@link ScopedDSLContextManager} 对象
+     *
+     * <p>
+     * 和 {@link JdbcDSLContextManager} 相比, 该对象只创建一次 JOOQ 配置对象, 且不会在线程中长期持有数据库连接
+     * </p>
+     *
+     * @param connectionProvider JDBC 连接供应器
+     * @param tenantListener     租户条件渲染缓存监听器对象
+     * @return {@link ScopedDSLContextManager} 对象
+     * @see ScopedDSLContextManager
+     */
+    @Bean
+    ScopedDSLContextManager scopedDSLContextManager(
+            DataSourceConnectionProvider connectionProvider,
+            TenantRenderCacheListener tenantListener) {
+        return new ScopedDSLContextManager(
+            connectionProvider,
+            SQLDialect.MYSQL,
+            auditRecordListener,
+            tenantListener);
+    }
 }
@@ -26,6 +26,11 @@ import alvin.study.springboot.jooq.core.jooq.listener.TentedVisitListener;
  * 对象. 如果引入了 Spring Boot 框架, 一般情况下无需如此操作 JOOQ, 直接使用
  * {@code spring-boot-starter-jooq} 插件即可直接注入 {@link DSLContext} 对象
  * </p>
+ *
+ * <p>
+ * 该类型每次调用 {@link #get()} 方法都会创建新的配置对象, 且线程持有的连接需要通过 {@link #clear()} 方法归还,
+ * 共享配置且不在线程中长期持有连接的实现参考 {@link ScopedDSLContextManager} 类型
+ * </p>
  */
 @RequiredArgsConstructor
 public class JdbcDSLContextManager {
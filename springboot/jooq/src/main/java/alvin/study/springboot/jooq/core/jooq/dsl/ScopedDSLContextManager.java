@@ -0,0 +1,188 @@
+package alvin.study.springboot.jooq.core.jooq.dsl;
+
+import java.sql.Connection;
+
+import org.jooq.Configuration;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.ExecuteListenerProvider;
+import org.jooq.RecordListenerProvider;
+import org.jooq.SQLDialect;
+import org.jooq.TransactionalCallable;
+import org.jooq.TransactionalRunnable;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+
+/**
+ * 共享 JOOQ 配置的 DSLContext 管理器类型
+ *
+ * <p>
+ * {@link JdbcDSLContextManager#get()} 方法每次调用都会创建新的 {@link DefaultConfiguration} 对象 (包括复制一份默认的
+ * {@link org.jooq.conf.Settings Settings} 对象), 并将数据库连接存储在线程本地存储中直到调用
+ * {@link JdbcDSLContextManager#clear()} 方法为止. 对于虚拟线程这类数量庞大且用完即弃的线程,
+ * 这意味着每个线程都可能持有一个不再归还的数据库连接
+ * </p>
+ *
+ * <p>
+ * 本类型在构造时创建唯一的 {@link Configuration} 对象, 之后不再修改, {@link #get()} 方法总是返回基于该配置的同一个
+ * {@link DSLContext} 对象. 该配置中的 {@link ConnectionProvider} 对象按照如下规则获取连接:
+ * <ul>
+ * <li>
+ * 在 {@link #tx(TransactionalRunnable)} 或 {@link #txr(TransactionalCallable)} 方法的回调执行期间, 使用当前事务的连接,
+ * 所以回调中通过 {@link #get()} 方法执行的 SQL 语句都在同一个事务中;
+ * </li>
+ * <li>
+ * 其它情况下, 每条 SQL 语句执行时从连接提供器获取连接, 执行完毕后立即归还. 如果连接提供器由
+ * {@code spring-boot-starter-jooq} 创建, 则在 Spring 事务中获取的是事务所属的连接
+ * </li>
+ * </ul>
+ * 事务的作用域通过线程本地存储记录, 并在回调结束时 (包括抛出异常时) 清除, 所以不会在线程中遗留连接,
+ * 可以安全的在虚拟线程中使用. 注意, 在回调中启动的其它线程无法获得当前事务的连接
+ * </p>
+ *
+ * <p>
+ * 如果调用方已持有一个数据库连接, 可以通过 {@link #using(Connection)} 方法从共享配置派生一个使用该连接的 {@link DSLContext}
+ * 对象, 派生时只复制配置的引用, 开销很小
+ * </p>
+ */
+public class ScopedDSLContextManager {
+    /**
+     * 线程本地存储, 记录当前线程正在执行的事务的配置对象, 只在事务回调执行期间存在
+     */
+    private final ThreadLocal<Configuration> txScope = new ThreadLocal<>();
+
+    /**
+     * 共享的 JOOQ 配置对象, 创建后不再修改
+     */
+    private final Configuration configuration;
+
+    /**
+     * 基于共享配置的 {@link DSLContext} 对象
+     */
+    private final DSLContext dsl;
+
+    /**
+     * 构造器
+     *
+     * @param connectionProvider      数据库连接提供器, 参考 {@code JooqConfig.connectionProvider(DataSource)} 方法
+     * @param sqlDialect              SQL 语句方言对象
+     * @param recordListenerProvider  记录处理监听器, 用于对处理数据表记录动作进行监听
+     * @param executeListenerProvider 执行监听器, 用于为查询语句添加租户条件, 参考
+     *                                {@link alvin.study.springboot.jooq.core.jooq.listener.TenantRenderCacheListener
+     *                                TenantRenderCacheListener} 类型
+     */
+    public ScopedDSLContextManager(
+            ConnectionProvider connectionProvider,
+            SQLDialect sqlDialect,
+            RecordListenerProvider recordListenerProvider,
+            ExecuteListenerProvider executeListenerProvider) {
+        this.configuration = new DefaultConfiguration()
+                .set(new ScopedConnectionProvider(connectionProvider))
+                .set(sqlDialect)
+                .set(recordListenerProvider)
+                .set(executeListenerProvider);
+
+        this.dsl = DSL.using(configuration);
+    }
+
+    /**
+     * 获取 {@link DSLContext} 对象
+     *
+     * @return {@link DSLContext} 对象
+     */
+    public DSLContext get() {
+        return dsl;
+    }
+
+    /**
+     * 获取使用指定数据库连接的 {@link DSLContext} 对象
+     *
+     * <p>
+     * 连接的提交, 回滚和关闭由调用方负责
+     * </p>
+     *
+     * @param connection 数据库连接对象
+     * @return {@link DSLContext} 对象
+     */
+    public DSLContext using(Connection connection) {
+        return DSL.using(configuration.derive(connection));
+    }
+
+    /**
+     * 启动事务, 在事务内执行所需代码
+     *
+     * <p>
+     * 参考 {@link DSLContext#transaction(TransactionalRunnable)} 方法, 在传入的回调方法内无需返回值
+     * </p>
+     *
+     * @param runnable 回调接口, 在事务内执行代码
+     */
+    public void tx(TransactionalRunnable runnable) {
+        txr(cfg -> {
+            runnable.run(cfg);
+            return null;
+        });
+    }
+
+    /**
+     * 启动事务, 在事务内执行所需代码, 返回结果
+     *
+     * <p>
+     * 参考 {@link DSLContext#transactionResult(TransactionalCallable)} 方法, 在传入的回调方法内可以返回一个值.
+     * 如果当前线程已处于事务中, 则通过保存点 (Savepoint) 在外层事务的连接上执行嵌套事务
+     * </p>
+     *
+     * @param <T>      返回类型
+     * @param callable 回调接口, 在事务内执行代码
+     * @return 返回值
+     */
+    public <T> T txr(TransactionalCallable<T> callable) {
+        var outer = txScope.get();
+        if (outer != null) {
+            return outer.dsl().transactionResult(callable);
+        }
+
+        return dsl.transactionResult(cfg -> {
+            // 在回调执行期间记录事务配置, 令 get() 方法返回的对象使用事务的连接
+            txScope.set(cfg);
+            try {
+                return callable.run(cfg);
+            } finally {
+                txScope.remove();
+            }
+        });
+    }
+
+    /**
+     * 根据当前线程是否处于事务中获取连接的 {@link ConnectionProvider} 类型
+     */
+    private class ScopedConnectionProvider implements ConnectionProvider {
+        // 事务之外使用的连接提供器
+        private final ConnectionProvider delegate;
+
+        /**
+         * 构造器
+         *
+         * @param delegate 事务之外使用的连接提供器
+         */
+        ScopedConnectionProvider(ConnectionProvider delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Connection acquire() {
+            var tx = txScope.get();
+            return tx == null ? delegate.acquire() : tx.connectionProvider().acquire();
+        }
+
+        @Override
+        public void release(Connection connection) {
+            var tx = txScope.get();
+            if (tx == null) {
+                delegate.release(connection);
+            } else {
+                tx.connectionProvider().release(connection);
+            }
+        }
+    }
+}
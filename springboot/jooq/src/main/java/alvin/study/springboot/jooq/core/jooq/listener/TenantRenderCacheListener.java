@@ -0,0 +1,374 @@
+package alvin.study.springboot.jooq.core.jooq.listener;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jooq.Configuration;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.ExecuteListenerProvider;
+import org.jooq.SQLDialect;
+import org.jooq.Select;
+import org.jooq.conf.StatementType;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+import alvin.study.springboot.jooq.core.context.Context;
+import alvin.study.springboot.jooq.core.jooq.policy.TenantPolicy;
+import alvin.study.springboot.jooq.infra.model.public_.tables.records.OrgRecord;
+
+/**
+ * 缓存租户条件渲染结果的执行监听器
+ *
+ * <p>
+ * {@link TentedVisitListener} 在每次渲染 SQL 语句时都要遍历整个语句树并添加租户条件. 本类型改为在
+ * {@link #renderEnd(ExecuteContext)} 阶段, 即 SQL 语句已按原查询渲染完成后进行处理:
+ * <ol>
+ * <li>
+ * 以方言和原 SQL 语句作为缓存的 Key, 原 SQL 语句即代表了查询的形态以及其涉及的数据表集合;
+ * </li>
+ * <li>
+ * 缓存未命中时, 通过 {@link TenantPolicy} 为查询添加以占位符 {@value #PLACEHOLDER} 代替租户标识的条件, 重新渲染后将占位符替换为
+ * {@code ?}, 并记录每个租户标识在语句中的参数位置, 作为语句模板缓存;
+ * </li>
+ * <li>
+ * 用语句模板替换要执行的 SQL 语句, 并在 {@link #bindStart(ExecuteContext)} 和 {@link #bindEnd(ExecuteContext)}
+ * 阶段将当前租户标识作为绑定变量设置到语句中
+ * </li>
+ * </ol>
+ * 租户标识以绑定变量的形式传递, 所以同一种查询对不同租户执行的 SQL 语句相同, 可以复用数据库端的执行计划.
+ * 不涉及租户字段的查询, 直接使用原 SQL 语句
+ * </p>
+ *
+ * <p>
+ * 由于添加的租户条件不在原查询对象中, jOOQ 只会按原查询设置绑定变量. 所以在 {@link #bindStart(ExecuteContext)}
+ * 阶段用一个代理对象替换要执行的 {@link PreparedStatement}, 将原查询的参数位置顺延到租户参数之后;
+ * 在 {@link #bindEnd(ExecuteContext)} 阶段设置租户参数并恢复原 {@link PreparedStatement} 对象
+ * </p>
+ *
+ * <p>
+ * 如果配置为不使用绑定变量的 {@link StatementType#STATIC_STATEMENT} 模式, 则不使用缓存, 直接渲染添加了租户条件的查询
+ * </p>
+ *
+ * <p>
+ * 和 {@link TentedVisitListener} 一样, 该监听器只处理查询语句, 插入语句的租户字段由 {@link AuditAndTentedRecordListener}
+ * 处理
+ * </p>
+ */
+public class TenantRenderCacheListener implements ExecuteListener, ExecuteListenerProvider {
+    // 语句模板中代替租户标识的占位符
+    private static final String PLACEHOLDER = "__tenant_id__";
+
+    // 在执行上下文中保存租户参数的 Key
+    private static final String DATA_TENANT_BINDING = TenantRenderCacheListener.class.getName() + ".binding";
+
+    // 请求上下文对象, 用于获取 orgId 值
+    private final Context context;
+
+    // 租户策略对象, 用于在缓存未命中时添加租户条件
+    private final TenantPolicy tenantPolicy;
+
+    // 语句模板缓存
+    private final Cache<Key, SqlTemplate> cache;
+
+    /**
+     * 构造器
+     *
+     * @param context      请求上下文对象
+     * @param tenantPolicy 租户策略对象
+     * @param cacheSize    语句模板缓存的最大条目数
+     */
+    public TenantRenderCacheListener(Context context, TenantPolicy tenantPolicy, long cacheSize) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("cacheSize must large than 0");
+        }
+
+        this.context = context;
+        this.tenantPolicy = tenantPolicy;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 在 SQL 语句渲染完成后, 将其替换为添加了租户条件的语句
+     *
+     * @param ctx 执行上下文对象
+     */
+    @Override
+    public void renderEnd(ExecuteContext ctx) {
+        if (!(ctx.query() instanceof Select<?> select)) {
+            return;
+        }
+
+        // 从请求上下文中获取 orgId 值, 如果没有 orgId, 则无需添加查询条件
+        var org = context.<OrgRecord>getOrDefault(Context.ORG, null);
+        if (org == null || org.getId() == null) {
+            return;
+        }
+
+        var configuration = ctx.configuration();
+        if (configuration.settings().getStatementType() == StatementType.STATIC_STATEMENT) {
+            // 静态语句不会进行参数绑定, 直接渲染添加了租户条件的查询
+            ctx.sql(DSL.using(configuration).render(tenantPolicy.apply(select, org.getId())));
+            return;
+        }
+
+        var template = template(configuration, select, ctx.sql());
+        if (!template.tenantParams().isEmpty()) {
+            ctx.sql(template.sql());
+            ctx.data(DATA_TENANT_BINDING, new TenantBinding(template.tenantParams(), org.getId()));
+        }
+    }
+
+    /**
+     * 在绑定参数前, 用顺延参数位置的代理对象替换要执行的语句对象
+     *
+     * @param ctx 执行上下文对象
+     */
+    @Override
+    public void bindStart(ExecuteContext ctx) {
+        if (ctx.data(DATA_TENANT_BINDING) instanceof TenantBinding binding) {
+            ctx.statement(binding.wrap(ctx.statement()));
+        }
+    }
+
+    /**
+     * 在绑定参数后, 设置租户参数并恢复原语句对象
+     *
+     * @param ctx 执行上下文对象
+     */
+    @Override
+    public void bindEnd(ExecuteContext ctx) {
+        if (ctx.data(DATA_TENANT_BINDING) instanceof TenantBinding binding) {
+            try {
+                ctx.statement(binding.bind());
+            } catch (SQLException e) {
+                throw new DataAccessException("Cannot bind tenant id", e);
+            }
+        }
+    }
+
+    /**
+     * 获取添加了租户条件的 SQL 语句, 租户标识以 {@code ?} 绑定变量表示
+     *
+     * @param configuration 渲染原 SQL 语句所使用的配置对象
+     * @param select        原查询对象
+     * @param sql           原 SQL 语句
+     * @return 添加了租户条件的 SQL 语句
+     */
+    public String render(Configuration configuration, Select<?> select, String sql) {
+        return template(configuration, select, sql).sql();
+    }
+
+    /**
+     * 获取缓存的统计信息, 包括命中次数, 未命中次数以及淘汰次数等
+     *
+     * @return 缓存统计信息
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 实现 {@link ExecuteListenerProvider} 接口, 为 {@link org.jooq.DSLContext DSLContext} 注入当前对象作为配置项
+     *
+     * @return {@link ExecuteListener} 对象
+     */
+    @Override
+    public ExecuteListener provide() {
+        return this;
+    }
+
+    /**
+     * 从缓存中获取语句模板, 缓存未命中时产生语句模板并缓存
+     *
+     * @param configuration 渲染原 SQL 语句所使用的配置对象
+     * @param select        原查询对象
+     * @param sql           原 SQL 语句
+     * @return 语句模板
+     */
+    private SqlTemplate template(Configuration configuration, Select<?> select, String sql) {
+        var key = new Key(configuration.dialect(), sql);
+
+        var template = cache.getIfPresent(key);
+        if (template == null) {
+            template = compile(configuration, select, sql);
+            cache.put(key, template);
+        }
+        return template;
+    }
+
+    /**
+     * 产生语句模板
+     *
+     * <p>
+     * 添加的租户条件以不含绑定变量的占位符表示, 所以重新渲染后原查询的绑定变量顺序不变. 之后逐个扫描语句中 (引号外) 的
+     * {@code ?} 和占位符, 将占位符替换为 {@code ?} 并记录其参数位置
+     * </p>
+     *
+     * @param configuration 渲染原 SQL 语句所使用的配置对象
+     * @param select        原查询对象
+     * @param sql           原 SQL 语句
+     * @return 语句模板
+     */
+    private SqlTemplate compile(Configuration configuration, Select<?> select, String sql) {
+        if (sql.contains(PLACEHOLDER)) {
+            throw new IllegalArgumentException("sql must not contain " + PLACEHOLDER);
+        }
+
+        var tenantSelect = tenantPolicy.apply(select, field -> field.eq(DSL.field(PLACEHOLDER, Long.class)));
+        var rendered = DSL.using(configuration).render(tenantSelect);
+
+        var result = new StringBuilder(rendered.length());
+        var tenantParams = new ArrayList<Integer>();
+        var paramIndex = 0;
+        var quote = (char) 0;
+
+        for (var i = 0; i < rendered.length(); i++) {
+            var c = rendered.charAt(i);
+            if (quote != 0) {
+                // 在引号内, 直到遇到相同的引号为止 (连续两个引号表示转义, 会作为一对引号的结束和开始处理)
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '?') {
+                paramIndex++;
+            } else if (rendered.startsWith(PLACEHOLDER, i)) {
+                tenantParams.add(++paramIndex);
+                result.append('?');
+                i += PLACEHOLDER.length() - 1;
+                continue;
+            }
+            result.append(c);
+        }
+
+        if (tenantParams.isEmpty()) {
+            // 查询不涉及租户字段, 直接使用原 SQL 语句
+            return new SqlTemplate(sql, List.of());
+        }
+        return new SqlTemplate(result.toString(), List.copyOf(tenantParams));
+    }
+
+    /**
+     * 缓存的 Key
+     *
+     * @param dialect SQL 方言
+     * @param sql     原 SQL 语句
+     */
+    private record Key(SQLDialect dialect, String sql) {}
+
+    /**
+     * 语句模板
+     *
+     * @param sql          添加了租户条件的 SQL 语句, 租户标识以 {@code ?} 表示
+     * @param tenantParams 租户标识在语句中的参数位置 (从 {@code 1} 开始, 升序排列), 为空表示语句不涉及租户
+     */
+    private record SqlTemplate(String sql, List<Integer> tenantParams) {}
+
+    /**
+     * 一次执行中租户参数的绑定过程
+     */
+    private static final class TenantBinding implements InvocationHandler {
+        // 租户标识在语句中的参数位置
+        private final List<Integer> tenantParams;
+
+        // 租户标识
+        private final Long orgId;
+
+        // 原语句对象
+        private PreparedStatement target;
+
+        /**
+         * 构造器
+         *
+         * @param tenantParams 租户标识在语句中的参数位置
+         * @param orgId        租户标识
+         */
+        TenantBinding(List<Integer> tenantParams, Long orgId) {
+            this.tenantParams = tenantParams;
+            this.orgId = orgId;
+        }
+
+        /**
+         * 产生代理对象, 将原查询的参数位置顺延到租户参数之后
+         *
+         * @param statement 原语句对象
+         * @return 代理语句对象
+         */
+        PreparedStatement wrap(PreparedStatement statement) {
+            this.target = statement;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                this);
+        }
+
+        /**
+         * 设置租户参数
+         *
+         * @return 原语句对象
+         */
+        PreparedStatement bind() throws SQLException {
+            for (var index : tenantParams) {
+                target.setLong(index, orgId);
+            }
+            return target;
+        }
+
+        /**
+         * 对 {@code setXxx(int parameterIndex, ...)} 形式的参数设置方法, 将参数位置跳过租户参数,
+         * 其它方法直接调用原语句对象
+         */
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (args != null
+                && args.length >= 2
+                && method.getName().startsWith("set")
+                && method.getParameterTypes()[0] == int.class) {
+                args[0] = shift((Integer) args[0]);
+            }
+
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * 将原查询的参数位置转为添加租户条件后的参数位置
+         *
+         * @param index 原查询的参数位置
+         * @return 添加租户条件后的参数位置
+         */
+        private int shift(int index) {
+            for (var tenantParam : tenantParams) {
+                if (tenantParam <= index) {
+                    index++;
+                }
+            }
+            return index;
+        }
+    }
+}
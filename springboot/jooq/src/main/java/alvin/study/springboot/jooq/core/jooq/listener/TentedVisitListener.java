@@ -2,18 +2,15 @@ package alvin.study.springboot.jooq.core.jooq.listener;
 
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.jooq.DSLContext;
 import org.jooq.Field;
 import org.jooq.QueryPart;
 import org.jooq.RecordContext;
 import org.jooq.SelectQuery;
-import org.jooq.Table;
 import org.jooq.VisitContext;
 import org.jooq.VisitListener;
 import org.jooq.VisitListenerProvider;
@@ -23,6 +20,7 @@ import org.springframework.stereotype.Component;
 import lombok.RequiredArgsConstructor;
 
 import alvin.study.springboot.jooq.core.context.Context;
+import alvin.study.springboot.jooq.core.jooq.policy.TenantPolicy;
 import alvin.study.springboot.jooq.infra.model.public_.tables.records.OrgRecord;
 
 /**
@@ -57,14 +55,14 @@ import alvin.study.springboot.jooq.infra.model.public_.tables.records.OrgRecord;
 @RequiredArgsConstructor
 public class TentedVisitListener implements VisitListener, VisitListenerProvider {
     /**
-     * 记录所需字段对象的缓存
+     * 请求上下文对象, 用于获取 {@code orgId} 值
      */
-    private final Map<Table<?>, FieldWrapper> tableFieldsMap = new ConcurrentHashMap<>();
+    private final Context context;
 
     /**
-     * 请求上下文对象, 用于获取 {@code orgId} 值
+     * 租户策略对象, 用于查找并缓存数据表的租户字段
      */
-    private final Context context;
+    private final TenantPolicy tenantPolicy;
 
     /**
      * 在执行 {@link QueryPart} 后添加额外的 {@code where} 条件
@@ -143,32 +141,11 @@ public class TentedVisitListener implements VisitListener, VisitListenerProvider
     private List<? extends Field<?>> walkTables(SelectQuery<?> select) {
         // 从 SelectQuery 的 from 部分获取对应的表对象, 遍历表对象, 获取指定字段集合
         return select.$from().stream()
-                .map(table -> this.findTableField(table, "org_id"))
+                .map(tenantPolicy::tenantField)
                 .filter(Objects::nonNull)
                 .toList();
     }
 
-    /**
-     * 在表对象中查找指定的字段
-     *
-     * @param table     表对象
-     * @param fieldName 字段名
-     * @return 字段对象
-     */
-    private Field<?> findTableField(Table<?> table, String fieldName) {
-        // 从缓存 Map 中获取指定表对应的字段对象
-        return tableFieldsMap.computeIfAbsent(table, t -> {
-            // 若缓存 Map 中不包含指定的字段对象, 则从表对象中查询并加入 Map 缓存对象中
-            for (var field : t.fields()) {
-                if (fieldName.equalsIgnoreCase(field.$name().last())) {
-                    return new FieldWrapper(field);
-                }
-            }
-            // 表对象中不包含指定字段, 返回一个空包装对象, 以便 ConcurrentHashMap 中可以正常存储
-            return FieldWrapper.EMPTY;
-        }).field();
-    }
-
     /**
      * 实现 {@link VisitListenerProvider} 接口, 为 {@link DSLContext} 注入当前对象作为配置项
      *
@@ -178,21 +155,4 @@ public class TentedVisitListener implements VisitListener, VisitListenerProvider
     public VisitListener provide() {
         return this;
     }
-
-    /**
-     * {@link Field} 对象的包装类
-     *
-     * <p>
-     * 为解决 {@link ConcurrentHashMap} 无法以 {@code null} 作为 Value 的限制, 通过一个非
-     * {@code null} 的对象类型对其进行包装
-     * </p>
-     *
-     * @param field 包装的 {@link Field} 字段
-     */
-    private record FieldWrapper(Field<?> field) {
-        /**
-         * 表示 "空" 的常量
-         */
-        public static final FieldWrapper EMPTY = new FieldWrapper(null);
-    }
 }
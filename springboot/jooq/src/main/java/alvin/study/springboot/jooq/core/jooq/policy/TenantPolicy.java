@@ -0,0 +1,141 @@
+package alvin.study.springboot.jooq.core.jooq.policy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.jooq.Condition;
+import org.jooq.Field;
+import org.jooq.QueryPart;
+import org.jooq.Record;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 租户策略, 通过查询对象模型 (Query Object Model) 为查询语句添加租户条件
+ *
+ * <p>
+ * {@link alvin.study.springboot.jooq.core.jooq.listener.TentedVisitListener TentedVisitListener} 在渲染 SQL
+ * 语句时, 对语句树中的每个 {@link QueryPart} 对象都会执行一次回调, 且每次执行查询都要重复这一过程.
+ * 本类型则类似于 jOOQ 商业版提供的 {@code Policy} 功能: 在执行前对查询对象做一次转换, 对语句树中每个 {@link Select}
+ * 对象, 如果其 {@code from} 子句中的表包含 {@value #TENANT_COLUMN} 字段, 则在 {@code where} 子句中添加租户条件.
+ * 转换通过 {@code QueryPart.$replace} 方法进行, 返回新的查询对象, 原查询对象不会被修改
+ * </p>
+ *
+ * <p>
+ * 每个数据表的租户字段只查找一次并缓存, 租户条件以绑定变量的形式添加, 所以同一种查询对不同租户产生的 SQL 语句相同,
+ * 可以复用数据库端的执行计划
+ * </p>
+ */
+@Component
+public class TenantPolicy {
+    /**
+     * 租户字段名
+     */
+    public static final String TENANT_COLUMN = "org_id";
+
+    /**
+     * 数据表和其租户字段的缓存
+     */
+    private final Map<Table<?>, FieldWrapper> tenantFields = new ConcurrentHashMap<>();
+
+    /**
+     * 为查询添加指定租户的条件
+     *
+     * @param <R>    记录类型
+     * @param select 原查询对象
+     * @param orgId  租户标识
+     * @return 添加了租户条件的新查询对象
+     */
+    public <R extends Record> Select<R> apply(Select<R> select, Long orgId) {
+        return apply(select, field -> field.eq(orgId));
+    }
+
+    /**
+     * 为查询添加租户条件
+     *
+     * @param <R>       记录类型
+     * @param select    原查询对象
+     * @param condition 根据租户字段产生租户条件
+     * @return 添加了租户条件的新查询对象, 如果查询不涉及租户字段, 则返回原查询对象
+     */
+    @SuppressWarnings("unchecked")
+    public <R extends Record> Select<R> apply(Select<R> select, Function<Field<Long>, Condition> condition) {
+        // 记录已添加租户条件的查询对象, 防止对同一个对象重复添加
+        var applied = Collections.newSetFromMap(new IdentityHashMap<QueryPart, Boolean>());
+
+        return (Select<R>) select.$replace(part -> {
+            if (!(part instanceof Select<?> s) || applied.contains(s)) {
+                return part;
+            }
+
+            var result = withTenant(s, condition);
+            applied.add(result);
+            return result;
+        });
+    }
+
+    /**
+     * 为单个 {@link Select} 对象添加租户条件, 不处理其中的子查询
+     *
+     * @param select    原查询对象
+     * @param condition 根据租户字段产生租户条件
+     * @return 添加了租户条件的新查询对象
+     */
+    private Select<?> withTenant(Select<?> select, Function<Field<Long>, Condition> condition) {
+        var conditions = new ArrayList<Condition>();
+        for (var table : select.$from()) {
+            var field = tenantField(table);
+            if (field != null) {
+                conditions.add(condition.apply(field));
+            }
+        }
+
+        if (conditions.isEmpty()) {
+            return select;
+        }
+
+        // 保留原查询条件
+        if (select.$where() != null) {
+            conditions.add(0, select.$where());
+        }
+        return select.$where(DSL.and(conditions));
+    }
+
+    /**
+     * 获取数据表的租户字段, 同时供 {@link alvin.study.springboot.jooq.core.jooq.listener.TentedVisitListener
+     * TentedVisitListener} 使用
+     *
+     * @param table 数据表对象
+     * @return 租户字段, 数据表不包含租户字段时返回 {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    public Field<Long> tenantField(Table<?> table) {
+        return (Field<Long>) tenantFields.computeIfAbsent(table, t -> {
+            for (var field : t.fields()) {
+                if (TENANT_COLUMN.equalsIgnoreCase(field.$name().last())) {
+                    return new FieldWrapper(field);
+                }
+            }
+            return FieldWrapper.EMPTY;
+        }).field();
+    }
+
+    /**
+     * {@link Field} 对象的包装类, 令 {@link ConcurrentHashMap} 可以缓存 "不包含租户字段" 的结果
+     *
+     * @param field 包装的 {@link Field} 字段
+     */
+    private record FieldWrapper(Field<?> field) {
+        /**
+         * 表示 "空" 的常量
+         */
+        static final FieldWrapper EMPTY = new FieldWrapper(null);
+    }
+}
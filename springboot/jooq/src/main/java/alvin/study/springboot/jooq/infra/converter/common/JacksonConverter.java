@@ -1,49 +1,56 @@
 package alvin.study.springboot.jooq.infra.converter.common;
 
+import java.util.function.Supplier;
+
 import org.jooq.Converter;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 
 import com.google.common.base.Strings;
 
-import lombok.SneakyThrows;
-
-import alvin.study.springboot.jooq.util.bean.SpringBeanUtil;
-
 /**
  * 将 JSON 类型和 Object 类型互转的转换类
  *
  * <p>
  * 该类型用于数据表为 JSON 类型字段, 且对应一个 Pojo 类型对象的情况
  * </p>
+ *
+ * <p>
+ * 转换通过 {@link JsonCodec} 对象进行, 该对象在首次转换时构建, 之后的转换直接使用预先构建的
+ * {@link com.fasterxml.jackson.databind.ObjectReader ObjectReader} 和
+ * {@link com.fasterxml.jackson.databind.ObjectWriter ObjectWriter} 对象, 无需每次都获取 {@code ObjectMapper}
+ * 并查找序列化器
+ * </p>
+ *
+ * <p>
+ * 如果字段值只在部分场景中才被访问, 可以改为使用 {@link LazyJacksonConverter} 转换类, 以免反序列化不被访问的字段值
+ * </p>
  */
 public abstract class JacksonConverter<T> implements Converter<String, T> {
+    // 延迟构建的 JSON 编解码器
+    private final Supplier<JsonCodec<T>> codec = JsonCodec.memoize(this::javaType);
+
     /**
      * 将数据表字段类型值转为 Record 字段类型值
      */
     @Override
-    @SneakyThrows
     public T from(String databaseObject) {
         if (Strings.isNullOrEmpty(databaseObject)) {
             return null;
         }
-
-        var objectMapper = SpringBeanUtil.getBean(ObjectMapper.class);
-        return objectMapper.readValue(databaseObject, toType());
+        return codec.get().read(databaseObject);
     }
 
     /**
      * 将 Record 字段类型值转为数据表字段类型值
      */
     @Override
-    @SneakyThrows
-    public String to(Object userObject) {
+    public String to(T userObject) {
         if (userObject == null) {
             return "";
         }
-
-        var objectMapper = SpringBeanUtil.getBean(ObjectMapper.class);
-        return objectMapper.writeValueAsString(userObject);
+        return codec.get().write(userObject);
     }
 
     /**
@@ -53,4 +60,18 @@ public abstract class JacksonConverter<T> implements Converter<String, T> {
     public Class<String> fromType() {
         return String.class;
     }
+
+    /**
+     * 获取 JSON 反序列化的目标类型
+     *
+     * <p>
+     * 默认为 {@link #toType()} 返回的类型, 对于泛型类型 (例如 {@code List<Item>}) 需要覆盖该方法以提供完整的类型信息
+     * </p>
+     *
+     * @param typeFactory {@link TypeFactory} 对象
+     * @return JSON 反序列化的目标类型
+     */
+    protected JavaType javaType(TypeFactory typeFactory) {
+        return typeFactory.constructType(toType());
+    }
 }
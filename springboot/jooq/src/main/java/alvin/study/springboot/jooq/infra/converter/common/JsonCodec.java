@@ -0,0 +1,155 @@
+package alvin.study.springboot.jooq.infra.converter.common;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import com.google.common.base.Suppliers;
+
+import lombok.SneakyThrows;
+
+import alvin.study.springboot.jooq.util.bean.SpringBeanUtil;
+
+/**
+ * 针对某个目标类型的 JSON 编解码器
+ *
+ * <p>
+ * {@link ObjectMapper#readValue(String, Class)} 每次调用都需要根据类型查找 (或创建) 反序列化器, 而
+ * {@link ObjectReader} 和 {@link ObjectWriter} 在创建时即确定了目标类型及其序列化器, 之后的调用可以跳过这部分查找.
+ * 两者均为不可变对象, 可以在多线程间共享
+ * </p>
+ *
+ * @param <T> 目标类型
+ */
+public final class JsonCodec<T> {
+    // 预先构建的反序列化对象
+    private final ObjectReader reader;
+
+    // 预先构建的序列化对象
+    private final ObjectWriter writer;
+
+    /**
+     * 构造器
+     *
+     * @param objectMapper {@link ObjectMapper} 对象
+     * @param type         目标类型
+     */
+    public JsonCodec(ObjectMapper objectMapper, JavaType type) {
+        this.reader = objectMapper.readerFor(type);
+        this.writer = objectMapper.writerFor(type);
+    }
+
+    /**
+     * 创建延迟构建的编解码器
+     *
+     * <p>
+     * Jooq 生成的表类型在类加载时即创建转换器对象, 此时 Spring 上下文可能尚未初始化, 所以编解码器需要在首次使用时才构建.
+     * 使用 Spring 容器中的 {@link ObjectMapper} 对象构建后不再改变; 如果首次使用时 Spring 容器尚不可用, 则暂时使用默认的
+     * {@link ObjectMapper} 对象构建, 待 Spring 容器可用后重新构建一次
+     * </p>
+     *
+     * @param <T>          目标类型
+     * @param typeResolver 通过 {@link TypeFactory} 对象获取目标类型
+     * @return 获取编解码器的 {@link Supplier} 对象
+     */
+    public static <T> Supplier<JsonCodec<T>> memoize(Function<TypeFactory, JavaType> typeResolver) {
+        return new LazyCodec<>(typeResolver);
+    }
+
+    /**
+     * 将 JSON 字符串反序列化为目标类型对象
+     *
+     * @param json JSON 字符串
+     * @return 目标类型对象
+     */
+    @SneakyThrows
+    public T read(String json) {
+        return reader.readValue(json);
+    }
+
+    /**
+     * 将目标类型对象序列化为 JSON 字符串
+     *
+     * @param value 目标类型对象
+     * @return JSON 字符串
+     */
+    @SneakyThrows
+    public String write(T value) {
+        return writer.writeValueAsString(value);
+    }
+
+    /**
+     * 延迟构建编解码器的 {@link Supplier} 类型
+     *
+     * <p>
+     * 优先使用 Spring 容器中的 {@link ObjectMapper} 对象, 以保持和 Web 层相同的序列化配置; 在 Spring 容器之外
+     * (例如单元测试和性能测试中) 则使用一个注册了所有可用模块的默认 {@link ObjectMapper} 对象
+     * </p>
+     *
+     * @param <T> 目标类型
+     */
+    private static final class LazyCodec<T> implements Supplier<JsonCodec<T>> {
+        // Spring 容器之外使用的默认 ObjectMapper 对象
+        private static final Supplier<ObjectMapper> DEFAULT_MAPPER =
+                Suppliers.memoize(() -> JsonMapper.builder().findAndAddModules().build());
+
+        // 通过 TypeFactory 对象获取目标类型
+        private final Function<TypeFactory, JavaType> typeResolver;
+
+        // 已构建的编解码器
+        private volatile JsonCodec<T> codec;
+
+        // 编解码器是否已通过 Spring 容器中的 ObjectMapper 对象构建
+        private volatile boolean resolved;
+
+        /**
+         * 构造器
+         *
+         * @param typeResolver 通过 {@link TypeFactory} 对象获取目标类型
+         */
+        LazyCodec(Function<TypeFactory, JavaType> typeResolver) {
+            this.typeResolver = typeResolver;
+        }
+
+        @Override
+        public JsonCodec<T> get() {
+            if (resolved) {
+                return codec;
+            }
+
+            // Spring 容器尚不可用, 继续使用默认 ObjectMapper 构建的编解码器
+            var current = codec;
+            if (current != null && SpringBeanUtil.getApplicationContext() == null) {
+                return current;
+            }
+
+            synchronized (this) {
+                if (!resolved) {
+                    if (SpringBeanUtil.getApplicationContext() != null) {
+                        codec = build(SpringBeanUtil.getBean(ObjectMapper.class));
+                        resolved = true;
+                    } else if (codec == null) {
+                        codec = build(DEFAULT_MAPPER.get());
+                    }
+                }
+                return codec;
+            }
+        }
+
+        /**
+         * 通过指定的 {@link ObjectMapper} 对象构建编解码器
+         *
+         * @param objectMapper {@link ObjectMapper} 对象
+         * @return 编解码器对象
+         */
+        private JsonCodec<T> build(ObjectMapper objectMapper) {
+            return new JsonCodec<>(objectMapper, typeResolver.apply(objectMapper.getTypeFactory()));
+        }
+    }
+}
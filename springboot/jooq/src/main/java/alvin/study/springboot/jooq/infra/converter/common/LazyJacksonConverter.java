@@ -0,0 +1,102 @@
+package alvin.study.springboot.jooq.infra.converter.common;
+
+import java.util.function.Supplier;
+
+import org.jooq.Converter;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+import com.google.common.base.Strings;
+
+/**
+ * 将 JSON 类型和 {@link LazyJson} 类型互转的转换类
+ *
+ * <p>
+ * 和 {@link JacksonConverter} 不同, 读取记录时不进行反序列化, 只将原始 JSON 字符串包装为 {@link LazyJson} 对象,
+ * 适用于 JSON 字段较大, 且查询结果中大部分记录的该字段不会被访问的情况
+ * </p>
+ *
+ * <p>
+ * 使用时需在生成代码配置的 {@code forcedType} 中将字段类型设为 {@link LazyJson}, 并指定该类型的子类为转换器, 例如:
+ *
+ * <pre>
+ * &lt;forcedType&gt;
+ *   &lt;userType&gt;alvin.study.springboot.jooq.infra.converter.common.LazyJson&amp;lt;EmployeeInfo&amp;gt;&lt;/userType&gt;
+ *   &lt;converter&gt;...LazyEmployeeInfoConverter&lt;/converter&gt;
+ *   &lt;includeExpression&gt;EMPLOYEE\.INFO&lt;/includeExpression&gt;
+ * &lt;/forcedType&gt;
+ * </pre>
+ * </p>
+ *
+ * @param <T> 字段值类型
+ */
+public abstract class LazyJacksonConverter<T> implements Converter<String, LazyJson<T>> {
+    // 延迟构建的 JSON 编解码器
+    private final Supplier<JsonCodec<T>> codec = JsonCodec.memoize(this::javaType);
+
+    /**
+     * 将数据表字段类型值转为 Record 字段类型值, 此时不进行反序列化
+     */
+    @Override
+    public LazyJson<T> from(String databaseObject) {
+        if (Strings.isNullOrEmpty(databaseObject)) {
+            return null;
+        }
+        return LazyJson.parse(databaseObject, codec.get());
+    }
+
+    /**
+     * 将 Record 字段类型值转为数据表字段类型值, 未被访问过的字段值直接返回原始 JSON 字符串
+     */
+    @Override
+    public String to(LazyJson<T> userObject) {
+        if (userObject == null) {
+            return "";
+        }
+        if (!userObject.isResolved()) {
+            return userObject.json();
+        }
+
+        var value = userObject.get();
+        return value == null ? "" : codec.get().write(value);
+    }
+
+    /**
+     * 获取数据表字段类型
+     */
+    @Override
+    public Class<String> fromType() {
+        return String.class;
+    }
+
+    /**
+     * 获取 Record 字段类型
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Class<LazyJson<T>> toType() {
+        return (Class<LazyJson<T>>) (Class<?>) LazyJson.class;
+    }
+
+    /**
+     * 获取字段值类型
+     *
+     * @return 字段值类型
+     */
+    protected abstract Class<T> valueType();
+
+    /**
+     * 获取 JSON 反序列化的目标类型
+     *
+     * <p>
+     * 默认为 {@link #valueType()} 返回的类型, 对于泛型类型需要覆盖该方法以提供完整的类型信息
+     * </p>
+     *
+     * @param typeFactory {@link TypeFactory} 对象
+     * @return JSON 反序列化的目标类型
+     */
+    protected JavaType javaType(TypeFactory typeFactory) {
+        return typeFactory.constructType(valueType());
+    }
+}
@@ -0,0 +1,135 @@
+package alvin.study.springboot.jooq.infra.converter.common;
+
+import java.util.Objects;
+
+/**
+ * 延迟反序列化的 JSON 字段值
+ *
+ * <p>
+ * 从数据库读取的对象只保存原始 JSON 字符串, 在首次调用 {@link #get()} 方法时才进行反序列化, 所以查询结果中从未被访问的字段值不会产生反序列化开销;
+ * 若字段值未被访问, 写回数据库时也直接使用原始 JSON 字符串, 无需重新序列化
+ * </p>
+ *
+ * <p>
+ * 反序列化在首次访问时只执行一次, 结果被缓存在对象中. 返回的对象为可变对象时, 对其的修改会在写回数据库时被序列化
+ * </p>
+ *
+ * @param <T> 字段值类型
+ */
+public final class LazyJson<T> {
+    // 原始 JSON 字符串, 为 null 表示对象由字段值直接创建
+    private final String json;
+
+    // JSON 编解码器, 为 null 表示对象由字段值直接创建
+    private final JsonCodec<T> codec;
+
+    // 反序列化后的字段值
+    private volatile T value;
+
+    // 是否已经得到字段值
+    private volatile boolean resolved;
+
+    /**
+     * 构造器
+     *
+     * @param json     原始 JSON 字符串
+     * @param codec    JSON 编解码器
+     * @param value    字段值
+     * @param resolved 是否已经得到字段值
+     */
+    private LazyJson(String json, JsonCodec<T> codec, T value, boolean resolved) {
+        this.json = json;
+        this.codec = codec;
+        this.value = value;
+        this.resolved = resolved;
+    }
+
+    /**
+     * 通过原始 JSON 字符串创建对象, 字段值在首次访问时反序列化
+     *
+     * @param <T>   字段值类型
+     * @param json  原始 JSON 字符串
+     * @param codec JSON 编解码器
+     * @return 当前类型对象
+     */
+    public static <T> LazyJson<T> parse(String json, JsonCodec<T> codec) {
+        return new LazyJson<>(json, codec, null, false);
+    }
+
+    /**
+     * 通过字段值创建对象, 用于写入数据库
+     *
+     * @param <T>   字段值类型
+     * @param value 字段值
+     * @return 当前类型对象
+     */
+    public static <T> LazyJson<T> of(T value) {
+        return new LazyJson<>(null, null, value, true);
+    }
+
+    /**
+     * 获取字段值, 首次调用时进行反序列化
+     *
+     * @return 字段值
+     */
+    public T get() {
+        if (!resolved) {
+            synchronized (this) {
+                if (!resolved) {
+                    value = codec.read(json);
+                    resolved = true;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 判断字段值是否已经反序列化 (或由字段值直接创建)
+     *
+     * @return 字段值是否已经得到
+     */
+    public boolean isResolved() {
+        return resolved;
+    }
+
+    /**
+     * 获取原始 JSON 字符串
+     *
+     * @return 原始 JSON 字符串, 对象由字段值直接创建时返回 {@code null}
+     */
+    public String json() {
+        return json;
+    }
+
+    /**
+     * 比较两个对象是否相等
+     *
+     * <p>
+     * 两个对象均未反序列化时直接比较原始 JSON 字符串, 否则比较字段值
+     * </p>
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LazyJson<?> other)) {
+            return false;
+        }
+        if (!resolved && !other.resolved) {
+            return json.equals(other.json);
+        }
+        return Objects.equals(get(), other.get());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(get());
+    }
+
+    @Override
+    public String toString() {
+        return resolved ? String.valueOf(value) : json;
+    }
+}
@@ -10,7 +10,7 @@ import org.jooq.Table;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
-import alvin.study.springboot.jooq.core.jooq.dsl.JdbcDSLContextManager;
+import alvin.study.springboot.jooq.core.jooq.dsl.ScopedDSLContextManager;
 
 /**
  * 通过 JDBC 使用 Jooq 的 Repository 类型超类
@@ -23,10 +23,10 @@ public abstract class JdbcBaseRepository<R extends Record> {
      */
     protected final Table<? extends R> table;
     /**
-     * 注入 {@link JdbcDSLContextManager} 类型, 用于演示通过 JDBC 创建并使用 Jooq 框架的方法
+     * 注入 {@link ScopedDSLContextManager} 类型, 用于演示通过 JDBC 连接提供器创建并使用 Jooq 框架的方法
      */
     @Autowired
-    protected JdbcDSLContextManager contextManager;
+    protected ScopedDSLContextManager contextManager;
 
     /**
      * 构造器, 实例化当前 Repository 类型
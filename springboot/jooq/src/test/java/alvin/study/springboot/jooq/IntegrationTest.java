@@ -6,7 +6,6 @@ import static alvin.study.springboot.jooq.infra.model.public_.Tables.USER;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jooq.DSLContext;
-import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,7 +20,7 @@ import alvin.study.springboot.jooq.core.TableCleaner;
 import alvin.study.springboot.jooq.core.context.Context;
 import alvin.study.springboot.jooq.core.context.CustomRequestAttributes;
 import alvin.study.springboot.jooq.core.context.WebContext;
-import alvin.study.springboot.jooq.core.jooq.dsl.JdbcDSLContextManager;
+import alvin.study.springboot.jooq.core.jooq.dsl.ScopedDSLContextManager;
 import alvin.study.springboot.jooq.infra.model.UserType;
 import alvin.study.springboot.jooq.util.security.PasswordUtil;
 
@@ -37,7 +36,7 @@ public abstract class IntegrationTest {
     protected static final AtomicInteger SEQUENCE = new AtomicInteger();
     // DSLContext 管理器
     @Autowired
-    protected JdbcDSLContextManager contextManager;
+    protected ScopedDSLContextManager contextManager;
     /**
      * Jooq DSL Context 对象
      */
@@ -78,15 +77,6 @@ public abstract class IntegrationTest {
         });
     }
 
-    /**
-     * 每次测试完成后执行
-     */
-    @AfterEach
-    void afterEach() {
-        // 清理 DSLContext 和数据库连接
-        contextManager.clear();
-    }
-
     /**
      * 产生一个不重复的名称
      *
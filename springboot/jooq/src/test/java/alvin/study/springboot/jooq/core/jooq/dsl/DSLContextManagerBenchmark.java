@@ -0,0 +1,153 @@
+package alvin.study.springboot.jooq.core.jooq.dsl;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DataSourceConnectionProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import alvin.study.springboot.jooq.core.context.WebContext;
+import alvin.study.springboot.jooq.core.jooq.listener.AuditAndTentedRecordListener;
+import alvin.study.springboot.jooq.core.jooq.listener.TenantRenderCacheListener;
+import alvin.study.springboot.jooq.core.jooq.listener.TentedVisitListener;
+import alvin.study.springboot.jooq.core.jooq.policy.TenantPolicy;
+
+/**
+ * 对比 {@link JdbcDSLContextManager} 和 {@link ScopedDSLContextManager} 获取 {@link DSLContext} 对象以及执行简单查询的耗时
+ *
+ * <p>
+ * 测试使用 H2 内存数据库和 Hikari 连接池:
+ * <ul>
+ * <li>
+ * {@code getJdbc}/{@code getScoped}: 只获取 {@link DSLContext} 对象, 前者每次都要创建新的配置对象;
+ * </li>
+ * <li>
+ * {@code selectJdbc}/{@code selectScoped}: 获取 {@link DSLContext} 对象并执行 {@code SELECT 1}, 前者复用线程持有的连接,
+ * 后者每次从连接池获取并归还连接
+ * </li>
+ * </ul>
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class DSLContextManagerBenchmark {
+    private HikariDataSource dataSource;
+
+    private JdbcDSLContextManager jdbcManager;
+
+    private ScopedDSLContextManager scopedManager;
+
+    /**
+     * 创建连接池和两种 DSLContext 管理器
+     */
+    @Setup
+    public void setup() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1;MODE=MYSQL");
+        dataSource.setUsername("test");
+        dataSource.setMaximumPoolSize(8);
+
+        var context = new WebContext();
+        var connectionProvider = new DataSourceConnectionProvider(dataSource);
+        var recordListener = new AuditAndTentedRecordListener(context);
+        var tenantPolicy = new TenantPolicy();
+        var visitListener = new TentedVisitListener(context, tenantPolicy);
+        var executeListener = new TenantRenderCacheListener(context, tenantPolicy, 1000);
+
+        jdbcManager = new JdbcDSLContextManager(connectionProvider, SQLDialect.H2, recordListener, visitListener);
+        scopedManager = new ScopedDSLContextManager(connectionProvider, SQLDialect.H2, recordListener, executeListener);
+    }
+
+    /**
+     * 关闭连接池
+     */
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    /**
+     * 每个测试线程的状态, 用于归还 {@link JdbcDSLContextManager} 在线程中持有的连接
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private JdbcDSLContextManager jdbcManager;
+
+        @Setup
+        public void setup(DSLContextManagerBenchmark benchmark) {
+            jdbcManager = benchmark.jdbcManager;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            jdbcManager.clear();
+        }
+    }
+
+    /**
+     * 测试通过 {@link JdbcDSLContextManager#get()} 获取 {@link DSLContext} 对象
+     */
+    @Benchmark
+    public DSLContext getJdbc(ThreadState state) throws SQLException {
+        return jdbcManager.get();
+    }
+
+    /**
+     * 测试通过 {@link ScopedDSLContextManager#get()} 获取 {@link DSLContext} 对象
+     */
+    @Benchmark
+    public DSLContext getScoped() {
+        return scopedManager.get();
+    }
+
+    /**
+     * 测试通过 {@link JdbcDSLContextManager#get()} 执行简单查询
+     */
+    @Benchmark
+    public Integer selectJdbc(ThreadState state) throws SQLException {
+        return jdbcManager.get().selectOne().fetchOne().value1();
+    }
+
+    /**
+     * 测试通过 {@link ScopedDSLContextManager#get()} 执行简单查询
+     */
+    @Benchmark
+    public Integer selectScoped() {
+        return scopedManager.get().selectOne().fetchOne().value1();
+    }
+
+    /**
+     * 执行性能测试
+     */
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(DSLContextManagerBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,148 @@
+package alvin.study.springboot.jooq.core.jooq.listener;
+
+import static alvin.study.springboot.jooq.infra.model.public_.Tables.DEPARTMENT;
+import static alvin.study.springboot.jooq.infra.model.public_.Tables.DEPARTMENT_EMPLOYEE;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import alvin.study.springboot.jooq.core.context.Context;
+import alvin.study.springboot.jooq.core.context.WebContext;
+import alvin.study.springboot.jooq.core.jooq.policy.TenantPolicy;
+import alvin.study.springboot.jooq.infra.model.public_.tables.records.OrgRecord;
+
+/**
+ * 对比为查询语句添加租户条件的几种方式的渲染耗时
+ *
+ * <p>
+ * 每次调用都新建查询对象, 以模拟实际执行查询时的情况:
+ * <ul>
+ * <li>
+ * {@code plain}: 不添加租户条件, 作为基准;
+ * </li>
+ * <li>
+ * {@code visitListener}: 通过 {@link TentedVisitListener} 在每次渲染时添加租户条件;
+ * </li>
+ * <li>
+ * {@code renderCache}: 先渲染原查询语句, 再通过 {@link TenantRenderCacheListener} 从缓存的语句模板得到添加租户条件后的语句;
+ * </li>
+ * <li>
+ * {@code policy}: 每次都通过 {@link TenantPolicy} 改写查询对象后再渲染
+ * </li>
+ * </ul>
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TenantRenderBenchmark {
+    private static final long ORG_ID = 1L;
+
+    private DSLContext plainDsl;
+
+    private DSLContext visitDsl;
+
+    private TenantPolicy tenantPolicy;
+
+    private TenantRenderCacheListener renderCacheListener;
+
+    /**
+     * 创建各种方式所需的 {@link DSLContext} 对象和监听器对象
+     */
+    @Setup
+    public void setup() {
+        var org = new OrgRecord();
+        org.setId(ORG_ID);
+
+        var context = new WebContext();
+        context.set(Context.ORG, org);
+
+        tenantPolicy = new TenantPolicy();
+        renderCacheListener = new TenantRenderCacheListener(context, tenantPolicy, 1000);
+
+        plainDsl = DSL.using(SQLDialect.H2);
+        visitDsl = DSL.using(new DefaultConfiguration()
+                .set(SQLDialect.H2)
+                .set(new TentedVisitListener(context, tenantPolicy)));
+    }
+
+    /**
+     * 创建包含子查询的查询对象
+     *
+     * @param dsl {@link DSLContext} 对象
+     * @return 查询对象
+     */
+    private static Select<?> query(DSLContext dsl) {
+        return dsl.selectFrom(DEPARTMENT)
+                .where(DEPARTMENT.ID.in(
+                    dsl.select(DEPARTMENT_EMPLOYEE.DEPARTMENT_ID)
+                            .from(DEPARTMENT_EMPLOYEE)
+                            .where(DEPARTMENT_EMPLOYEE.EMPLOYEE_ID.eq(10L))))
+                .and(DEPARTMENT.NAME.eq("RD"));
+    }
+
+    /**
+     * 测试不添加租户条件的渲染
+     */
+    @Benchmark
+    public String plain() {
+        return plainDsl.render(query(plainDsl));
+    }
+
+    /**
+     * 测试通过 {@link TentedVisitListener} 添加租户条件的渲染
+     */
+    @Benchmark
+    public String visitListener() {
+        return visitDsl.render(query(visitDsl));
+    }
+
+    /**
+     * 测试通过 {@link TenantRenderCacheListener} 缓存的语句模板添加租户条件
+     */
+    @Benchmark
+    public String renderCache() {
+        var query = query(plainDsl);
+        return renderCacheListener.render(plainDsl.configuration(), query, plainDsl.render(query));
+    }
+
+    /**
+     * 测试每次通过 {@link TenantPolicy} 改写查询对象后渲染
+     */
+    @Benchmark
+    public String policy() {
+        return plainDsl.render(tenantPolicy.apply(query(plainDsl), ORG_ID));
+    }
+
+    /**
+     * 执行性能测试
+     */
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(TenantRenderBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(options).run();
+    }
+}
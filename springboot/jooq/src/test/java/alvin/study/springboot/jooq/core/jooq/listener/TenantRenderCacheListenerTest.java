@@ -0,0 +1,95 @@
+package alvin.study.springboot.jooq.core.jooq.listener;
+
+import static alvin.study.springboot.jooq.infra.model.public_.Tables.DEPARTMENT;
+import static alvin.study.springboot.jooq.infra.model.public_.Tables.ORG;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import alvin.study.springboot.jooq.IntegrationTest;
+import alvin.study.springboot.jooq.core.context.Context;
+import alvin.study.springboot.jooq.core.context.CustomRequestAttributes;
+import alvin.study.springboot.jooq.core.context.WebContext;
+
+/**
+ * 测试 {@link TenantRenderCacheListener} 类型
+ */
+class TenantRenderCacheListenerTest extends IntegrationTest {
+    // 注入租户条件渲染缓存监听器对象
+    @Autowired
+    private TenantRenderCacheListener listener;
+
+    /**
+     * 测试相同形态的查询只添加一次租户条件, 且每次执行时绑定当前上下文的租户标识
+     */
+    @Test
+    void renderEnd_shouldReuseTemplateForEachTenant() {
+        var current = Context.current();
+
+        // 在当前组织下创建部门实体
+        var department = dsl.newRecord(DEPARTMENT);
+        department.setName("RD").store();
+
+        // 在另一个组织下创建部门实体
+        var otherOrg = dsl.newRecord(ORG);
+        otherOrg.setName(makeUniqueName("alvin.edu")).store();
+
+        var other = new WebContext();
+        other.set(Context.ORG, otherOrg);
+        other.set(Context.USER, current.get(Context.USER));
+
+        var otherDepartment = withContext(other, () -> {
+            var rec = dsl.newRecord(DEPARTMENT);
+            rec.setName("RD").store();
+            return rec;
+        });
+
+        listener.invalidateAll();
+        var before = listener.stats();
+
+        // 在两个组织下分别执行相同的查询
+        Supplier<?> query = () -> dsl.selectFrom(DEPARTMENT).where(DEPARTMENT.NAME.eq("RD")).fetch(DEPARTMENT.ID);
+        then(query.get()).isEqualTo(List.of(department.getId()));
+        then(withContext(other, query)).isEqualTo(List.of(otherDepartment.getId()));
+
+        // 确认第二次查询复用了语句模板
+        var stats = listener.stats().minus(before);
+        then(stats.missCount()).isEqualTo(1);
+        then(stats.hitCount()).isEqualTo(1);
+    }
+
+    /**
+     * 测试租户标识以绑定变量的形式添加到语句模板中, 且原查询的绑定变量保持不变
+     */
+    @Test
+    void render_shouldBindTenantIdAsParameter() {
+        var select = dsl.selectFrom(DEPARTMENT).where(DEPARTMENT.NAME.eq("RD"));
+
+        var sql = listener.render(dsl.configuration(), select, dsl.render(select));
+        then(sql).contains("`org_id` = ?").doesNotContain("__tenant_id__");
+        then(sql.chars().filter(c -> c == '?').count()).isEqualTo(2);
+    }
+
+    /**
+     * 在指定的请求上下文中执行代码, 执行完毕后恢复原请求上下文
+     *
+     * @param <T>      返回值类型
+     * @param context  请求上下文对象
+     * @param supplier 要执行的代码
+     * @return 返回值
+     */
+    private static <T> T withContext(Context context, Supplier<T> supplier) {
+        var current = Context.current();
+        CustomRequestAttributes.register(context);
+        try {
+            return supplier.get();
+        } finally {
+            CustomRequestAttributes.register(current);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package alvin.study.springboot.jooq.core.jooq.policy;
+
+import static alvin.study.springboot.jooq.infra.model.public_.Tables.DEPARTMENT;
+import static alvin.study.springboot.jooq.infra.model.public_.Tables.DEPARTMENT_EMPLOYEE;
+import static alvin.study.springboot.jooq.infra.model.public_.Tables.ORG;
+import static org.assertj.core.api.BDDAssertions.then;
+
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 测试 {@link TenantPolicy} 类型
+ */
+class TenantPolicyTest {
+    private final TenantPolicy policy = new TenantPolicy();
+
+    /**
+     * 测试 {@link TenantPolicy#apply(org.jooq.Select, Long)} 方法, 为查询及其子查询添加租户条件, 且不修改原查询对象
+     */
+    @Test
+    void apply_shouldAddTenantConditionToSelectAndSubQuery() {
+        var dsl = DSL.using(SQLDialect.H2);
+
+        var select = dsl.selectFrom(DEPARTMENT)
+                .where(DEPARTMENT.ID.in(
+                    dsl.select(DEPARTMENT_EMPLOYEE.DEPARTMENT_ID).from(DEPARTMENT_EMPLOYEE)));
+
+        var sql = dsl.renderInlined(policy.apply(select, 10L));
+        then(sql).contains("\"DEPARTMENT\".\"ORG_ID\" = 10", "\"DEPARTMENT_EMPLOYEE\".\"ORG_ID\" = 10");
+
+        // 确认原查询对象未被修改
+        then(dsl.renderInlined(select)).doesNotContain("ORG_ID");
+    }
+
+    /**
+     * 测试 {@link TenantPolicy#apply(org.jooq.Select, Long)} 方法, 不包含租户字段的查询保持不变
+     */
+    @Test
+    void apply_shouldKeepSelectWithoutTenantField() {
+        var dsl = DSL.using(SQLDialect.H2);
+
+        var select = dsl.selectFrom(ORG).where(ORG.ID.eq(1L));
+        then(dsl.renderInlined(policy.apply(select, 10L))).isEqualTo(dsl.renderInlined(select));
+    }
+}
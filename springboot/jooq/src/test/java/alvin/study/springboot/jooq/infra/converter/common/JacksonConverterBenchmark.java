@@ -0,0 +1,199 @@
+package alvin.study.springboot.jooq.infra.converter.common;
+
+import static org.jooq.impl.DSL.field;
+import static org.jooq.impl.DSL.name;
+import static org.jooq.impl.DSL.table;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.jooq.Converter;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import org.springframework.context.support.GenericApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import lombok.SneakyThrows;
+
+import alvin.study.springboot.jooq.infra.converter.EmployeeInfoConverter;
+import alvin.study.springboot.jooq.infra.model.EmployeeInfo;
+import alvin.study.springboot.jooq.util.bean.SpringBeanUtil;
+
+/**
+ * 对比读取 10 万条包含 JSON 字段的记录时, 几种 JSON 字段转换方式的耗时
+ *
+ * <p>
+ * 测试使用 H2 内存数据库, 每次调用都查询全部记录:
+ * <ul>
+ * <li>
+ * {@code readValue}: 每次转换都从 Spring 容器中获取 {@link ObjectMapper} 对象并调用
+ * {@link ObjectMapper#readValue(String, Class)}, 即原本的转换方式;
+ * </li>
+ * <li>
+ * {@code codec}: 通过 {@link EmployeeInfoConverter} 使用预先构建的 {@link com.fasterxml.jackson.databind.ObjectReader
+ * ObjectReader} 对象转换;
+ * </li>
+ * <li>
+ * {@code lazyUntouched}: 通过 {@link LazyJacksonConverter} 转换, 且不访问字段值;
+ * </li>
+ * <li>
+ * {@code lazyAccessed}: 通过 {@link LazyJacksonConverter} 转换, 且访问每条记录的字段值
+ * </li>
+ * </ul>
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JacksonConverterBenchmark {
+    private static final int RECORDS = 100_000;
+
+    private static final Table<?> TABLE = table(name("JSON_BENCH"));
+
+    private static final Field<Long> ID = field(name("ID"), SQLDataType.BIGINT);
+
+    private final Field<EmployeeInfo> readValueInfo = info(
+        Converter.from(String.class, EmployeeInfo.class, JacksonConverterBenchmark::parse));
+
+    private final Field<EmployeeInfo> codecInfo = info(new EmployeeInfoConverter());
+
+    private final Field<LazyJson<EmployeeInfo>> lazyInfo = info(new LazyEmployeeInfoConverter());
+
+    private GenericApplicationContext springContext;
+
+    private Connection connection;
+
+    private DSLContext dsl;
+
+    /**
+     * 创建包含 {@link ObjectMapper} 对象的 Spring 容器, 创建数据表并写入测试数据
+     *
+     * <p>
+     * 原本的转换方式每次转换都通过 {@link SpringBeanUtil#getBean(Class)} 方法获取 {@link ObjectMapper} 对象,
+     * 所以需要一个 Spring 容器以测量这部分开销, 其它转换方式也使用该容器中的 {@link ObjectMapper} 对象
+     * </p>
+     */
+    @Setup
+    public void setup() throws SQLException {
+        springContext = new GenericApplicationContext();
+        springContext.registerBean(ObjectMapper.class, () -> JsonMapper.builder().findAndAddModules().build());
+        springContext.refresh();
+        new SpringBeanUtil().setApplicationContext(springContext);
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:json_bench;DB_CLOSE_DELAY=-1", "test", "");
+        dsl = DSL.using(connection, SQLDialect.H2);
+
+        // 测试数据中包含 JSON 的花括号, 会和 Jooq 普通 SQL 模板的占位符冲突, 所以直接通过 JDBC 执行
+        try (var stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE JSON_BENCH (ID BIGINT PRIMARY KEY, INFO VARCHAR(2000) NOT NULL)");
+            stmt.execute("""
+                INSERT INTO JSON_BENCH
+                SELECT X, '{"gender":"m","birthday":"1981-03-17","telephone":"' || (13900000000 + X) || '"}'
+                FROM SYSTEM_RANGE(1, %d)""".formatted(RECORDS));
+        }
+    }
+
+    /**
+     * 删除数据表并关闭连接
+     */
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (var stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE JSON_BENCH");
+        }
+        connection.close();
+        springContext.close();
+    }
+
+    /**
+     * 创建使用指定转换器的 {@code INFO} 字段
+     *
+     * @param <U>       字段类型
+     * @param converter 转换器对象
+     * @return 字段对象
+     */
+    private static <U> Field<U> info(Converter<String, U> converter) {
+        return field(name("INFO"), SQLDataType.VARCHAR.asConvertedDataType(converter));
+    }
+
+    /**
+     * 每次都从 Spring 容器中获取 {@link ObjectMapper} 对象, 通过 {@link ObjectMapper#readValue(String, Class)} 反序列化
+     *
+     * @param json JSON 字符串
+     * @return {@link EmployeeInfo} 对象
+     */
+    @SneakyThrows
+    private static EmployeeInfo parse(String json) {
+        return SpringBeanUtil.getBean(ObjectMapper.class).readValue(json, EmployeeInfo.class);
+    }
+
+    /**
+     * 测试每次转换都调用 {@link ObjectMapper#readValue(String, Class)}
+     */
+    @Benchmark
+    public void readValue(Blackhole bh) {
+        dsl.select(ID, readValueInfo).from(TABLE).fetch().forEach(r -> bh.consume(r.value2()));
+    }
+
+    /**
+     * 测试通过预先构建的 {@link com.fasterxml.jackson.databind.ObjectReader ObjectReader} 对象转换
+     */
+    @Benchmark
+    public void codec(Blackhole bh) {
+        dsl.select(ID, codecInfo).from(TABLE).fetch().forEach(r -> bh.consume(r.value2()));
+    }
+
+    /**
+     * 测试延迟反序列化, 且不访问字段值
+     */
+    @Benchmark
+    public void lazyUntouched(Blackhole bh) {
+        dsl.select(ID, lazyInfo).from(TABLE).fetch().forEach(r -> bh.consume(r.value2()));
+    }
+
+    /**
+     * 测试延迟反序列化, 且访问每条记录的字段值
+     */
+    @Benchmark
+    public void lazyAccessed(Blackhole bh) {
+        dsl.select(ID, lazyInfo).from(TABLE).fetch().forEach(r -> bh.consume(r.value2().get()));
+    }
+
+    /**
+     * 执行性能测试
+     */
+    public static void main(String[] args) throws RunnerException {
+        var options = new OptionsBuilder()
+                .include(JacksonConverterBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(options).run();
+    }
+}
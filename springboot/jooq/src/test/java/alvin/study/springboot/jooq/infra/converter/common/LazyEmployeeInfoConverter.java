@@ -0,0 +1,13 @@
+package alvin.study.springboot.jooq.infra.converter.common;
+
+import alvin.study.springboot.jooq.infra.model.EmployeeInfo;
+
+/**
+ * 用于测试的 {@link EmployeeInfo} 类型延迟转换器
+ */
+class LazyEmployeeInfoConverter extends LazyJacksonConverter<EmployeeInfo> {
+    @Override
+    protected Class<EmployeeInfo> valueType() {
+        return EmployeeInfo.class;
+    }
+}
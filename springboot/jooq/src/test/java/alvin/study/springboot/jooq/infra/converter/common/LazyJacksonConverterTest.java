@@ -0,0 +1,63 @@
+package alvin.study.springboot.jooq.infra.converter.common;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+import alvin.study.springboot.jooq.infra.model.EmployeeInfo;
+import alvin.study.springboot.jooq.infra.model.Gender;
+
+/**
+ * 测试 {@link LazyJacksonConverter} 类型
+ */
+class LazyJacksonConverterTest {
+    private static final String JSON = "{\"gender\":\"m\",\"birthday\":\"1981-03-17\",\"telephone\":\"13999999999\"}";
+
+    private final LazyEmployeeInfoConverter converter = new LazyEmployeeInfoConverter();
+
+    /**
+     * 测试读取字段值时不进行反序列化, 首次访问时才反序列化
+     */
+    @Test
+    void from_shouldDeserializeOnFirstAccess() {
+        var lazy = converter.from(JSON);
+        then(lazy.isResolved()).isFalse();
+        then(lazy.json()).isEqualTo(JSON);
+
+        var info = lazy.get();
+        then(lazy.isResolved()).isTrue();
+        then(info.getGender()).isEqualTo(Gender.MALE);
+        then(info.getBirthday()).isEqualTo(LocalDate.of(1981, 3, 17));
+        then(info.getTelephone()).isEqualTo("13999999999");
+
+        // 确认反序列化只执行一次
+        then(lazy.get()).isSameAs(info);
+    }
+
+    /**
+     * 测试未被访问的字段值直接写回原始 JSON 字符串, 被访问的字段值重新序列化
+     */
+    @Test
+    void to_shouldKeepRawJsonIfNotAccessed() {
+        then(converter.to(converter.from(JSON))).isSameAs(JSON);
+
+        var lazy = converter.from(JSON);
+        lazy.get().setTelephone("13888888888");
+        then(converter.from(converter.to(lazy)).get().getTelephone()).isEqualTo("13888888888");
+
+        var info = new EmployeeInfo().setGender(Gender.FEMALE);
+        then(converter.from(converter.to(LazyJson.of(info))).get()).isEqualTo(info);
+    }
+
+    /**
+     * 测试空值的转换
+     */
+    @Test
+    void convert_shouldHandleEmptyValue() {
+        then(converter.from(null)).isNull();
+        then(converter.from("")).isNull();
+        then(converter.to(null)).isEmpty();
+    }
+}
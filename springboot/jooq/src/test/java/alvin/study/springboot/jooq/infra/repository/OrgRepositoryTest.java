@@ -1,7 +1,9 @@
 package alvin.study.springboot.jooq.infra.repository;
 
 import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
 
+import java.util.ArrayList;
 import java.util.Objects;
 
 import org.junit.jupiter.api.Test;
@@ -12,7 +14,7 @@ import org.springframework.transaction.annotation.Transactional;
 import lombok.SneakyThrows;
 
 import alvin.study.springboot.jooq.IntegrationTest;
-import alvin.study.springboot.jooq.core.jooq.dsl.JdbcDSLContextManager;
+import alvin.study.springboot.jooq.core.jooq.dsl.ScopedDSLContextManager;
 import alvin.study.springboot.jooq.infra.model.public_.tables.records.OrgRecord;
 
 /**
@@ -47,21 +49,21 @@ class OrgRepositoryTest extends IntegrationTest {
 
     /**
      * 测试通过
-     * {@link JdbcDSLContextManager#tx(org.jooq.TransactionalRunnable)
-     * JdbcDSLContextManager.tx(TransactionalRunnable)} 以及
-     * {@link JdbcDSLContextManager#txr(org.jooq.TransactionalCallable)
-     * JdbcDSLContextManager.txr(TransactionalCallable)} 两个方法进行事务处理
+     * {@link ScopedDSLContextManager#tx(org.jooq.TransactionalRunnable)
+     * ScopedDSLContextManager.tx(TransactionalRunnable)} 以及
+     * {@link ScopedDSLContextManager#txr(org.jooq.TransactionalCallable)
+     * ScopedDSLContextManager.txr(TransactionalCallable)} 两个方法进行事务处理
      *
      * <p>
-     * {@link JdbcDSLContextManager#tx(org.jooq.TransactionalRunnable)
-     * JdbcDSLContextManager.tx(TransactionalRunnable)} 在
+     * {@link ScopedDSLContextManager#tx(org.jooq.TransactionalRunnable)
+     * ScopedDSLContextManager.tx(TransactionalRunnable)} 在
      * {@link org.jooq.TransactionalRunnable TransactionalRunnable} 回调中执行事务代码,
      * 并且该回调不返回结果
      * </p>
      *
      * <p>
-     * {@link JdbcDSLContextManager#txr(org.jooq.TransactionalCallable)
-     * JdbcDSLContextManager.txr(TransactionalCallable)} 在
+     * {@link ScopedDSLContextManager#txr(org.jooq.TransactionalCallable)
+     * ScopedDSLContextManager.txr(TransactionalCallable)} 在
      * {@link org.jooq.TransactionalCallable TransactionalCallable} 回调中执行事务代码,
      * 并且该回调需要返回一个值, 表示事务执行的结果
      * </p>
@@ -82,6 +84,27 @@ class OrgRepositoryTest extends IntegrationTest {
                  && Objects.nonNull(r.getUpdatedAt()));
     }
 
+    /**
+     * 测试 {@link ScopedDSLContextManager#tx(org.jooq.TransactionalRunnable)
+     * ScopedDSLContextManager.tx(TransactionalRunnable)} 方法, 回调中通过 Repository 执行的语句和事务使用同一个连接,
+     * 回调抛出异常时一并回滚
+     */
+    @Test
+    @SneakyThrows
+    void tx_shouldRollbackStatementsInCallback() {
+        var ids = new ArrayList<Long>();
+
+        // 启动事务, 持久化一个实体对象后抛出异常
+        thenThrownBy(() -> contextManager.tx(_ -> {
+            ids.add(repository.newRecord(r -> r.setName(makeUniqueName("alvin.edu")).store()).getId());
+            throw new IllegalStateException("rollback");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // 确认持久化操作已被回滚
+        then(ids).hasSize(1);
+        then(repository.selectById(ids.get(0))).isEmpty();
+    }
+
     /**
      * 测试 {@link OrgRepository#update(OrgRecord)} 方法, 更新一个已经持久化的实体对象
      *
@@ -1,6 +1,8 @@
 package alvin.study.springboot.jpa.app.domain.service;
 
-import jakarta.persistence.criteria.Join;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -38,10 +40,10 @@ public class DepartmentService {
      *
      * <p>
      * 本服务类使用了
-     * {@link DepartmentRepository#findAll(org.springframework.data.jpa.domain.Specification, Pageable)
-     * UserRepository.findAll(Specification, Pageable)} 接口方法, 该方法由
+     * {@link DepartmentRepository#findIds(org.springframework.data.jpa.domain.Specification, Pageable)
+     * DepartmentRepository.findIds(Specification, Pageable)} 接口方法, 该方法和
      * {@link org.springframework.data.jpa.repository.JpaSpecificationExecutor
-     * JpaSpecificationExecutor} 接口提供, 其两个参数分别表示:
+     * JpaSpecificationExecutor} 接口提供的 {@code findAll(Specification, Pageable)} 方法类似, 其两个参数分别表示:
      *
      * <ul>
      * <li>
@@ -60,6 +62,23 @@ public class DepartmentService {
      * </p>
      *
      * <p>
+     * 如果在分页查询中对一对多关联进行 {@code join fetch}, 由于 SQL 的结果行数和实体数量不一致, Hibernate
+     * 无法在 SQL 中分页, 只能查询全部结果后在内存中分页 (日志中会出现 HHH90003004 或 HHH000104 警告). 所以这里采用两阶段查询:
+     * <ol>
+     * <li>
+     * 通过 {@link DepartmentRepository#findIds(org.springframework.data.jpa.domain.Specification, Pageable)
+     * DepartmentRepository.findIds(Specification, Pageable)} 方法在数据库中分页, 只查询当前页部门的 {@code id},
+     * 子部门的条件通过 {@code exists} 子查询表达, 不会产生重复记录;
+     * </li>
+     * <li>
+     * 根据 {@code id} 集合一次性查询部门实体及其子部门集合, 再按照第一阶段的顺序排列
+     * </li>
+     * </ol>
+     * 部门的其它延迟加载关联 (例如 {@link Department#getEmployees()}) 在访问时通过 {@code @BatchSize}
+     * 批量加载, 避免 N+1 问题
+     * </p>
+     *
+     * <p>
      * 结果是一个带分页信息的 {@link Department} 对象集合, 分页信息由 {@link Page} 类型对象表示, 包括:
      * <ul>
      * <li>
@@ -88,25 +107,16 @@ public class DepartmentService {
      * @param pageable  分页信息
      * @return 查询结果 {@link Department} 的分页结果
      */
-    @SuppressWarnings("unchecked")
     public Page<Department> searchSubDepartments(String name, String childName, Pageable pageable) {
         // 获取上下文中存储的 Org 对象, 即组织
         var org = context.<Org>get(Context.ORG);
 
-        // 调用 repository 方法进行动态查询
-        return departmentRepository.findAll((root, query, cb) -> {
+        // 第一阶段, 调用 repository 方法进行动态查询, 查询当前页部门的 id
+        var ids = departmentRepository.findIds((root, query, cb) -> {
             if (query == null) {
                 return null;
             }
 
-            // 指定 fetch 操作 (即 join fetch)
-            var fetch = root.<Department, Department>fetch("children");
-
-            // 上一步返回的 Fetch 类型对象同时也是 Join 类型对象 (实现了多个接口)
-            assert (fetch instanceof Join);
-            // 转为 Join 类型对象
-            var join = (Join<Department, Department>) fetch;
-
             // 产生一个空查询条件, 即 where 1=1, 便于后续组合条件
             // var predicate = cb.conjunction();
 
@@ -118,13 +128,32 @@ public class DepartmentService {
                 predicate = cb.and(predicate, cb.like(root.get("name"), name + "%"));
             }
 
+            // 产生子查询: select c.id from Department c where c.parent = d
+            var subquery = query.subquery(Long.class);
+            var child = subquery.from(Department.class);
+            var childPredicate = cb.equal(child.get("parent"), root);
+
             if (!Strings.isNullOrEmpty(childName)) {
-                // 增加 where 条件: children.name = :name + "%"
-                predicate = cb.and(predicate, cb.like(join.get("name"), childName + "%"));
+                // 增加子查询条件: c.name = :childName + "%"
+                childPredicate = cb.and(childPredicate, cb.like(child.get("name"), childName + "%"));
             }
+            subquery.select(child.<Long>get("id")).where(childPredicate);
 
-            // 由于使用了 join fetch 操作, 所以 distinct 是必要的
-            return query.distinct(true).where(predicate).getRestriction();
+            // 增加 where 条件: exists (子查询), 即只查询包含 (符合条件的) 子部门的部门
+            return cb.and(predicate, cb.exists(subquery));
         }, pageable);
+
+        // 第二阶段, 根据 id 查询部门实体及其子部门
+        Map<Long, Department> departments = Map.of();
+        if (!ids.isEmpty()) {
+            var result = Strings.isNullOrEmpty(childName)
+                ? departmentRepository.findByIdIn(ids.getContent())
+                : departmentRepository.findWithChildrenByIdIn(ids.getContent(), childName);
+
+            departments = result.stream().collect(Collectors.toMap(Department::getId, Function.identity()));
+        }
+
+        // 按照第一阶段的顺序组装分页结果
+        return ids.map(departments::get);
     }
 }
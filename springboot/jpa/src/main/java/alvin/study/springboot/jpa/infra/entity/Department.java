@@ -13,6 +13,7 @@ import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
 
@@ -117,7 +118,13 @@ public class Department extends AuditedEntity {
      * <p>
      * {@link OrderBy @OrderBy} 注解表示查询级联集合时采用的排序规则
      * </p>
+     *
+     * <p>
+     * {@link BatchSize @BatchSize} 注解表示当访问某个实体的该集合时, 同时为持久化上下文中其它 (至多 {@code size} 个)
+     * 尚未加载该集合的实体一并加载, 即将 N 次查询合并为 {@code where parent_id in (...)} 的一次查询
+     * </p>
      */
+    @BatchSize(size = 50)
     @OrderBy("id asc")
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "parent", cascade = { CascadeType.ALL }, orphanRemoval = true)
     private List<Department> children = new ArrayList<>();
@@ -180,6 +187,7 @@ public class Department extends AuditedEntity {
      * {@link OrderBy @OrderBy} 注解表示查询级联集合时采用的排序规则
      * </p>
      */
+    @BatchSize(size = 50)
     @OrderBy("id asc")
     @OneToMany(fetch = FetchType.LAZY, mappedBy = "department", cascade = { CascadeType.ALL }, orphanRemoval = true)
     private List<DepartmentEmployee> departmentEmployees = new ArrayList<>();
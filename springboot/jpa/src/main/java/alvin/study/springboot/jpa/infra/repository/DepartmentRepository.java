@@ -1,14 +1,18 @@
 package alvin.study.springboot.jpa.infra.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import jakarta.persistence.OrderBy;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.lang.NonNull;
 
 import alvin.study.springboot.jpa.infra.entity.Department;
+import alvin.study.springboot.jpa.infra.repository.ext.DepartmentRepositoryExt;
 
 /**
  * 部门实体 {@link Department} 类型的存储操作接口类
@@ -25,8 +29,13 @@ import alvin.study.springboot.jpa.infra.entity.Department;
  * 如果需要更复杂的查询 (例如动态查询), 则当前接口需要继承
  * {@link JpaSpecificationExecutor} 接口, 该接口提供了一系列方法进行复杂查询, 并提供了对应的分页和排序支持
  * </p>
+ *
+ * <p>
+ * {@link DepartmentRepositoryExt} 接口为当前接口补充了只查询 {@code id} 的分页查询方法, 用于两阶段分页查询
+ * </p>
  */
-public interface DepartmentRepository extends CrudRepository<Department, Long>, JpaSpecificationExecutor<Department> {
+public interface DepartmentRepository
+        extends CrudRepository<Department, Long>, JpaSpecificationExecutor<Department>, DepartmentRepositoryExt {
     /**
      * 查询所有的部门实体
      *
@@ -40,4 +49,42 @@ public interface DepartmentRepository extends CrudRepository<Department, Long>,
     @OrderBy("id asc")
     @NonNull
     List<Department> findAll();
+
+    /**
+     * 根据 {@code id} 集合查询部门实体, 并同时查询其子部门集合
+     *
+     * <p>
+     * {@link EntityGraph @EntityGraph} 注解的 {@code attributePaths} 属性指定了需要和实体一同查询的关联属性,
+     * 这些属性会通过 {@code left join fetch} 在同一条 SQL 中查询, 而不是在访问时逐个执行查询 (即 N+1 问题)
+     * </p>
+     *
+     * <p>
+     * 由于查询条件只包含 {@code id}, 不涉及分页, 所以不会产生内存分页的问题
+     * </p>
+     *
+     * @param ids 部门实体 {@code id} 集合
+     * @return 部门实体集合
+     */
+    @EntityGraph(attributePaths = { "children" })
+    List<Department> findByIdIn(Collection<Long> ids);
+
+    /**
+     * 根据 {@code id} 集合查询部门实体, 并同时查询其名称符合前缀的子部门
+     *
+     * <p>
+     * 由于 {@code join fetch} 的同时对子部门添加了查询条件, 所以查询结果中每个部门的
+     * {@link Department#getChildren()} 集合只包含符合条件的子部门
+     * </p>
+     *
+     * @param ids             部门实体 {@code id} 集合
+     * @param childNamePrefix 子部门名称前缀
+     * @return 部门实体集合
+     */
+    @Query("""
+        select distinct d
+        from Department d
+        join fetch d.children c
+        where d.id in :ids and c.name like concat(:childNamePrefix, '%')
+        """)
+    List<Department> findWithChildrenByIdIn(Collection<Long> ids, String childNamePrefix);
 }
@@ -0,0 +1,99 @@
+package alvin.study.springboot.jpa.infra.repository.ext;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import alvin.study.springboot.jpa.infra.entity.Department;
+import alvin.study.springboot.jpa.infra.repository.DepartmentRepository;
+
+/**
+ * 定义一个接口来扩充 {@link DepartmentRepository DepartmentRepository} 接口的方法
+ *
+ * <p>
+ * 本接口用于两阶段分页查询的第一阶段: 只查询当前页的实体 {@code id} 值, 再由
+ * {@link DepartmentRepository DepartmentRepository} 根据 {@code id} 查询实体及其关联对象
+ * </p>
+ */
+public interface DepartmentRepositoryExt {
+    /**
+     * 根据所给的查询条件, 查询 {@link Department} 实体 {@code id} 的分页结果
+     *
+     * <p>
+     * 该接口方法由 {@link DepartmentRepositoryExtImpl#findIds(Specification, Pageable)} 方法实现,
+     * 通过 Criteria API 只查询 {@code id} 字段, 分页在数据库中通过 {@code limit/offset} 完成
+     * </p>
+     *
+     * <p>
+     * 查询条件中不应包含 {@code fetch} 操作, 否则 Hibernate 会在内存中进行分页; 查询条件也不应产生重复记录
+     * (例如对一对多关联进行 {@code join}), 应改为使用 {@code exists} 子查询
+     * </p>
+     *
+     * @param spec     查询条件
+     * @param pageable 分页信息, 未指定排序时按 {@code id} 排序, 以保证分页结果稳定
+     * @return {@link Department} 实体 {@code id} 的分页结果
+     */
+    Page<Long> findIds(Specification<Department> spec, Pageable pageable);
+
+    /**
+     * 实现 {@link DepartmentRepositoryExt} 接口
+     */
+    class DepartmentRepositoryExtImpl implements DepartmentRepositoryExt {
+        // 注入 EntityManager 对象
+        @PersistenceContext
+        private EntityManager em;
+
+        @Override
+        public Page<Long> findIds(Specification<Department> spec, Pageable pageable) {
+            var cb = em.getCriteriaBuilder();
+
+            // 产生 select d.id from Department d where ... order by ... 查询
+            var query = cb.createQuery(Long.class);
+            var root = query.from(Department.class);
+            query.select(root.<Long>get("id"));
+
+            var predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+
+            var sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+            var typedQuery = em.createQuery(query);
+            if (pageable.isPaged()) {
+                typedQuery.setFirstResult((int) pageable.getOffset());
+                typedQuery.setMaxResults(pageable.getPageSize());
+            }
+
+            // 只有在无法通过当前页的记录数推断出总记录数时, 才执行 count 查询
+            return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageable, () -> count(spec));
+        }
+
+        /**
+         * 查询符合条件的记录总数
+         *
+         * @param spec 查询条件
+         * @return 记录总数
+         */
+        private long count(Specification<Department> spec) {
+            var cb = em.getCriteriaBuilder();
+
+            var query = cb.createQuery(Long.class);
+            var root = query.from(Department.class);
+            query.select(cb.count(root));
+
+            var predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+            return em.createQuery(query).getSingleResult();
+        }
+    }
+}
@@ -20,6 +20,7 @@ import alvin.study.springboot.jpa.builder.Builder;
 import alvin.study.springboot.jpa.builder.OrgBuilder;
 import alvin.study.springboot.jpa.builder.UserBuilder;
 import alvin.study.springboot.jpa.common.ContextSwitcher;
+import alvin.study.springboot.jpa.common.QueryCounter;
 import alvin.study.springboot.jpa.common.TableCleaner;
 import alvin.study.springboot.jpa.common.TestingTransaction;
 import alvin.study.springboot.jpa.common.TestingTransactionManager;
@@ -113,6 +114,16 @@ public abstract class IntegrationTest {
     @Autowired
     private TableCleaner tableCleaner;
 
+    /**
+     * SQL 语句记录对象
+     *
+     * <p>
+     * 每次测试结束后停止记录, 防止某个测试未调用 {@link QueryCounter#stop()} 方法而持续记录后续测试的 SQL 语句
+     * </p>
+     */
+    @Autowired
+    private QueryCounter queryCounter;
+
     /**
      * 预设的测试用当前组织
      *
@@ -182,6 +193,9 @@ public abstract class IntegrationTest {
      */
     @AfterEach
     protected void afterEach() {
+        // 停止记录 SQL 语句
+        queryCounter.stop();
+
         // 关闭 Hibernate 全局查询 Filter
         em.unwrap(Session.class).disableFilter("tenantFilter");
     }
@@ -6,9 +6,12 @@ import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import alvin.study.springboot.jpa.IntegrationTest;
 import alvin.study.springboot.jpa.builder.DepartmentBuilder;
+import alvin.study.springboot.jpa.builder.EmployeeBuilder;
+import alvin.study.springboot.jpa.common.QueryCounter;
 import alvin.study.springboot.jpa.infra.entity.Department;
 
 /**
@@ -19,6 +22,10 @@ class DepartmentServiceTest extends IntegrationTest {
     @Autowired
     private DepartmentService service;
 
+    // 注入 SQL 语句记录对象
+    @Autowired
+    private QueryCounter queryCounter;
+
     /**
      * 测试
      * {@link DepartmentService#searchSubDepartments(String, String, org.springframework.data.domain.Pageable)
@@ -124,4 +131,59 @@ class DepartmentServiceTest extends IntegrationTest {
                 .extracting("name")
                 .startsWith("DEPT-4-2");
     }
+
+    /**
+     * 测试
+     * {@link DepartmentService#searchSubDepartments(String, String, org.springframework.data.domain.Pageable)
+     * DepartmentService.searchSubDepartments(String, String, Pageable)} 方法,
+     * 分页在数据库中完成, 且访问查询结果的关联对象时不会产生 N+1 查询
+     *
+     * <p>
+     * 执行的 SQL 语句应为: 查询当前页 {@code id}, 查询总记录数, 查询部门及子部门, 批量查询部门职员关系, 批量查询职员, 共 5 条
+     * </p>
+     */
+    @Test
+    void searchSubDepartments_shouldNotLoadAssociationsOneByOne() {
+        // 部门名称前缀
+        var namePrefix = "DEPT-";
+
+        // 创建 5 个部门, 每个部门下面创建 10 个子部门和 2 个职员
+        try (var _ = beginTx(false)) {
+            for (var i = 0; i < 5; i++) {
+                var department = newBuilder(DepartmentBuilder.class)
+                        .name(namePrefix + i)
+                        .create();
+
+                for (var j = 0; j < 10; j++) {
+                    var subDepartment = newBuilder(DepartmentBuilder.class)
+                            .name(namePrefix + i + "-" + j)
+                            .create();
+                    department.addSubDepartment(subDepartment);
+                }
+
+                for (var j = 0; j < 2; j++) {
+                    department.addEmployee(newBuilder(EmployeeBuilder.class).create());
+                }
+            }
+        }
+
+        try (var _ = beginTx(true)) {
+            queryCounter.start();
+
+            // 查询第 1 页, 每页 3 条记录
+            var page = service.searchSubDepartments(namePrefix, null, PageRequest.of(0, 3, Sort.by("name")));
+            then(page.getTotalElements()).isEqualTo(5);
+            then(page.getContent()).extracting("name").containsExactly("DEPT-0", "DEPT-1", "DEPT-2");
+
+            // 访问每个部门的子部门和职员
+            for (var department : page.getContent()) {
+                then(department.getChildren()).hasSize(10);
+                then(department.getEmployees()).hasSize(2).allMatch(e -> e.getName() != null);
+            }
+
+            // 确认执行的 SQL 语句数量
+            queryCounter.stop();
+            then(queryCounter.count()).as("statements: %s", queryCounter.statements()).isEqualTo(5);
+        }
+    }
 }
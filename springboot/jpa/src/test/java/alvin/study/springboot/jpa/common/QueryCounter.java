@@ -0,0 +1,80 @@
+package alvin.study.springboot.jpa.common;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 记录 Hibernate 执行的 SQL 语句, 用于在测试中断言查询次数
+ *
+ * <p>
+ * {@link StatementInspector} 接口会在 Hibernate 准备每一条 SQL 语句时被调用, 通过
+ * {@code hibernate.session_factory.statement_inspector} 配置项注册, 参见
+ * {@code TestingConfig.queryCounterCustomizer(QueryCounter)} 方法
+ * </p>
+ *
+ * <p>
+ * 只有在 {@link #start()} 和 {@link #stop()} 方法调用之间执行的 SQL 语句会被记录, 其它测试执行的 SQL 语句只会经过一次判断.
+ * 操作完成后通过 {@link #count()} 方法获取执行的 SQL 数量, 可以发现延迟加载导致的 N+1 查询以及内存分页等问题.
+ * 为便于断言失败时排查, 最多保留前 {@value #MAX_STATEMENTS} 条 SQL 语句
+ * </p>
+ */
+public class QueryCounter implements StatementInspector {
+    // 最多保留的 SQL 语句数量
+    private static final int MAX_STATEMENTS = 100;
+
+    // 记录的 SQL 语句数量
+    private final AtomicInteger count = new AtomicInteger();
+
+    // 记录的 SQL 语句
+    private final Queue<String> statements = new ConcurrentLinkedQueue<>();
+
+    // 是否正在记录
+    private volatile boolean recording;
+
+    @Override
+    public String inspect(String sql) {
+        if (recording && count.incrementAndGet() <= MAX_STATEMENTS) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * 清空已记录的 SQL 语句, 并开始记录
+     */
+    public void start() {
+        recording = false;
+        count.set(0);
+        statements.clear();
+        recording = true;
+    }
+
+    /**
+     * 停止记录, 已记录的内容仍可通过 {@link #count()} 和 {@link #statements()} 方法获取
+     */
+    public void stop() {
+        recording = false;
+    }
+
+    /**
+     * 获取已记录的 SQL 语句数量
+     *
+     * @return SQL 语句数量
+     */
+    public int count() {
+        return count.get();
+    }
+
+    /**
+     * 获取已记录的 SQL 语句, 最多包含前 {@value #MAX_STATEMENTS} 条
+     *
+     * @return SQL 语句集合
+     */
+    public List<String> statements() {
+        return List.copyOf(statements);
+    }
+}
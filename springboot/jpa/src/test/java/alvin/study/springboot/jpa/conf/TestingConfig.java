@@ -1,10 +1,14 @@
 package alvin.study.springboot.jpa.conf;
 
+import org.hibernate.cfg.AvailableSettings;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import alvin.study.springboot.jpa.common.QueryCounter;
 import alvin.study.springboot.jpa.common.TestingTransactionManager;
 
 /**
@@ -40,4 +44,26 @@ public class TestingConfig {
     TestingTransactionManager testingTransactionManager(PlatformTransactionManager txManager) {
         return new TestingTransactionManager(txManager);
     }
+
+    /**
+     * 创建用于记录 SQL 语句的 {@link QueryCounter} 对象
+     *
+     * @return {@link QueryCounter} 对象
+     */
+    @Bean
+    QueryCounter queryCounter() {
+        return new QueryCounter();
+    }
+
+    /**
+     * 将 {@link QueryCounter} 对象注册为 Hibernate 的
+     * {@link org.hibernate.resource.jdbc.spi.StatementInspector StatementInspector}
+     *
+     * @param queryCounter {@link QueryCounter} 对象
+     * @return {@link HibernatePropertiesCustomizer} 对象, 用于修改 Hibernate 配置
+     */
+    @Bean
+    HibernatePropertiesCustomizer queryCounterCustomizer(QueryCounter queryCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCounter);
+    }
 }
@@ -4,6 +4,7 @@ import java.util.List;
 
 import org.mybatis.spring.annotation.MapperScan;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
@@ -19,13 +20,15 @@ import com.baomidou.mybatisplus.extension.incrementer.H2KeyGenerator;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.OptimisticLockerInnerInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
-import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.pagination.dialects.MySqlDialect;
 
+import alvin.study.springboot.mybatis.infra.handler.CachedTenantLineInnerInterceptor;
+import alvin.study.springboot.mybatis.infra.handler.CursorQueryHandler;
 import alvin.study.springboot.mybatis.infra.handler.TenantHandler;
 import alvin.study.springboot.mybatis.infra.mapper.BaseMapper;
 import alvin.study.springboot.mybatis.infra.mapper.method.DeleteAllMethod;
 import alvin.study.springboot.mybatis.infra.mapper.method.InsertAllBatchMethod;
+import alvin.study.springboot.mybatis.infra.mapper.method.SelectCursorMethod;
 
 /**
  * MyBatis 框架相关配置
@@ -62,13 +65,28 @@ public class MyBatisConfig extends DefaultSqlInjector {
         return new H2KeyGenerator();
     }
 
+    /**
+     * 创建租户拦截器, 该拦截器会缓存 SQL 语句的改写结果
+     *
+     * @param tenantHandler 租户处理器对象
+     * @param cacheSize     改写结果缓存的最大条目数
+     * @return {@link CachedTenantLineInnerInterceptor} 对象
+     */
+    @Bean
+    CachedTenantLineInnerInterceptor tenantInterceptor(
+            TenantHandler tenantHandler,
+            @Value("${application.sql-rewrite.cache-size:1000}") long cacheSize) {
+        return new CachedTenantLineInnerInterceptor(tenantHandler, cacheSize);
+    }
+
     /**
      * 开启所需的 Interceptor 拦截器, 从而通过拦截器启动各类功能
      *
+     * @param tenantInterceptor 租户拦截器对象
      * @return {@link MybatisPlusInterceptor} 对象, 表示拦截器集合
      */
     @Bean
-    MybatisPlusInterceptor interceptor(TenantHandler tenantHandler) {
+    MybatisPlusInterceptor interceptor(CachedTenantLineInnerInterceptor tenantInterceptor) {
         var interceptor = new MybatisPlusInterceptor();
 
         // 添加内置拦截器, 用于启动分页控制
@@ -82,13 +100,25 @@ public class MyBatisConfig extends DefaultSqlInjector {
         interceptor.addInnerInterceptor(new OptimisticLockerInnerInterceptor());
 
         // 添加内置拦截器, 用于启动租户控制
-        var tenantInterceptor = new TenantLineInnerInterceptor();
-        tenantInterceptor.setTenantLineHandler(tenantHandler);
         interceptor.addInnerInterceptor(tenantInterceptor);
 
         return interceptor;
     }
 
+    /**
+     * 开启游标查询拦截器, 令 {@link MybatisPlusInterceptor} 中的内置拦截器 (例如租户控制) 对游标查询同样生效
+     *
+     * @param interceptor {@link MybatisPlusInterceptor} 对象
+     * @param fetchSize   游标查询每批从数据库读取的行数
+     * @return {@link CursorQueryHandler} 对象
+     */
+    @Bean
+    CursorQueryHandler cursorQueryHandler(
+            MybatisPlusInterceptor interceptor,
+            @Value("${application.cursor.fetch-size:1000}") int fetchSize) {
+        return new CursorQueryHandler(interceptor, fetchSize);
+    }
+
     /**
      * 通过代码方式对 Mybatis 框架进行配置, 基本功能和 {@code classpath:application.yml} 文件中的
      * {@code mybatis-plus} 配置项相同
@@ -148,6 +178,7 @@ public class MyBatisConfig extends DefaultSqlInjector {
      *
      * @see DeleteAllMethod
      * @see InsertAllBatchMethod
+     * @see SelectCursorMethod
      */
     @Override
     public List<AbstractMethod> getMethodList(
@@ -156,6 +187,7 @@ public class MyBatisConfig extends DefaultSqlInjector {
         var methods = super.getMethodList(configuration, mapperClass, tableInfo);
         methods.add(new DeleteAllMethod());
         methods.add(new InsertAllBatchMethod());
+        methods.add(new SelectCursorMethod());
         return methods;
     }
 }
@@ -0,0 +1,22 @@
+package alvin.study.springboot.mybatis.infra.batch;
+
+import java.time.Duration;
+
+/**
+ * 批量写入的结果
+ *
+ * @param rows    写入的记录数
+ * @param chunks  分组提交的次数
+ * @param elapsed 总耗时
+ */
+public record BatchWriteResult(long rows, int chunks, Duration elapsed) {
+    /**
+     * 计算每秒写入的记录数
+     *
+     * @return 每秒写入的记录数
+     */
+    public double rowsPerSecond() {
+        var nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : rows * 1_000_000_000.0 / nanos;
+    }
+}
@@ -0,0 +1,180 @@
+package alvin.study.springboot.mybatis.infra.batch;
+
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+import alvin.study.springboot.mybatis.infra.mapper.BaseMapper;
+
+/**
+ * 流式批量写入
+ *
+ * <p>
+ * {@link BaseMapper#insertAllBatch(java.util.Collection) BaseMapper.insertAllBatch(Collection)} 方法将整个集合拼装为一条
+ * {@code insert ... values (...), (...)} 语句, 数据量较大时会超出数据库对语句长度和参数数量的限制, 且每种集合长度都会产生不同的
+ * SQL 语句, 无法复用. 本类型则:
+ * <ul>
+ * <li>
+ * 通过 {@link ExecutorType#BATCH} 类型的 {@link SqlSession} 对象, 对每个实体执行 Mapper 的 {@code insert} 方法,
+ * 连续相同的语句只会预编译一次, 参数通过 JDBC 批处理 ({@link java.sql.PreparedStatement#addBatch()}) 发送;
+ * </li>
+ * <li>
+ * 每累积 {@code chunkSize} 个实体提交一次批处理, 实体集合可以是 {@link Iterable} 或 {@link Stream} 对象,
+ * 无需一次性加载到内存中;
+ * </li>
+ * <li>
+ * 提交批处理后, 自增主键已回填到实体对象中, 可通过 {@code onChunk} 参数获取每组已写入的实体
+ * </li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * {@link SqlSession} 对象通过 Spring 管理的事务获取数据库连接, 如果在 {@code @Transactional} 方法中调用,
+ * 则所有写入在同一个事务中完成; 否则每次批处理自动提交
+ * </p>
+ *
+ * <p>
+ * 对于 MySQL 数据库, 需在连接 URL 中添加 {@code rewriteBatchedStatements=true} 参数, 令驱动将批处理改写为多值
+ * {@code insert} 语句, 否则批处理仍会逐条发送
+ * </p>
+ */
+@Slf4j
+@Component
+public class BatchWriter {
+    private final SqlSessionFactory sqlSessionFactory;
+
+    // 每次提交批处理的实体数量
+    private final int chunkSize;
+
+    /**
+     * 构造器
+     *
+     * @param sqlSessionFactory {@link SqlSession} 工厂对象
+     * @param chunkSize         每次提交批处理的实体数量
+     */
+    public BatchWriter(
+            SqlSessionFactory sqlSessionFactory,
+            @Value("${application.batch.chunk-size:1000}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must large than 0");
+        }
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 批量写入实体
+     *
+     * @param <T>        实体类型
+     * @param mapperType Mapper 类型
+     * @param entities   实体集合
+     * @return 写入结果
+     */
+    public <T> BatchWriteResult insert(Class<? extends BaseMapper<T>> mapperType, Iterable<T> entities) {
+        return insert(mapperType, entities, _ -> {});
+    }
+
+    /**
+     * 批量写入实体流, 写入完毕后关闭实体流
+     *
+     * @param <T>        实体类型
+     * @param mapperType Mapper 类型
+     * @param entities   实体流
+     * @param onChunk    每组实体写入后调用, 此时实体的自增主键已回填
+     * @return 写入结果
+     */
+    public <T> BatchWriteResult insert(
+            Class<? extends BaseMapper<T>> mapperType,
+            Stream<T> entities,
+            Consumer<List<T>> onChunk) {
+        try (entities) {
+            return insert(mapperType, entities::iterator, onChunk);
+        }
+    }
+
+    /**
+     * 批量写入实体
+     *
+     * @param <T>        实体类型
+     * @param mapperType Mapper 类型
+     * @param entities   实体集合
+     * @param onChunk    每组实体写入后调用, 此时实体的自增主键已回填
+     * @return 写入结果
+     */
+    public <T> BatchWriteResult insert(
+            Class<? extends BaseMapper<T>> mapperType,
+            Iterable<T> entities,
+            Consumer<List<T>> onChunk) {
+        var start = System.nanoTime();
+
+        var rows = 0L;
+        var chunks = 0;
+        try (var session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            var mapper = session.getMapper(mapperType);
+
+            var chunk = new ArrayList<T>(chunkSize);
+            for (var entity : entities) {
+                mapper.insert(entity);
+                chunk.add(entity);
+
+                if (chunk.size() >= chunkSize) {
+                    rows += flush(session, chunk, onChunk);
+                    chunks++;
+                }
+            }
+            if (!chunk.isEmpty()) {
+                rows += flush(session, chunk, onChunk);
+                chunks++;
+            }
+
+            session.commit();
+        }
+
+        var result = new BatchWriteResult(rows, chunks, Duration.ofNanos(System.nanoTime() - start));
+        log.info("[BATCH] {} rows inserted by {}, chunks={}, elapsed={}ms, rate={} rows/s",
+            result.rows(),
+            mapperType.getSimpleName(),
+            result.chunks(),
+            result.elapsed().toMillis(),
+            Math.round(result.rowsPerSecond()));
+        return result;
+    }
+
+    /**
+     * 提交批处理, 并清空当前分组
+     *
+     * @param <T>     实体类型
+     * @param session {@link SqlSession} 对象
+     * @param chunk   当前分组的实体集合
+     * @param onChunk 分组写入后调用
+     * @return 写入的记录数
+     */
+    private static <T> long flush(SqlSession session, List<T> chunk, Consumer<List<T>> onChunk) {
+        var rows = 0L;
+        for (var result : session.flushStatements()) {
+            for (var count : result.getUpdateCounts()) {
+                // 驱动改写批处理后, 可能无法返回每条语句的影响行数
+                rows += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+            }
+        }
+
+        onChunk.accept(List.copyOf(chunk));
+        chunk.clear();
+
+        // 清空一级缓存, 避免长时间写入时缓存持续增长
+        session.clearCache();
+        return rows;
+    }
+}
@@ -0,0 +1,226 @@
+package alvin.study.springboot.mybatis.infra.handler;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+import com.baomidou.mybatisplus.core.plugins.InterceptorIgnoreHelper;
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import com.baomidou.mybatisplus.extension.plugins.handler.TenantLineHandler;
+import com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.StringValue;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * 缓存改写结果的租户拦截器
+ *
+ * <p>
+ * {@link TenantLineInnerInterceptor} 在每次执行 SQL 语句时都通过 {@code JSqlParser} 解析语句并添加租户条件,
+ * 且租户标识以字面量的形式写入语句中, 所以改写结果无法直接复用, 不同租户执行的语句文本也各不相同. 本类型在改写时以占位符
+ * {@value #PLACEHOLDER} 代替租户标识, 再将占位符替换为 {@code ?} 参数, 作为语句模板缓存在 {@link SqlRewriteCache} 中.
+ * 之后执行相同的语句时, 只需使用模板中的语句, 并在对应位置插入绑定当前租户标识的参数即可, 无需再次解析. 由于租户标识以参数的形式绑定,
+ * 同一条语句对所有租户产生的语句文本相同, 数据库和 JDBC 驱动的预编译语句缓存也可以在租户之间复用
+ * </p>
+ *
+ * <p>
+ * 如果语句不涉及需要租户控制的数据表 (例如只查询 {@code org} 表), 则改写结果和原语句相同, 此时直接返回原语句,
+ * 不做任何处理
+ * </p>
+ *
+ * <p>
+ * 缓存要求 {@link TenantLineHandler#getTenantIdColumn()} 以及 {@link TenantLineHandler#ignoreTable(String)}
+ * 方法的返回值只和数据表有关, 不随执行上下文变化, 只有 {@link TenantLineHandler#getTenantId()} 方法可以返回当前上下文的租户标识,
+ * 且租户标识必须为 {@link LongValue} 或 {@link StringValue} 类型的字面量
+ * </p>
+ */
+public class CachedTenantLineInnerInterceptor extends TenantLineInnerInterceptor {
+    // 改写时代替租户标识的占位符, 同时作为绑定租户标识的附加参数名
+    private static final String PLACEHOLDER = "__tenant_id__";
+
+    // 获取当前租户标识的对象
+    private final TenantLineHandler tenantLineHandler;
+
+    // 语句模板缓存
+    private final SqlRewriteCache<SqlTemplate> cache;
+
+    /**
+     * 构造器
+     *
+     * @param tenantLineHandler 租户处理器对象
+     * @param cacheSize         语句模板缓存的最大条目数
+     */
+    public CachedTenantLineInnerInterceptor(TenantLineHandler tenantLineHandler, long cacheSize) {
+        this.tenantLineHandler = tenantLineHandler;
+        this.cache = new SqlRewriteCache<>(cacheSize);
+
+        // 改写语句时以占位符代替租户标识, 其余设置和原处理器相同
+        super.setTenantLineHandler(new TenantLineHandler() {
+            @Override
+            public Expression getTenantId() { return new Column(PLACEHOLDER); }
+
+            @Override
+            public String getTenantIdColumn() { return tenantLineHandler.getTenantIdColumn(); }
+
+            @Override
+            public boolean ignoreTable(String tableName) {
+                return tenantLineHandler.ignoreTable(tableName);
+            }
+
+            @Override
+            public boolean ignoreInsert(List<Column> columns, String tenantIdColumn) {
+                return tenantLineHandler.ignoreInsert(columns, tenantIdColumn);
+            }
+        });
+    }
+
+    @Override
+    public void beforeQuery(
+            Executor executor,
+            MappedStatement ms,
+            Object parameter,
+            RowBounds rowBounds,
+            ResultHandler resultHandler,
+            BoundSql boundSql) {
+        if (InterceptorIgnoreHelper.willIgnoreTenantLine(ms.getId())) {
+            return;
+        }
+
+        var mpBs = PluginUtils.mpBoundSql(boundSql);
+        var template = cache.get(ms.getId(), mpBs.sql(), sql -> compile(sql, parserSingle(sql, null)));
+        apply(template, mpBs, ms.getConfiguration());
+    }
+
+    @Override
+    public void beforePrepare(StatementHandler sh, Connection connection, Integer transactionTimeout) {
+        var mpSh = PluginUtils.mpStatementHandler(sh);
+        var ms = mpSh.mappedStatement();
+
+        var sct = ms.getSqlCommandType();
+        if (sct != SqlCommandType.INSERT && sct != SqlCommandType.UPDATE && sct != SqlCommandType.DELETE) {
+            return;
+        }
+        if (InterceptorIgnoreHelper.willIgnoreTenantLine(ms.getId())) {
+            return;
+        }
+
+        var mpBs = mpSh.mPBoundSql();
+        var template = cache.get(ms.getId(), mpBs.sql(), sql -> compile(sql, parserMulti(sql, null)));
+        apply(template, mpBs, ms.getConfiguration());
+    }
+
+    /**
+     * 获取语句模板缓存, 用于查看缓存的命中和未命中次数
+     *
+     * @return 语句模板缓存
+     */
+    public SqlRewriteCache<?> getCache() { return cache; }
+
+    /**
+     * 将语句模板应用到要执行的语句上, 并绑定当前租户标识
+     *
+     * @param template      语句模板
+     * @param mpBs          要执行的语句
+     * @param configuration Mybatis 配置对象
+     */
+    private void apply(SqlTemplate template, PluginUtils.MPBoundSql mpBs, Configuration configuration) {
+        if (template.tenantParams().isEmpty()) {
+            // 语句不涉及租户
+            return;
+        }
+
+        var tenantId = tenantId();
+        var tenantMapping = new ParameterMapping.Builder(configuration, PLACEHOLDER, tenantId.getClass()).build();
+
+        // 按参数位置从小到大插入, 每个位置已经计入了之前插入的租户参数
+        var mappings = new ArrayList<>(mpBs.parameterMappings());
+        for (var index : template.tenantParams()) {
+            mappings.add(index, tenantMapping);
+        }
+
+        mpBs.sql(template.sql());
+        mpBs.parameterMappings(mappings);
+        mpBs.additionalParameters().put(PLACEHOLDER, tenantId);
+    }
+
+    /**
+     * 获取当前租户标识的值, 用于绑定到语句的参数上
+     *
+     * @return 租户标识的值
+     */
+    private Object tenantId() {
+        return switch (tenantLineHandler.getTenantId()) {
+            case LongValue value -> value.getValue();
+            case StringValue value -> value.getValue();
+            case Expression value -> throw new IllegalStateException("Unsupported tenant id expression: " + value);
+        };
+    }
+
+    /**
+     * 根据改写后的语句产生语句模板
+     *
+     * <p>
+     * 将改写后语句中的占位符替换为 {@code ?} 参数, 并记录每个租户参数在全部参数中的位置. 引号中的 {@code ?} 不是参数,
+     * 不参与计数
+     * </p>
+     *
+     * @param sql       原语句
+     * @param rewritten 以占位符代替租户标识改写后的语句
+     * @return 语句模板
+     */
+    private static SqlTemplate compile(String sql, String rewritten) {
+        if (sql.contains(PLACEHOLDER)) {
+            throw new IllegalArgumentException("sql must not contain " + PLACEHOLDER);
+        }
+        if (!rewritten.contains(PLACEHOLDER)) {
+            // 改写结果不含租户条件, 直接使用原语句
+            return new SqlTemplate(sql, List.of());
+        }
+
+        var result = new StringBuilder(rewritten.length());
+        var tenantParams = new ArrayList<Integer>();
+        var params = 0;
+        var quote = (char) 0;
+
+        for (var i = 0; i < rewritten.length(); i++) {
+            var c = rewritten.charAt(i);
+            if (quote != 0) {
+                // 引号中的内容原样保留, 连续两个引号相当于先结束再开始, 无需特殊处理
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '?') {
+                params++;
+            } else if (rewritten.startsWith(PLACEHOLDER, i)) {
+                tenantParams.add(params++);
+                result.append('?');
+                i += PLACEHOLDER.length() - 1;
+                continue;
+            }
+            result.append(c);
+        }
+        return new SqlTemplate(result.toString(), List.copyOf(tenantParams));
+    }
+
+    /**
+     * 语句模板
+     *
+     * @param sql          要执行的语句, 租户标识以 {@code ?} 参数代替
+     * @param tenantParams 租户参数在全部参数中的位置, 从小到大排列, 为空表示语句不涉及租户
+     */
+    private record SqlTemplate(String sql, List<Integer> tenantParams) {}
+}
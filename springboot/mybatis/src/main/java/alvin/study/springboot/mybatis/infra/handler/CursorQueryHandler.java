@@ -0,0 +1,126 @@
+package alvin.study.springboot.mybatis.infra.handler;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.RowBounds;
+
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 游标查询拦截器, 拦截 {@link Executor#queryCursor(MappedStatement, Object, RowBounds)} 方法
+ *
+ * <p>
+ * {@link MybatisPlusInterceptor} 只拦截 {@link Executor} 的 {@code query} 和 {@code update} 方法, 并不拦截
+ * {@code queryCursor} 方法, 所以通过游标执行的查询不会经过
+ * {@link com.baomidou.mybatisplus.extension.plugins.inner.TenantLineInnerInterceptor TenantLineInnerInterceptor}
+ * 等内置拦截器的 {@code beforeQuery} 处理, 即查询语句中不会添加租户条件. 该拦截器为游标查询补充这一过程:
+ * <ol>
+ * <li>
+ * 通过 {@link MappedStatement#getBoundSql(Object)} 方法获取查询语句, 并依次调用各内置拦截器的
+ * {@link com.baomidou.mybatisplus.extension.plugins.inner.InnerInterceptor#beforeQuery
+ * InnerInterceptor.beforeQuery} 方法改写该语句;
+ * </li>
+ * <li>
+ * 用改写后的查询语句产生新的 {@link MappedStatement} 对象, 替换原方法的参数后继续执行
+ * </li>
+ * </ol>
+ * </p>
+ *
+ * <p>
+ * 游标查询的意义在于不将整个结果集读入内存, 这需要 JDBC 驱动按批次从数据库获取结果. 如果
+ * {@link MappedStatement} 未通过 {@link org.apache.ibatis.annotations.Options#fetchSize() @Options(fetchSize)}
+ * 设置每批读取的行数, 则使用 {@code fetchSize} 参数设定的值. 注意, MySQL 驱动需要在 URL 中添加
+ * {@code useCursorFetch=true} 参数, 才会按照 {@code fetchSize} 分批读取结果
+ * </p>
+ */
+@RequiredArgsConstructor
+@Intercepts({
+    @Signature(type = Executor.class,
+               method = "queryCursor",
+               args = {
+                   MappedStatement.class,
+                   Object.class,
+                   RowBounds.class }),
+})
+public class CursorQueryHandler implements Interceptor {
+    // MyBatis Plus 拦截器集合, 包含需要对游标查询生效的内置拦截器
+    private final MybatisPlusInterceptor mybatisPlusInterceptor;
+
+    // 游标查询的默认每批读取行数
+    private final int fetchSize;
+
+    /**
+     * 执行拦截方法
+     */
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        var executor = (Executor) invocation.getTarget();
+
+        var args = invocation.getArgs();
+        var mappedStatement = (MappedStatement) args[0];
+        var parameter = args[1];
+        var rowBounds = (RowBounds) args[2];
+
+        // 获取查询语句, 通过各内置拦截器进行改写
+        var boundSql = mappedStatement.getBoundSql(parameter);
+        for (var inner : mybatisPlusInterceptor.getInterceptors()) {
+            inner.beforeQuery(executor, mappedStatement, parameter, rowBounds, Executor.NO_RESULT_HANDLER, boundSql);
+        }
+
+        // 用改写后的 BoundSql 对象 (包含其附加参数) 产生新的 MappedStatement 对象
+        args[0] = newMappedStatement(mappedStatement, _ -> boundSql);
+
+        // 继续执行原方法
+        return invocation.proceed();
+    }
+
+    /**
+     * 根据现有的 {@link MappedStatement} 对象构建一个新的 {@link MappedStatement} 对象
+     *
+     * @param ms           现有的 {@link MappedStatement} 对象
+     * @param newSqlSource 要修改的 SQL 对象
+     * @return 新的 {@link MappedStatement} 对象
+     */
+    private MappedStatement newMappedStatement(MappedStatement ms, SqlSource newSqlSource) {
+        var builder = new MappedStatement.Builder(
+            ms.getConfiguration(),
+            ms.getId(),
+            newSqlSource,
+            ms.getSqlCommandType());
+
+        builder.resource(ms.getResource());
+        builder.fetchSize(ms.getFetchSize() != null ? ms.getFetchSize() : fetchSize);
+        builder.statementType(ms.getStatementType());
+        builder.keyGenerator(ms.getKeyGenerator());
+        builder.timeout(ms.getTimeout());
+        builder.parameterMap(ms.getParameterMap());
+        builder.resultMaps(ms.getResultMaps());
+        builder.resultSetType(ms.getResultSetType());
+        builder.resultOrdered(ms.isResultOrdered());
+        builder.cache(ms.getCache());
+        builder.flushCacheRequired(ms.isFlushCacheRequired());
+        builder.useCache(ms.isUseCache());
+
+        return builder.build();
+    }
+
+    /**
+     * 将当前拦截器包装为插件返回
+     */
+    @Override
+    public Object plugin(Object target) {
+        // 只对符合当前类型 (需要拦截) 的情况进行包装
+        if (target instanceof Executor) {
+            return Plugin.wrap(target, this);
+        }
+        return target;
+    }
+}
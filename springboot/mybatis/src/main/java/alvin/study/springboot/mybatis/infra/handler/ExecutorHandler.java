@@ -13,6 +13,7 @@ import org.apache.ibatis.plugin.Signature;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 
+import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
@@ -88,6 +89,9 @@ import net.sf.jsqlparser.statement.select.PlainSelect;
                    ResultHandler.class }),
 })
 public class ExecutorHandler implements Interceptor {
+    // SQL 语句改写结果缓存
+    private final SqlRewriteCache<String> rewriteCache = new SqlRewriteCache<>(1000);
+
     /**
      * 执行拦截方法
      */
@@ -127,15 +131,13 @@ public class ExecutorHandler implements Interceptor {
         var sql = boundSql.getSql();
         log.info("[ExecutorHandler] Bounded SQL is: {}", sql);
 
-        // 解析 SQL 语句并进行修改
-        var statement = CCJSqlParserUtil.parse(sql);
-        var selectBody = ((PlainSelect) statement).getSelectItems();
-        log.info("[ExecutorHandler] Select Body is: {}", selectBody);
+        // 解析 SQL 语句并进行修改, 同一条语句只需解析一次
+        var newSql = rewriteCache.get(mappedStatement.getId(), sql, this::rewrite);
 
         // 用新的 SQL 语句产生新的 BoundSql 对象
         var newBoundSql = new BoundSql(
             mappedStatement.getConfiguration(),
-            statement.toString(),
+            newSql,
             boundSql.getParameterMappings(),
             boundSql.getParameterObject());
 
@@ -162,6 +164,24 @@ public class ExecutorHandler implements Interceptor {
         return invocation.proceed();
     }
 
+    /**
+     * 解析 SQL 语句并进行修改
+     *
+     * <p>
+     * 该方法只在 {@link #rewriteCache} 缓存未命中时执行
+     * </p>
+     *
+     * @param sql 原 SQL 语句
+     * @return 修改后的 SQL 语句
+     */
+    @SneakyThrows
+    private String rewrite(String sql) {
+        var statement = CCJSqlParserUtil.parse(sql);
+        var selectBody = ((PlainSelect) statement).getSelectItems();
+        log.info("[ExecutorHandler] Select Body is: {}", selectBody);
+        return statement.toString();
+    }
+
     /**
      * 根据现有的 {@link MappedStatement} 对象构建一个新的 {@link MappedStatement} 对象
      *
@@ -0,0 +1,100 @@
+package alvin.study.springboot.mybatis.infra.handler;
+
+import java.util.function.Function;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * SQL 改写结果缓存
+ *
+ * <p>
+ * 通过 {@code JSqlParser} 改写 SQL 语句时, 解析和重新生成 SQL 语句的开销远大于语句的执行准备开销, 而同一个
+ * {@link org.apache.ibatis.mapping.MappedStatement MappedStatement} 产生的 SQL 语句文本通常是有限的几种
+ * (参数通过 {@code ?} 占位符绑定, 不体现在语句文本中), 所以可以缓存改写结果, 令每条语句只需解析一次
+ * </p>
+ *
+ * <p>
+ * 缓存的 Key 由 {@link org.apache.ibatis.mapping.MappedStatement#getId() MappedStatement.getId()} 和原 SQL
+ * 语句文本组成, 缓存的最大条目数有限, 超出时淘汰最近最少使用的条目. 可通过 {@link #stats()} 方法获取缓存的命中和未命中次数
+ * </p>
+ *
+ * @param <V> 改写结果类型
+ */
+public class SqlRewriteCache<V> {
+    // 改写结果缓存
+    private final Cache<Key, V> cache;
+
+    /**
+     * 构造器
+     *
+     * @param maximumSize 缓存的最大条目数
+     */
+    public SqlRewriteCache(long maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must large than 0");
+        }
+
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 获取 SQL 语句的改写结果, 缓存未命中时执行改写并缓存其结果
+     *
+     * <p>
+     * 并发执行同一条语句时, 改写过程可能执行多次, 但结果相同, 无需加锁
+     * </p>
+     *
+     * @param statementId {@link org.apache.ibatis.mapping.MappedStatement MappedStatement} 的 id
+     * @param sql         原 SQL 语句
+     * @param rewriter    改写 SQL 语句的方法
+     * @return 改写结果
+     */
+    public V get(String statementId, String sql, Function<String, V> rewriter) {
+        var key = new Key(statementId, sql);
+
+        var value = cache.getIfPresent(key);
+        if (value == null) {
+            value = rewriter.apply(sql);
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 获取缓存的统计信息, 包括命中次数, 未命中次数以及淘汰次数等
+     *
+     * @return 缓存统计信息
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * 获取当前缓存的条目数
+     *
+     * @return 缓存条目数
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 缓存的 Key
+     *
+     * @param statementId {@link org.apache.ibatis.mapping.MappedStatement MappedStatement} 的 id
+     * @param sql         原 SQL 语句
+     */
+    private record Key(String statementId, String sql) {}
+}
@@ -3,6 +3,10 @@ package alvin.study.springboot.mybatis.infra.mapper;
 import java.util.Collection;
 
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 
 /**
  * 定义通用的 {@link org.apache.ibatis.annotations.Mapper} 接口
@@ -22,4 +26,20 @@ public interface BaseMapper<T> extends com.baomidou.mybatisplus.core.mapper.Base
      * @return 插入记录数
      */
     Integer insertAllBatch(@Param("list") Collection<T> entities);
+
+    /**
+     * 根据条件查询记录, 以游标方式返回结果
+     *
+     * <p>
+     * 返回的 {@link Cursor} 对象在遍历时逐行读取结果, 只有在所属的
+     * {@link org.apache.ibatis.session.SqlSession SqlSession} 未关闭时才能使用, 所以不应直接通过注入的 Mapper 对象调用,
+     * 而应通过 {@link alvin.study.springboot.mybatis.util.db.SqlSessionManager#stream(Class, java.util.function.Function)
+     * SqlSessionManager.stream(Class, Function)} 方法调用
+     * </p>
+     *
+     * @param queryWrapper 查询条件, 为 {@code null} 表示查询全部记录
+     * @return 查询结果游标
+     * @see alvin.study.springboot.mybatis.infra.mapper.method.SelectCursorMethod SelectCursorMethod
+     */
+    Cursor<T> selectCursor(@Param(Constants.WRAPPER) Wrapper<T> queryWrapper);
 }
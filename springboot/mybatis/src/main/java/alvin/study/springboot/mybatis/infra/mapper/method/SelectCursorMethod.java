@@ -0,0 +1,42 @@
+package alvin.study.springboot.mybatis.infra.mapper.method;
+
+import com.baomidou.mybatisplus.core.injector.methods.SelectList;
+
+import alvin.study.springboot.mybatis.conf.MyBatisConfig;
+import alvin.study.springboot.mybatis.infra.mapper.BaseMapper;
+
+/**
+ * 定义 {@code selectCursor} 方法
+ *
+ * <p>
+ * 该方法的 SQL 模板和 {@link com.baomidou.mybatisplus.core.mapper.BaseMapper#selectList(com.baomidou.mybatisplus.core.conditions.Wrapper)
+ * BaseMapper.selectList(Wrapper)} 方法完全相同, 区别在于 Mapper 方法的返回值为
+ * {@link org.apache.ibatis.cursor.Cursor Cursor} 类型, MyBatis 会通过
+ * {@link org.apache.ibatis.session.SqlSession#selectCursor(String, Object) SqlSession.selectCursor(String, Object)}
+ * 方法执行查询, 在遍历结果时逐行读取和映射, 而不是将整个结果集一次性读入内存
+ * </p>
+ *
+ * <p>
+ * 通用方法的定义方式参考 {@link DeleteAllMethod} 类型, 该方法通过
+ * {@link MyBatisConfig#getMethodList(org.apache.ibatis.session.Configuration, Class, com.baomidou.mybatisplus.core.metadata.TableInfo)
+ * MyBatisConfig.getMethodList(Configuration, Class, TableInfo)} 方法注入, 并声明在
+ * {@link BaseMapper#selectCursor(com.baomidou.mybatisplus.core.conditions.Wrapper)
+ * BaseMapper.selectCursor(Wrapper)} 方法中
+ * </p>
+ */
+public class SelectCursorMethod extends SelectList {
+    /**
+     * 方法名, 必须和 {@link BaseMapper BaseMapper} 中添加的方法同名
+     *
+     * @see BaseMapper#selectCursor(com.baomidou.mybatisplus.core.conditions.Wrapper)
+     *      BaseMapper.selectCursor(Wrapper)
+     */
+    private static final String METHOD_ID = "selectCursor";
+
+    /**
+     * 构造器, 传入方法名称, 沿用 {@link SelectList} 类型生成的 SQL 模板
+     */
+    public SelectCursorMethod() {
+        super(METHOD_ID);
+    }
+}
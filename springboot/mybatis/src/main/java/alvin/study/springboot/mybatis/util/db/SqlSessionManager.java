@@ -1,7 +1,13 @@
 package alvin.study.springboot.mybatis.util.db;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Connection;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.session.SqlSession;
 import org.mybatis.spring.SqlSessionTemplate;
 import org.mybatis.spring.SqlSessionUtils;
@@ -61,6 +67,80 @@ public class SqlSessionManager {
         return new SqlSessionHolder(sqlSession);
     }
 
+    /**
+     * 通过 Mapper 对象执行游标查询, 返回逐行读取结果的 {@link Stream} 对象
+     *
+     * <p>
+     * 通过 {@link SqlSessionTemplate} 代理的 Mapper 对象在事务之外执行查询后会立即关闭 {@link SqlSession} 对象,
+     * 返回的 {@link Cursor} 对象随之失效. 本方法获取一个 {@link SqlSession} 对象, 通过该对象产生的 Mapper
+     * 对象执行查询, 并在返回的 {@link Stream} 对象关闭时依次关闭 {@link Cursor} 对象以及 {@link SqlSession} 对象,
+     * 所以返回的 {@link Stream} 对象必须在 {@code try-with-resources} 语句中使用, 例如:
+     *
+     * <pre>
+     * try (var departments = sqlSessionManager.stream(DepartmentMapper.class, m -&gt; m.selectCursor(null))) {
+     *     departments.forEach(exporter::write);
+     * }
+     * </pre>
+     * </p>
+     *
+     * @param <M>        Mapper 类型
+     * @param <T>        查询结果类型
+     * @param mapperType Mapper 类型的 {@link Class} 对象
+     * @param query      通过 Mapper 对象执行游标查询, 例如
+     *                   {@link alvin.study.springboot.mybatis.infra.mapper.BaseMapper#selectCursor(com.baomidou.mybatisplus.core.conditions.Wrapper)
+     *                   BaseMapper.selectCursor(Wrapper)} 方法
+     * @return 查询结果的 {@link Stream} 对象
+     */
+    public <M, T> Stream<T> stream(Class<M> mapperType, Function<M, Cursor<T>> query) {
+        var holder = build();
+        try {
+            return toStream(query.apply(holder.getSqlSession().getMapper(mapperType)), holder);
+        } catch (RuntimeException e) {
+            holder.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 根据语句标识执行游标查询, 返回逐行读取结果的 {@link Stream} 对象
+     *
+     * <p>
+     * 返回的 {@link Stream} 对象的使用方式参考 {@link #stream(Class, Function)} 方法
+     * </p>
+     *
+     * @param <T>       查询结果类型
+     * @param statement 语句标识, 即 Mapper 类型全名加方法名
+     * @param parameter 查询参数
+     * @return 查询结果的 {@link Stream} 对象
+     */
+    public <T> Stream<T> stream(String statement, Object parameter) {
+        var holder = build();
+        try {
+            return toStream(holder.getSqlSession().<T>selectCursor(statement, parameter), holder);
+        } catch (RuntimeException e) {
+            holder.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 将 {@link Cursor} 对象包装为 {@link Stream} 对象
+     *
+     * @param <T>    查询结果类型
+     * @param cursor 游标对象
+     * @param holder 游标所属的 {@link SqlSessionHolder} 对象, 在 {@link Stream} 对象关闭时关闭
+     * @return 查询结果的 {@link Stream} 对象
+     */
+    private static <T> Stream<T> toStream(Cursor<T> cursor, SqlSessionHolder holder) {
+        return StreamSupport.stream(cursor.spliterator(), false).onClose(() -> {
+            try (holder) {
+                cursor.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     /**
      * 持有 {@link SqlSession} 对象的类型
      *
@@ -0,0 +1,65 @@
+package alvin.study.springboot.mybatis.infra.batch;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import org.junit.jupiter.api.Test;
+
+import alvin.study.springboot.mybatis.IntegrationTest;
+import alvin.study.springboot.mybatis.builder.UserBuilder;
+import alvin.study.springboot.mybatis.infra.entity.User;
+import alvin.study.springboot.mybatis.infra.mapper.UserMapper;
+
+/**
+ * 测试 {@link BatchWriter} 类型
+ */
+class BatchWriterTest extends IntegrationTest {
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private UserMapper mapper;
+
+    /**
+     * 测试 {@link BatchWriter#insert(Class, java.util.stream.Stream, java.util.function.Consumer)} 方法
+     *
+     * <p>
+     * 每组 10 个实体, 25 个实体分 3 组写入, 写入后实体的自增主键已回填
+     * </p>
+     */
+    @Test
+    @Transactional
+    void insert_shouldInsertStreamInChunks() {
+        var writer = new BatchWriter(sqlSessionFactory, 10);
+
+        var chunkSizes = new ArrayList<Integer>();
+        var inserted = new ArrayList<User>();
+
+        var result = writer.insert(
+            UserMapper.class,
+            IntStream.range(0, 25).mapToObj(_ -> newBuilder(UserBuilder.class).build()),
+            chunk -> {
+                chunkSizes.add(chunk.size());
+                inserted.addAll(chunk);
+            });
+
+        then(result.rows()).isEqualTo(25);
+        then(result.chunks()).isEqualTo(3);
+        then(chunkSizes).containsExactly(10, 10, 5);
+
+        // 确认自增主键已回填
+        then(inserted).extracting(User::getId).doesNotContainNull().doesNotHaveDuplicates();
+
+        clearSessionCache();
+
+        // 确认批量持久化正确
+        then(mapper.selectByIds(inserted.stream().map(User::getId).toList())).hasSize(25);
+    }
+}
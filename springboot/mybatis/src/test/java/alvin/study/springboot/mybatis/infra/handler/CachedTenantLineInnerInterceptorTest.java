@@ -0,0 +1,86 @@
+package alvin.study.springboot.mybatis.infra.handler;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import org.junit.jupiter.api.Test;
+
+import alvin.study.springboot.mybatis.IntegrationTest;
+import alvin.study.springboot.mybatis.builder.DepartmentBuilder;
+import alvin.study.springboot.mybatis.builder.OrgBuilder;
+import alvin.study.springboot.mybatis.infra.entity.Department;
+import alvin.study.springboot.mybatis.infra.mapper.DepartmentMapper;
+
+/**
+ * 测试 {@link CachedTenantLineInnerInterceptor} 类型
+ */
+class CachedTenantLineInnerInterceptorTest extends IntegrationTest {
+    // 注入租户拦截器对象
+    @Autowired
+    private CachedTenantLineInnerInterceptor interceptor;
+
+    // 注入 Mapper 对象
+    @Autowired
+    private DepartmentMapper mapper;
+
+    /**
+     * 测试相同的查询语句只改写一次, 且每次执行时填入当前上下文的租户标识
+     */
+    @Test
+    @Transactional
+    void beforeQuery_shouldReuseRewrittenSqlForEachTenant() {
+        // 在另一个组织下创建部门实体
+        var otherOrg = newBuilder(OrgBuilder.class).create();
+        Department otherDepartment;
+        try (var _ = switchContext(otherOrg, currentUser())) {
+            otherDepartment = newBuilder(DepartmentBuilder.class).create();
+        }
+
+        // 在当前组织下创建部门实体
+        var department = newBuilder(DepartmentBuilder.class).create();
+
+        clearSessionCache();
+        interceptor.getCache().invalidateAll();
+        var before = interceptor.getCache().stats();
+
+        // 在当前组织下查询, 改写语句并缓存
+        then(mapper.selectList(null)).extracting("id").containsExactly(department.getId());
+
+        // 在另一个组织下执行相同的查询, 复用缓存的语句模板
+        clearSessionCache();
+        try (var _ = switchContext(otherOrg, currentUser())) {
+            then(mapper.selectList(null)).extracting("id").containsExactly(otherDepartment.getId());
+        }
+
+        var stats = interceptor.getCache().stats().minus(before);
+        then(stats.missCount()).isEqualTo(1);
+        then(stats.hitCount()).isEqualTo(1);
+    }
+
+    /**
+     * 测试修改语句中的租户标识以参数形式绑定, 且和语句原有的参数位置正确对应
+     */
+    @Test
+    @Transactional
+    void beforePrepare_shouldBindTenantIdAsParameter() {
+        var otherOrg = newBuilder(OrgBuilder.class).create();
+        var department = newBuilder(DepartmentBuilder.class).create();
+
+        clearSessionCache();
+        interceptor.getCache().invalidateAll();
+
+        // 在另一个组织下删除当前组织的部门, 租户条件不满足, 不删除任何记录
+        try (var _ = switchContext(otherOrg, currentUser())) {
+            then(mapper.deleteById(department.getId())).isZero();
+        }
+
+        // 在当前组织下删除, 复用缓存的语句模板, 绑定当前组织的租户标识
+        then(mapper.deleteById(department.getId())).isEqualTo(1);
+        then(interceptor.getCache().stats().hitCount()).isPositive();
+
+        clearSessionCache();
+        then(mapper.selectById(department.getId())).isNull();
+    }
+}
@@ -16,8 +16,10 @@ import alvin.study.springboot.mybatis.IntegrationTest;
 import alvin.study.springboot.mybatis.builder.DepartmentBuilder;
 import alvin.study.springboot.mybatis.builder.DepartmentEmployeeBuilder;
 import alvin.study.springboot.mybatis.builder.EmployeeBuilder;
+import alvin.study.springboot.mybatis.builder.OrgBuilder;
 import alvin.study.springboot.mybatis.infra.entity.Department;
 import alvin.study.springboot.mybatis.infra.entity.Employee;
+import alvin.study.springboot.mybatis.util.db.SqlSessionManager;
 
 /**
  * 测试 {@link DepartmentMapper} 类型
@@ -31,6 +33,10 @@ class DepartmentMapperTest extends IntegrationTest {
     @Autowired
     private ModelMapper modelMapper;
 
+    // 注入 SqlSession 对象管理器
+    @Autowired
+    private SqlSessionManager sqlSessionManager;
+
     /**
      * 测试 {@link DepartmentMapper#selectByNameWithParentAndChildren(String)} 方法,
      * 查询部门和部门的上下级部门
@@ -212,4 +218,35 @@ class DepartmentMapperTest extends IntegrationTest {
         // 确认获取的对象正确
         then(departments).extracting("id").containsExactly(department1.getId(), department2.getId());
     }
+
+    /**
+     * 测试 {@link DepartmentMapper#selectCursor(com.baomidou.mybatisplus.core.conditions.Wrapper)} 方法,
+     * 通过 {@link SqlSessionManager#stream(Class, java.util.function.Function)} 方法以流的方式读取查询结果
+     *
+     * <p>
+     * 游标查询同样会添加租户条件, 只返回当前组织的部门
+     * </p>
+     */
+    @Test
+    @Transactional
+    void selectCursor_shouldStreamDepartmentsOfCurrentOrg() {
+        // 在另一个组织下创建部门实体
+        var otherOrg = newBuilder(OrgBuilder.class).create();
+        try (var _ = switchContext(otherOrg, currentUser())) {
+            newBuilder(DepartmentBuilder.class).create();
+        }
+
+        // 在当前组织下创建部门实体
+        var department1 = newBuilder(DepartmentBuilder.class).create();
+        var department2 = newBuilder(DepartmentBuilder.class).create();
+        var department3 = newBuilder(DepartmentBuilder.class).create();
+
+        clearSessionCache();
+
+        // 通过游标查询部门实体, 流关闭时释放游标
+        try (var departments = sqlSessionManager.stream(DepartmentMapper.class, m -> m.selectCursor(null))) {
+            then(departments.map(Department::getId).toList())
+                    .containsExactlyInAnyOrder(department1.getId(), department2.getId(), department3.getId());
+        }
+    }
 }